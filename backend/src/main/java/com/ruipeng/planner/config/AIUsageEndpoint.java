@@ -0,0 +1,43 @@
+package com.ruipeng.planner.config;
+
+import com.ruipeng.planner.dto.AIUsageDto;
+import com.ruipeng.planner.service.AIUsageMetrics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for AI capacity planning: {@code GET /actuator/aiusage} for the summary and
+ * {@code GET /actuator/aiusage/{userId}} for one user's totals. Expose it with
+ * {@code management.endpoints.web.exposure.include=health,metrics,aiusage}.
+ */
+@Component
+@Endpoint(id = "aiusage")
+public class AIUsageEndpoint {
+    private static final int TOP_USERS = 20;
+
+    private final AIUsageMetrics aiUsageMetrics;
+
+    public AIUsageEndpoint(AIUsageMetrics aiUsageMetrics) {
+        this.aiUsageMetrics = aiUsageMetrics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> usage() {
+        return aiUsageMetrics.summary(TOP_USERS);
+    }
+
+    @ReadOperation
+    public AIUsageDto userUsage(@Selector Long userId) {
+        return aiUsageMetrics.getUserUsage(userId);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        aiUsageMetrics.reset();
+    }
+}
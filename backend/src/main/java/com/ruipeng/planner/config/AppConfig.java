@@ -1,9 +1,13 @@
 package com.ruipeng.planner.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class AppConfig {
 
@@ -12,4 +16,84 @@ public class AppConfig {
 
         return new RestTemplate();
     }
+
+    // AI 调用专用线程池，请求线程只等待有限的时间
+    @Bean
+    public ThreadPoolTaskExecutor aiTaskExecutor(
+            @Value("${google.ai.executor.pool-size:16}") int poolSize,
+            @Value("${google.ai.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // 批量重新生成任务的运行线程，同一时间只运行一个任务
+    @Bean
+    public ThreadPoolTaskExecutor planJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("plan-job-");
+        return executor;
+    }
+
+    // 批量导出渲染线程池；队列满时由导出线程自己渲染，形成反压
+    @Bean
+    public ThreadPoolTaskExecutor planExportExecutor(
+            @Value("${plans.export.pool-size:4}") int poolSize,
+            @Value("${plans.export.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("plan-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // PDF 预渲染：单线程、低优先级，队列满时丢弃（下载时仍会按需渲染）
+    @Bean
+    public ThreadPoolTaskExecutor pdfPrerenderExecutor(
+            @Value("${pdf.prerender.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-prerender-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    // 批量导入任务的运行线程，同一时间只运行一个导入
+    @Bean
+    public ThreadPoolTaskExecutor importJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("import-job-");
+        return executor;
+    }
+
+    // 批量导入的密码哈希（BCrypt 是 CPU 密集型）：默认每核一个线程；队列满时由导入线程自己计算，形成反压
+    @Bean
+    public ThreadPoolTaskExecutor importHashExecutor(
+            @Value("${onboarding.import.hash-pool-size:0}") int poolSize,
+            @Value("${onboarding.import.hash-queue-capacity:2000}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
 }
@@ -0,0 +1,98 @@
+package com.ruipeng.planner.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for read-mostly data: advisors with their specialties and
+ * languages, and users. Each region is a bounded in-process Caffeine cache (through JCache) of
+ * at most {@code app.entity-cache.max-entries} entries that expire {@code app.entity-cache.ttl}
+ * after being written. Changes made through JPA update the cache on commit.
+ *
+ * <p>Publishes {@code hibernate.cache.requests} (hit/miss) and {@code hibernate.cache.hit.ratio}
+ * per region.
+ */
+@Configuration
+public class EntityCacheConfig {
+    public static final String ADVISOR_REGION = "advisors";
+    public static final String ADVISOR_SPECIALTIES_REGION = "advisors.specialties";
+    public static final String ADVISOR_LANGUAGES_REGION = "advisors.languages";
+    public static final String USER_REGION = "users";
+    private static final List<String> REGIONS =
+            List.of(ADVISOR_REGION, ADVISOR_SPECIALTIES_REGION, ADVISOR_LANGUAGES_REGION, USER_REGION);
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCache(@Value("${app.entity-cache.max-entries:10000}") long maxEntries,
+                                                     @Value("${app.entity-cache.ttl:10m}") Duration ttl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        for (String region : REGIONS) {
+            // 同一 JVM 中可能有上一个上下文留下的同名缓存（例如测试）
+            if (cacheManager.getCache(region) != null) {
+                cacheManager.destroyCache(region);
+            }
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            // Hibernate 缓存的是已拆解的状态，不需要再按值复制
+            configuration.setStoreByValue(false);
+            cacheManager.createCache(region, configuration);
+        }
+
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            // 命中率来自 Hibernate 统计；关闭每个会话结束时的统计日志
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : REGIONS) {
+                FunctionCounter.builder("hibernate.cache.requests", statistics,
+                                s -> s.getDomainDataRegionStatistics(region).getHitCount())
+                        .tags("region", region, "result", "hit")
+                        .description("Second-level cache lookups")
+                        .register(registry);
+                FunctionCounter.builder("hibernate.cache.requests", statistics,
+                                s -> s.getDomainDataRegionStatistics(region).getMissCount())
+                        .tags("region", region, "result", "miss")
+                        .description("Second-level cache lookups")
+                        .register(registry);
+                Gauge.builder("hibernate.cache.hit.ratio", statistics, s -> hitRatio(s.getDomainDataRegionStatistics(region)))
+                        .tag("region", region)
+                        .description("Share of second-level cache lookups served from the cache")
+                        .register(registry);
+            }
+        };
+    }
+
+    static double hitRatio(CacheRegionStatistics region) {
+        long lookups = region.getHitCount() + region.getMissCount();
+        return lookups == 0 ? 0.0 : (double) region.getHitCount() / lookups;
+    }
+}
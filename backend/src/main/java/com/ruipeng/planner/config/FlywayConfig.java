@@ -0,0 +1,26 @@
+package com.ruipeng.planner.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The schema is owned by the Flyway scripts in {@code db/migration}; Hibernate no longer
+ * creates or alters tables.
+ */
+@Configuration
+public class FlywayConfig {
+
+    // 已有数据库由 Hibernate 自动建表，表结构等同 V1：记为基线后只执行 V2 及之后的脚本
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration.baselineOnMigrate(true).baselineVersion("1");
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer disableHibernateSchemaUpdates() {
+        return properties -> properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+    }
+}
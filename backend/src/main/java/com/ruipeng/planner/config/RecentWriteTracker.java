@@ -0,0 +1,55 @@
+package com.ruipeng.planner.config;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers who committed a write recently, so that their reads stay on the primary until the
+ * replica has had {@code maxStaleness} to catch up. Callers are told apart by the authenticated
+ * user, or by thread for anonymous requests and background jobs.
+ */
+public class RecentWriteTracker implements TransactionExecutionListener {
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long maxStalenessNanos;
+
+    public RecentWriteTracker(Duration maxStaleness) {
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || maxStalenessNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        // 过期记录只在表变大时清理，写入路径上不做额外工作
+        if (lastWrites.size() > PURGE_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt > maxStalenessNanos);
+        }
+        lastWrites.put(callerKey(), now);
+    }
+
+    public boolean wroteRecently() {
+        Long writtenAt = lastWrites.get(callerKey());
+        return writtenAt != null && System.nanoTime() - writtenAt <= maxStalenessNanos;
+    }
+
+    private static String callerKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "thread:" + Thread.currentThread().getName();
+    }
+}
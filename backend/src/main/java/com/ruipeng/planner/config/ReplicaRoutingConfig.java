@@ -0,0 +1,91 @@
+package com.ruipeng.planner.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.ConfigurableTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+/**
+ * Sends read-only transactions to a replica when {@code app.datasource.replica.url} is set.
+ *
+ * <p>{@code spring.datasource.*} stays the primary and receives every read-write transaction,
+ * Flyway and all non-transactional work. A transaction marked {@code readOnly = true} gets its
+ * connection from the replica ({@code app.datasource.replica.*}, pool settings under
+ * {@code app.datasource.replica.hikari.*}), unless the same caller committed a write less than
+ * {@code app.datasource.replica.max-staleness} ago (default 2s, 0 turns this off).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+        return pool(properties, "spring.datasource.hikari", environment, "primary");
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment) {
+        DataSourceProperties properties = Binder.get(environment)
+                .bind("app.datasource.replica", DataSourceProperties.class)
+                .get();
+        HikariDataSource replica = pool(properties, "app.datasource.replica.hikari", environment, "replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public RecentWriteTracker recentWriteTracker(
+            @Value("${app.datasource.replica.max-staleness:2s}") Duration maxStaleness) {
+        return new RecentWriteTracker(maxStaleness);
+    }
+
+    // 连接在第一条语句时才获取，此时已知事务是否只读，由此决定走主库还是从库
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 RecentWriteTracker recentWriteTracker) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(primaryDataSource);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, recentWriteTracker));
+        // 显式给出默认值，启动时不必先连一次数据库探测
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    public SmartInitializingSingleton recentWriteTrackerRegistration(
+            ObjectProvider<ConfigurableTransactionManager> transactionManagers,
+            RecentWriteTracker recentWriteTracker) {
+        return () -> transactionManagers.orderedStream()
+                .filter(manager -> !manager.getTransactionExecutionListeners().contains(recentWriteTracker))
+                .forEach(manager -> manager.addListener(recentWriteTracker));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String hikariPrefix,
+                                         Environment environment, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(hikariPrefix, Bindable.ofInstance(pool));
+        if (pool.getPoolName() == null) {
+            pool.setPoolName(name);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ruipeng.planner.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Serves connections for read-only transactions: the replica, unless the caller wrote within the
+ * staleness window and has to read its own writes from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private final RecentWriteTracker recentWriteTracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, RecentWriteTracker recentWriteTracker) {
+        this.recentWriteTracker = recentWriteTracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(replica);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return recentWriteTracker.wroteRecently() ? Target.PRIMARY : Target.REPLICA;
+    }
+}
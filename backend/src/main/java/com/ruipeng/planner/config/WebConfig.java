@@ -0,0 +1,19 @@
+package com.ruipeng.planner.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // 流式下载（PDF、批量导出 ZIP）走异步请求，容器默认的 30 秒超时不够导出数百份计划
+    @Value("${web.async.request-timeout-ms:600000}")
+    private long asyncRequestTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+    }
+}
@@ -7,46 +7,64 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.List;
 
+/**
+ * Issues and parses JWTs. Tokens carry the user id and role next to the email, so a request
+ * can be authenticated from the token alone. The signing key and parser are built once; the
+ * parser is immutable and shared by all request threads.
+ */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    private static final String ROLE_PREFIX = "ROLE_";
 
-    @Value("${jwt.expirationMs}")
-    private int jwtExpirationMs;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final int jwtExpirationMs;
+
+    public JwtUtils(@Value("${jwt.secret}") String jwtSecret,
+                    @Value("${jwt.expirationMs}") int jwtExpirationMs) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.jwtExpirationMs = jwtExpirationMs;
+    }
 
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        Date now = new Date();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
-    }
-
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
-
-    public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationMs));
+        for (GrantedAuthority authority : userPrincipal.getAuthorities()) {
+            if (authority.getAuthority().startsWith(ROLE_PREFIX)) {
+                builder.claim(ROLE_CLAIM, authority.getAuthority().substring(ROLE_PREFIX.length()));
+                break;
+            }
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS256).compact();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the signature and expiry and returns the claims, or {@code null} if the token
+     * is not valid. Parse a request's token once and reuse the claims.
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -55,9 +73,33 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * The principal described by the claims, without a database lookup. Returns {@code null}
+     * for tokens issued before the id and role claims were added.
+     */
+    public UserDetailsImpl buildUserDetails(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || !StringUtils.hasText(role)) {
+            return null;
+        }
+        return new UserDetailsImpl(userId, claims.getSubject(), null,
+                List.of(new SimpleGrantedAuthority(ROLE_PREFIX + role)));
+    }
+
+    public String getUsernameFromJwtToken(String token) {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 
     public String parseJwt(HttpServletRequest request) {
@@ -82,6 +82,7 @@ public class SecurityConfig {
                                 .requestMatchers("/api/public/**").permitAll()
                                 .requestMatchers("/error").permitAll()
                                 .requestMatchers("/api/stripe/webhook").permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .requestMatchers("/**").permitAll()
                 );
 
@@ -0,0 +1,75 @@
+package com.ruipeng.planner.controller;
+
+import com.ruipeng.planner.dto.AdmissionLimitsDto;
+import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.dto.PlanRegenerationRequest;
+import com.ruipeng.planner.dto.PlanRegenerationStatusDto;
+import com.ruipeng.planner.service.ModelAdmissionService;
+import com.ruipeng.planner.service.PlanRegenerationService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/ai")
+@PreAuthorize("hasRole('ADMIN')")
+public class AIAdminController {
+    private final ModelAdmissionService modelAdmissionService;
+    private final PlanRegenerationService planRegenerationService;
+
+    @Autowired
+    public AIAdminController(ModelAdmissionService modelAdmissionService,
+                             PlanRegenerationService planRegenerationService) {
+        this.modelAdmissionService = modelAdmissionService;
+        this.planRegenerationService = planRegenerationService;
+    }
+
+    @GetMapping("/admission")
+    public ResponseEntity<AdmissionLimitsDto> getAdmissionLimits() {
+        return ResponseEntity.ok(modelAdmissionService.getLimits());
+    }
+
+    @PutMapping("/admission")
+    public ResponseEntity<AdmissionLimitsDto> updateAdmissionLimits(@Valid @RequestBody AdmissionLimitsDto limits) {
+        modelAdmissionService.updateLimits(limits);
+        return ResponseEntity.ok(modelAdmissionService.getLimits());
+    }
+
+    @PostMapping("/regenerations")
+    public ResponseEntity<?> startRegeneration(@Valid @RequestBody PlanRegenerationRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(planRegenerationService.startJob(request));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/regenerations")
+    public ResponseEntity<List<PlanRegenerationStatusDto>> getRegenerations() {
+        return ResponseEntity.ok(planRegenerationService.getAllJobs());
+    }
+
+    @GetMapping("/regenerations/{id}")
+    public ResponseEntity<?> getRegeneration(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(planRegenerationService.getJobStatus(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/regenerations/{id}/cancel")
+    public ResponseEntity<?> cancelRegeneration(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(planRegenerationService.cancelJob(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,21 +1,28 @@
 package com.ruipeng.planner.controller;
 
 
+import com.ruipeng.planner.dto.AdvisorDirectoryPage;
 import com.ruipeng.planner.dto.AdvisorProfileDto;
 import com.ruipeng.planner.dto.AvailabilitySlotDto;
 import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.dto.SharedPlanExportItem;
 import com.ruipeng.planner.entity.Advisor;
 import com.ruipeng.planner.entity.AvailabilitySlot;
 import com.ruipeng.planner.config.security.UserDetailsImpl;
+import com.ruipeng.planner.service.AdvisorMatchingService;
 import com.ruipeng.planner.service.AdvisorService;
+import com.ruipeng.planner.service.PlanExportService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,10 +32,15 @@ import java.util.Map;
 @RequestMapping("/api/advisors")
 public class AdvisorController {
     private final AdvisorService advisorService;
+    private final PlanExportService planExportService;
+    private final AdvisorMatchingService matchingService;
 
     @Autowired
-    public AdvisorController(AdvisorService advisorService) {
+    public AdvisorController(AdvisorService advisorService, PlanExportService planExportService,
+                             AdvisorMatchingService matchingService) {
         this.advisorService = advisorService;
+        this.planExportService = planExportService;
+        this.matchingService = matchingService;
     }
 
     @GetMapping
@@ -36,6 +48,74 @@ public class AdvisorController {
         return ResponseEntity.ok(advisorService.getAllAdvisors());
     }
 
+    @GetMapping("/directory")
+    public ResponseEntity<?> getAdvisorDirectory(
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Integer minExperienceYears,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(advisorService.getAdvisorDirectory(
+                    specialty, language, minRating, minExperienceYears, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAdvisors(
+            @RequestParam(required = false) List<String> specialty,
+            @RequestParam(required = false) List<String> language,
+            @RequestParam(required = false) Integer minExperienceYears,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(advisorService.searchAdvisors(
+                    specialty, language, minExperienceYears, minRating, q, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    // 输入联想，只读内存中的前缀树
+    @GetMapping("/typeahead/specialties")
+    public ResponseEntity<?> suggestSpecialties(@RequestParam(defaultValue = "") String prefix,
+                                                @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(advisorService.suggestSpecialties(prefix, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/typeahead/languages")
+    public ResponseEntity<?> suggestLanguages(@RequestParam(defaultValue = "") String prefix,
+                                              @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(advisorService.suggestLanguages(prefix, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    // 根据当前用户的资料推荐顾问
+    @GetMapping("/recommendations")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> recommendAdvisors(@RequestParam(required = false) List<String> language,
+                                               @RequestParam(required = false) Integer limit) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            return ResponseEntity.ok(matchingService.recommendAdvisors(userDetails.getId(), language, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getAdvisorById(@PathVariable Long id) {
         try {
@@ -45,14 +125,15 @@ public class AdvisorController {
         }
     }
 
+    // 旧接口，改为目录的第一页，不再返回实体
     @GetMapping("/specialty/{specialty}")
-    public ResponseEntity<List<Advisor>> getAdvisorsBySpecialty(@PathVariable String specialty) {
-        return ResponseEntity.ok(advisorService.findAdvisorsBySpecialty(specialty));
+    public ResponseEntity<AdvisorDirectoryPage> getAdvisorsBySpecialty(@PathVariable String specialty) {
+        return ResponseEntity.ok(advisorService.getAdvisorDirectory(specialty, null, null, null, null, null));
     }
 
     @GetMapping("/language/{language}")
-    public ResponseEntity<List<Advisor>> getAdvisorsByLanguage(@PathVariable String language) {
-        return ResponseEntity.ok(advisorService.findAdvisorsByLanguage(language));
+    public ResponseEntity<AdvisorDirectoryPage> getAdvisorsByLanguage(@PathVariable String language) {
+        return ResponseEntity.ok(advisorService.getAdvisorDirectory(null, language, null, null, null, null));
     }
 
     @PutMapping("/profile")
@@ -113,6 +194,31 @@ public class AdvisorController {
         }
     }
 
+    @GetMapping("/plans/export")
+    @PreAuthorize("hasRole('ADVISOR')")
+    public ResponseEntity<?> exportSharedPlans(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<SharedPlanExportItem> plans =
+                    planExportService.findSharedPlans(getCurrentAdvisorId(), startDate, endDate);
+            if (plans.isEmpty()) {
+                return ResponseEntity.status(404).body(new MessageResponse("No plans were shared in this period"));
+            }
+
+            // 边渲染边写出 ZIP，不在内存中缓存
+            StreamingResponseBody body = out -> planExportService.writeZip(plans, out);
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"client-plans-" + startDate + "-to-" + endDate + ".zip\"")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     private Long getCurrentAdvisorId() throws Exception {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
@@ -0,0 +1,87 @@
+package com.ruipeng.planner.controller;
+
+import com.ruipeng.planner.config.security.UserDetailsImpl;
+import com.ruipeng.planner.dto.AdvisorReviewRequest;
+import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.service.AdvisorReviewService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reviews")
+public class AdvisorReviewController {
+    private final AdvisorReviewService reviewService;
+
+    @Autowired
+    public AdvisorReviewController(AdvisorReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @GetMapping("/advisor/{advisorId}")
+    public ResponseEntity<?> getAdvisorReviews(@PathVariable Long advisorId,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(reviewService.getAdvisorReviews(advisorId, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createReview(@Valid @RequestBody AdvisorReviewRequest request) {
+        try {
+            return ResponseEntity.ok(reviewService.createReview(getCurrentUserId(), request));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse(e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // 并发提交同一预约的评价，唯一约束拦下了后到的一条
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("This appointment has already been reviewed"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> updateReview(@PathVariable Long id, @Valid @RequestBody AdvisorReviewRequest request) {
+        try {
+            return ResponseEntity.ok(reviewService.updateReview(getCurrentUserId(), id, request));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> deleteReview(@PathVariable Long id) {
+        try {
+            reviewService.deleteReview(getCurrentUserId(), id);
+            return ResponseEntity.ok(new MessageResponse("Review deleted successfully"));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return userDetails.getId();
+    }
+}
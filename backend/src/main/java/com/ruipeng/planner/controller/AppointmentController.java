@@ -7,40 +7,58 @@ import com.ruipeng.planner.dto.MessageResponse;
 import com.ruipeng.planner.entity.Appointment;
 import com.ruipeng.planner.entity.AppointmentStatus;
 import com.ruipeng.planner.config.security.UserDetailsImpl;
+import com.ruipeng.planner.service.AdvisorService;
 import com.ruipeng.planner.service.AppointmentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
     private final AppointmentService appointmentService;
+    private final AdvisorService advisorService;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, AdvisorService advisorService) {
         this.appointmentService = appointmentService;
+        this.advisorService = advisorService;
     }
 
     @GetMapping("/user")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<AppointmentDetailsDto>> getUserAppointments() {
-        Long userId = getCurrentUserId();
-        return ResponseEntity.ok(appointmentService.getUserAppointments(userId));
+    public ResponseEntity<?> getUserAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Long userId = getCurrentUserId();
+            return ResponseEntity.ok(appointmentService.getUserAppointments(userId, status, startDate, endDate, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
     }
 
     @GetMapping("/advisor")
     @PreAuthorize("hasRole('ADVISOR')")
-    public ResponseEntity<?> getAdvisorAppointments() {
+    public ResponseEntity<?> getAdvisorAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
             Long advisorId = getCurrentAdvisorId();
-            return ResponseEntity.ok(appointmentService.getAdvisorAppointments(advisorId));
+            return ResponseEntity.ok(appointmentService.getAdvisorAppointments(advisorId, status, startDate, endDate, page, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
@@ -153,9 +171,7 @@ public class AppointmentController {
         return userDetails.getId();
     }
 
-    private Long getCurrentAdvisorId() throws Exception {
-        // This would need to be implemented to get the advisor ID from the user ID
-        // For now, we'll throw an exception
-        throw new UnsupportedOperationException("Not implemented yet");
+    private Long getCurrentAdvisorId() {
+        return advisorService.getAdvisorByUserId(getCurrentUserId()).getId();
     }
 }
@@ -3,41 +3,56 @@ package com.ruipeng.planner.controller;
 import com.ruipeng.planner.dto.FinancialPlanRequest;
 import com.ruipeng.planner.dto.FinancialPlanResponse;
 import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.dto.ModelQueueStatusDto;
 import com.ruipeng.planner.entity.FinancialPlan;
 import com.ruipeng.planner.config.security.UserDetailsImpl;
 import com.ruipeng.planner.service.FinancialPlanService;
+import com.ruipeng.planner.service.ModelAdmissionException;
+import com.ruipeng.planner.service.ModelAdmissionService;
+import com.ruipeng.planner.service.PdfRenderCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/plans")
 
 public class FinancialPlanController {
     private final FinancialPlanService financialPlanService;
+    private final ModelAdmissionService modelAdmissionService;
+    private final PdfRenderCache pdfRenderCache;
 
     @Autowired
-    public FinancialPlanController(FinancialPlanService financialPlanService) {
+    public FinancialPlanController(FinancialPlanService financialPlanService,
+                                   ModelAdmissionService modelAdmissionService,
+                                   PdfRenderCache pdfRenderCache) {
         this.financialPlanService = financialPlanService;
+        this.modelAdmissionService = modelAdmissionService;
+        this.pdfRenderCache = pdfRenderCache;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<FinancialPlan>> getUserPlans() {
-        Long userId = getCurrentUserId();
-        List<FinancialPlan> plans = financialPlanService.getUserFinancialPlans(userId);
-        return ResponseEntity.ok(plans);
+    public ResponseEntity<?> getUserPlans(@RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(financialPlanService.getUserPlanSummaries(getCurrentUserId(), page, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -50,7 +65,6 @@ public class FinancialPlanController {
             if (!plan.getUser().getId().equals(getCurrentUserId())) {
                 return ResponseEntity.status(403).body(new MessageResponse("Not authorized to access this plan"));
             }
-            plan.setUser(null);
             return ResponseEntity.ok(plan);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
@@ -76,15 +90,55 @@ public class FinancialPlanController {
             System.out.println("id:"+plan.getId());
             FinancialPlan newPlan = new FinancialPlan();
             newPlan.setId(plan.getId());
+            newPlan.setProvisional(plan.getProvisional());
+            newPlan.setPlanSource(plan.getPlanSource());
             return ResponseEntity.ok(newPlan);
+        } catch (ModelAdmissionException e) {
+            long retryAfterSeconds = Math.max(1, (e.getRetryAfterMs() + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(new MessageResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
 
+    @PostMapping("/{id}/refresh")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> refreshPlan(@PathVariable Long id) {
+        try {
+            FinancialPlan previous = financialPlanService.getFinancialPlanById(id);
+
+            // Check if the plan belongs to the current user
+            if (!previous.getUser().getId().equals(getCurrentUserId())) {
+                return ResponseEntity.status(403).body(new MessageResponse("Not authorized to access this plan"));
+            }
+
+            FinancialPlan plan = financialPlanService.refreshFinancialPlan(id);
+            FinancialPlan newPlan = new FinancialPlan();
+            newPlan.setId(plan.getId());
+            newPlan.setProvisional(plan.getProvisional());
+            newPlan.setPlanSource(plan.getPlanSource());
+            return ResponseEntity.ok(newPlan);
+        } catch (ModelAdmissionException e) {
+            long retryAfterSeconds = Math.max(1, (e.getRetryAfterMs() + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/queue")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ModelQueueStatusDto> getGenerationQueueStatus() {
+        return ResponseEntity.ok(modelAdmissionService.getQueueStatus(getCurrentUserId()));
+    }
+
     @GetMapping("/{id}/pdf")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> downloadPlanPdf(@PathVariable Long id) {
+    public ResponseEntity<?> downloadPlanPdf(@PathVariable Long id, WebRequest request) {
         try {
             FinancialPlan plan = financialPlanService.getFinancialPlanById(id);
 
@@ -93,14 +147,22 @@ public class FinancialPlanController {
                 return ResponseEntity.status(403).body(new MessageResponse("Not authorized to access this plan"));
             }
 
-            ByteArrayResource resource = financialPlanService.generatePdfReport(id);
+            // If-None-Match 命中时直接返回 304，无需渲染或读取文件
+            if (request.checkNotModified(pdfRenderCache.etag(plan))) {
+                return null;
+            }
+
+            PdfRenderCache.CachedPdf pdf = pdfRenderCache.open(plan);
+            StreamingResponseBody body = pdf::transferTo;
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment; filename=\"financial-plan-" + plan.getId() + ".pdf\"")
+                    .eTag(pdf.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
                     .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(resource.contentLength())
-                    .body(resource);
+                    .contentLength(pdf.size())
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
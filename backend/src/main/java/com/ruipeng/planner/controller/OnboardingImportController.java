@@ -0,0 +1,81 @@
+package com.ruipeng.planner.controller;
+
+import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.dto.OnboardingImportStatusDto;
+import com.ruipeng.planner.entity.ImportFormat;
+import com.ruipeng.planner.service.OnboardingImportService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/imports")
+@PreAuthorize("hasRole('ADMIN')")
+public class OnboardingImportController {
+    private final OnboardingImportService onboardingImportService;
+
+    @Autowired
+    public OnboardingImportController(OnboardingImportService onboardingImportService) {
+        this.onboardingImportService = onboardingImportService;
+    }
+
+    // 请求体就是文件本身（text/csv 或 application/x-ndjson），直接流式写盘，不走 multipart
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestParam String fileName,
+                                         @RequestParam(required = false) ImportFormat format,
+                                         @RequestParam(required = false) Integer batchSize,
+                                         InputStream content) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(onboardingImportService.startImport(fileName, format, batchSize, content));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage()));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<OnboardingImportStatusDto>> getImports() {
+        return ResponseEntity.ok(onboardingImportService.getAllImports());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(onboardingImportService.getImportStatus(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelImport(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(onboardingImportService.cancelImport(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 上次运行结束时文件已删除，续导需要重新上传同一个文件
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable Long id, InputStream content) {
+        try {
+            return ResponseEntity.ok(onboardingImportService.resumeImport(id, content));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ruipeng.planner.dto;
+
+public class AIUsageDto {
+    private long calls;
+    private long failedCalls;
+    private long inputTokens;
+    private long outputTokens;
+    private double costUsd;
+
+    public AIUsageDto() {}
+
+    public AIUsageDto(long calls, long failedCalls, long inputTokens, long outputTokens, double costUsd) {
+        this.calls = calls;
+        this.failedCalls = failedCalls;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.costUsd = costUsd;
+    }
+
+    public long getCalls() { return calls; }
+    public void setCalls(long calls) { this.calls = calls; }
+
+    public long getFailedCalls() { return failedCalls; }
+    public void setFailedCalls(long failedCalls) { this.failedCalls = failedCalls; }
+
+    public long getInputTokens() { return inputTokens; }
+    public void setInputTokens(long inputTokens) { this.inputTokens = inputTokens; }
+
+    public long getOutputTokens() { return outputTokens; }
+    public void setOutputTokens(long outputTokens) { this.outputTokens = outputTokens; }
+
+    public long getTotalTokens() { return inputTokens + outputTokens; }
+
+    public double getCostUsd() { return costUsd; }
+    public void setCostUsd(double costUsd) { this.costUsd = costUsd; }
+}
@@ -0,0 +1,36 @@
+package com.ruipeng.planner.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+
+public class AdmissionLimitsDto {
+    @Min(1)
+    private Integer maxConcurrent;
+
+    @Min(0)
+    private Integer maxQueueSize;
+
+    @Positive
+    private Double userTokensPerMinute;
+
+    @Min(1)
+    private Integer userBurst;
+
+    @Min(0)
+    private Long maxWaitMs;
+
+    public Integer getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(Integer maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+    public Integer getMaxQueueSize() { return maxQueueSize; }
+    public void setMaxQueueSize(Integer maxQueueSize) { this.maxQueueSize = maxQueueSize; }
+
+    public Double getUserTokensPerMinute() { return userTokensPerMinute; }
+    public void setUserTokensPerMinute(Double userTokensPerMinute) { this.userTokensPerMinute = userTokensPerMinute; }
+
+    public Integer getUserBurst() { return userBurst; }
+    public void setUserBurst(Integer userBurst) { this.userBurst = userBurst; }
+
+    public Long getMaxWaitMs() { return maxWaitMs; }
+    public void setMaxWaitMs(Long maxWaitMs) { this.maxWaitMs = maxWaitMs; }
+}
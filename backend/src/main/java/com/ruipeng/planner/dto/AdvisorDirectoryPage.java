@@ -0,0 +1,21 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of the advisor directory. {@code nextCursor} is null on the last page.
+ */
+@Data
+public class AdvisorDirectoryPage {
+    private List<AdvisorProfileDto> advisors;
+    private String nextCursor;
+
+    public AdvisorDirectoryPage() {}
+
+    public AdvisorDirectoryPage(List<AdvisorProfileDto> advisors, String nextCursor) {
+        this.advisors = advisors;
+        this.nextCursor = nextCursor;
+    }
+}
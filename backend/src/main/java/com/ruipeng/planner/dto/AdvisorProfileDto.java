@@ -15,6 +15,21 @@ public class AdvisorProfileDto {
     private Set<String> specialties;
     private Set<String> languages;
 
+    public AdvisorProfileDto() {
+    }
+
+    // 供 JPQL 构造表达式使用，专长和语言另行批量加载
+    public AdvisorProfileDto(Long id, String firstName, String lastName, String professionalTitle,
+                             Integer experienceYears, Double averageRating, String bio, String profileImageUrl) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.professionalTitle = professionalTitle;
+        this.experienceYears = experienceYears;
+        this.averageRating = averageRating;
+        this.bio = bio;
+        this.profileImageUrl = profileImageUrl;
+    }
 
     public String getProfessionalTitle() {
         return professionalTitle;
@@ -0,0 +1,19 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+/**
+ * An advisor recommended for a client; a higher {@code score} is a better match.
+ */
+@Data
+public class AdvisorRecommendationDto {
+    private AdvisorProfileDto advisor;
+    private double score;
+
+    public AdvisorRecommendationDto() {}
+
+    public AdvisorRecommendationDto(AdvisorProfileDto advisor, double score) {
+        this.advisor = advisor;
+        this.score = score;
+    }
+}
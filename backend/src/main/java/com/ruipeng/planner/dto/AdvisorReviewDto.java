@@ -0,0 +1,32 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AdvisorReviewDto {
+    private Long id;
+    private Long appointmentId;
+    private Long advisorId;
+    private Integer rating;
+    private String comment;
+    private String reviewerFirstName;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public AdvisorReviewDto() {}
+
+    // JPQL 构造表达式使用
+    public AdvisorReviewDto(Long id, Long appointmentId, Long advisorId, Integer rating, String comment,
+                            String reviewerFirstName, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.appointmentId = appointmentId;
+        this.advisorId = advisorId;
+        this.rating = rating;
+        this.comment = comment;
+        this.reviewerFirstName = reviewerFirstName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of an advisor's reviews, newest first.
+ */
+@Data
+public class AdvisorReviewPage {
+    private List<AdvisorReviewDto> reviews;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public AdvisorReviewPage() {}
+
+    public AdvisorReviewPage(List<AdvisorReviewDto> reviews, int page, int size, boolean hasNext) {
+        this.reviews = reviews;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ruipeng.planner.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class AdvisorReviewRequest {
+    // 仅创建时使用，修改评价时忽略
+    private Long appointmentId;
+
+    @NotNull
+    @Min(1)
+    @Max(5)
+    private Integer rating;
+
+    @Size(max = 2000)
+    private String comment;
+}
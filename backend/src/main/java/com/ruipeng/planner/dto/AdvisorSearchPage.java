@@ -0,0 +1,27 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of advisor search results, best rated first. {@code total} counts all matches.
+ */
+@Data
+public class AdvisorSearchPage {
+    private List<AdvisorProfileDto> advisors;
+    private int page;
+    private int size;
+    private int total;
+    private boolean hasNext;
+
+    public AdvisorSearchPage() {}
+
+    public AdvisorSearchPage(List<AdvisorProfileDto> advisors, int page, int size, int total, boolean hasNext) {
+        this.advisors = advisors;
+        this.page = page;
+        this.size = size;
+        this.total = total;
+        this.hasNext = hasNext;
+    }
+}
@@ -2,6 +2,8 @@ package com.ruipeng.planner.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.ruipeng.planner.entity.Appointment;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.entity.SessionType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -28,6 +30,11 @@ public class AppointmentDetailsDto {
     private String advisorProfessionalTitle;
     private Set<String> advisorSpecialties;
 
+    // 客户信息，顾问查看预约列表时使用
+    private Long clientId;
+    private String clientFirstName;
+    private String clientLastName;
+
     // 共享计划信息（可选）
     private Long sharedPlanId;
     private String sharedPlanName;
@@ -38,6 +45,36 @@ public class AppointmentDetailsDto {
     // 构造函数
     public AppointmentDetailsDto() {}
 
+    // 供 JPQL 构造表达式使用，顾问专长另行批量加载
+    public AppointmentDetailsDto(Long id, LocalDateTime appointmentDate, Integer durationMinutes,
+                                 SessionType sessionType, AppointmentStatus status, String meetingLink,
+                                 String userNotes, String advisorNotes,
+                                 Long advisorId, String advisorFirstName, String advisorLastName,
+                                 String advisorProfessionalTitle,
+                                 Long clientId, String clientFirstName, String clientLastName,
+                                 Long sharedPlanId, String sharedPlanName, LocalDateTime sharedPlanCreationDate,
+                                 String sharedPlanHealthAssessment) {
+        this.id = id;
+        this.appointmentDate = appointmentDate;
+        this.durationMinutes = durationMinutes;
+        this.sessionType = sessionType == null ? null : sessionType.toString();
+        this.status = status == null ? null : status.toString();
+        this.meetingLink = meetingLink;
+        this.userNotes = userNotes;
+        this.advisorNotes = advisorNotes;
+        this.advisorId = advisorId;
+        this.advisorFirstName = advisorFirstName;
+        this.advisorLastName = advisorLastName;
+        this.advisorProfessionalTitle = advisorProfessionalTitle;
+        this.clientId = clientId;
+        this.clientFirstName = clientFirstName;
+        this.clientLastName = clientLastName;
+        this.sharedPlanId = sharedPlanId;
+        this.sharedPlanName = sharedPlanName;
+        this.sharedPlanCreationDate = sharedPlanCreationDate;
+        this.sharedPlanHealthAssessment = sharedPlanHealthAssessment;
+    }
+
     // 基本信息的 getters/setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -85,6 +122,16 @@ public class AppointmentDetailsDto {
         this.advisorSpecialties = advisorSpecialties;
     }
 
+    // 客户信息的 getters/setters
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+
+    public String getClientFirstName() { return clientFirstName; }
+    public void setClientFirstName(String clientFirstName) { this.clientFirstName = clientFirstName; }
+
+    public String getClientLastName() { return clientLastName; }
+    public void setClientLastName(String clientLastName) { this.clientLastName = clientLastName; }
+
     // 共享计划信息的 getters/setters
     public Long getSharedPlanId() { return sharedPlanId; }
     public void setSharedPlanId(Long sharedPlanId) { this.sharedPlanId = sharedPlanId; }
@@ -124,6 +171,12 @@ public class AppointmentDetailsDto {
             }
         }
 
+        if (appointment.getUser() != null) {
+            dto.setClientId(appointment.getUser().getId());
+            dto.setClientFirstName(appointment.getUser().getFirstName());
+            dto.setClientLastName(appointment.getUser().getLastName());
+        }
+
         // 平铺共享计划信息
         if (appointment.getSharedPlan() != null) {
             dto.setSharedPlanId(appointment.getSharedPlan().getId());
@@ -0,0 +1,25 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a user's or an advisor's appointments, newest first.
+ */
+@Data
+public class AppointmentPage {
+    private List<AppointmentDetailsDto> appointments;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public AppointmentPage() {}
+
+    public AppointmentPage(List<AppointmentDetailsDto> appointments, int page, int size, boolean hasNext) {
+        this.appointments = appointments;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a user's plan summaries, newest first.
+ */
+@Data
+public class FinancialPlanPage {
+    private List<FinancialPlanSummaryDto> plans;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public FinancialPlanPage() {}
+
+    public FinancialPlanPage(List<FinancialPlanSummaryDto> plans, int page, int size, boolean hasNext) {
+        this.plans = plans;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+}
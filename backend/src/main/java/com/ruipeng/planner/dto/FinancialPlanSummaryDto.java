@@ -0,0 +1,31 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a plan list shows; the JSON sections are only loaded with the full plan.
+ */
+@Data
+public class FinancialPlanSummaryDto {
+    private Long id;
+    private String planName;
+    private LocalDateTime creationDate;
+    private Integer healthScore;
+    private String healthAssessment;
+    private String shareCode;
+
+    public FinancialPlanSummaryDto() {}
+
+    // JPQL 构造表达式使用
+    public FinancialPlanSummaryDto(Long id, String planName, LocalDateTime creationDate, Integer healthScore,
+                                   String healthAssessment, String shareCode) {
+        this.id = id;
+        this.planName = planName;
+        this.creationDate = creationDate;
+        this.healthScore = healthScore;
+        this.healthAssessment = healthAssessment;
+        this.shareCode = shareCode;
+    }
+}
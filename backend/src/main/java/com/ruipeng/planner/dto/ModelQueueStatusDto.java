@@ -0,0 +1,34 @@
+package com.ruipeng.planner.dto;
+
+public class ModelQueueStatusDto {
+    private boolean queued;
+    private int position;
+    private long etaMs;
+    private int inFlight;
+    private int queueDepth;
+
+    public ModelQueueStatusDto() {}
+
+    public ModelQueueStatusDto(boolean queued, int position, long etaMs, int inFlight, int queueDepth) {
+        this.queued = queued;
+        this.position = position;
+        this.etaMs = etaMs;
+        this.inFlight = inFlight;
+        this.queueDepth = queueDepth;
+    }
+
+    public boolean isQueued() { return queued; }
+    public void setQueued(boolean queued) { this.queued = queued; }
+
+    public int getPosition() { return position; }
+    public void setPosition(int position) { this.position = position; }
+
+    public long getEtaMs() { return etaMs; }
+    public void setEtaMs(long etaMs) { this.etaMs = etaMs; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public int getQueueDepth() { return queueDepth; }
+    public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+}
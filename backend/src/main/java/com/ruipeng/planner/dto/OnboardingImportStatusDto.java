@@ -0,0 +1,28 @@
+package com.ruipeng.planner.dto;
+
+import com.ruipeng.planner.entity.ImportFormat;
+import com.ruipeng.planner.entity.ImportJobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OnboardingImportStatusDto {
+    private Long id;
+    private ImportJobStatus status;
+    private String fileName;
+    private ImportFormat format;
+    private Integer batchSize;
+    private long processedRows;
+    private long importedUsers;
+    private long importedAdvisors;
+    private long rejectedRows;
+    // 本次运行的吞吐量
+    private double rowsPerSecond;
+    private long hashWaitMillis;
+    private long writeMillis;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,60 @@
+package com.ruipeng.planner.dto;
+
+import com.ruipeng.planner.entity.EducationLevel;
+import com.ruipeng.planner.entity.UserRole;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * One client or advisor from an onboarding import file. Account fields follow the same rules as
+ * {@link SignupRequest}; profile fields are optional and only stored for clients.
+ */
+@Data
+public class OnboardingRow {
+    @NotBlank
+    @Size(max = 50)
+    @Email
+    private String email;
+
+    @NotBlank
+    @Size(min = 6, max = 40)
+    private String password;
+
+    @NotBlank
+    @Size(max = 50)
+    private String firstName;
+
+    @NotBlank
+    @Size(max = 50)
+    private String lastName;
+
+    // 为空时按普通用户导入；不允许导入管理员
+    private UserRole role;
+
+    // 用户档案
+    private Integer age;
+    private String occupation;
+    private EducationLevel educationLevel;
+    private BigDecimal monthlyIncome;
+    private BigDecimal monthlyExpenses;
+    private BigDecimal totalSavings;
+    private BigDecimal totalDebt;
+    private Integer riskTolerance;
+    private String investmentHorizon;
+    private Integer retirementAge;
+    private BigDecimal monthlySavings;
+
+    // 顾问资料
+    private String professionalTitle;
+    @Min(0)
+    private Integer experienceYears;
+    private String bio;
+    private Set<String> specialties;
+    private Set<String> languages;
+}
@@ -0,0 +1,22 @@
+package com.ruipeng.planner.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class PlanRegenerationRequest {
+    @NotBlank
+    private String planName;
+
+    private String additionalInstructions;
+
+    // 默认为模型准入的并发上限
+    @Min(1)
+    private Integer concurrency;
+
+    @Min(1)
+    @Max(1000)
+    private Integer pageSize;
+}
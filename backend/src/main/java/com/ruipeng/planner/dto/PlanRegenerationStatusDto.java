@@ -0,0 +1,26 @@
+package com.ruipeng.planner.dto;
+
+import com.ruipeng.planner.entity.RegenerationJobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class PlanRegenerationStatusDto {
+    private Long id;
+    private RegenerationJobStatus status;
+    private String planName;
+    private Integer concurrency;
+    private long totalUsers;
+    private long processedUsers;
+    private long succeededUsers;
+    private long failedUsers;
+    private Long lastUserId;
+    private double usersPerMinute;
+    // 剩余时间估算，尚无吞吐数据时为 null
+    private Long etaSeconds;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,23 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+/**
+ * A plan shared with an advisor through an appointment, as listed for a bulk export.
+ */
+@Data
+public class SharedPlanExportItem {
+    private Long planId;
+    private String planName;
+    private String clientFirstName;
+    private String clientLastName;
+
+    public SharedPlanExportItem() {}
+
+    public SharedPlanExportItem(Long planId, String planName, String clientFirstName, String clientLastName) {
+        this.planId = planId;
+        this.planName = planName;
+        this.clientFirstName = clientFirstName;
+        this.clientLastName = clientLastName;
+    }
+}
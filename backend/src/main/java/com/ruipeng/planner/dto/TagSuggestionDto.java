@@ -0,0 +1,19 @@
+package com.ruipeng.planner.dto;
+
+import lombok.Data;
+
+/**
+ * A typeahead suggestion for a specialty or language, with how many advisors list it.
+ */
+@Data
+public class TagSuggestionDto {
+    private String value;
+    private int advisorCount;
+
+    public TagSuggestionDto() {}
+
+    public TagSuggestionDto(String value, int advisorCount) {
+        this.value = value;
+        this.advisorCount = advisorCount;
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -11,11 +13,15 @@ import java.util.Set;
 
 @Entity
 @Table(name = "advisors")
+// 顾问资料很少变化，放入二级缓存，见 EntityCacheConfig
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "advisors")
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Advisor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "advisors_seq")
+    @SequenceGenerator(name = "advisors_seq", sequenceName = "advisors_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -39,11 +45,13 @@ public class Advisor {
     private String profileImageUrl;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "advisors.specialties")
     @CollectionTable(name = "advisor_specialties", joinColumns = @JoinColumn(name = "advisor_id"))
     @Column(name = "specialty")
     private Set<String> specialties;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "advisors.languages")
     @CollectionTable(name = "advisor_languages", joinColumns = @JoinColumn(name = "advisor_id"))
     @Column(name = "language")
     private Set<String> languages;
@@ -0,0 +1,61 @@
+package com.ruipeng.planner.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished appointment moved out of {@code appointments} by the archiver. Rows are copied
+ * with their original id and never change afterwards.
+ */
+@Entity
+@Table(name = "appointments_archive")
+@Immutable
+@Data
+public class ArchivedAppointment {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "advisor_id")
+    private Advisor advisor;
+
+    @Column(name = "appointment_date")
+    private LocalDateTime appointmentDate;
+
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
+    @Column(name = "session_type")
+    @Enumerated(EnumType.STRING)
+    private SessionType sessionType;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private AppointmentStatus status;
+
+    @Column(name = "booking_date")
+    private LocalDateTime bookingDate;
+
+    @Column(name = "meeting_link")
+    private String meetingLink;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shared_plan_id")
+    private FinancialPlan sharedPlan;
+
+    @Column(name = "advisor_notes", columnDefinition = "TEXT")
+    private String advisorNotes;
+
+    @Column(name = "user_notes", columnDefinition = "TEXT")
+    private String userNotes;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+}
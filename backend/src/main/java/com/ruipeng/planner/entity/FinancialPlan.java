@@ -1,5 +1,6 @@
 package com.ruipeng.planner.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -13,6 +14,8 @@ public class FinancialPlan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 不序列化所属用户，避免返回懒加载代理和循环引用
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -45,6 +48,19 @@ public class FinancialPlan {
     @Column(name = "action_plan", columnDefinition = "TEXT")
     private String actionPlanJson;
 
+    // 本地规则引擎生成、等待 AI 结果升级的计划
+    @Column(name = "provisional")
+    private Boolean provisional;
+
+    @Column(name = "plan_source")
+    @Enumerated(EnumType.STRING)
+    private PlanSource planSource;
+
+    // 生成该计划时的资料快照，用于增量刷新；包含收入等敏感数据，不随计划返回
+    @JsonIgnore
+    @Column(name = "profile_snapshot", columnDefinition = "TEXT")
+    private String profileSnapshotJson;
+
     public Long getId() {
         return id;
     }
@@ -132,4 +148,28 @@ public class FinancialPlan {
     public void setActionPlanJson(String actionPlanJson) {
         this.actionPlanJson = actionPlanJson;
     }
-}
\ No newline at end of file
+
+    public Boolean getProvisional() {
+        return provisional;
+    }
+
+    public void setProvisional(Boolean provisional) {
+        this.provisional = provisional;
+    }
+
+    public PlanSource getPlanSource() {
+        return planSource;
+    }
+
+    public void setPlanSource(PlanSource planSource) {
+        this.planSource = planSource;
+    }
+
+    public String getProfileSnapshotJson() {
+        return profileSnapshotJson;
+    }
+
+    public void setProfileSnapshotJson(String profileSnapshotJson) {
+        this.profileSnapshotJson = profileSnapshotJson;
+    }
+}
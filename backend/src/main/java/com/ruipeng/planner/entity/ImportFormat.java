@@ -0,0 +1,5 @@
+package com.ruipeng.planner.entity;
+
+public enum ImportFormat {
+    CSV, JSONL
+}
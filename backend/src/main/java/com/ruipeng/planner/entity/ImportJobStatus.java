@@ -0,0 +1,5 @@
+package com.ruipeng.planner.entity;
+
+public enum ImportJobStatus {
+    RUNNING, COMPLETED, CANCELLED, FAILED
+}
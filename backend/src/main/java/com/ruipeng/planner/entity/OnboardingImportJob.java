@@ -0,0 +1,72 @@
+package com.ruipeng.planner.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "onboarding_import_jobs")
+@Data
+public class OnboardingImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private ImportJobStatus status;
+
+    // 仅在 RUNNING 时为 TRUE，其余为 NULL；唯一约束保证同一时间只有一个任务在运行
+    @Column(name = "running_guard")
+    private Boolean runningGuard;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "format")
+    @Enumerated(EnumType.STRING)
+    private ImportFormat format;
+
+    @Column(name = "batch_size")
+    private Integer batchSize;
+
+    // 检查点：已提交的数据行数（含被拒绝的行），重启后跳过这些行
+    @Column(name = "processed_rows")
+    private Long processedRows;
+
+    @Column(name = "imported_users")
+    private Long importedUsers;
+
+    @Column(name = "imported_advisors")
+    private Long importedAdvisors;
+
+    @Column(name = "rejected_rows")
+    private Long rejectedRows;
+
+    // 写入线程等待密码哈希的时间；远大于 write_millis 说明哈希线程池是瓶颈
+    @Column(name = "hash_wait_millis")
+    private Long hashWaitMillis;
+
+    @Column(name = "write_millis")
+    private Long writeMillis;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // 本次运行（首次启动或重启恢复）的起点，用于计算吞吐量
+    @Column(name = "resumed_at")
+    private LocalDateTime resumedAt;
+
+    @Column(name = "processed_at_resume")
+    private Long processedAtResume;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
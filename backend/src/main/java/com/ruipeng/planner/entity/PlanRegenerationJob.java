@@ -0,0 +1,70 @@
+package com.ruipeng.planner.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "plan_regeneration_jobs")
+@Data
+public class PlanRegenerationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private RegenerationJobStatus status;
+
+    // 仅在 RUNNING 时为 TRUE，其余为 NULL；唯一约束保证同一时间只有一个任务在运行
+    @Column(name = "running_guard")
+    private Boolean runningGuard;
+
+    @Column(name = "plan_name")
+    private String planName;
+
+    @Column(name = "additional_instructions", columnDefinition = "TEXT")
+    private String additionalInstructions;
+
+    @Column(name = "concurrency")
+    private Integer concurrency;
+
+    @Column(name = "page_size")
+    private Integer pageSize;
+
+    // 检查点：已处理的最后一个用户 ID，重启后从这里继续
+    @Column(name = "last_user_id")
+    private Long lastUserId;
+
+    @Column(name = "total_users")
+    private Long totalUsers;
+
+    @Column(name = "processed_users")
+    private Long processedUsers;
+
+    @Column(name = "succeeded_users")
+    private Long succeededUsers;
+
+    @Column(name = "failed_users")
+    private Long failedUsers;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // 本次运行（首次启动或重启恢复）的起点，用于计算吞吐量
+    @Column(name = "resumed_at")
+    private LocalDateTime resumedAt;
+
+    @Column(name = "processed_at_resume")
+    private Long processedAtResume;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,5 @@
+package com.ruipeng.planner.entity;
+
+public enum PlanSource {
+    AI, LOCAL
+}
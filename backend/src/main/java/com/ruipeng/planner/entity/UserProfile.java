@@ -13,7 +13,8 @@ import java.math.BigDecimal;
 @Data
 public class UserProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_profiles_seq")
+    @SequenceGenerator(name = "user_profiles_seq", sequenceName = "user_profiles_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,20 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+
+import java.util.List;
+
+/**
+ * Filtered, keyset-paginated advisor directory, ordered by rating (unrated last) then id.
+ */
+public interface AdvisorDirectoryRepository {
+
+    /**
+     * Returns up to {@code limit} profiles after the given position. Null filters are ignored.
+     * {@code afterId == null} starts from the top; {@code afterRating == null} with an id means
+     * the previous page ended among the unrated advisors.
+     */
+    List<AdvisorProfileDto> findDirectoryPage(String specialty, String language, Double minRating,
+                                              Integer minExperienceYears, Double afterRating, Long afterId,
+                                              int limit);
+}
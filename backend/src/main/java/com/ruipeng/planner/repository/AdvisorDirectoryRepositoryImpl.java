@@ -0,0 +1,62 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AdvisorDirectoryRepositoryImpl implements AdvisorDirectoryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AdvisorProfileDto> findDirectoryPage(String specialty, String language, Double minRating,
+                                                     Integer minExperienceYears, Double afterRating, Long afterId,
+                                                     int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.ruipeng.planner.dto.AdvisorProfileDto(a.id, u.firstName, u.lastName, " +
+                "a.professionalTitle, a.experienceYears, a.averageRating, a.bio, a.profileImageUrl) " +
+                "FROM Advisor a JOIN a.user u WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        // 只拼接实际传入的条件，避免 ":x IS NULL OR ..." 影响执行计划
+        if (specialty != null) {
+            jpql.append(" AND :specialty MEMBER OF a.specialties");
+            params.put("specialty", specialty);
+        }
+        if (language != null) {
+            jpql.append(" AND :language MEMBER OF a.languages");
+            params.put("language", language);
+        }
+        if (minRating != null) {
+            jpql.append(" AND a.averageRating >= :minRating");
+            params.put("minRating", minRating);
+        }
+        if (minExperienceYears != null) {
+            jpql.append(" AND a.experienceYears >= :minExperienceYears");
+            params.put("minExperienceYears", minExperienceYears);
+        }
+
+        // 游标：上一页最后一条的 (averageRating, id)，未评分的排在最后
+        if (afterId != null) {
+            if (afterRating != null) {
+                jpql.append(" AND (a.averageRating < :afterRating" +
+                        " OR (a.averageRating = :afterRating AND a.id > :afterId)" +
+                        " OR a.averageRating IS NULL)");
+                params.put("afterRating", afterRating);
+            } else {
+                jpql.append(" AND a.averageRating IS NULL AND a.id > :afterId");
+            }
+            params.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY a.averageRating DESC NULLS LAST, a.id");
+
+        TypedQuery<AdvisorProfileDto> query = entityManager.createQuery(jpql.toString(), AdvisorProfileDto.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
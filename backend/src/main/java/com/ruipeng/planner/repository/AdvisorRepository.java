@@ -1,23 +1,70 @@
 package com.ruipeng.planner.repository;
 
+import com.ruipeng.planner.dto.AdvisorProfileDto;
 import com.ruipeng.planner.entity.Advisor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AdvisorRepository extends JpaRepository<Advisor, Long> {
+public interface AdvisorRepository extends JpaRepository<Advisor, Long>, AdvisorDirectoryRepository {
     Optional<Advisor> findByUserId(Long userId);
 
     @Query("SELECT a FROM Advisor a ORDER BY a.averageRating DESC")
     List<Advisor> findAllByOrderByRatingDesc();
 
+    // 顾问列表：一条查询取出 DTO 所需的列，不加载实体
+    @Query("SELECT new com.ruipeng.planner.dto.AdvisorProfileDto(a.id, u.firstName, u.lastName, " +
+            "a.professionalTitle, a.experienceYears, a.averageRating, a.bio, a.profileImageUrl) " +
+            "FROM Advisor a JOIN a.user u ORDER BY a.averageRating DESC, a.id")
+    List<AdvisorProfileDto> findAllProfilesOrderByRatingDesc();
+
+    // 搜索结果按 id 取资料，顺序由调用方按索引排名恢复
+    @Query("SELECT new com.ruipeng.planner.dto.AdvisorProfileDto(a.id, u.firstName, u.lastName, " +
+            "a.professionalTitle, a.experienceYears, a.averageRating, a.bio, a.profileImageUrl) " +
+            "FROM Advisor a JOIN a.user u WHERE a.id IN :ids")
+    List<AdvisorProfileDto> findProfilesByIds(@Param("ids") Collection<Long> ids);
+
+    // [advisorId, specialty]
+    @Query("SELECT a.id, s FROM Advisor a JOIN a.specialties s WHERE a.id IN :advisorIds")
+    List<Object[]> findSpecialtiesByAdvisorIds(@Param("advisorIds") Collection<Long> advisorIds);
+
+    // [advisorId, language]
+    @Query("SELECT a.id, l FROM Advisor a JOIN a.languages l WHERE a.id IN :advisorIds")
+    List<Object[]> findLanguagesByAdvisorIds(@Param("advisorIds") Collection<Long> advisorIds);
+
     @Query("SELECT a FROM Advisor a WHERE :specialty MEMBER OF a.specialties")
     List<Advisor> findBySpecialty(String specialty);
 
     @Query("SELECT a FROM Advisor a WHERE :language MEMBER OF a.languages")
     List<Advisor> findByLanguage(String language);
+
+    @Query("SELECT a.averageRating FROM Advisor a WHERE a.id = :advisorId")
+    Double findAverageRatingById(@Param("advisorId") Long advisorId);
+
+    // 评分汇总按增量维护，每次一条 UPDATE：SET 里的表达式读取的都是更新前的值，
+    // 行锁让同一顾问的并发评分依次生效，不需要重新统计全部评价
+    @Modifying
+    @Query("UPDATE Advisor a SET a.averageRating = (COALESCE(a.averageRating, 0.0) * COALESCE(a.ratingCount, 0) + :rating) " +
+            "/ (COALESCE(a.ratingCount, 0) + 1), a.ratingCount = COALESCE(a.ratingCount, 0) + 1 WHERE a.id = :advisorId")
+    int addRating(@Param("advisorId") Long advisorId, @Param("rating") int rating);
+
+    // 修改评价：人数不变，平均分按差值调整
+    @Modifying
+    @Query("UPDATE Advisor a SET a.averageRating = (a.averageRating * a.ratingCount + :delta) / a.ratingCount " +
+            "WHERE a.id = :advisorId AND a.ratingCount > 0")
+    int changeRating(@Param("advisorId") Long advisorId, @Param("delta") int delta);
+
+    // 删除最后一条评价时平均分回到 NULL
+    @Modifying
+    @Query("UPDATE Advisor a SET a.averageRating = CASE WHEN a.ratingCount > 1 " +
+            "THEN (a.averageRating * a.ratingCount - :rating) / (a.ratingCount - 1) ELSE NULL END, " +
+            "a.ratingCount = a.ratingCount - 1 WHERE a.id = :advisorId AND a.ratingCount > 0")
+    int removeRating(@Param("advisorId") Long advisorId, @Param("rating") int rating);
 }
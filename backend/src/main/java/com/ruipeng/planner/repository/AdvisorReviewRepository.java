@@ -0,0 +1,30 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AdvisorReviewDto;
+import com.ruipeng.planner.entity.AdvisorReview;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AdvisorReviewRepository extends JpaRepository<AdvisorReview, Long> {
+    boolean existsByAppointmentId(Long appointmentId);
+
+    // 修改/删除前锁住评价行，并发修改时差值按顺序作用到顾问的汇总上
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AdvisorReview r WHERE r.id = :id AND r.user.id = :userId")
+    Optional<AdvisorReview> findForUpdate(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT new com.ruipeng.planner.dto.AdvisorReviewDto(r.id, r.appointmentId, r.advisor.id, r.rating, " +
+            "r.comment, u.firstName, r.createdAt, r.updatedAt) " +
+            "FROM AdvisorReview r JOIN r.user u WHERE r.advisor.id = :advisorId " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<AdvisorReviewDto> findByAdvisorId(@Param("advisorId") Long advisorId, Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appointment lists read straight into {@link AppointmentDetailsDto}, newest first.
+ */
+public interface AppointmentListingRepository {
+
+    /**
+     * One query for a user's or an advisor's appointments (exactly one of {@code userId} and
+     * {@code advisorId} is set). Null filters are ignored; {@code end} is exclusive. Advisor
+     * specialties are left empty.
+     */
+    List<AppointmentDetailsDto> findAppointmentDetails(Long userId, Long advisorId, AppointmentStatus status,
+                                                       LocalDateTime start, LocalDateTime end,
+                                                       int offset, int limit);
+
+    /**
+     * Like {@link #findAppointmentDetails}, but also reads {@code appointments_archive}, so the
+     * caller sees the full history however much of it has been archived. Costs a second query
+     * unless {@code status} is {@code CONFIRMED}. Each query reads {@code offset + limit} rows,
+     * so callers must bound the offset.
+     */
+    List<AppointmentDetailsDto> findAppointmentHistory(Long userId, Long advisorId, AppointmentStatus status,
+                                                       LocalDateTime start, LocalDateTime end,
+                                                       int offset, int limit);
+}
@@ -0,0 +1,87 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AppointmentListingRepositoryImpl implements AppointmentListingRepository {
+    private static final Comparator<AppointmentDetailsDto> NEWEST_FIRST = Comparator
+            .comparing(AppointmentDetailsDto::getAppointmentDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(AppointmentDetailsDto::getId, Comparator.reverseOrder());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentDetailsDto> findAppointmentDetails(Long userId, Long advisorId, AppointmentStatus status,
+                                                              LocalDateTime start, LocalDateTime end,
+                                                              int offset, int limit) {
+        return query("Appointment", userId, advisorId, status, start, end)
+                .setFirstResult(offset).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<AppointmentDetailsDto> findAppointmentHistory(Long userId, Long advisorId, AppointmentStatus status,
+                                                              LocalDateTime start, LocalDateTime end,
+                                                              int offset, int limit) {
+        // 归档表只有已完成/已取消的预约
+        if (status == AppointmentStatus.CONFIRMED) {
+            return findAppointmentDetails(userId, advisorId, status, start, end, offset, limit);
+        }
+        // 两张表各取前 offset + limit 行，合并排序后截取这一页
+        List<AppointmentDetailsDto> rows = new ArrayList<>(query("Appointment", userId, advisorId, status, start, end)
+                .setMaxResults(offset + limit).getResultList());
+        rows.addAll(query("ArchivedAppointment", userId, advisorId, status, start, end)
+                .setMaxResults(offset + limit).getResultList());
+        rows.sort(NEWEST_FIRST);
+        return rows.subList(Math.min(offset, rows.size()), Math.min(offset + limit, rows.size()));
+    }
+
+    private TypedQuery<AppointmentDetailsDto> query(String entity, Long userId, Long advisorId, AppointmentStatus status,
+                                                    LocalDateTime start, LocalDateTime end) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.ruipeng.planner.dto.AppointmentDetailsDto(a.id, a.appointmentDate, " +
+                "a.durationMinutes, a.sessionType, a.status, a.meetingLink, a.userNotes, a.advisorNotes, " +
+                "adv.id, au.firstName, au.lastName, adv.professionalTitle, " +
+                "c.id, c.firstName, c.lastName, " +
+                "p.id, p.planName, p.creationDate, p.healthAssessment) " +
+                "FROM " + entity + " a JOIN a.user c JOIN a.advisor adv JOIN adv.user au " +
+                "LEFT JOIN a.sharedPlan p WHERE ");
+        Map<String, Object> params = new HashMap<>();
+
+        if (userId != null) {
+            jpql.append("c.id = :userId");
+            params.put("userId", userId);
+        } else {
+            jpql.append("adv.id = :advisorId");
+            params.put("advisorId", advisorId);
+        }
+        // 只拼接实际传入的条件
+        if (status != null) {
+            jpql.append(" AND a.status = :status");
+            params.put("status", status);
+        }
+        if (start != null) {
+            jpql.append(" AND a.appointmentDate >= :start");
+            params.put("start", start);
+        }
+        if (end != null) {
+            jpql.append(" AND a.appointmentDate < :end");
+            params.put("end", end);
+        }
+        jpql.append(" ORDER BY a.appointmentDate DESC, a.id DESC");
+
+        TypedQuery<AppointmentDetailsDto> query = entityManager.createQuery(jpql.toString(), AppointmentDetailsDto.class);
+        params.forEach(query::setParameter);
+        return query;
+    }
+}
@@ -1,19 +1,52 @@
 package com.ruipeng.planner.repository;
 
+import com.ruipeng.planner.dto.SharedPlanExportItem;
 import com.ruipeng.planner.entity.Appointment;
 import com.ruipeng.planner.entity.AppointmentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentListingRepository {
     List<Appointment> findByUserId(Long userId);
     List<Appointment> findByAdvisorId(Long advisorId);
     List<Appointment> findByUserIdAndStatus(Long userId, AppointmentStatus status);
     List<Appointment> findByAdvisorIdAndStatus(Long advisorId, AppointmentStatus status);
     List<Appointment> findByAppointmentDateBetween(LocalDateTime start, LocalDateTime end);
     List<Appointment> findByAdvisorIdAndAppointmentDateBetween(Long advisorId, LocalDateTime start, LocalDateTime end);
+
+    // 只取导出所需的列，计划内容由导出线程逐个加载；已归档的预约同样计入
+    @Query("SELECT new com.ruipeng.planner.dto.SharedPlanExportItem(p.id, p.planName, u.firstName, u.lastName) " +
+            "FROM FinancialPlan p JOIN p.user u " +
+            "WHERE p.id IN (SELECT a.sharedPlan.id FROM Appointment a WHERE a.advisor.id = :advisorId " +
+            "AND a.appointmentDate >= :start AND a.appointmentDate < :end) " +
+            "OR p.id IN (SELECT x.sharedPlan.id FROM ArchivedAppointment x WHERE x.advisor.id = :advisorId " +
+            "AND x.appointmentDate >= :start AND x.appointmentDate < :end) " +
+            "ORDER BY u.lastName, u.firstName, p.id")
+    List<SharedPlanExportItem> findSharedPlansForExport(@Param("advisorId") Long advisorId,
+                                                        @Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end);
+
+    // [advisorId, 预约数]，匹配时衡量顾问的排期负载
+    @Query("SELECT a.advisor.id, COUNT(a) FROM Appointment a WHERE a.status = :status " +
+            "AND a.appointmentDate >= :from GROUP BY a.advisor.id")
+    List<Object[]> countByAdvisorSince(@Param("status") AppointmentStatus status,
+                                       @Param("from") LocalDateTime from);
+
+    // 归档候选：按 id 顺序分批取出，每批移动后不再出现在结果中
+    @Query("SELECT a.id FROM Appointment a WHERE a.status IN :statuses AND a.appointmentDate < :cutoff ORDER BY a.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<AppointmentStatus> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
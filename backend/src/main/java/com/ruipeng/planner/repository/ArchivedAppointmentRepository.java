@@ -0,0 +1,29 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.entity.ArchivedAppointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    // 在数据库内整行复制，不经过实体；调用方在同一事务中删除原行。
+    // 声明只写 appointments_archive，否则原生 SQL 会清空全部二级缓存区域
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments_archive"))
+    @Query(value = "INSERT INTO appointments_archive (id, user_id, advisor_id, appointment_date, duration_minutes, " +
+            "session_type, status, booking_date, meeting_link, shared_plan_id, advisor_notes, user_notes, archived_at) " +
+            "SELECT id, user_id, advisor_id, appointment_date, duration_minutes, session_type, status, booking_date, " +
+            "meeting_link, shared_plan_id, advisor_notes, user_notes, :archivedAt " +
+            "FROM appointments WHERE id IN :ids", nativeQuery = true)
+    int copyFromAppointments(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -1,7 +1,12 @@
 package com.ruipeng.planner.repository;
 
+import com.ruipeng.planner.dto.FinancialPlanSummaryDto;
 import com.ruipeng.planner.entity.FinancialPlan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +16,10 @@ import java.util.Optional;
 public interface FinancialPlanRepository extends JpaRepository<FinancialPlan, Long> {
     List<FinancialPlan> findByUserId(Long userId);
     Optional<FinancialPlan> findByShareCode(String shareCode);
+
+    // 列表只取摘要列，不读取四个 JSON 大字段；Slice 多取一行判断下一页，不做 count 查询
+    @Query("SELECT new com.ruipeng.planner.dto.FinancialPlanSummaryDto(p.id, p.planName, p.creationDate, " +
+            "p.healthScore, p.healthAssessment, p.shareCode) " +
+            "FROM FinancialPlan p WHERE p.user.id = :userId ORDER BY p.creationDate DESC, p.id DESC")
+    Slice<FinancialPlanSummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
 }
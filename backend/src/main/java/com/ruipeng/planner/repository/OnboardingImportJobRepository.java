@@ -0,0 +1,57 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.entity.ImportJobStatus;
+import com.ruipeng.planner.entity.OnboardingImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OnboardingImportJobRepository extends JpaRepository<OnboardingImportJob, Long> {
+    List<OnboardingImportJob> findByStatus(ImportJobStatus status);
+
+    List<OnboardingImportJob> findAllByOrderByCreatedAtDesc();
+
+    // 以下更新只修改对应列，避免覆盖并发写入的状态（例如取消）
+    @Modifying
+    @Transactional
+    @Query("UPDATE OnboardingImportJob j SET j.resumedAt = :now, j.processedAtResume = j.processedRows, " +
+            "j.updatedAt = :now WHERE j.id = :id")
+    int markResumed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OnboardingImportJob j SET j.processedRows = j.processedRows + :processed, " +
+            "j.importedUsers = j.importedUsers + :users, " +
+            "j.importedAdvisors = j.importedAdvisors + :advisors, " +
+            "j.rejectedRows = j.rejectedRows + :rejected, " +
+            "j.hashWaitMillis = j.hashWaitMillis + :hashWaitMillis, " +
+            "j.writeMillis = j.writeMillis + :writeMillis, " +
+            "j.lastError = COALESCE(:lastError, j.lastError), j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("processed") long processed,
+                       @Param("users") long users, @Param("advisors") long advisors,
+                       @Param("rejected") long rejected, @Param("hashWaitMillis") long hashWaitMillis,
+                       @Param("writeMillis") long writeMillis, @Param("lastError") String lastError,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OnboardingImportJob j SET j.status = :to, j.runningGuard = NULL, " +
+            "j.lastError = COALESCE(:error, j.lastError), " +
+            "j.updatedAt = :now, j.finishedAt = :now WHERE j.id = :id AND j.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") ImportJobStatus from,
+                         @Param("to") ImportJobStatus to, @Param("error") String error,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OnboardingImportJob j SET j.status = com.ruipeng.planner.entity.ImportJobStatus.RUNNING, " +
+            "j.runningGuard = TRUE, j.finishedAt = NULL, j.updatedAt = :now WHERE j.id = :id AND j.status IN :from")
+    int reopen(@Param("id") Long id, @Param("from") List<ImportJobStatus> from, @Param("now") LocalDateTime now);
+}
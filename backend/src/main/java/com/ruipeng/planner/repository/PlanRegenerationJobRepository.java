@@ -0,0 +1,47 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.entity.PlanRegenerationJob;
+import com.ruipeng.planner.entity.RegenerationJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PlanRegenerationJobRepository extends JpaRepository<PlanRegenerationJob, Long> {
+    List<PlanRegenerationJob> findByStatus(RegenerationJobStatus status);
+
+    List<PlanRegenerationJob> findAllByOrderByCreatedAtDesc();
+
+    // 以下更新只修改对应列，避免覆盖并发写入的状态（例如取消）
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanRegenerationJob j SET j.resumedAt = :now, j.processedAtResume = j.processedUsers, " +
+            "j.updatedAt = :now WHERE j.id = :id")
+    int markResumed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanRegenerationJob j SET j.lastUserId = :lastUserId, " +
+            "j.processedUsers = j.processedUsers + :processed, " +
+            "j.succeededUsers = j.succeededUsers + :succeeded, " +
+            "j.failedUsers = j.failedUsers + :failed, " +
+            "j.lastError = COALESCE(:lastError, j.lastError), j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("lastUserId") Long lastUserId,
+                       @Param("processed") long processed, @Param("succeeded") long succeeded,
+                       @Param("failed") long failed, @Param("lastError") String lastError,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanRegenerationJob j SET j.status = :to, j.runningGuard = NULL, j.lastError = COALESCE(:error, j.lastError), " +
+            "j.updatedAt = :now, j.finishedAt = :now WHERE j.id = :id AND j.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") RegenerationJobStatus from,
+                         @Param("to") RegenerationJobStatus to, @Param("error") String error,
+                         @Param("now") LocalDateTime now);
+}
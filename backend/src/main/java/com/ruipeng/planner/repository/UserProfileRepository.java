@@ -1,12 +1,22 @@
 package com.ruipeng.planner.repository;
 
 import com.ruipeng.planner.entity.UserProfile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     Optional<UserProfile> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // 按用户 ID 做 keyset 分页，批处理任务逐页读取
+    @Query("SELECT p FROM UserProfile p JOIN FETCH p.user u WHERE u.id > :afterUserId ORDER BY u.id")
+    List<UserProfile> findPageAfterUserId(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
+    long countByUserIdGreaterThan(Long userId);
+}
@@ -0,0 +1,228 @@
+package com.ruipeng.planner.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ruipeng.planner.dto.AIUsageDto;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Latency, token and cost accounting for AI model calls.
+ *
+ * <p>Latency, tokens, cost and parse failures are Micrometer meters tagged by endpoint (the
+ * logical caller, e.g. {@code plans} or {@code regeneration}). Per-user totals would be an
+ * unbounded tag, so they are kept in memory instead and served by the {@code aiusage} actuator
+ * endpoint together with a summary of the meters. The per-user totals are a size-capped cache:
+ * once more users than the cap have called the model, the least active ones are evicted and
+ * their totals start over.
+ */
+@Component
+public class AIUsageMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final double inputCostPerMillion;
+    private final double outputCostPerMillion;
+
+    private final Map<String, UsageTotals> endpointUsage = new ConcurrentHashMap<>();
+    private final Cache<Long, UsageTotals> userUsage;
+    private final Map<String, LongAdder> parseFailures = new ConcurrentHashMap<>();
+
+    public AIUsageMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${google.ai.cost.input-per-million-tokens:0.075}") double inputCostPerMillion,
+            @Value("${google.ai.cost.output-per-million-tokens:0.30}") double outputCostPerMillion,
+            @Value("${google.ai.usage.max-tracked-users:10000}") long maxTrackedUsers) {
+        this.meterRegistry = meterRegistry;
+        this.inputCostPerMillion = inputCostPerMillion;
+        this.outputCostPerMillion = outputCostPerMillion;
+        this.userUsage = Caffeine.newBuilder().maximumSize(maxTrackedUsers).build();
+    }
+
+    /**
+     * Records one model call. {@code tokenUsage} may be null when the model did not report it.
+     */
+    public void recordCall(String endpoint, Long userId, long latencyNanos, TokenUsage tokenUsage, boolean success) {
+        latencyTimer(endpoint, success ? "success" : "error").record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        long inputTokens = tokenUsage != null && tokenUsage.inputTokenCount() != null ? tokenUsage.inputTokenCount() : 0;
+        long outputTokens = tokenUsage != null && tokenUsage.outputTokenCount() != null ? tokenUsage.outputTokenCount() : 0;
+        double cost = cost(inputTokens, outputTokens);
+
+        if (inputTokens > 0) {
+            tokenCounter(endpoint, "input").increment(inputTokens);
+        }
+        if (outputTokens > 0) {
+            tokenCounter(endpoint, "output").increment(outputTokens);
+        }
+        if (cost > 0) {
+            Counter.builder("ai.model.cost")
+                    .description("Estimated model cost in USD")
+                    .baseUnit("usd")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment(cost);
+        }
+
+        endpointUsage.computeIfAbsent(endpoint, k -> new UsageTotals()).add(success, inputTokens, outputTokens, cost);
+        if (userId != null) {
+            userUsage.get(userId, k -> new UsageTotals()).add(success, inputTokens, outputTokens, cost);
+        }
+    }
+
+    /**
+     * Only the streaming client can observe the first token, so the timer is registered on first
+     * use and stays absent when responses are not streamed.
+     */
+    public void recordTimeToFirstToken(Duration timeToFirstToken) {
+        Timer.builder("ai.model.time_to_first_token")
+                .description("Time until the first streamed chunk of a model response")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(timeToFirstToken);
+    }
+
+    public void recordParseFailure(String endpoint, String reason) {
+        Counter.builder("ai.model.parse_failures")
+                .description("Model responses that could not be used as a plan")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        parseFailures.computeIfAbsent(endpoint + ":" + reason, k -> new LongAdder()).increment();
+    }
+
+    double cost(long inputTokens, long outputTokens) {
+        return (inputTokens * inputCostPerMillion + outputTokens * outputCostPerMillion) / 1_000_000.0;
+    }
+
+    public AIUsageDto getUserUsage(Long userId) {
+        UsageTotals totals = userUsage.getIfPresent(userId);
+        return totals != null ? totals.toDto() : new AIUsageDto();
+    }
+
+    public Map<String, AIUsageDto> getEndpointUsage() {
+        return endpointUsage.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toDto(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public List<Map<String, Object>> getTopUsersByCost(int limit) {
+        return userUsage.asMap().entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<Long, UsageTotals> e) -> e.getValue().cost.sum()).reversed())
+                .limit(limit)
+                .map(e -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("userId", e.getKey());
+                    row.put("usage", e.getValue().toDto());
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Point-in-time summary for the actuator endpoint.
+     */
+    public Map<String, Object> summary(int topUsers) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        Map<String, Object> pricing = new LinkedHashMap<>();
+        pricing.put("inputPerMillionTokensUsd", inputCostPerMillion);
+        pricing.put("outputPerMillionTokensUsd", outputCostPerMillion);
+        summary.put("pricing", pricing);
+
+        summary.put("endpoints", getEndpointUsage());
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Timer timer : meterRegistry.find("ai.model.latency").timers()) {
+            latency.put(timer.getId().getTag("endpoint") + ":" + timer.getId().getTag("outcome"), describe(timer));
+        }
+        summary.put("latency", latency);
+        Timer timeToFirstToken = meterRegistry.find("ai.model.time_to_first_token").timer();
+        if (timeToFirstToken != null) {
+            summary.put("timeToFirstToken", describe(timeToFirstToken));
+        }
+
+        Map<String, Long> failures = new LinkedHashMap<>();
+        parseFailures.forEach((key, count) -> failures.put(key, count.sum()));
+        summary.put("parseFailures", failures);
+
+        summary.put("topUsersByCost", getTopUsersByCost(topUsers));
+        return summary;
+    }
+
+    public void reset() {
+        endpointUsage.clear();
+        userUsage.invalidateAll();
+        parseFailures.clear();
+    }
+
+    private Timer latencyTimer(String endpoint, String outcome) {
+        return Timer.builder("ai.model.latency")
+                .description("Total duration of AI model calls, excluding admission queueing")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter tokenCounter(String endpoint, String type) {
+        return Counter.builder("ai.model.tokens")
+                .description("Tokens reported by the model")
+                .tag("endpoint", endpoint)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> describe(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return stats;
+    }
+
+    private static final class UsageTotals {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failedCalls = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final DoubleAdder cost = new DoubleAdder();
+
+        void add(boolean success, long input, long output, double callCost) {
+            calls.increment();
+            if (!success) {
+                failedCalls.increment();
+            }
+            inputTokens.add(input);
+            outputTokens.add(output);
+            cost.add(callCost);
+        }
+
+        AIUsageDto toDto() {
+            return new AIUsageDto(calls.sum(), failedCalls.sum(), inputTokens.sum(), outputTokens.sum(), cost.sum());
+        }
+    }
+}
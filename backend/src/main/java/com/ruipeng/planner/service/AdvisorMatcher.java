@@ -0,0 +1,440 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Scores every advisor against a client's needs and keeps the best k.
+ *
+ * <p>Each advisor is a row of flat primitive arrays: specialty and language bitmasks plus a
+ * precomputed quality score from experience, rating and upcoming load. A client's needs become
+ * a weight per specialty, so scoring an advisor is a few AND and popcount steps over its mask
+ * words. A bounded heap keeps the top k without sorting every advisor. Rebuilt together with
+ * {@link AdvisorSearchIndex}; load only changes on rebuild.
+ */
+@Component
+public class AdvisorMatcher {
+    public static final int MAX_MATCHES = 20;
+
+    // 各项得分均归一到 [0, 1] 后加权
+    static final float SPECIALTY_WEIGHT = 0.55f;
+    static final float LANGUAGE_WEIGHT = 0.15f;
+    static final float RATING_WEIGHT = 0.15f;
+    static final float EXPERIENCE_WEIGHT = 0.10f;
+    static final float LOAD_WEIGHT = 0.05f;
+
+    private static final int EXPERIENCE_CAP = 20;
+    private static final int LOAD_CAP = 20;
+    // 未评分的顾问按中等评分计
+    private static final float UNRATED = 0.5f;
+    // 资料推断出的需求比用户明确填写的兴趣和目标权重低
+    private static final float HINT_WEIGHT = 0.5f;
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // 专长名称里的通用词，不参与匹配
+    private static final Set<String> GENERIC_WORDS = Set.of("planning", "plan", "planner", "management",
+            "manager", "financial", "finance", "advice", "advisory", "services", "and", "for");
+
+    // 投资期限和风险偏好对应的常见专长
+    private static final Map<String, List<String>> HORIZON_HINTS = Map.of(
+            "SHORT_TERM", List.of("budgeting", "debt", "savings", "cash"),
+            "MEDIUM_TERM", List.of("education", "investment", "tax"),
+            "LONG_TERM", List.of("retirement", "estate", "pension", "wealth"));
+    private static final List<String> HIGH_RISK_HINTS = List.of("investment", "wealth", "portfolio");
+    private static final List<String> LOW_RISK_HINTS = List.of("insurance", "savings", "debt");
+
+    /**
+     * What a client is looking for. {@code interests} and {@code goals} are free text matched
+     * against specialty words; {@code riskTolerance} (1-10) and {@code investmentHorizon} add
+     * weaker hints. Any advisor speaking one of {@code languages} gets the language score.
+     */
+    public record Need(Collection<String> interests, Collection<String> goals, Integer riskTolerance,
+                       String investmentHorizon, Collection<String> languages) {
+    }
+
+    public record Candidate(AdvisorProfileDto profile, int upcomingAppointments) {
+    }
+
+    public record Match(Long advisorId, double score) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Vectors vectors = new Vectors();
+    // 重建期间的增量更新，换入前重放
+    private List<Consumer<Vectors>> pendingDuringRebuild;
+
+    /**
+     * Replaces every vector with what {@code loader} returns. The loader runs without holding
+     * the lock; updates that arrive meanwhile are replayed onto the new vectors.
+     */
+    public synchronized void rebuild(Supplier<? extends Collection<Candidate>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Vectors fresh = new Vectors();
+        boolean loaded = false;
+        try {
+            for (Candidate candidate : loader.get()) {
+                fresh.put(candidate.profile(), candidate.upcomingAppointments());
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // 加载失败时保留旧数据
+                if (loaded) {
+                    pendingDuringRebuild.forEach(update -> update.accept(fresh));
+                    vectors = fresh;
+                }
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces an advisor, keeping the load it had (0 for a new advisor).
+     */
+    public void put(AdvisorProfileDto advisor) {
+        update(v -> v.put(advisor, null));
+    }
+
+    public void updateRating(Long advisorId, Double averageRating) {
+        update(v -> v.updateRating(advisorId, averageRating));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return vectors.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code k} best advisors for {@code need}, best first; ties go to the lower id.
+     */
+    public List<Match> match(Need need, int k) {
+        lock.readLock().lock();
+        try {
+            return vectors.match(need, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<Vectors> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(vectors);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 词干很粗：一个词是另一个的前缀即可，"retire" 能匹配 "retirement"
+    static boolean sameStem(String a, String b) {
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = shorter == a ? b : a;
+        return shorter.length() >= MIN_STEM_LENGTH && longer.startsWith(shorter);
+    }
+
+    // 1-5 分映射到 [0, 1]
+    private static float normalizedRating(Double averageRating) {
+        return averageRating == null ? UNRATED
+                : (float) Math.min(1.0, Math.max(0.0, (averageRating - 1) / 4));
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Feature rows, one per advisor ordinal; callers hold the matcher lock.
+     */
+    private static final class Vectors {
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final Map<String, Integer> specialtyDims = new HashMap<>();
+        private final List<List<String>> specialtyWords = new ArrayList<>();
+        private final Map<String, Integer> languageDims = new HashMap<>();
+
+        private int size;
+        private long[] ids = new long[16];
+        private float[] quality = new float[16];
+        private float[] rating = new float[16];
+        private float[] experience = new float[16];
+        private float[] load = new float[16];
+        // 每个顾问占 specialtyStride 个 long，第 d 位表示拥有第 d 个专长
+        private int specialtyStride = 1;
+        private long[] specialties = new long[16];
+        private int languageStride = 1;
+        private long[] languages = new long[16];
+
+        void put(AdvisorProfileDto advisor, Integer upcomingAppointments) {
+            Integer ordinal = ordinals.get(advisor.getId());
+            if (ordinal == null) {
+                ordinal = size++;
+                ordinals.put(advisor.getId(), ordinal);
+                ensureCapacity(size);
+                ids[ordinal] = advisor.getId();
+            }
+            int row = ordinal;
+            rating[row] = normalizedRating(advisor.getAverageRating());
+            int years = advisor.getExperienceYears() == null ? 0 : advisor.getExperienceYears();
+            experience[row] = Math.min(Math.max(years, 0), EXPERIENCE_CAP) / (float) EXPERIENCE_CAP;
+            if (upcomingAppointments != null) {
+                load[row] = Math.min(upcomingAppointments, LOAD_CAP) / (float) LOAD_CAP;
+            }
+            refreshQuality(row);
+
+            int[] specialtyBits = dims(advisor.getSpecialties(), true);
+            int[] languageBits = dims(advisor.getLanguages(), false);
+            Arrays.fill(specialties, row * specialtyStride, (row + 1) * specialtyStride, 0L);
+            for (int d : specialtyBits) {
+                specialties[row * specialtyStride + (d >>> 6)] |= 1L << d;
+            }
+            Arrays.fill(languages, row * languageStride, (row + 1) * languageStride, 0L);
+            for (int d : languageBits) {
+                languages[row * languageStride + (d >>> 6)] |= 1L << d;
+            }
+        }
+
+        void updateRating(Long advisorId, Double averageRating) {
+            Integer ordinal = ordinals.get(advisorId);
+            if (ordinal != null) {
+                rating[ordinal] = normalizedRating(averageRating);
+                refreshQuality(ordinal);
+            }
+        }
+
+        // 与用户无关的部分预先算好
+        private void refreshQuality(int row) {
+            quality[row] = RATING_WEIGHT * rating[row] + EXPERIENCE_WEIGHT * experience[row]
+                    - LOAD_WEIGHT * load[row];
+        }
+
+        private int[] dims(Set<String> values, boolean specialty) {
+            if (values == null || values.isEmpty()) {
+                return new int[0];
+            }
+            Map<String, Integer> vocabulary = specialty ? specialtyDims : languageDims;
+            int[] bits = new int[values.size()];
+            int count = 0;
+            for (String value : values) {
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                String key = key(value);
+                Integer d = vocabulary.get(key);
+                if (d == null) {
+                    d = vocabulary.size();
+                    vocabulary.put(key, d);
+                    if (specialty) {
+                        List<String> words = new ArrayList<>();
+                        AdvisorSearchIndex.tokenize(key, words);
+                        words.removeAll(GENERIC_WORDS);
+                        specialtyWords.add(words);
+                    }
+                    widen(specialty, vocabulary.size());
+                }
+                bits[count++] = d;
+            }
+            return Arrays.copyOf(bits, count);
+        }
+
+        private void ensureCapacity(int rows) {
+            if (rows <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(rows, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            quality = Arrays.copyOf(quality, capacity);
+            rating = Arrays.copyOf(rating, capacity);
+            experience = Arrays.copyOf(experience, capacity);
+            load = Arrays.copyOf(load, capacity);
+            specialties = Arrays.copyOf(specialties, capacity * specialtyStride);
+            languages = Arrays.copyOf(languages, capacity * languageStride);
+        }
+
+        // 词表超过当前掩码宽度时，每行多加一个 long
+        private void widen(boolean specialty, int dimensions) {
+            int stride = specialty ? specialtyStride : languageStride;
+            int needed = (dimensions + 63) >>> 6;
+            if (needed <= stride) {
+                return;
+            }
+            long[] masks = specialty ? specialties : languages;
+            long[] wider = new long[ids.length * needed];
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(masks, row * stride, wider, row * needed, stride);
+            }
+            if (specialty) {
+                specialties = wider;
+                specialtyStride = needed;
+            } else {
+                languages = wider;
+                languageStride = needed;
+            }
+        }
+
+        List<Match> match(Need need, int k) {
+            // 用户需求向量：每个专长一个权重，掩码只保留有权重的位
+            float[] want = new float[specialtyDims.size()];
+            List<String> explicit = new ArrayList<>();
+            if (need.interests() != null) {
+                need.interests().forEach(text -> AdvisorSearchIndex.tokenize(text, explicit));
+            }
+            if (need.goals() != null) {
+                need.goals().forEach(text -> AdvisorSearchIndex.tokenize(text, explicit));
+            }
+            explicit.removeAll(GENERIC_WORDS);
+            List<String> hints = new ArrayList<>();
+            if (need.investmentHorizon() != null) {
+                hints.addAll(HORIZON_HINTS.getOrDefault(need.investmentHorizon().trim().toUpperCase(Locale.ROOT),
+                        List.of()));
+            }
+            if (need.riskTolerance() != null) {
+                hints.addAll(need.riskTolerance() >= 7 ? HIGH_RISK_HINTS
+                        : need.riskTolerance() <= 3 ? LOW_RISK_HINTS : List.of());
+            }
+            float totalWant = 0;
+            long[] wantMask = new long[specialtyStride];
+            for (int d = 0; d < want.length; d++) {
+                List<String> words = specialtyWords.get(d);
+                want[d] = anyStem(words, explicit) ? 1f : anyStem(words, hints) ? HINT_WEIGHT : 0f;
+                if (want[d] > 0) {
+                    wantMask[d >>> 6] |= 1L << d;
+                    totalWant += want[d];
+                }
+            }
+            long[] languageMask = new long[languageStride];
+            if (need.languages() != null) {
+                for (String language : need.languages()) {
+                    Integer d = language == null ? null : languageDims.get(key(language));
+                    if (d != null) {
+                        languageMask[d >>> 6] |= 1L << d;
+                    }
+                }
+            }
+
+            int keep = Math.min(k, size);
+            if (keep <= 0) {
+                return List.of();
+            }
+            float specialtyScale = totalWant > 0 ? SPECIALTY_WEIGHT / totalWant : 0f;
+            // 小顶堆，堆顶是当前保留者中最差的
+            int[] heap = new int[keep];
+            float[] heapScores = new float[keep];
+            int heapSize = 0;
+            for (int row = 0; row < size; row++) {
+                float specialtyScore = 0;
+                int base = row * specialtyStride;
+                for (int w = 0; w < specialtyStride; w++) {
+                    long bits = specialties[base + w] & wantMask[w];
+                    while (bits != 0) {
+                        specialtyScore += want[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                        bits &= bits - 1;
+                    }
+                }
+                float score = quality[row] + specialtyScale * specialtyScore;
+                base = row * languageStride;
+                for (int w = 0; w < languageStride; w++) {
+                    if ((languages[base + w] & languageMask[w]) != 0) {
+                        score += LANGUAGE_WEIGHT;
+                        break;
+                    }
+                }
+
+                if (heapSize < keep) {
+                    heap[heapSize] = row;
+                    heapScores[heapSize] = score;
+                    siftUp(heap, heapScores, heapSize++);
+                } else if (better(score, row, heapScores[0], heap[0])) {
+                    heap[0] = row;
+                    heapScores[0] = score;
+                    siftDown(heap, heapScores, heapSize);
+                }
+            }
+
+            Match[] ranked = new Match[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                // 对外的分数保留四位小数
+                ranked[i] = new Match(ids[heap[0]], Math.round(heapScores[0] * 10000) / 10000.0);
+                heap[0] = heap[i];
+                heapScores[0] = heapScores[i];
+                siftDown(heap, heapScores, i);
+            }
+            return Arrays.asList(ranked);
+        }
+
+        private static boolean anyStem(List<String> words, List<String> terms) {
+            for (String word : words) {
+                for (String term : terms) {
+                    if (sameStem(word, term)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // 分数高者更好，分数相同时 id 小者更好
+        private boolean better(float score, int row, float otherScore, int otherRow) {
+            return score != otherScore ? score > otherScore : ids[row] < ids[otherRow];
+        }
+
+        private void siftUp(int[] heap, float[] scores, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(scores[parent], heap[parent], scores[i], heap[i])) {
+                    break;
+                }
+                swap(heap, scores, i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, float[] scores, int size) {
+            int i = 0;
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && better(scores[worst], heap[worst], scores[left], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && better(scores[worst], heap[worst], scores[right], heap[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(heap, scores, i, worst);
+                i = worst;
+            }
+        }
+
+        private static void swap(int[] heap, float[] scores, int i, int j) {
+            int row = heap[i];
+            heap[i] = heap[j];
+            heap[j] = row;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
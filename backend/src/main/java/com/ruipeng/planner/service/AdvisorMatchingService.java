@@ -0,0 +1,101 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.dto.AdvisorRecommendationDto;
+import com.ruipeng.planner.entity.UserProfile;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Recommends advisors for a client from their profile: investment interests, financial goals,
+ * risk tolerance and investment horizon. Scoring runs in memory on {@link AdvisorMatcher};
+ * only the recommended profiles are read from the database.
+ */
+@Service
+public class AdvisorMatchingService {
+    public static final int DEFAULT_RECOMMENDATIONS = 5;
+    // 匹配器在下次重建前仍可能包含已删除的顾问，多取几名用于补位
+    private static final int DELETED_MARGIN = 5;
+
+    private final UserProfileRepository userProfileRepository;
+    private final AdvisorService advisorService;
+    private final AdvisorMatcher matcher;
+    private final ObjectMapper objectMapper;
+
+    public AdvisorMatchingService(UserProfileRepository userProfileRepository,
+                                  AdvisorService advisorService,
+                                  AdvisorMatcher matcher,
+                                  ObjectMapper objectMapper) {
+        this.userProfileRepository = userProfileRepository;
+        this.advisorService = advisorService;
+        this.matcher = matcher;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The best advisors for {@code userId}, best first. Advisors speaking one of
+     * {@code languages} rank higher. A user without a profile gets the best advisors overall.
+     * Advisors deleted since the matcher was last rebuilt are skipped and the next best take
+     * their place.
+     */
+    @Transactional(readOnly = true)
+    public List<AdvisorRecommendationDto> recommendAdvisors(Long userId, Collection<String> languages, Integer limit) {
+        int count = limit == null ? DEFAULT_RECOMMENDATIONS : limit;
+        if (count < 1 || count > AdvisorMatcher.MAX_MATCHES) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + AdvisorMatcher.MAX_MATCHES);
+        }
+
+        AdvisorMatcher.Need need = userProfileRepository.findByUserId(userId)
+                .map(profile -> toNeed(profile, languages))
+                .orElseGet(() -> new AdvisorMatcher.Need(List.of(), List.of(), null, null, languages));
+        List<AdvisorMatcher.Match> matches = matcher.match(need, count + DELETED_MARGIN);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = matches.stream().map(AdvisorMatcher.Match::advisorId).toList();
+        Map<Long, Double> scores = new HashMap<>();
+        matches.forEach(match -> scores.put(match.advisorId(), match.score()));
+        List<AdvisorRecommendationDto> recommendations = new ArrayList<>();
+        for (AdvisorProfileDto profile : advisorService.getAdvisorProfiles(ids)) {
+            if (recommendations.size() == count) {
+                break;
+            }
+            recommendations.add(new AdvisorRecommendationDto(profile, scores.get(profile.getId())));
+        }
+        return recommendations;
+    }
+
+    private AdvisorMatcher.Need toNeed(UserProfile profile, Collection<String> languages) {
+        return new AdvisorMatcher.Need(textValues(profile.getInvestmentInterestsJson()),
+                textValues(profile.getFinancialGoalsJson()), profile.getRiskTolerance(),
+                profile.getInvestmentHorizon(), languages);
+    }
+
+    // JSON 列一般是字符串数组；格式不对时当作没有填写
+    private List<String> textValues(String json) {
+        List<String> values = new ArrayList<>();
+        if (json == null || json.isBlank()) {
+            return values;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (node.isTextual()) {
+                values.add(node.asText());
+            }
+            for (JsonNode item : node) {
+                if (item.isTextual()) {
+                    values.add(item.asText());
+                }
+            }
+        } catch (Exception e) {
+            values.clear();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,150 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorReviewDto;
+import com.ruipeng.planner.dto.AdvisorReviewPage;
+import com.ruipeng.planner.dto.AdvisorReviewRequest;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.AdvisorReview;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.repository.AdvisorRepository;
+import com.ruipeng.planner.repository.AdvisorReviewRepository;
+import com.ruipeng.planner.repository.AppointmentRepository;
+import com.ruipeng.planner.repository.ArchivedAppointmentRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Client reviews of completed appointments.
+ *
+ * <p>{@code Advisor.averageRating} and {@code ratingCount} are kept as a running mean: every
+ * create, edit and delete applies its delta with one conditional UPDATE in the same transaction
+ * as the review row, so the aggregates never need a pass over all reviews.
+ */
+@Service
+public class AdvisorReviewService {
+    public static final int REVIEW_MAX_PAGE_SIZE = 100;
+
+    private final AdvisorReviewRepository reviewRepository;
+    private final AdvisorRepository advisorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final AdvisorSearchIndex searchIndex;
+    private final AdvisorMatcher matcher;
+
+    public AdvisorReviewService(AdvisorReviewRepository reviewRepository,
+                                AdvisorRepository advisorRepository,
+                                AppointmentRepository appointmentRepository,
+                                ArchivedAppointmentRepository archivedAppointmentRepository,
+                                AdvisorSearchIndex searchIndex,
+                                AdvisorMatcher matcher) {
+        this.reviewRepository = reviewRepository;
+        this.advisorRepository = advisorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.searchIndex = searchIndex;
+        this.matcher = matcher;
+    }
+
+    @Transactional
+    public AdvisorReviewDto createReview(Long userId, AdvisorReviewRequest request) {
+        if (request.getAppointmentId() == null) {
+            throw new IllegalArgumentException("Appointment id is required");
+        }
+        Reviewed reviewed = findReviewedAppointment(request.getAppointmentId());
+        if (!reviewed.user().getId().equals(userId)) {
+            throw new EntityNotFoundException("Appointment not found with id: " + request.getAppointmentId());
+        }
+        if (reviewed.status() != AppointmentStatus.COMPLETED) {
+            throw new IllegalStateException("Only completed appointments can be reviewed");
+        }
+        if (reviewRepository.existsByAppointmentId(request.getAppointmentId())) {
+            throw new IllegalStateException("This appointment has already been reviewed");
+        }
+
+        AdvisorReview review = new AdvisorReview();
+        review.setAppointmentId(request.getAppointmentId());
+        review.setUser(reviewed.user());
+        review.setAdvisor(reviewed.advisor());
+        review.setRating(request.getRating());
+        review.setComment(request.getComment());
+        review.setCreatedAt(LocalDateTime.now());
+        review.setUpdatedAt(review.getCreatedAt());
+        // 先插入评价：同一预约的并发重复评价在唯一约束处失败，整个事务连同汇总一起回滚
+        reviewRepository.saveAndFlush(review);
+        applyAggregate(advisorRepository.addRating(reviewed.advisor().getId(), review.getRating()));
+        refreshIndexedRating(reviewed.advisor().getId());
+        return toDto(review);
+    }
+
+    @Transactional
+    public AdvisorReviewDto updateReview(Long userId, Long reviewId, AdvisorReviewRequest request) {
+        AdvisorReview review = reviewRepository.findForUpdate(reviewId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Review not found with id: " + reviewId));
+        int delta = request.getRating() - review.getRating();
+        review.setRating(request.getRating());
+        review.setComment(request.getComment());
+        review.setUpdatedAt(LocalDateTime.now());
+        if (delta != 0) {
+            applyAggregate(advisorRepository.changeRating(review.getAdvisor().getId(), delta));
+            refreshIndexedRating(review.getAdvisor().getId());
+        }
+        return toDto(review);
+    }
+
+    @Transactional
+    public void deleteReview(Long userId, Long reviewId) {
+        AdvisorReview review = reviewRepository.findForUpdate(reviewId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Review not found with id: " + reviewId));
+        reviewRepository.delete(review);
+        applyAggregate(advisorRepository.removeRating(review.getAdvisor().getId(), review.getRating()));
+        refreshIndexedRating(review.getAdvisor().getId());
+    }
+
+    @Transactional(readOnly = true)
+    public AdvisorReviewPage getAdvisorReviews(Long advisorId, int page, int size) {
+        if (page < 0 || size < 1 || size > REVIEW_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + REVIEW_MAX_PAGE_SIZE);
+        }
+        Slice<AdvisorReviewDto> slice = reviewRepository.findByAdvisorId(advisorId, PageRequest.of(page, size));
+        return new AdvisorReviewPage(slice.getContent(), page, size, slice.hasNext());
+    }
+
+    // 被评价的预约可能已经归档
+    private Reviewed findReviewedAppointment(Long appointmentId) {
+        return appointmentRepository.findById(appointmentId)
+                .map(a -> new Reviewed(a.getUser(), a.getAdvisor(), a.getStatus()))
+                .or(() -> archivedAppointmentRepository.findById(appointmentId)
+                        .map(a -> new Reviewed(a.getUser(), a.getAdvisor(), a.getStatus())))
+                .orElseThrow(() -> new EntityNotFoundException("Appointment not found with id: " + appointmentId));
+    }
+
+    // 搜索排序和顾问匹配都用到评分，提交后同步新的平均分
+    private void refreshIndexedRating(Long advisorId) {
+        Double averageRating = advisorRepository.findAverageRatingById(advisorId);
+        AfterCommit.run(() -> {
+            searchIndex.updateRating(advisorId, averageRating);
+            matcher.updateRating(advisorId, averageRating);
+        });
+    }
+
+    private static void applyAggregate(int updatedRows) {
+        if (updatedRows != 1) {
+            throw new IllegalStateException("Advisor rating could not be updated");
+        }
+    }
+
+    private static AdvisorReviewDto toDto(AdvisorReview review) {
+        return new AdvisorReviewDto(review.getId(), review.getAppointmentId(), review.getAdvisor().getId(),
+                review.getRating(), review.getComment(), review.getUser().getFirstName(),
+                review.getCreatedAt(), review.getUpdatedAt());
+    }
+
+    private record Reviewed(User user, Advisor advisor, AppointmentStatus status) {
+    }
+}
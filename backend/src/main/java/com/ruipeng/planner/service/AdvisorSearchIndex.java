@@ -0,0 +1,336 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the advisor directory.
+ *
+ * <p>Every advisor gets a dense ordinal. Each specialty, language, experience bucket and bio or
+ * title token keeps a {@link BitSet} of the advisors that have it. A search ANDs the bitsets of
+ * its criteria and ranks what is left by rating. Searches share a read lock. Profile and rating
+ * changes take the write lock and only touch the postings of the advisor that changed.
+ */
+@Component
+public class AdvisorSearchIndex {
+    // 经验分桶的下界：0, 1-2, 3-5, 6-10, 11-15, 16-20, 21+
+    private static final int[] EXPERIENCE_BUCKETS = {0, 1, 3, 6, 11, 16, 21};
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    // 评分高的在前，未评分的排最后，评分相同按 id
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparing((Entry e) -> e.rating(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Entry::id);
+
+    /**
+     * Criteria combine with AND. Several specialties or languages match an advisor with any
+     * of them; every word of {@code text} must appear in the bio or title. Null or empty
+     * criteria are ignored.
+     */
+    public record Query(Collection<String> specialties, Collection<String> languages,
+                        Integer minExperienceYears, Double minRating, String text) {
+    }
+
+    public record Result(List<Long> advisorIds, int total) {
+    }
+
+    private record Entry(Long id, Double rating, Integer experienceYears, Set<String> specialties,
+                         Set<String> languages, Set<String> tokens) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings postings = new Postings();
+    // 重建期间的增量更新，换入新索引前重放，避免丢失
+    private List<Consumer<Postings>> pendingDuringRebuild;
+
+    /**
+     * Replaces the whole index with what {@code loader} returns. The loader runs without
+     * holding the lock; updates that arrive meanwhile are replayed onto the new index.
+     */
+    public synchronized void rebuild(Supplier<? extends Collection<AdvisorProfileDto>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings fresh = new Postings();
+        boolean loaded = false;
+        try {
+            for (AdvisorProfileDto advisor : loader.get()) {
+                fresh.put(toEntry(advisor));
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // 加载失败时保留旧索引
+                if (loaded) {
+                    pendingDuringRebuild.forEach(update -> update.accept(fresh));
+                    postings = fresh;
+                }
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(AdvisorProfileDto advisor) {
+        Entry entry = toEntry(advisor);
+        update(p -> p.put(entry));
+    }
+
+    public void updateRating(Long advisorId, Double averageRating) {
+        update(p -> p.updateRating(advisorId, averageRating));
+    }
+
+    public void remove(Long advisorId) {
+        update(p -> p.remove(advisorId));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Advisor ids matching {@code query}, best rated first, skipping {@code offset} and
+     * returning at most {@code limit}. {@code total} counts every match.
+     */
+    public Result search(Query query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must be >= 0");
+        }
+        lock.readLock().lock();
+        try {
+            return postings.search(query, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<Postings> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(postings);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Entry toEntry(AdvisorProfileDto advisor) {
+        Set<String> tokens = new HashSet<>();
+        tokenize(advisor.getBio(), tokens);
+        tokenize(advisor.getProfessionalTitle(), tokens);
+        return new Entry(advisor.getId(), advisor.getAverageRating(), advisor.getExperienceYears(),
+                normalize(advisor.getSpecialties()), normalize(advisor.getLanguages()), tokens);
+    }
+
+    static void tokenize(String text, Collection<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    private static Set<String> normalize(Collection<String> values) {
+        Set<String> keys = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    keys.add(value.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static int bucketOf(int experienceYears) {
+        int bucket = 0;
+        while (bucket + 1 < EXPERIENCE_BUCKETS.length && EXPERIENCE_BUCKETS[bucket + 1] <= experienceYears) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * The postings themselves; callers hold the index lock.
+     */
+    private static final class Postings {
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+        private final BitSet live = new BitSet();
+        private final Map<String, BitSet> bySpecialty = new HashMap<>();
+        private final Map<String, BitSet> byLanguage = new HashMap<>();
+        private final Map<String, BitSet> byToken = new HashMap<>();
+        private final BitSet[] byExperience = new BitSet[EXPERIENCE_BUCKETS.length];
+
+        Postings() {
+            for (int i = 0; i < byExperience.length; i++) {
+                byExperience[i] = new BitSet();
+            }
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+
+        void put(Entry entry) {
+            Integer ordinal = ordinals.get(entry.id());
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? entries.size() : freeOrdinals.pop();
+                ordinals.put(entry.id(), ordinal);
+                if (ordinal == entries.size()) {
+                    entries.add(null);
+                }
+            } else {
+                unindex(ordinal, entries.get(ordinal));
+            }
+            entries.set(ordinal, entry);
+            live.set(ordinal);
+            for (String specialty : entry.specialties()) {
+                bySpecialty.computeIfAbsent(specialty, k -> new BitSet()).set(ordinal);
+            }
+            for (String language : entry.languages()) {
+                byLanguage.computeIfAbsent(language, k -> new BitSet()).set(ordinal);
+            }
+            for (String token : entry.tokens()) {
+                byToken.computeIfAbsent(token, k -> new BitSet()).set(ordinal);
+            }
+            if (entry.experienceYears() != null) {
+                byExperience[bucketOf(entry.experienceYears())].set(ordinal);
+            }
+        }
+
+        void updateRating(Long advisorId, Double rating) {
+            Integer ordinal = ordinals.get(advisorId);
+            if (ordinal != null) {
+                Entry old = entries.get(ordinal);
+                // 评分不参与倒排，只替换条目
+                entries.set(ordinal, new Entry(old.id(), rating, old.experienceYears(), old.specialties(),
+                        old.languages(), old.tokens()));
+            }
+        }
+
+        void remove(Long advisorId) {
+            Integer ordinal = ordinals.remove(advisorId);
+            if (ordinal != null) {
+                unindex(ordinal, entries.get(ordinal));
+                entries.set(ordinal, null);
+                live.clear(ordinal);
+                freeOrdinals.push(ordinal);
+            }
+        }
+
+        private void unindex(int ordinal, Entry entry) {
+            clear(bySpecialty, entry.specialties(), ordinal);
+            clear(byLanguage, entry.languages(), ordinal);
+            clear(byToken, entry.tokens(), ordinal);
+            if (entry.experienceYears() != null) {
+                byExperience[bucketOf(entry.experienceYears())].clear(ordinal);
+            }
+        }
+
+        private static void clear(Map<String, BitSet> postings, Set<String> keys, int ordinal) {
+            for (String key : keys) {
+                BitSet bits = postings.get(key);
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        Result search(Query query, int offset, int limit) {
+            BitSet hits = (BitSet) live.clone();
+            if (query.specialties() != null && !query.specialties().isEmpty()) {
+                hits.and(anyOf(bySpecialty, normalize(query.specialties())));
+            }
+            if (query.languages() != null && !query.languages().isEmpty()) {
+                hits.and(anyOf(byLanguage, normalize(query.languages())));
+            }
+            Integer minExperience = query.minExperienceYears();
+            if (minExperience != null) {
+                BitSet experienced = new BitSet();
+                for (int bucket = bucketOf(Math.max(0, minExperience)); bucket < byExperience.length; bucket++) {
+                    experienced.or(byExperience[bucket]);
+                }
+                hits.and(experienced);
+            }
+            List<String> words = new ArrayList<>();
+            tokenize(query.text(), words);
+            for (String word : words) {
+                BitSet bits = byToken.get(word);
+                if (bits == null) {
+                    return new Result(List.of(), 0);
+                }
+                hits.and(bits);
+            }
+
+            // 只保留前 offset + limit 名，堆顶是其中排名最靠后的；按 long 相加防止溢出
+            int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            PriorityQueue<Entry> top = new PriorityQueue<>(RANKING.reversed());
+            int total = 0;
+            for (int ordinal = hits.nextSetBit(0); ordinal >= 0; ordinal = hits.nextSetBit(ordinal + 1)) {
+                Entry entry = entries.get(ordinal);
+                // 分桶只做粗筛，边界桶里不足年限的在这里排除
+                if (minExperience != null && entry.experienceYears() < minExperience) {
+                    continue;
+                }
+                if (query.minRating() != null && (entry.rating() == null || entry.rating() < query.minRating())) {
+                    continue;
+                }
+                total++;
+                if (keep == 0) {
+                    continue;
+                }
+                if (top.size() < keep) {
+                    top.add(entry);
+                } else if (RANKING.compare(entry, top.peek()) < 0) {
+                    top.poll();
+                    top.add(entry);
+                }
+            }
+
+            List<Entry> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            List<Long> ids = new ArrayList<>();
+            for (int i = offset; i < ranked.size(); i++) {
+                ids.add(ranked.get(i).id());
+            }
+            return new Result(ids, total);
+        }
+
+        private static BitSet anyOf(Map<String, BitSet> postings, Set<String> keys) {
+            BitSet union = new BitSet();
+            for (String key : keys) {
+                BitSet bits = postings.get(key);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            return union;
+        }
+    }
+}
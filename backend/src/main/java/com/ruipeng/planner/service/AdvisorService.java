@@ -1,7 +1,10 @@
 package com.ruipeng.planner.service;
 
+import com.ruipeng.planner.dto.AdvisorDirectoryPage;
 import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.dto.AdvisorSearchPage;
 import com.ruipeng.planner.dto.AvailabilitySlotDto;
+import com.ruipeng.planner.dto.TagSuggestionDto;
 import com.ruipeng.planner.entity.*;
 import com.ruipeng.planner.repository.AdvisorRepository;
 import com.ruipeng.planner.repository.AppointmentRepository;
@@ -9,10 +12,16 @@ import com.ruipeng.planner.repository.AvailabilitySlotRepository;
 import com.ruipeng.planner.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Array;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -23,41 +32,224 @@ import java.util.*;
 
 @Service
 public class AdvisorService {
+    private static final Logger log = LoggerFactory.getLogger(AdvisorService.class);
+
+    // IN 列表的批大小
+    private static final int TAG_BATCH_SIZE = 1000;
+
+    public static final int DIRECTORY_DEFAULT_PAGE_SIZE = 20;
+    public static final int DIRECTORY_MAX_PAGE_SIZE = 100;
+    // 搜索要在堆里保留前 offset + limit 名，因此限制可翻到的深度
+    public static final int SEARCH_MAX_DEPTH = 1000;
+
     private final AdvisorRepository advisorRepository;
     private final UserRepository userRepository;
     private final AvailabilitySlotRepository availabilitySlotRepository;
     private final AppointmentRepository appointmentRepository;
+    private final AdvisorSearchIndex searchIndex;
+    private final AdvisorTagTypeahead tagTypeahead;
+    private final AdvisorMatcher matcher;
 
     @Autowired
-    public AdvisorService(AdvisorRepository advisorRepository, UserRepository userRepository, AvailabilitySlotRepository availabilitySlotRepository, AppointmentRepository appointmentRepository) {
+    public AdvisorService(AdvisorRepository advisorRepository, UserRepository userRepository, AvailabilitySlotRepository availabilitySlotRepository, AppointmentRepository appointmentRepository, AdvisorSearchIndex searchIndex, AdvisorTagTypeahead tagTypeahead, AdvisorMatcher matcher) {
         this.advisorRepository = advisorRepository;
         this.userRepository = userRepository;
         this.availabilitySlotRepository = availabilitySlotRepository;
         this.appointmentRepository = appointmentRepository;
+        this.searchIndex = searchIndex;
+        this.tagTypeahead = tagTypeahead;
+        this.matcher = matcher;
     }
 
+    @Transactional(readOnly = true)
     public List<AdvisorProfileDto> getAllAdvisors() {
-        List<Advisor> allAdvisors = advisorRepository.findAllByOrderByRatingDesc();
-        return setAllAdvisorsProfileDto(allAdvisors);
+        return withSpecialtiesAndLanguages(advisorRepository.findAllProfilesOrderByRatingDesc());
     }
 
-    protected List<AdvisorProfileDto> setAllAdvisorsProfileDto(List<Advisor> allAdvisors) {
-        List<AdvisorProfileDto>result = new ArrayList<>();
-        for(Advisor advisor : allAdvisors) {
-            AdvisorProfileDto advisorProfileDto = new AdvisorProfileDto();
-            advisorProfileDto.setId(advisor.getId());
-            advisorProfileDto.setFirstName(advisor.getUser().getFirstName());
-            advisorProfileDto.setLastName(advisor.getUser().getLastName());
-            advisorProfileDto.setBio(advisor.getBio());
-            advisorProfileDto.setExperienceYears(advisor.getExperienceYears());
-            advisorProfileDto.setAverageRating(advisor.getAverageRating());
-            advisorProfileDto.setProfileImageUrl(advisor.getProfileImageUrl());
-            advisorProfileDto.setSpecialties(advisor.getSpecialties());
+    /**
+     * One page of the advisor directory, best rated first. Filters combine with AND; pass the
+     * previous page's {@code nextCursor} to continue. Each page costs three queries however
+     * far into the directory it is.
+     */
+    @Transactional(readOnly = true)
+    public AdvisorDirectoryPage getAdvisorDirectory(String specialty, String language, Double minRating,
+                                                    Integer minExperienceYears, String cursor, Integer size) {
+        int pageSize = size == null ? DIRECTORY_DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > DIRECTORY_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + DIRECTORY_MAX_PAGE_SIZE);
+        }
+
+        Double afterRating = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterRating = position[0].isEmpty() ? null : Double.valueOf(position[0]);
+            afterId = Long.valueOf(position[1]);
+        }
+
+        // 多取一条判断是否还有下一页
+        List<AdvisorProfileDto> profiles = new ArrayList<>(advisorRepository.findDirectoryPage(
+                blankToNull(specialty), blankToNull(language), minRating, minExperienceYears,
+                afterRating, afterId, pageSize + 1));
+        String nextCursor = null;
+        if (profiles.size() > pageSize) {
+            profiles = new ArrayList<>(profiles.subList(0, pageSize));
+            AdvisorProfileDto last = profiles.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getAverageRating(), last.getId());
+        }
+        return new AdvisorDirectoryPage(withSpecialtiesAndLanguages(profiles), nextCursor);
+    }
 
-            result.add(advisorProfileDto);
+    /**
+     * Multi-criteria search over the in-memory {@link AdvisorSearchIndex}, best rated first.
+     * Several specialties or languages match any of them; all other criteria must hold. Only
+     * the profiles on the requested page are read from the database.
+     */
+    @Transactional(readOnly = true)
+    public AdvisorSearchPage searchAdvisors(Collection<String> specialties, Collection<String> languages,
+                                            Integer minExperienceYears, Double minRating, String text,
+                                            int page, Integer size) {
+        int pageSize = size == null ? DIRECTORY_DEFAULT_PAGE_SIZE : size;
+        if (page < 0 || pageSize < 1 || pageSize > DIRECTORY_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + DIRECTORY_MAX_PAGE_SIZE);
+        }
+        if (((long) page + 1) * pageSize > SEARCH_MAX_DEPTH) {
+            throw new IllegalArgumentException("Only the first " + SEARCH_MAX_DEPTH
+                    + " search results can be paged; refine the search to see more");
+        }
+        AdvisorSearchIndex.Result result = searchIndex.search(
+                new AdvisorSearchIndex.Query(specialties, languages, minExperienceYears, minRating, text),
+                page * pageSize, pageSize);
 
+        boolean hasNext = (long) (page + 1) * pageSize < result.total();
+        return new AdvisorSearchPage(getAdvisorProfiles(result.advisorIds()), page, pageSize, result.total(), hasNext);
+    }
+
+    /**
+     * Profiles of the given advisors in the given order, with specialties and languages.
+     * Ids that no longer exist are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<AdvisorProfileDto> getAdvisorProfiles(List<Long> advisorIds) {
+        Map<Long, AdvisorProfileDto> byId = new HashMap<>();
+        if (!advisorIds.isEmpty()) {
+            for (AdvisorProfileDto profile : advisorRepository.findProfilesByIds(advisorIds)) {
+                byId.put(profile.getId(), profile);
+            }
+        }
+        List<AdvisorProfileDto> profiles = new ArrayList<>();
+        for (Long id : advisorIds) {
+            // 内存索引与数据库之间可能短暂不一致，已删除的顾问直接跳过
+            if (byId.containsKey(id)) {
+                profiles.add(byId.get(id));
+            }
+        }
+        return withSpecialtiesAndLanguages(profiles);
+    }
+
+    /**
+     * Reloads the search index, the tag typeahead and the matcher from the database at startup,
+     * and periodically to pick up advisors created outside this service (sign-up, bulk import)
+     * and changes in upcoming appointments.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${advisors.search.rebuild-ms:900000}",
+            initialDelayString = "${advisors.search.rebuild-ms:900000}")
+    public void rebuildSearchIndex() {
+        long start = System.nanoTime();
+        // 所有重建都在读库之前开始记录增量更新，同一份数据喂给各方
+        List<AdvisorProfileDto> advisors = new ArrayList<>();
+        searchIndex.rebuild(() -> {
+            tagTypeahead.rebuild(() -> {
+                matcher.rebuild(() -> {
+                    advisors.addAll(getAllAdvisors());
+                    return withUpcomingAppointments(advisors);
+                });
+                return advisors;
+            });
+            return advisors;
+        });
+        log.info("Advisor search index rebuilt with {} advisors in {} ms",
+                searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<AdvisorMatcher.Candidate> withUpcomingAppointments(List<AdvisorProfileDto> advisors) {
+        Map<Long, Integer> upcoming = new HashMap<>();
+        for (Object[] row : appointmentRepository.countByAdvisorSince(AppointmentStatus.CONFIRMED, LocalDateTime.now())) {
+            upcoming.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        List<AdvisorMatcher.Candidate> candidates = new ArrayList<>();
+        for (AdvisorProfileDto advisor : advisors) {
+            candidates.add(new AdvisorMatcher.Candidate(advisor, upcoming.getOrDefault(advisor.getId(), 0)));
+        }
+        return candidates;
+    }
+
+    public List<TagSuggestionDto> suggestSpecialties(String prefix, Integer limit) {
+        return tagTypeahead.suggestSpecialties(prefix, suggestionLimit(limit));
+    }
+
+    public List<TagSuggestionDto> suggestLanguages(String prefix, Integer limit) {
+        return tagTypeahead.suggestLanguages(prefix, suggestionLimit(limit));
+    }
+
+    private static int suggestionLimit(Integer limit) {
+        int value = limit == null ? AdvisorTagTypeahead.MAX_SUGGESTIONS : limit;
+        if (value < 1 || value > AdvisorTagTypeahead.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + AdvisorTagTypeahead.MAX_SUGGESTIONS);
+        }
+        return value;
+    }
+
+    // 游标内容为 "评分:ID"，未评分时评分为空
+    static String encodeCursor(Double averageRating, Long id) {
+        String position = (averageRating == null ? "" : averageRating.toString()) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            if (!position[0].isEmpty()) {
+                Double.parseDouble(position[0]);
+            }
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid directory cursor");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Fills in specialties and languages with one query per collection (per batch of
+     * {@value #TAG_BATCH_SIZE} advisors), instead of lazily loading them advisor by advisor.
+     */
+    protected List<AdvisorProfileDto> withSpecialtiesAndLanguages(List<AdvisorProfileDto> profiles) {
+        Map<Long, AdvisorProfileDto> byId = new LinkedHashMap<>();
+        for (AdvisorProfileDto profile : profiles) {
+            profile.setSpecialties(new LinkedHashSet<>());
+            profile.setLanguages(new LinkedHashSet<>());
+            byId.put(profile.getId(), profile);
+        }
+
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += TAG_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + TAG_BATCH_SIZE, ids.size()));
+            for (Object[] row : advisorRepository.findSpecialtiesByAdvisorIds(batch)) {
+                byId.get((Long) row[0]).getSpecialties().add((String) row[1]);
+            }
+            for (Object[] row : advisorRepository.findLanguagesByAdvisorIds(batch)) {
+                byId.get((Long) row[0]).getLanguages().add((String) row[1]);
+            }
         }
-        return result;
+        return profiles;
     }
 
     public Advisor getAdvisorById(Long id) {
@@ -65,6 +257,8 @@ public class AdvisorService {
                 .orElseThrow(() -> new EntityNotFoundException("Advisor not found with id: " + id));
     }
 
+    // 顾问、用户及其集合通常来自二级缓存；集合复制出来，事务结束后仍可序列化
+    @Transactional(readOnly = true)
     public AdvisorProfileDto getAdvisorProfileDtoById(Long id) {
         Optional<Advisor> advisor = advisorRepository.findById(id);
         AdvisorProfileDto advisorProfileDto = new AdvisorProfileDto();
@@ -75,8 +269,8 @@ public class AdvisorService {
         advisorProfileDto.setExperienceYears(advisor.get().getExperienceYears());
         advisorProfileDto.setAverageRating(advisor.get().getAverageRating());
         advisorProfileDto.setProfileImageUrl(advisor.get().getProfileImageUrl());
-        advisorProfileDto.setSpecialties(advisor.get().getSpecialties());
-        advisorProfileDto.setLanguages(advisor.get().getLanguages());
+        advisorProfileDto.setSpecialties(new HashSet<>(advisor.get().getSpecialties()));
+        advisorProfileDto.setLanguages(new HashSet<>(advisor.get().getLanguages()));
         return advisorProfileDto;
     }
 
@@ -112,7 +306,22 @@ public class AdvisorService {
             advisor.setLanguages(new HashSet<>(profileDto.getLanguages()));
         }
 
-        return advisorRepository.save(advisor);
+        Advisor saved = advisorRepository.save(advisor);
+        AdvisorProfileDto indexed = new AdvisorProfileDto();
+        indexed.setId(saved.getId());
+        indexed.setProfessionalTitle(saved.getProfessionalTitle());
+        indexed.setExperienceYears(saved.getExperienceYears());
+        indexed.setAverageRating(saved.getAverageRating());
+        indexed.setBio(saved.getBio());
+        indexed.setSpecialties(saved.getSpecialties() == null ? Set.of() : new HashSet<>(saved.getSpecialties()));
+        indexed.setLanguages(saved.getLanguages() == null ? Set.of() : new HashSet<>(saved.getLanguages()));
+        // 提交后再更新索引，回滚的修改不会被搜到
+        AfterCommit.run(() -> {
+            searchIndex.put(indexed);
+            tagTypeahead.put(indexed);
+            matcher.put(indexed);
+        });
+        return saved;
     }
 
     @Transactional
@@ -142,6 +351,7 @@ public class AdvisorService {
         return availabilitySlotRepository.findByAdvisorId(advisorId);
     }
 
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getAvailableTimeSlots(Long advisorId, LocalDate startDate, LocalDate endDate) {
         // Get all availability slots for the advisor
         List<AvailabilitySlot> availabilitySlots = availabilitySlotRepository
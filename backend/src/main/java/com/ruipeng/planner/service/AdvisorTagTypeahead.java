@@ -0,0 +1,145 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.dto.TagSuggestionDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Typeahead for the specialty and language filters, served from two in-memory {@link TagTrie}s
+ * so keystroke-rate lookups never reach the database.
+ *
+ * <p>The tags of every advisor are kept so that a profile update only applies the difference
+ * to the advisor counts. Rebuilt together with {@link AdvisorSearchIndex}; updates that arrive
+ * while a rebuild is loading are replayed onto the new tries.
+ */
+@Component
+public class AdvisorTagTypeahead {
+    public static final int MAX_SUGGESTIONS = TagTrie.MAX_SUGGESTIONS;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Tags tags = Tags.build(List.of());
+    private List<AdvisorProfileDto> pendingDuringRebuild;
+
+    public synchronized void rebuild(Supplier<? extends Collection<AdvisorProfileDto>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Tags fresh = null;
+        try {
+            fresh = Tags.build(loader.get());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // 加载失败时保留旧数据
+                if (fresh != null) {
+                    pendingDuringRebuild.forEach(fresh::put);
+                    tags = fresh;
+                }
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(AdvisorProfileDto advisor) {
+        lock.writeLock().lock();
+        try {
+            tags.put(advisor);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(advisor);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<TagSuggestionDto> suggestSpecialties(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return tags.specialties.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<TagSuggestionDto> suggestLanguages(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return tags.languages.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Tags {
+        private final TagTrie specialties;
+        private final TagTrie languages;
+        private final Map<Long, Set<String>> specialtiesByAdvisor;
+        private final Map<Long, Set<String>> languagesByAdvisor;
+
+        private Tags(TagTrie specialties, TagTrie languages,
+                     Map<Long, Set<String>> specialtiesByAdvisor, Map<Long, Set<String>> languagesByAdvisor) {
+            this.specialties = specialties;
+            this.languages = languages;
+            this.specialtiesByAdvisor = specialtiesByAdvisor;
+            this.languagesByAdvisor = languagesByAdvisor;
+        }
+
+        static Tags build(Collection<AdvisorProfileDto> advisors) {
+            Map<Long, Set<String>> specialtiesByAdvisor = new HashMap<>();
+            Map<Long, Set<String>> languagesByAdvisor = new HashMap<>();
+            Map<String, Integer> specialtyCounts = new HashMap<>();
+            Map<String, Integer> languageCounts = new HashMap<>();
+            for (AdvisorProfileDto advisor : advisors) {
+                collect(advisor.getId(), advisor.getSpecialties(), specialtiesByAdvisor, specialtyCounts);
+                collect(advisor.getId(), advisor.getLanguages(), languagesByAdvisor, languageCounts);
+            }
+            return new Tags(TagTrie.build(specialtyCounts), TagTrie.build(languageCounts),
+                    specialtiesByAdvisor, languagesByAdvisor);
+        }
+
+        private static void collect(Long advisorId, Set<String> values, Map<Long, Set<String>> byAdvisor,
+                                    Map<String, Integer> counts) {
+            if (values != null && !values.isEmpty()) {
+                byAdvisor.put(advisorId, new HashSet<>(values));
+                values.forEach(value -> counts.merge(value, 1, Integer::sum));
+            }
+        }
+
+        void put(AdvisorProfileDto advisor) {
+            replace(advisor.getId(), advisor.getSpecialties(), specialtiesByAdvisor, specialties);
+            replace(advisor.getId(), advisor.getLanguages(), languagesByAdvisor, languages);
+        }
+
+        // 只把新旧标签的差值作用到计数上，重复应用同一份资料不会改变结果
+        private static void replace(Long advisorId, Set<String> values, Map<Long, Set<String>> byAdvisor,
+                                    TagTrie trie) {
+            Set<String> next = values == null ? Set.of() : new HashSet<>(values);
+            Set<String> previous = byAdvisor.getOrDefault(advisorId, Set.of());
+            for (String value : previous) {
+                if (!next.contains(value)) {
+                    trie.add(value, -1);
+                }
+            }
+            for (String value : next) {
+                if (!previous.contains(value)) {
+                    trie.add(value, 1);
+                }
+            }
+            if (next.isEmpty()) {
+                byAdvisor.remove(advisorId);
+            } else {
+                byAdvisor.put(advisorId, next);
+            }
+        }
+    }
+}
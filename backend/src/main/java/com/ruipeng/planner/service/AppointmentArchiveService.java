@@ -0,0 +1,108 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.repository.AppointmentRepository;
+import com.ruipeng.planner.repository.ArchivedAppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves completed and cancelled appointments older than {@code appointments.archive.horizon-days}
+ * into {@code appointments_archive}, so that booking checks and availability only scan recent
+ * rows. Lists read both tables through
+ * {@link com.ruipeng.planner.repository.AppointmentListingRepository#findAppointmentHistory}.
+ *
+ * <p>Each batch of {@code appointments.archive.batch-size} rows is copied and deleted in one
+ * transaction. An interrupted run leaves every appointment in exactly one table, and the next run
+ * carries on from the rows still waiting.
+ */
+@Service
+public class AppointmentArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentArchiveService.class);
+    private static final List<AppointmentStatus> FINISHED =
+            List.of(AppointmentStatus.COMPLETED, AppointmentStatus.CANCELLED);
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archived;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${appointments.archive.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${appointments.archive.horizon-days:365}")
+    private int horizonDays = 365;
+
+    @Value("${appointments.archive.batch-size:500}")
+    private int batchSize = 500;
+
+    public AppointmentArchiveService(AppointmentRepository appointmentRepository,
+                                     ArchivedAppointmentRepository archivedAppointmentRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("appointments.archived")
+                .description("Appointments moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${appointments.archive.cron:0 30 3 * * *}")
+    public void archiveOldAppointments() {
+        if (enabled) {
+            archiveBefore(LocalDateTime.now().minusDays(horizonDays));
+        }
+    }
+
+    /**
+     * Archives finished appointments dated before {@code cutoff}, one batch per transaction.
+     * Returns the number moved; 0 if another run is still in progress.
+     */
+    public long archiveBefore(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Appointment archiving is already running, skipping");
+            return 0;
+        }
+        long moved = 0;
+        try {
+            while (true) {
+                Integer batch = transactionTemplate.execute(status -> {
+                    List<Long> ids = appointmentRepository.findArchivableIds(FINISHED, cutoff,
+                            PageRequest.of(0, batchSize));
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    // 复制与删除在同一事务：中断后每条预约只会在其中一张表里
+                    archivedAppointmentRepository.copyFromAppointments(ids, LocalDateTime.now());
+                    appointmentRepository.deleteByIdIn(ids);
+                    return ids.size();
+                });
+                if (batch == null || batch == 0) {
+                    break;
+                }
+                moved += batch;
+                archived.increment(batch);
+            }
+        } finally {
+            running.set(false);
+        }
+        if (moved > 0) {
+            log.info("Archived {} appointments dated before {}", moved, cutoff);
+        }
+        return moved;
+    }
+}
@@ -2,6 +2,7 @@ package com.ruipeng.planner.service;
 
 import com.ruipeng.planner.dto.AppointmentCreateDto;
 import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.dto.AppointmentPage;
 import com.ruipeng.planner.dto.OAuthSuccessEvent;
 import com.ruipeng.planner.entity.*;
 import com.ruipeng.planner.repository.AdvisorRepository;
@@ -16,12 +17,21 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AppointmentService {
+    public static final int APPOINTMENT_MAX_PAGE_SIZE = 100;
+    // 历史合并分页要从两张表各取 offset + limit 行，因此限制可翻到的深度
+    public static final int APPOINTMENT_MAX_DEPTH = 1000;
+
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final AdvisorRepository advisorRepository;
@@ -57,17 +67,55 @@ public class AppointmentService {
     }
     Logger log = LoggerFactory.getLogger(AppointmentService.class);
 
-    public List<AppointmentDetailsDto> getUserAppointments(Long userId) {
-        List<Appointment> appointmentList = appointmentRepository.findByUserId(userId);
-        List<AppointmentDetailsDto> result =  new ArrayList<>();
-        for (Appointment appointment : appointmentList) {
-            result.add(AppointmentDetailsDto.fromEntity(appointment));
-        }
-        return  result;
+    @Transactional(readOnly = true)
+    public AppointmentPage getUserAppointments(Long userId, AppointmentStatus status,
+                                               LocalDate from, LocalDate to, int page, int size) {
+        return listAppointments(userId, null, status, from, to, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public AppointmentPage getAdvisorAppointments(Long advisorId, AppointmentStatus status,
+                                                  LocalDate from, LocalDate to, int page, int size) {
+        return listAppointments(null, advisorId, status, from, to, page, size);
     }
 
-    public List<Appointment> getAdvisorAppointments(Long advisorId) {
-        return appointmentRepository.findByAdvisorId(advisorId);
+    /**
+     * One projection query per table (current and archived) for the page plus one batched query
+     * for the advisors' specialties, however many appointments there are. {@code from} and
+     * {@code to} are inclusive. Only the newest {@link #APPOINTMENT_MAX_DEPTH} appointments can be
+     * paged through; older ones are reached by narrowing the dates.
+     */
+    private AppointmentPage listAppointments(Long userId, Long advisorId, AppointmentStatus status,
+                                             LocalDate from, LocalDate to, int page, int size) {
+        if (page < 0 || size < 1 || size > APPOINTMENT_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + APPOINTMENT_MAX_PAGE_SIZE);
+        }
+        if (((long) page + 1) * size > APPOINTMENT_MAX_DEPTH) {
+            throw new IllegalArgumentException("Only the newest " + APPOINTMENT_MAX_DEPTH
+                    + " appointments can be paged; narrow the date range to see older ones");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+
+        // 多取一条判断是否还有下一页
+        List<AppointmentDetailsDto> rows = appointmentRepository.findAppointmentHistory(userId, advisorId, status,
+                from == null ? null : from.atStartOfDay(),
+                to == null ? null : to.plusDays(1).atStartOfDay(),
+                page * size, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<AppointmentDetailsDto> appointments = new ArrayList<>(hasNext ? rows.subList(0, size) : rows);
+
+        Map<Long, Set<String>> specialties = new HashMap<>();
+        for (AppointmentDetailsDto dto : appointments) {
+            dto.setAdvisorSpecialties(specialties.computeIfAbsent(dto.getAdvisorId(), id -> new LinkedHashSet<>()));
+        }
+        if (!specialties.isEmpty()) {
+            for (Object[] row : advisorRepository.findSpecialtiesByAdvisorIds(specialties.keySet())) {
+                specialties.get((Long) row[0]).add((String) row[1]);
+            }
+        }
+        return new AppointmentPage(appointments, page, size, hasNext);
     }
 
     public Appointment getAppointmentById(Long id) {
@@ -1,49 +1,96 @@
 package com.ruipeng.planner.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
+import com.ruipeng.planner.dto.FinancialPlanPage;
 import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.dto.FinancialPlanSummaryDto;
 import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.PlanSource;
 import com.ruipeng.planner.entity.User;
 import com.ruipeng.planner.entity.UserProfile;
 import com.ruipeng.planner.repository.FinancialPlanRepository;
 import com.ruipeng.planner.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class FinancialPlanService {
+    public static final int PLAN_MAX_PAGE_SIZE = 100;
+
     private final FinancialPlanRepository financialPlanRepository;
     private final UserRepository userRepository;
     private final GoogleAIService googleAiService;
     private final ObjectMapper objectMapper;
+    private final LocalPlanEngine localPlanEngine;
+    private final TaskExecutor aiTaskExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AIUsageMetrics aiUsageMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private static final Logger log = LoggerFactory.getLogger(FinancialPlanService.class);
+
+    // AI 结果的等待预算，超时后先返回本地计划
+    @Value("${google.ai.hedge.budget-ms:8000}")
+    private long hedgeBudgetMs = 8000;
 
     @Autowired
-    public FinancialPlanService(FinancialPlanRepository financialPlanRepository, UserRepository userRepository, GoogleAIService googleAiService, ObjectMapper objectMapper) {
+    public FinancialPlanService(FinancialPlanRepository financialPlanRepository, UserRepository userRepository, GoogleAIService googleAiService, ObjectMapper objectMapper,
+                                LocalPlanEngine localPlanEngine, @Qualifier("aiTaskExecutor") TaskExecutor aiTaskExecutor,
+                                ApplicationEventPublisher eventPublisher, AIUsageMetrics aiUsageMetrics,
+                                PlatformTransactionManager transactionManager) {
         this.financialPlanRepository = financialPlanRepository;
         this.userRepository = userRepository;
         this.googleAiService = googleAiService;
         this.objectMapper = objectMapper;
+        this.localPlanEngine = localPlanEngine;
+        this.aiTaskExecutor = aiTaskExecutor;
+        this.eventPublisher = eventPublisher;
+        this.aiUsageMetrics = aiUsageMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
-    public List<FinancialPlan> getUserFinancialPlans(Long userId) {
-
-        List<FinancialPlan> plans = financialPlanRepository.findByUserId(userId);
-        for(FinancialPlan plan : plans) {
-            plan.setUser(null);
+    /**
+     * One page of the user's plans as summaries, newest first. Open a plan with
+     * {@link #getFinancialPlanById} to get its sections.
+     */
+    @Transactional(readOnly = true)
+    public FinancialPlanPage getUserPlanSummaries(Long userId, int page, int size) {
+        if (page < 0 || size < 1 || size > PLAN_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + PLAN_MAX_PAGE_SIZE);
         }
-        return plans;
+        Slice<FinancialPlanSummaryDto> slice =
+                financialPlanRepository.findSummariesByUserId(userId, PageRequest.of(page, size));
+        return new FinancialPlanPage(slice.getContent(), page, size, slice.hasNext());
     }
 
     public FinancialPlan getFinancialPlanById(Long planId) {
@@ -56,112 +103,315 @@ public class FinancialPlanService {
                 .orElseThrow(() -> new EntityNotFoundException("Financial plan not found with share code: " + shareCode));
     }
 
-    @Transactional
+    /**
+     * Generates a plan with the model, falling back to the local engine if the model fails or
+     * misses the hedge budget. The user is read and the plan saved in two short transactions;
+     * no database connection is held while waiting for the model.
+     */
     public FinancialPlan generateFinancialPlan(Long userId, FinancialPlanRequest request) {
-        System.out.println("userId 是"+userId);
+        GenerationInput input = readOnlyTransaction.execute(status -> loadGenerationInput(userId, request));
+        FinancialPlan plan = input.plan();
+        UserProfile profile = input.profile();
+
+        // Ask the model first; fall back to the local engine if it misses the latency budget
+        CompletableFuture<String> aiFuture = startAiGeneration(profile, request);
+
+        try {
+            String aiGeneratedPlan = aiFuture.get(hedgeBudgetMs, TimeUnit.MILLISECONDS);
+            try {
+                applyGeneratedPlan(plan, aiGeneratedPlan);
+            } catch (RuntimeException e) {
+                // 按时返回但无法解析，同样退回本地计划
+                log.warn("Could not parse AI result for user {}, using local plan: {}", userId, e.getMessage());
+                aiUsageMetrics.recordParseFailure("plans", "unparseable_plan");
+                return saveLocalPlan(plan, profile, request, false);
+            }
+            plan.setPlanSource(PlanSource.AI);
+            plan.setProvisional(false);
+            return saveNewPlan(plan);
+        } catch (TimeoutException e) {
+            log.info("AI model did not answer within {} ms, returning provisional local plan for user {}",
+                    hedgeBudgetMs, userId);
+            FinancialPlan saved = saveLocalPlan(plan, profile, request, true);
+            Long planId = saved.getId();
+            // 临时计划已提交，模型返回后再升级
+            aiFuture.whenComplete((json, error) -> upgradeProvisionalPlan(planId, json, error));
+            return saved;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ModelAdmissionException admissionException) {
+                throw admissionException;
+            }
+            log.warn("AI plan generation failed for user {}, using local plan: {}", userId, cause.getMessage());
+            return saveLocalPlan(plan, profile, request, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating financial plan", e);
+        }
+    }
+
+    private GenerationInput loadGenerationInput(Long userId, FinancialPlanRequest request) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
 
-        UserProfile profile = user.getProfile();
-        System.out.println(profile==null);
+        // 解除代理，AI 线程在事务结束后仍可能读取资料字段
+        UserProfile profile = (UserProfile) Hibernate.unproxy(user.getProfile());
         if (profile == null) {
             throw new IllegalStateException("User profile is incomplete");
         }
 
-        // Generate financial plan using Google AI
-        String aiGeneratedPlan = googleAiService.generateFinancialPlan(profile, request);
+        FinancialPlan plan = newPlan(user, request.getPlanName());
+        plan.setProfileSnapshotJson(profileSnapshotJson(profile));
+        return new GenerationInput(plan, profile);
+    }
 
-        // Parse the AI response and create a FinancialPlan entity
-        FinancialPlan plan = new FinancialPlan();
-        plan.setUser(user);
-        plan.setCreationDate(LocalDateTime.now());
-        plan.setPlanName(request.getPlanName());
+    private record GenerationInput(FinancialPlan plan, UserProfile profile) {
+    }
 
-        // Extract pieces from AI response
-        try {
-            // This is simplified. In practice, you would parse the structured response from the AI
-            String healthAssessment = "Based on your financial information, here is an assessment..."; // This would be from AI
-            Integer healthScore = 75; // This would be calculated based on AI response
+    /**
+     * Creates a new version of a plan after the user's profile changed. Only the sections
+     * affected by the changed fields are regenerated by the model; the rest are copied from the
+     * previous plan. Plans saved without a profile snapshot are regenerated in full.
+     * <p>
+     * The previous plan is read and the new version saved in two short transactions; the model
+     * call in between holds no database connection. The refresh waits at most the hedge budget
+     * for it; a late answer is discarded, but the call itself still completes.
+     */
+    public FinancialPlan refreshFinancialPlan(Long planId) {
+        RefreshInput input = readOnlyTransaction.execute(status -> loadRefreshInput(planId));
+        FinancialPlan previous = input.previous();
 
-            // JSON fields would be structured data from AI response
-            plan.setAssetAllocationJson(objectMapper.writeValueAsString(
-                    googleAiService.extractAssetAllocation(aiGeneratedPlan)));
-            plan.setGoalTimelineJson(objectMapper.writeValueAsString(
-                    googleAiService.extractGoalTimeline(aiGeneratedPlan)));
-            plan.setInvestmentRecommendationsJson(objectMapper.writeValueAsString(
-                    googleAiService.extractInvestmentRecommendations(aiGeneratedPlan)));
-            plan.setActionPlanJson(objectMapper.writeValueAsString(
-                    googleAiService.extractActionPlan(aiGeneratedPlan)));
+        if (input.delta() == null) {
+            FinancialPlanRequest request = new FinancialPlanRequest();
+            request.setPlanName(previous.getPlanName());
+            return generateFinancialPlan(input.user().getId(), request);
+        }
+        ProfileDelta delta = input.delta();
+        if (delta.isEmpty()) {
+            return previous;
+        }
 
-            plan.setHealthScore(healthScore);
-            plan.setHealthAssessment(healthAssessment);
+        Set<String> sections = delta.affectedSections();
+        log.info("Refreshing plan {} for changed fields {}: regenerating {}", planId, delta.changedFields(), sections);
 
-            // Generate unique share code
-            plan.setShareCode(generateShareCode());
+        FinancialPlan plan = newPlan(input.user(), previous.getPlanName());
+        plan.setProfileSnapshotJson(input.snapshot().toString());
+        plan.setHealthScore(previous.getHealthScore());
+        plan.setHealthAssessment(previous.getHealthAssessment());
+        plan.setAssetAllocationJson(previous.getAssetAllocationJson());
+        plan.setGoalTimelineJson(previous.getGoalTimelineJson());
+        plan.setInvestmentRecommendationsJson(previous.getInvestmentRecommendationsJson());
+        plan.setActionPlanJson(previous.getActionPlanJson());
+        plan.setProvisional(false);
 
+        UserProfile profile = input.profile();
+        Map<String, Object> previousSections = planSections(previous);
+        CompletableFuture<String> aiFuture = startAiTask(
+                () -> googleAiService.refreshPlanSections(profile, delta, previousSections, sections));
+        try {
+            String refreshed = aiFuture.get(hedgeBudgetMs, TimeUnit.MILLISECONDS);
+            mergeSections(plan, objectMapper.readTree(refreshed), sections);
+            plan.setPlanSource(previous.getPlanSource() == PlanSource.LOCAL ? PlanSource.LOCAL : PlanSource.AI);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ModelAdmissionException admissionException) {
+                throw admissionException;
+            }
+            useLocalSections(plan, profile, sections, planId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while refreshing financial plan", e);
         } catch (Exception e) {
-            throw new RuntimeException("Error parsing AI response", e);
+            // 超时或结果无法解析，都用本地引擎补齐受影响的部分。
+            // 模型请求无法中断，超时后仍会跑完并计入用量，其结果直接丢弃
+            useLocalSections(plan, profile, sections, planId, e);
         }
-
-        return financialPlanRepository.save(plan);
+        return saveNewPlan(plan);
     }
 
-    private String generateShareCode() {
-        return UUID.randomUUID().toString().substring(0, 8);
+    private RefreshInput loadRefreshInput(Long planId) {
+        FinancialPlan previous = getFinancialPlanById(planId);
+        User user = previous.getUser();
+        // 解除代理，事务结束后模型调用仍要读取资料字段
+        UserProfile profile = (UserProfile) Hibernate.unproxy(user.getProfile());
+        if (profile == null) {
+            throw new IllegalStateException("User profile is incomplete");
+        }
+        if (previous.getProfileSnapshotJson() == null) {
+            return new RefreshInput(previous, user, profile, null, null);
+        }
+
+        JsonNode currentSnapshot = objectMapper.valueToTree(googleAiService.profileSnapshot(profile));
+        try {
+            ProfileDelta delta = ProfileDelta.between(objectMapper.readTree(previous.getProfileSnapshotJson()), currentSnapshot);
+            return new RefreshInput(previous, user, profile, currentSnapshot, delta);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error reading profile snapshot of plan " + planId, e);
+        }
     }
 
-    public ByteArrayResource generatePdfReport(Long planId) throws Exception {
-        FinancialPlan plan = getFinancialPlanById(planId);
+    private void useLocalSections(FinancialPlan plan, UserProfile profile, Set<String> sections, Long planId,
+                                  Throwable cause) {
+        log.warn("AI plan refresh failed for plan {}, using local sections: {}", planId, cause.getMessage());
+        mergeSections(plan, objectMapper.valueToTree(localPlanEngine.buildPlan(profile)), sections);
+        plan.setPlanSource(PlanSource.LOCAL);
+    }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(baos);
-        PdfDocument pdf = new PdfDocument(writer);
-        Document document = new Document(pdf);
+    private record RefreshInput(FinancialPlan previous, User user, UserProfile profile, JsonNode snapshot,
+                                ProfileDelta delta) {
+    }
 
-        // Add content to PDF
-        document.add(new Paragraph("Financial Plan: " + plan.getPlanName()).simulateBold().setFontSize(20));
-        document.add(new Paragraph("Created on: " + plan.getCreationDate()));
-        document.add(new Paragraph("Health Score: " + plan.getHealthScore() + "/100"));
-        document.add(new Paragraph("\n"));
+    private Map<String, Object> planSections(FinancialPlan plan) {
+        Map<String, Object> sections = new LinkedHashMap<>();
+        sections.put("healthScore", plan.getHealthScore());
+        sections.put("healthAssessment", plan.getHealthAssessment());
+        sections.put(ProfileDelta.ASSET_ALLOCATION, parseSection(plan.getAssetAllocationJson()));
+        sections.put(ProfileDelta.GOAL_TIMELINE, parseSection(plan.getGoalTimelineJson()));
+        sections.put(ProfileDelta.INVESTMENT_RECOMMENDATIONS, parseSection(plan.getInvestmentRecommendationsJson()));
+        sections.put(ProfileDelta.ACTION_PLAN, parseSection(plan.getActionPlanJson()));
+        return sections;
+    }
 
-        document.add(new Paragraph("Health Assessment").simulateBold().setFontSize(16));
-        document.add(new Paragraph(plan.getHealthAssessment()));
-        document.add(new Paragraph("\n"));
+    private Object parseSection(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (Exception e) {
+            return json;
+        }
+    }
 
-        // Parse and add JSON data
+    private void mergeSections(FinancialPlan plan, JsonNode source, Set<String> sections) {
         try {
-            document.add(new Paragraph("Asset Allocation").simulateBold().setFontSize(16));
-            document.add(new Paragraph(formatJson(plan.getAssetAllocationJson())));
-            document.add(new Paragraph("\n"));
+            for (String section : sections) {
+                switch (section) {
+                    case ProfileDelta.HEALTH -> {
+                        if (source.hasNonNull("healthScore")) {
+                            plan.setHealthScore(source.get("healthScore").asInt());
+                        }
+                        if (source.hasNonNull("healthAssessment")) {
+                            plan.setHealthAssessment(source.get("healthAssessment").asText());
+                        }
+                    }
+                    case ProfileDelta.ASSET_ALLOCATION ->
+                            plan.setAssetAllocationJson(objectMapper.writeValueAsString(source.get(section)));
+                    case ProfileDelta.GOAL_TIMELINE ->
+                            plan.setGoalTimelineJson(objectMapper.writeValueAsString(source.get(section)));
+                    case ProfileDelta.INVESTMENT_RECOMMENDATIONS ->
+                            plan.setInvestmentRecommendationsJson(objectMapper.writeValueAsString(source.get(section)));
+                    case ProfileDelta.ACTION_PLAN ->
+                            plan.setActionPlanJson(objectMapper.writeValueAsString(source.get(section)));
+                    default -> throw new IllegalArgumentException("Unknown plan section: " + section);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error merging refreshed plan sections", e);
+        }
+    }
 
-            document.add(new Paragraph("Goal Timeline").simulateBold().setFontSize(16));
-            document.add(new Paragraph(formatJson(plan.getGoalTimelineJson())));
-            document.add(new Paragraph("\n"));
+    String profileSnapshotJson(UserProfile profile) {
+        try {
+            return objectMapper.writeValueAsString(googleAiService.profileSnapshot(profile));
+        } catch (Exception e) {
+            log.warn("Could not serialize profile snapshot: {}", e.getMessage());
+            return null;
+        }
+    }
 
-            document.add(new Paragraph("Investment Recommendations").simulateBold().setFontSize(16));
-            document.add(new Paragraph(formatJson(plan.getInvestmentRecommendationsJson())));
-            document.add(new Paragraph("\n"));
+    private CompletableFuture<String> startAiGeneration(UserProfile profile, FinancialPlanRequest request) {
+        return startAiTask(() -> googleAiService.generateFinancialPlan(profile, request));
+    }
 
-            document.add(new Paragraph("Action Plan").simulateBold().setFontSize(16));
-            document.add(new Paragraph(formatJson(plan.getActionPlanJson())));
-        } catch (Exception e) {
-            document.add(new Paragraph("Error formatting JSON data: " + e.getMessage()));
+    private CompletableFuture<String> startAiTask(Supplier<String> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, aiTaskExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
+
+    /**
+     * Replaces a provisional local plan with the model's answer once it arrives. If the model
+     * failed, the local plan is kept and simply stops being provisional.
+     */
+    void upgradeProvisionalPlan(Long planId, String aiGeneratedPlan, Throwable error) {
+        financialPlanRepository.findById(planId).ifPresent(plan -> {
+            if (!Boolean.TRUE.equals(plan.getProvisional())) {
+                return;
+            }
+            if (error != null) {
+                log.warn("AI plan generation failed for provisional plan {}, keeping local plan: {}",
+                        planId, error.getMessage());
+            } else {
+                try {
+                    applyGeneratedPlan(plan, aiGeneratedPlan);
+                    plan.setPlanSource(PlanSource.AI);
+                    log.info("Provisional plan {} upgraded with AI result", planId);
+                } catch (RuntimeException e) {
+                    log.warn("Could not parse AI result for provisional plan {}: {}", planId, e.getMessage());
+                }
+            }
+            plan.setProvisional(false);
+            publishCreated(financialPlanRepository.save(plan));
+        });
+    }
+
+    private FinancialPlan saveLocalPlan(FinancialPlan plan, UserProfile profile, FinancialPlanRequest request,
+                                        boolean provisional) {
+        applyGeneratedPlan(plan, localPlanEngine.generatePlan(profile, request));
+        plan.setPlanSource(PlanSource.LOCAL);
+        plan.setProvisional(provisional);
+        return saveNewPlan(plan);
+    }
 
-        document.close();
+    private FinancialPlan saveNewPlan(FinancialPlan plan) {
+        return transactionTemplate.execute(status -> publishCreated(financialPlanRepository.save(plan)));
+    }
 
-        return new ByteArrayResource(baos.toByteArray());
+    FinancialPlan newPlan(User user, String planName) {
+        FinancialPlan plan = new FinancialPlan();
+        plan.setUser(user);
+        plan.setCreationDate(LocalDateTime.now());
+        plan.setPlanName(planName);
+        plan.setShareCode(generateShareCode());
+        return plan;
     }
 
-    private String formatJson(String json) {
+    void applyGeneratedPlan(FinancialPlan plan, String generatedPlan) {
         try {
-            Object jsonObj = objectMapper.readValue(json, Object.class);
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonObj);
+            Integer healthScore = googleAiService.extractHealthScore(generatedPlan);
+            String healthAssessment = googleAiService.extractHealthAssessment(generatedPlan);
+
+            // JSON fields would be structured data from AI response
+            plan.setAssetAllocationJson(objectMapper.writeValueAsString(
+                    googleAiService.extractAssetAllocation(generatedPlan)));
+            plan.setGoalTimelineJson(objectMapper.writeValueAsString(
+                    googleAiService.extractGoalTimeline(generatedPlan)));
+            plan.setInvestmentRecommendationsJson(objectMapper.writeValueAsString(
+                    googleAiService.extractInvestmentRecommendations(generatedPlan)));
+            plan.setActionPlanJson(objectMapper.writeValueAsString(
+                    googleAiService.extractActionPlan(generatedPlan)));
+
+            plan.setHealthScore(healthScore != null ? healthScore : 75);
+            plan.setHealthAssessment(healthAssessment != null ? healthAssessment
+                    : "Based on your financial information, here is an assessment...");
         } catch (Exception e) {
-            return json;
+            throw new RuntimeException("Error parsing AI response", e);
         }
     }
 
+    // 提交后通知预渲染等后台消费者
+    private FinancialPlan publishCreated(FinancialPlan saved) {
+        Long planId = saved.getId();
+        AfterCommit.run(() -> eventPublisher.publishEvent(new PlanCreatedEvent(planId, Instant.now())));
+        return saved;
+    }
+
+    private String generateShareCode() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
     private User getUser(Long userId){
         return userRepository.findById(userId).orElse(null);
     }
@@ -0,0 +1,176 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Minimal client for the Gemini {@code generateContent} REST API at a configurable base URL.
+ * Used when {@code google.ai.base-url} is set, e.g. to point the service at a local fake model
+ * endpoint; otherwise the langchain4j Gemini model talks to Google directly.
+ *
+ * <p>In streaming mode the optional {@code firstTokenListener} receives the time until the first
+ * chunk arrived.
+ */
+public class GeminiRestChatModel implements ChatLanguageModel {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final String apiKey;
+    private final String modelName;
+    private final Double temperature;
+    private final Integer maxOutputTokens;
+    private final Duration timeout;
+    private final boolean streaming;
+    private final Consumer<Duration> firstTokenListener;
+
+    public GeminiRestChatModel(ObjectMapper objectMapper, String baseUrl, String apiKey, String modelName,
+                               Double temperature, Integer maxOutputTokens, Duration timeout, boolean streaming,
+                               Consumer<Duration> firstTokenListener) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.modelName = modelName;
+        this.temperature = temperature;
+        this.maxOutputTokens = maxOutputTokens;
+        this.timeout = timeout;
+        this.streaming = streaming;
+        this.firstTokenListener = firstTokenListener;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        String method = streaming ? ":streamGenerateContent?alt=sse&key=" : ":generateContent?key=";
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/models/" + modelName + method + apiKey))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(buildRequest(messages))))
+                    .build();
+
+            if (streaming) {
+                return readStream(request);
+            }
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            checkStatus(response.statusCode(), response.body());
+            return toResponse(List.of(objectMapper.readTree(response.body())));
+        } catch (IOException e) {
+            throw new RuntimeException("Gemini request failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Gemini request interrupted", e);
+        }
+    }
+
+    private Response<AiMessage> readStream(HttpRequest request) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        List<JsonNode> chunks = new ArrayList<>();
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() >= 400) {
+                checkStatus(response.statusCode(), lines.collect(Collectors.joining("\n")));
+            }
+            for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                String line = it.next();
+                if (line.startsWith("data:")) {
+                    if (chunks.isEmpty() && firstTokenListener != null) {
+                        firstTokenListener.accept(Duration.ofNanos(System.nanoTime() - started));
+                    }
+                    chunks.add(objectMapper.readTree(line.substring(5).trim()));
+                }
+            }
+        }
+        return toResponse(chunks);
+    }
+
+    private ObjectNode buildRequest(List<ChatMessage> messages) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode contents = body.putArray("contents");
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage) {
+                body.putObject("systemInstruction").putArray("parts").addObject().put("text", systemMessage.text());
+            } else if (message instanceof UserMessage userMessage) {
+                addContent(contents, "user", userMessage.singleText());
+            } else if (message instanceof AiMessage aiMessage) {
+                addContent(contents, "model", aiMessage.text());
+            }
+        }
+        ObjectNode generationConfig = body.putObject("generationConfig");
+        if (temperature != null) {
+            generationConfig.put("temperature", temperature);
+        }
+        if (maxOutputTokens != null) {
+            generationConfig.put("maxOutputTokens", maxOutputTokens);
+        }
+        return body;
+    }
+
+    private static void addContent(ArrayNode contents, String role, String text) {
+        ObjectNode content = contents.addObject();
+        content.put("role", role);
+        content.putArray("parts").addObject().put("text", text);
+    }
+
+    private static void checkStatus(int status, String body) {
+        if (status >= 400) {
+            throw new RuntimeException("Gemini endpoint returned HTTP " + status + ": " + body);
+        }
+    }
+
+    private static Response<AiMessage> toResponse(List<JsonNode> chunks) {
+        StringBuilder text = new StringBuilder();
+        TokenUsage tokenUsage = null;
+        FinishReason finishReason = null;
+        for (JsonNode chunk : chunks) {
+            JsonNode candidate = chunk.path("candidates").path(0);
+            for (JsonNode part : candidate.path("content").path("parts")) {
+                text.append(part.path("text").asText(""));
+            }
+            if (candidate.hasNonNull("finishReason")) {
+                finishReason = toFinishReason(candidate.get("finishReason").asText());
+            }
+            JsonNode usage = chunk.path("usageMetadata");
+            if (!usage.isMissingNode()) {
+                tokenUsage = new TokenUsage(
+                        usage.path("promptTokenCount").asInt(),
+                        usage.path("candidatesTokenCount").asInt(),
+                        usage.path("totalTokenCount").asInt());
+            }
+        }
+        return Response.from(AiMessage.from(text.toString()), tokenUsage, finishReason);
+    }
+
+    private static FinishReason toFinishReason(String reason) {
+        return switch (reason) {
+            case "STOP" -> FinishReason.STOP;
+            case "MAX_TOKENS" -> FinishReason.LENGTH;
+            case "SAFETY", "RECITATION" -> FinishReason.CONTENT_FILTER;
+            default -> FinishReason.OTHER;
+        };
+    }
+}
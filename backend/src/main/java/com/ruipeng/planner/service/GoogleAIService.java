@@ -1,11 +1,14 @@
 package com.ruipeng.planner.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ruipeng.planner.dto.FinancialPlanRequest;
 import com.ruipeng.planner.entity.FinancialPlan;
 import com.ruipeng.planner.entity.UserProfile;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
@@ -13,10 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,26 +31,54 @@ public class GoogleAIService {
     private static final Logger logger = Logger.getLogger(GoogleAIService.class.getName());
 
     private final ObjectMapper objectMapper;
-    private final GoogleAiGeminiChatModel geminiModel;
-
+    private final ChatLanguageModel geminiModel;
+    private final ModelAdmissionService admissionService;
+    private final AIUsageMetrics aiUsageMetrics;
 
+    // 计划 JSON 必须包含的字段，缺失时计为解析失败
+    private static final List<String> REQUIRED_SECTIONS = List.of(
+            "healthScore", "assetAllocation", "goalTimeline", "investmentRecommendations", "actionPlan");
 
     public GoogleAIService(
             ObjectMapper objectMapper,
+            ModelAdmissionService admissionService,
+            AIUsageMetrics aiUsageMetrics,
             @Value("${google.ai.api.key}") String apiKey,
             @Value("${google.ai.temperature:0.7}") Double temperature,
-            @Value("${google.ai.max-tokens:2048}") Integer maxTokens) {
+            @Value("${google.ai.max-tokens:2048}") Integer maxTokens,
+            @Value("${google.ai.model-name:gemini-1.5-flash}") String modelName,
+            @Value("${google.ai.base-url:}") String baseUrl,
+            @Value("${google.ai.streaming:false}") boolean streaming,
+            @Value("${google.ai.timeout-ms:60000}") long timeoutMs) {
 
         this.objectMapper = objectMapper;
-        this.geminiModel = GoogleAiGeminiChatModel.builder()
-                .apiKey(apiKey)
-                .temperature(temperature)
-                .maxOutputTokens(maxTokens)
-                .modelName("gemini-1.5-flash") // 使用最新的模型
-                .build();
+        this.admissionService = admissionService;
+        this.aiUsageMetrics = aiUsageMetrics;
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            // 指向兼容 Gemini 的端点（例如本地 fake server）
+            logger.info("Using Gemini-compatible endpoint at " + baseUrl);
+            this.geminiModel = new GeminiRestChatModel(objectMapper, baseUrl, apiKey, modelName,
+                    temperature, maxTokens, Duration.ofMillis(timeoutMs), streaming,
+                    aiUsageMetrics::recordTimeToFirstToken);
+        } else {
+            this.geminiModel = GoogleAiGeminiChatModel.builder()
+                    .apiKey(apiKey)
+                    .temperature(temperature)
+                    .maxOutputTokens(maxTokens)
+                    .modelName(modelName) // 使用最新的模型
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .build();
+        }
     }
 
     public String generateFinancialPlan(UserProfile profile, FinancialPlanRequest request) {
+        return generateFinancialPlan(profile, request, "plans");
+    }
+
+    /**
+     * @param endpoint logical caller used to tag latency, token and cost metrics
+     */
+    public String generateFinancialPlan(UserProfile profile, FinancialPlanRequest request, String endpoint) {
         try {
             // 系统提示词
             String systemPrompt = """
@@ -69,37 +103,128 @@ public class GoogleAIService {
             Map<String, Object> inputData = prepareInputData(profile, request);
             String userPrompt = objectMapper.writeValueAsString(inputData);
 
-            // 创建聊天请求
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .messages(Arrays.asList(
-                            SystemMessage.from(systemPrompt),
-                            UserMessage.from(userPrompt)
-                    ))
-                    .build();
+            String cleanedJson = chatForJson(systemPrompt, userPrompt, profile, endpoint);
+            if (!hasRequiredSections(cleanedJson, REQUIRED_SECTIONS)) {
+                // 缺少部分字段时仍然返回，缺失部分使用默认值
+                logger.warning("AI model response is missing plan sections");
+                aiUsageMetrics.recordParseFailure(endpoint, "missing_sections");
+            }
 
-            logger.info("Sending request to Google AI Gemini model");
+            return cleanedJson;
+        } catch (ModelAdmissionException e) {
+            // 准入拒绝需要原样抛出，由控制器返回 429
+            logger.warning("AI model call not admitted: " + e.getReason());
+            throw e;
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error calling Google AI Gemini model", e);
+            throw new RuntimeException("Failed to generate financial plan: " + e.getMessage(), e);
+        }
+    }
 
-            // 生成响应
-            ChatResponse chatResponse = geminiModel.chat(chatRequest);
-            String aiResponse = chatResponse.aiMessage().text();
-            String cleanedJson = aiResponse
-                    .replaceAll("```json\\s*", "")  // 移除开头的 ```json
-                    .replaceAll("```\\s*$", "")     // 移除结尾的 ```
-                    .trim();
+    /**
+     * Regenerates only {@code sections} of an existing plan from the profile changes in
+     * {@code delta}. The previous plan's sections are sent as context so that the model keeps
+     * the rest of the plan consistent; the response contains just the regenerated fields.
+     */
+    public String refreshPlanSections(UserProfile profile, ProfileDelta delta, Map<String, Object> previousPlan,
+                                      Set<String> sections) {
+        String endpoint = "refresh";
+        try {
+            List<String> fields = planFields(sections);
+            String systemPrompt = """
+                You are an expert financial advisor updating an existing personalized financial plan.
+                The user's profile changed as described in "changes" (previous and new values).
+                "previousPlan" is the plan generated before the change.
+                Regenerate only the fields listed in "fieldsToUpdate" so that they reflect the new profile
+                and stay consistent with the rest of the previous plan.
+                Respond with a JSON object containing exactly those fields, using the same structure
+                as in the previous plan.
+                """;
 
+            ObjectNode input = objectMapper.createObjectNode();
+            input.set("changes", delta.toJson(objectMapper));
+            input.set("previousPlan", objectMapper.valueToTree(previousPlan));
+            input.set("fieldsToUpdate", objectMapper.valueToTree(fields));
+            String userPrompt = objectMapper.writeValueAsString(input);
 
-            logger.info("Received response from Google AI Gemini model");
+            String cleanedJson = chatForJson(systemPrompt, userPrompt, profile, endpoint);
+            if (!hasRequiredSections(cleanedJson, fields)) {
+                aiUsageMetrics.recordParseFailure(endpoint, "missing_sections");
+                throw new RuntimeException("AI model response is missing refreshed sections");
+            }
+            return cleanedJson;
+        } catch (ModelAdmissionException e) {
+            logger.warning("AI model call not admitted: " + e.getReason());
+            throw e;
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error refreshing plan with Google AI Gemini model", e);
+            throw new RuntimeException("Failed to refresh financial plan: " + e.getMessage(), e);
+        }
+    }
 
-            // 验证响应是有效的JSON
-            if (!isValidJson(cleanedJson)) {
-                logger.warning("Received invalid JSON response from AI model");
-                throw new RuntimeException("Invalid JSON response from AI model");
+    // 计划部分 -> 模型响应中的字段
+    static List<String> planFields(Set<String> sections) {
+        List<String> fields = new ArrayList<>();
+        for (String section : sections) {
+            if (ProfileDelta.HEALTH.equals(section)) {
+                fields.add("healthScore");
+                fields.add("healthAssessment");
+            } else {
+                fields.add(section);
             }
+        }
+        return fields;
+    }
 
-            return cleanedJson;
+    private String chatForJson(String systemPrompt, String userPrompt, UserProfile profile, String endpoint) {
+        // 创建聊天请求
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(Arrays.asList(
+                        SystemMessage.from(systemPrompt),
+                        UserMessage.from(userPrompt)
+                ))
+                .build();
+
+        logger.info("Sending request to Google AI Gemini model");
+
+        // 生成响应（经过准入控制）
+        Long userId = profile.getUser() != null ? profile.getUser().getId() : null;
+        ChatResponse chatResponse = admissionService.call(userId, () -> timedChat(chatRequest, endpoint, userId));
+        String aiResponse = chatResponse.aiMessage().text();
+        String cleanedJson = aiResponse
+                .replaceAll("```json\\s*", "")  // 移除开头的 ```json
+                .replaceAll("```\\s*$", "")     // 移除结尾的 ```
+                .trim();
+
+        logger.info("Received response from Google AI Gemini model");
+
+        // 验证响应是有效的JSON
+        if (!isValidJson(cleanedJson)) {
+            logger.warning("Received invalid JSON response from AI model");
+            aiUsageMetrics.recordParseFailure(endpoint, "invalid_json");
+            throw new RuntimeException("Invalid JSON response from AI model");
+        }
+        return cleanedJson;
+    }
+
+    private ChatResponse timedChat(ChatRequest chatRequest, String endpoint, Long userId) {
+        long started = System.nanoTime();
+        try {
+            ChatResponse response = geminiModel.chat(chatRequest);
+            aiUsageMetrics.recordCall(endpoint, userId, System.nanoTime() - started, response.tokenUsage(), true);
+            return response;
+        } catch (RuntimeException e) {
+            aiUsageMetrics.recordCall(endpoint, userId, System.nanoTime() - started, null, false);
+            throw e;
+        }
+    }
+
+    private boolean hasRequiredSections(String json, List<String> sections) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            return sections.stream().allMatch(node::hasNonNull);
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error calling Google AI Gemini model", e);
-            throw new RuntimeException("Failed to generate financial plan: " + e.getMessage(), e);
+            return false;
         }
     }
 
@@ -113,12 +238,27 @@ public class GoogleAIService {
     }
 
     private Map<String, Object> prepareInputData(UserProfile profile, FinancialPlanRequest request) {
+        Map<String, Object> inputData = profileSnapshot(profile);
+
+        // 添加请求特定的数据
+        inputData.put("planName", request.getPlanName());
+        inputData.put("additionalInstructions", request.getAdditionalInstructions());
+
+        return inputData;
+    }
+
+    /**
+     * The profile fields sent to the model. Stored with each plan so that a later refresh can
+     * diff against the profile that produced it.
+     */
+    public Map<String, Object> profileSnapshot(UserProfile profile) {
         Map<String, Object> inputData = new HashMap<>();
 
         // 添加用户资料数据
         inputData.put("age", profile.getAge());
         inputData.put("occupation", profile.getOccupation());
-        inputData.put("educationLevel", profile.getEducationLevel().getDisplayName());
+        inputData.put("educationLevel",
+                profile.getEducationLevel() != null ? profile.getEducationLevel().getDisplayName() : null);
         inputData.put("monthlyIncome", profile.getMonthlyIncome());
         inputData.put("monthlyExpenses", profile.getMonthlyExpenses());
         inputData.put("totalSavings", profile.getTotalSavings());
@@ -149,14 +289,22 @@ public class GoogleAIService {
         inputData.put("retirementAge", profile.getRetirementAge());
         inputData.put("monthlySavings", profile.getMonthlySavings());
 
-        // 添加请求特定的数据
-        inputData.put("planName", request.getPlanName());
-        inputData.put("additionalInstructions", request.getAdditionalInstructions());
-
         return inputData;
     }
 
     // 从AI响应中提取组件的方法
+    public Integer extractHealthScore(String aiResponse) throws Exception {
+        Map<String, Object> result = objectMapper.readValue(aiResponse, Map.class);
+        Object score = result.get("healthScore");
+        return score instanceof Number ? ((Number) score).intValue() : null;
+    }
+
+    public String extractHealthAssessment(String aiResponse) throws Exception {
+        Map<String, Object> result = objectMapper.readValue(aiResponse, Map.class);
+        Object assessment = result.get("healthAssessment");
+        return assessment != null ? assessment.toString() : null;
+    }
+
     public Map<String, Object> extractAssetAllocation(String aiResponse) throws Exception {
         Map<String, Object> result = objectMapper.readValue(aiResponse, Map.class);
         return (Map<String, Object>) result.get("assetAllocation");
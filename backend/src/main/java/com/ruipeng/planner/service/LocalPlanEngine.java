@@ -0,0 +1,299 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AIResponseDto;
+import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.entity.UserProfile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Deterministic, in-process plan generator used when the AI model is slow or unavailable.
+ * Produces JSON with the same shape the model is asked for, so the rest of the pipeline
+ * does not need to know which one produced the plan.
+ */
+@Component
+public class LocalPlanEngine {
+    private static final BigDecimal TWELVE = new BigDecimal("12");
+    private static final BigDecimal EMERGENCY_FUND_MONTHS = new BigDecimal("6");
+    private static final int DEFAULT_AGE = 35;
+    private static final int DEFAULT_RISK_TOLERANCE = 5;
+    private static final int DEFAULT_RETIREMENT_AGE = 65;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public LocalPlanEngine(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public String generatePlan(UserProfile profile, FinancialPlanRequest request) {
+        try {
+            return objectMapper.writeValueAsString(buildPlan(profile));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate local financial plan: " + e.getMessage(), e);
+        }
+    }
+
+    AIResponseDto buildPlan(UserProfile profile) {
+        BigDecimal income = orZero(profile.getMonthlyIncome());
+        BigDecimal expenses = orZero(profile.getMonthlyExpenses());
+        BigDecimal savings = orZero(profile.getTotalSavings());
+        BigDecimal debt = orZero(profile.getTotalDebt());
+        BigDecimal monthlySurplus = profile.getMonthlySavings() != null
+                ? profile.getMonthlySavings()
+                : income.subtract(expenses).max(BigDecimal.ZERO);
+
+        BigDecimal emergencyTarget = expenses.multiply(EMERGENCY_FUND_MONTHS);
+        boolean emergencyFundShort = savings.compareTo(emergencyTarget) < 0;
+        BigDecimal debtRatio = income.signum() > 0
+                ? debt.divide(income.multiply(TWELVE), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        BigDecimal savingsRate = income.signum() > 0
+                ? monthlySurplus.divide(income, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        AIResponseDto plan = new AIResponseDto();
+        int score = healthScore(income, expenses, savings, debt);
+        plan.setHealthScore(score);
+        plan.setHealthAssessment(healthAssessment(score, emergencyFundShort, debtRatio, savingsRate));
+
+        Map<String, Integer> allocation = assetAllocation(profile, emergencyFundShort);
+        plan.setAssetAllocation(allocation);
+        plan.setInvestmentRecommendations(investmentRecommendations(allocation));
+        plan.setGoalTimeline(goalTimeline(profile, savings, emergencyTarget, monthlySurplus));
+        plan.setActionPlan(actionPlan(savings, emergencyTarget, monthlySurplus, debtRatio, savingsRate));
+        return plan;
+    }
+
+    // 与 UserProfileService.generatePlan 使用相同的评分规则
+    int healthScore(BigDecimal income, BigDecimal expenses, BigDecimal savings, BigDecimal debt) {
+        int score = 75;
+
+        if (income.signum() > 0 && expenses.signum() > 0) {
+            BigDecimal ratio = income.divide(expenses, 2, RoundingMode.HALF_UP);
+            if (ratio.compareTo(new BigDecimal("2")) > 0) score += 5;
+            else if (ratio.compareTo(new BigDecimal("1.2")) < 0) score -= 10;
+        }
+
+        if (income.signum() > 0) {
+            BigDecimal debtRatio = debt.divide(income.multiply(TWELVE), 2, RoundingMode.HALF_UP);
+            if (debtRatio.compareTo(new BigDecimal("0.5")) > 0) score -= 15;
+            else if (debtRatio.compareTo(new BigDecimal("0.2")) < 0) score += 10;
+        }
+
+        if (expenses.signum() > 0) {
+            BigDecimal emergencyFund = expenses.multiply(EMERGENCY_FUND_MONTHS);
+            if (savings.compareTo(emergencyFund) > 0) score += 10;
+            else if (savings.compareTo(expenses) < 0) score -= 5;
+        }
+
+        return Math.min(Math.max(score, 0), 100);
+    }
+
+    /**
+     * Age-based glide path ("110 minus age") shifted by risk tolerance on the 1-10 scale.
+     */
+    Map<String, Integer> assetAllocation(UserProfile profile, boolean emergencyFundShort) {
+        int age = profile.getAge() != null ? profile.getAge() : DEFAULT_AGE;
+        int risk = profile.getRiskTolerance() != null ? profile.getRiskTolerance() : DEFAULT_RISK_TOLERANCE;
+        risk = Math.min(Math.max(risk, 1), 10);
+
+        int cash = emergencyFundShort ? 10 : 5;
+        int stocks = Math.min(Math.max(110 - age + (risk - DEFAULT_RISK_TOLERANCE) * 4, 10), 100 - cash);
+        int bonds = 100 - stocks - cash;
+
+        Map<String, Integer> allocation = new LinkedHashMap<>();
+        allocation.put("stocks", stocks);
+        allocation.put("bonds", bonds);
+        allocation.put("cash", cash);
+        return allocation;
+    }
+
+    List<Map<String, Object>> investmentRecommendations(Map<String, Integer> allocation) {
+        List<Map<String, Object>> recommendations = new ArrayList<>();
+        recommendations.add(recommendation("Global equity index funds", allocation.get("stocks"),
+                "Low-cost, diversified exposure for long-term growth"));
+        recommendations.add(recommendation("Investment-grade bond funds", allocation.get("bonds"),
+                "Reduces portfolio volatility and provides steady income"));
+        recommendations.add(recommendation("High-yield savings account", allocation.get("cash"),
+                "Keeps emergency money liquid and safe"));
+        return recommendations;
+    }
+
+    /**
+     * Funds goals one after another from the monthly surplus, in the order the user listed them.
+     */
+    List<Map<String, Object>> goalTimeline(UserProfile profile, BigDecimal savings,
+                                           BigDecimal emergencyTarget, BigDecimal monthlySurplus) {
+        List<Map<String, Object>> timeline = new ArrayList<>();
+        List<Map<String, Object>> goals = parseGoals(profile.getFinancialGoalsJson());
+
+        if (goals.isEmpty()) {
+            if (savings.compareTo(emergencyTarget) < 0) {
+                goals.add(Map.of("goal", "Emergency Fund", "targetAmount", emergencyTarget.subtract(savings)));
+            }
+            int age = profile.getAge() != null ? profile.getAge() : DEFAULT_AGE;
+            int retirementAge = profile.getRetirementAge() != null ? profile.getRetirementAge() : DEFAULT_RETIREMENT_AGE;
+            if (retirementAge > age) {
+                Map<String, Object> retirement = new HashMap<>();
+                retirement.put("goal", "Retirement");
+                retirement.put("targetAmount", monthlySurplus.multiply(TWELVE)
+                        .multiply(BigDecimal.valueOf(retirementAge - age)));
+                retirement.put("timeframe", (retirementAge - age) + " years");
+                goals.add(retirement);
+            }
+        }
+
+        long monthsElapsed = 0;
+        for (int i = 0; i < goals.size(); i++) {
+            Map<String, Object> goal = goals.get(i);
+            BigDecimal target = toDecimal(firstNonNull(goal, "targetAmount", "amount", "target"));
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            Object name = firstNonNull(goal, "goal", "name", "title", "type");
+            entry.put("goal", name != null ? name.toString() : "Goal " + (i + 1));
+            entry.put("targetAmount", target);
+            entry.put("priority", goal.containsKey("priority")
+                    ? goal.get("priority")
+                    : i == 0 ? "High" : i == 1 ? "Medium" : "Low");
+
+            if (goal.containsKey("timeframe")) {
+                entry.put("timeframe", goal.get("timeframe"));
+            } else if (monthlySurplus.signum() <= 0) {
+                entry.put("timeframe", "Not reachable at current savings rate");
+            } else {
+                monthsElapsed += target.divide(monthlySurplus, 0, RoundingMode.CEILING).longValue();
+                entry.put("timeframe", formatMonths(monthsElapsed));
+            }
+            timeline.add(entry);
+        }
+        return timeline;
+    }
+
+    List<Map<String, Object>> actionPlan(BigDecimal savings, BigDecimal emergencyTarget, BigDecimal monthlySurplus,
+                                         BigDecimal debtRatio, BigDecimal savingsRate) {
+        List<Map<String, Object>> actions = new ArrayList<>();
+
+        if (savings.compareTo(emergencyTarget) < 0) {
+            BigDecimal gap = emergencyTarget.subtract(savings);
+            String timeframe = monthlySurplus.signum() > 0
+                    ? formatMonths(gap.divide(monthlySurplus, 0, RoundingMode.CEILING).longValue())
+                    : "As soon as possible";
+            actions.add(action("Build an emergency fund", timeframe,
+                    "Set aside " + gap.setScale(0, RoundingMode.HALF_UP) + " to cover six months of expenses."));
+        }
+        if (debtRatio.compareTo(new BigDecimal("0.35")) > 0) {
+            actions.add(action("Pay down high-interest debt", "Next 12 months",
+                    "Debt is " + debtRatio.movePointRight(2).setScale(0, RoundingMode.HALF_UP)
+                            + "% of annual income; direct extra savings to the highest-rate balances first."));
+        }
+        if (savingsRate.compareTo(new BigDecimal("0.15")) < 0) {
+            actions.add(action("Increase your savings rate", "Next 3 months",
+                    "Aim to save at least 15% of monthly income by trimming discretionary spending."));
+        }
+        actions.add(action("Rebalance to the target allocation", "Within 1 month",
+                "Move existing investments towards the recommended stock/bond/cash mix."));
+        actions.add(action("Review the plan with an advisor", "Within 3 months",
+                "Book a session to validate the assumptions behind this plan."));
+        return actions;
+    }
+
+    private String healthAssessment(int score, boolean emergencyFundShort, BigDecimal debtRatio, BigDecimal savingsRate) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(score >= 80 ? "Your finances are in strong shape." :
+                score >= 60 ? "Your finances are in reasonable shape with room to improve." :
+                        "Your finances need attention.");
+        if (emergencyFundShort) {
+            sb.append(" Your emergency fund is below six months of expenses.");
+        }
+        if (debtRatio.compareTo(new BigDecimal("0.35")) > 0) {
+            sb.append(" Debt is high relative to income.");
+        }
+        sb.append(" You are saving ").append(savingsRate.movePointRight(2).setScale(0, RoundingMode.HALF_UP))
+                .append("% of your income.");
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> parseGoals(String financialGoalsJson) {
+        List<Map<String, Object>> goals = new ArrayList<>();
+        if (financialGoalsJson == null || financialGoalsJson.isBlank()) {
+            return goals;
+        }
+        try {
+            List<Object> parsed = objectMapper.readValue(financialGoalsJson, List.class);
+            for (Object item : parsed) {
+                if (item instanceof Map) {
+                    goals.add((Map<String, Object>) item);
+                } else if (item != null) {
+                    goals.add(Map.of("goal", item.toString(), "targetAmount", BigDecimal.ZERO));
+                }
+            }
+        } catch (Exception e) {
+            // 目标格式无法解析时退回默认目标
+            goals.clear();
+        }
+        return goals;
+    }
+
+    private static Map<String, Object> recommendation(String type, Integer allocation, String reasoning) {
+        Map<String, Object> recommendation = new LinkedHashMap<>();
+        recommendation.put("type", type);
+        recommendation.put("allocation", allocation);
+        recommendation.put("reasoning", reasoning);
+        return recommendation;
+    }
+
+    private static Map<String, Object> action(String action, String timeframe, String details) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("action", action);
+        item.put("timeframe", timeframe);
+        item.put("details", details);
+        return item;
+    }
+
+    private static Object firstNonNull(Map<String, Object> map, String... keys) {
+        for (String key : keys) {
+            if (map.get(key) != null) {
+                return map.get(key);
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        try {
+            return value != null ? new BigDecimal(value.toString()) : BigDecimal.ZERO;
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static String formatMonths(long months) {
+        if (months < 12) {
+            return plural(Math.max(months, 1), "month");
+        }
+        long remainder = months % 12;
+        String years = plural(months / 12, "year");
+        return remainder == 0 ? years : years + " " + plural(remainder, "month");
+    }
+
+    private static String plural(long count, String unit) {
+        return count + " " + unit + (count == 1 ? "" : "s");
+    }
+}
@@ -0,0 +1,29 @@
+package com.ruipeng.planner.service;
+
+/**
+ * Thrown when a call to the AI model is not admitted, either because the caller
+ * exceeded their rate limit, the wait queue is full, or the wait timed out.
+ */
+public class ModelAdmissionException extends RuntimeException {
+
+    public enum Reason {
+        RATE_LIMITED, QUEUE_FULL, TIMEOUT
+    }
+
+    private final Reason reason;
+    private final long retryAfterMs;
+
+    public ModelAdmissionException(Reason reason, String message, long retryAfterMs) {
+        super(message);
+        this.reason = reason;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,364 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdmissionLimitsDto;
+import com.ruipeng.planner.dto.ModelQueueStatusDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the AI model: a global concurrency limit, a token
+ * bucket per user, and a bounded wait queue that is served round-robin across users
+ * so one user's burst cannot starve everyone else.
+ */
+@Service
+public class ModelAdmissionService {
+    private static final Logger log = LoggerFactory.getLogger(ModelAdmissionService.class);
+    private static final Long ANONYMOUS = 0L;
+    private static final double SERVICE_TIME_ALPHA = 0.2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dispatched = lock.newCondition();
+
+    // 每个用户一个等待队列，rotation 决定轮转顺序
+    private final Map<Long, Deque<Ticket>> waiting = new HashMap<>();
+    private final Deque<Long> rotation = new ArrayDeque<>();
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile int maxConcurrent;
+    private volatile int maxQueueSize;
+    private volatile double userTokensPerMinute;
+    private volatile int userBurst;
+    private volatile long maxWaitMs;
+
+    private int inFlight;
+    private int queued;
+    private double avgServiceMs;
+
+    private final Counter admittedCounter;
+    private final Counter rateLimitedCounter;
+    private final Counter queueFullCounter;
+    private final Counter timeoutCounter;
+    private final Timer queueWaitTimer;
+
+    public ModelAdmissionService(
+            MeterRegistry meterRegistry,
+            @Value("${google.ai.admission.max-concurrent:4}") int maxConcurrent,
+            @Value("${google.ai.admission.max-queue-size:50}") int maxQueueSize,
+            @Value("${google.ai.admission.user-tokens-per-minute:2}") double userTokensPerMinute,
+            @Value("${google.ai.admission.user-burst:3}") int userBurst,
+            @Value("${google.ai.admission.max-wait-ms:60000}") long maxWaitMs,
+            @Value("${google.ai.admission.initial-service-ms:5000}") long initialServiceMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueueSize = maxQueueSize;
+        this.userTokensPerMinute = userTokensPerMinute;
+        this.userBurst = userBurst;
+        this.maxWaitMs = maxWaitMs;
+        this.avgServiceMs = initialServiceMs;
+
+        Gauge.builder("ai.admission.in_flight", this, ModelAdmissionService::getInFlight)
+                .description("AI model calls currently executing")
+                .register(meterRegistry);
+        Gauge.builder("ai.admission.queue_depth", this, ModelAdmissionService::getQueueDepth)
+                .description("AI model calls waiting for a slot")
+                .register(meterRegistry);
+        Gauge.builder("ai.admission.max_concurrent", this, s -> s.maxConcurrent)
+                .register(meterRegistry);
+        this.admittedCounter = Counter.builder("ai.admission.admitted").register(meterRegistry);
+        this.rateLimitedCounter = rejectedCounter(meterRegistry, ModelAdmissionException.Reason.RATE_LIMITED);
+        this.queueFullCounter = rejectedCounter(meterRegistry, ModelAdmissionException.Reason.QUEUE_FULL);
+        this.timeoutCounter = rejectedCounter(meterRegistry, ModelAdmissionException.Reason.TIMEOUT);
+        this.queueWaitTimer = Timer.builder("ai.admission.queue_wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, ModelAdmissionException.Reason reason) {
+        return Counter.builder("ai.admission.rejected")
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry);
+    }
+
+    /**
+     * Runs the action once the caller is admitted, releasing the slot afterwards.
+     */
+    public <T> T call(Long userId, Supplier<T> action) {
+        Permit permit = acquire(userId);
+        try {
+            return action.get();
+        } finally {
+            permit.release();
+        }
+    }
+
+    public Permit acquire(Long userId) {
+        Long key = userId != null ? userId : ANONYMOUS;
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(userBurst));
+        long retryAfterMs = bucket.tryConsume(userTokensPerMinute, userBurst);
+        if (retryAfterMs > 0) {
+            rateLimitedCounter.increment();
+            throw new ModelAdmissionException(ModelAdmissionException.Reason.RATE_LIMITED,
+                    "Too many plan requests, please retry later", retryAfterMs);
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < maxConcurrent) {
+                inFlight++;
+                return grant(start);
+            }
+            if (queued >= maxQueueSize) {
+                bucket.refund(userBurst);
+                queueFullCounter.increment();
+                throw new ModelAdmissionException(ModelAdmissionException.Reason.QUEUE_FULL,
+                        "AI model is busy, please retry later", estimateWaitMs(queued + 1));
+            }
+
+            Ticket ticket = new Ticket(key);
+            enqueue(ticket);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            while (!ticket.granted) {
+                if (remaining <= 0) {
+                    dequeue(ticket);
+                    timeoutCounter.increment();
+                    throw new ModelAdmissionException(ModelAdmissionException.Reason.TIMEOUT,
+                            "Timed out waiting for the AI model", estimateWaitMs(queued + 1));
+                }
+                try {
+                    remaining = dispatched.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (ticket.granted) {
+                        inFlight--;
+                        dispatch();
+                    } else {
+                        dequeue(ticket);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new ModelAdmissionException(ModelAdmissionException.Reason.TIMEOUT,
+                            "Interrupted while waiting for the AI model", 0);
+                }
+            }
+            return grant(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ModelQueueStatusDto getQueueStatus(Long userId) {
+        Long key = userId != null ? userId : ANONYMOUS;
+        lock.lock();
+        try {
+            if (!waiting.containsKey(key)) {
+                return new ModelQueueStatusDto(false, 0, 0, inFlight, queued);
+            }
+            // 轮转调度下，用户最早的请求前面恰好是排在它之前的每个用户各一个
+            int position = 1;
+            for (Long user : rotation) {
+                if (user.equals(key)) {
+                    break;
+                }
+                position++;
+            }
+            return new ModelQueueStatusDto(true, position, estimateWaitMs(position), inFlight, queued);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updateLimits(AdmissionLimitsDto limits) {
+        if (limits.getMaxQueueSize() != null) {
+            maxQueueSize = limits.getMaxQueueSize();
+        }
+        if (limits.getUserTokensPerMinute() != null) {
+            userTokensPerMinute = limits.getUserTokensPerMinute();
+        }
+        if (limits.getUserBurst() != null) {
+            userBurst = limits.getUserBurst();
+        }
+        if (limits.getMaxWaitMs() != null) {
+            maxWaitMs = limits.getMaxWaitMs();
+        }
+        lock.lock();
+        try {
+            if (limits.getMaxConcurrent() != null) {
+                maxConcurrent = limits.getMaxConcurrent();
+            }
+            // 提高并发上限后立即放行排队的请求
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+        log.info("AI admission limits updated: maxConcurrent={}, maxQueueSize={}, userTokensPerMinute={}, userBurst={}, maxWaitMs={}",
+                maxConcurrent, maxQueueSize, userTokensPerMinute, userBurst, maxWaitMs);
+    }
+
+    public AdmissionLimitsDto getLimits() {
+        AdmissionLimitsDto limits = new AdmissionLimitsDto();
+        limits.setMaxConcurrent(maxConcurrent);
+        limits.setMaxQueueSize(maxQueueSize);
+        limits.setUserTokensPerMinute(userTokensPerMinute);
+        limits.setUserBurst(userBurst);
+        limits.setMaxWaitMs(maxWaitMs);
+        return limits;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; they are indistinguishable from a new one.
+     */
+    @Scheduled(fixedDelayString = "${google.ai.admission.bucket-prune-ms:600000}")
+    public void pruneIdleBuckets() {
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(userTokensPerMinute, userBurst));
+    }
+
+    private Permit grant(long start) {
+        admittedCounter.increment();
+        queueWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit();
+    }
+
+    private void enqueue(Ticket ticket) {
+        waiting.computeIfAbsent(ticket.userId, k -> {
+            rotation.addLast(k);
+            return new ArrayDeque<>();
+        }).addLast(ticket);
+        queued++;
+    }
+
+    private void dequeue(Ticket ticket) {
+        Deque<Ticket> tickets = waiting.get(ticket.userId);
+        if (tickets != null && tickets.remove(ticket)) {
+            queued--;
+            if (tickets.isEmpty()) {
+                waiting.remove(ticket.userId);
+                rotation.remove(ticket.userId);
+            }
+        }
+    }
+
+    // 必须在持有锁时调用
+    private void dispatch() {
+        boolean granted = false;
+        while (inFlight < maxConcurrent && queued > 0) {
+            Long user = rotation.pollFirst();
+            Deque<Ticket> tickets = waiting.get(user);
+            Ticket next = tickets.pollFirst();
+            if (tickets.isEmpty()) {
+                waiting.remove(user);
+            } else {
+                rotation.addLast(user);
+            }
+            queued--;
+            inFlight++;
+            next.granted = true;
+            granted = true;
+        }
+        if (granted) {
+            dispatched.signalAll();
+        }
+    }
+
+    private long estimateWaitMs(int position) {
+        int slots = Math.max(1, maxConcurrent);
+        return (long) (Math.ceil((double) position / slots) * avgServiceMs);
+    }
+
+    public final class Permit {
+        private final long grantedAt = System.nanoTime();
+        private boolean released;
+
+        public void release() {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                inFlight--;
+                double elapsedMs = (System.nanoTime() - grantedAt) / 1_000_000.0;
+                avgServiceMs = SERVICE_TIME_ALPHA * elapsedMs + (1 - SERVICE_TIME_ALPHA) * avgServiceMs;
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final Long userId;
+        private boolean granted;
+
+        private Ticket(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(int burst) {
+            this.tokens = burst;
+        }
+
+        /**
+         * @return 0 when a token was taken, otherwise milliseconds until one is available
+         */
+        synchronized long tryConsume(double tokensPerMinute, int burst) {
+            refill(tokensPerMinute, burst);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            double perMs = tokensPerMinute / TimeUnit.MINUTES.toMillis(1);
+            return Math.max(1, (long) Math.ceil((1 - tokens) / perMs));
+        }
+
+        synchronized void refund(int burst) {
+            tokens = Math.min(burst, tokens + 1);
+        }
+
+        synchronized boolean isFull(double tokensPerMinute, int burst) {
+            refill(tokensPerMinute, burst);
+            return tokens >= burst;
+        }
+
+        private void refill(double tokensPerMinute, int burst) {
+            long now = System.nanoTime();
+            double perNano = tokensPerMinute / TimeUnit.MINUTES.toNanos(1);
+            tokens = Math.min(burst, tokens + (now - lastRefill) * perNano);
+            lastRefill = now;
+        }
+    }
+}
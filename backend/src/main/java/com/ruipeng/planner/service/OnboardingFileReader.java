@@ -0,0 +1,186 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.entity.ImportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an onboarding file one record at a time, so the file is never held in memory.
+ *
+ * <p>CSV needs a header row and follows RFC 4180 quoting (quoted fields may contain commas,
+ * quotes and line breaks); list columns such as {@code specialties} are separated with
+ * {@code ;}. JSONL has one object per line. Blank lines are ignored in both. Column names are
+ * normalized to lower case without {@code _}, {@code -} or spaces, so {@code first_name} and
+ * {@code firstName} are the same column.
+ */
+public class OnboardingFileReader implements Closeable {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> LIST_COLUMNS = List.of("specialties", "languages");
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private List<String> header;
+    private long recordNumber;
+
+    public OnboardingFileReader(BufferedReader reader, ImportFormat format) {
+        this.reader = reader;
+        this.format = format;
+    }
+
+    /**
+     * The next data record, or null at the end of the file. A record that cannot be parsed is
+     * returned with an error and no fields; reading continues with the following record.
+     */
+    public Record next() throws IOException {
+        return format == ImportFormat.CSV ? nextCsv() : nextJsonLine();
+    }
+
+    /**
+     * Skips records that an earlier run already committed.
+     */
+    public void skip(long records) throws IOException {
+        for (long i = 0; i < records && next() != null; i++) {
+            // 只需推进读取位置
+        }
+    }
+
+    private Record nextCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRecord();
+            if (names == null) {
+                return null;
+            }
+            // 去掉 Excel 导出的 BOM
+            names.set(0, names.get(0).replace("\uFEFF", ""));
+            header = names.stream().map(OnboardingFileReader::normalize).toList();
+        }
+
+        List<String> values;
+        do {
+            values = readCsvRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        long number = ++recordNumber;
+        if (values.size() != header.size()) {
+            return Record.error(number, "Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String column = header.get(i);
+            fields.put(column, LIST_COLUMNS.contains(column)
+                    ? Arrays.stream(value.split(";")).map(String::trim).filter(v -> !v.isEmpty()).toList()
+                    : value);
+        }
+        return new Record(number, fields, null);
+    }
+
+    // 返回 null 表示文件结束；引号内的逗号和换行属于字段内容
+    private List<String> readCsvRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                int next = reader.read();
+                if (next == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    if (next != -1) {
+                        reader.reset();
+                    }
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Record nextJsonLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long number = ++recordNumber;
+        JsonNode node;
+        try {
+            node = JSON.readTree(line);
+        } catch (JsonProcessingException e) {
+            return Record.error(number, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return Record.error(number, "Expected a JSON object");
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (!entry.getValue().isNull()) {
+                fields.put(normalize(entry.getKey()), JSON.convertValue(entry.getValue(), Object.class));
+            }
+        }
+        return new Record(number, fields, null);
+    }
+
+    static String normalize(String column) {
+        return column.trim().replaceAll("[_\\-\\s]", "").toLowerCase();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * A data record; {@code number} counts data records from 1, not physical lines.
+     */
+    public record Record(long number, Map<String, Object> fields, String error) {
+        static Record error(long number, String error) {
+            return new Record(number, Map.of(), error);
+        }
+    }
+}
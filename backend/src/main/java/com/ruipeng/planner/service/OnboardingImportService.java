@@ -0,0 +1,533 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ruipeng.planner.dto.OnboardingImportStatusDto;
+import com.ruipeng.planner.dto.OnboardingRow;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.ImportFormat;
+import com.ruipeng.planner.entity.ImportJobStatus;
+import com.ruipeng.planner.entity.OnboardingImportJob;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserProfile;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.repository.AdvisorRepository;
+import com.ruipeng.planner.repository.OnboardingImportJobRepository;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import com.ruipeng.planner.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk onboarding of clients and advisors from a CSV or JSONL file.
+ *
+ * <p>The upload is streamed to {@code onboarding.import.directory} and read back one batch at a
+ * time. Each batch is validated, its passwords are hashed on {@code importHashExecutor} while the
+ * previous batch is written, and the rows plus the job checkpoint are committed in one
+ * transaction with JDBC batching. A restarted job skips the rows already committed. Rejected rows
+ * (invalid, duplicate or already registered) are counted and logged, not imported.
+ *
+ * <p>At most one import runs at a time; a unique constraint on the job table enforces this across
+ * concurrent requests. The stored file holds plaintext passwords and is deleted as soon as a run
+ * ends, whether it completed, failed or was cancelled.
+ */
+@Service
+public class OnboardingImportService {
+    private static final Logger log = LoggerFactory.getLogger(OnboardingImportService.class);
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 5000;
+
+    // 列名已被规范化为小写，这里按忽略大小写匹配字段
+    private static final ObjectMapper ROW_MAPPER = JsonMapper.builder()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true)
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true)
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS, true)
+            .build();
+
+    private final OnboardingImportJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final AdvisorRepository advisorRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final TaskExecutor importHashExecutor;
+    private final TaskExecutor importJobExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OnboardingImportService(OnboardingImportJobRepository jobRepository,
+                                   UserRepository userRepository,
+                                   UserProfileRepository userProfileRepository,
+                                   AdvisorRepository advisorRepository,
+                                   PasswordEncoder passwordEncoder,
+                                   Validator validator,
+                                   @Qualifier("importHashExecutor") TaskExecutor importHashExecutor,
+                                   @Qualifier("importJobExecutor") TaskExecutor importJobExecutor,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${onboarding.import.directory:${java.io.tmpdir}/planner-imports}") String directory) {
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.advisorRepository = advisorRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.importHashExecutor = importHashExecutor;
+        this.importJobExecutor = importJobExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Stores the uploaded file and starts importing it. The format is taken from the file
+     * extension when not given.
+     */
+    public OnboardingImportStatusDto startImport(String fileName, ImportFormat format, Integer batchSize,
+                                                 InputStream content) throws IOException {
+        if (!jobRepository.findByStatus(ImportJobStatus.RUNNING).isEmpty()) {
+            throw alreadyRunning();
+        }
+        ImportFormat resolvedFormat = format != null ? format : formatOf(fileName);
+        int size = batchSize != null ? batchSize : DEFAULT_BATCH_SIZE;
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        OnboardingImportJob job = new OnboardingImportJob();
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setRunningGuard(Boolean.TRUE);
+        job.setFileName(fileName);
+        job.setFormat(resolvedFormat);
+        job.setBatchSize(size);
+        job.setProcessedRows(0L);
+        job.setImportedUsers(0L);
+        job.setImportedAdvisors(0L);
+        job.setRejectedRows(0L);
+        job.setHashWaitMillis(0L);
+        job.setWriteMillis(0L);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        try {
+            // 检查与插入之间可能有并发上传，由唯一约束兜底
+            job = jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyRunning();
+        }
+
+        storeFile(job, content);
+        launch(job.getId());
+        return toStatusDto(job);
+    }
+
+    public OnboardingImportStatusDto cancelImport(Long jobId) {
+        getJob(jobId);
+        // 运行中的任务在下一批开始前检查状态并停止
+        jobRepository.transitionStatus(jobId, ImportJobStatus.RUNNING, ImportJobStatus.CANCELLED,
+                null, LocalDateTime.now());
+        return toStatusDto(getJob(jobId));
+    }
+
+    /**
+     * Continues a cancelled or failed import from its last committed batch. The file was deleted
+     * when the previous run ended, so it is uploaded again; rows before the checkpoint are skipped.
+     */
+    public OnboardingImportStatusDto resumeImport(Long jobId, InputStream content) throws IOException {
+        OnboardingImportJob job = getJob(jobId);
+        if (!jobRepository.findByStatus(ImportJobStatus.RUNNING).isEmpty()) {
+            throw alreadyRunning();
+        }
+        int reopened;
+        try {
+            reopened = jobRepository.reopen(jobId, List.of(ImportJobStatus.CANCELLED, ImportJobStatus.FAILED),
+                    LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyRunning();
+        }
+        if (reopened == 0) {
+            throw new IllegalStateException("Only cancelled or failed imports can be resumed");
+        }
+
+        storeFile(job, content);
+        launch(jobId);
+        return toStatusDto(getJob(jobId));
+    }
+
+    public OnboardingImportStatusDto getImportStatus(Long jobId) {
+        return toStatusDto(getJob(jobId));
+    }
+
+    public List<OnboardingImportStatusDto> getAllImports() {
+        return jobRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(this::toStatusDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Picks up imports that were still running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedImports() {
+        for (OnboardingImportJob job : jobRepository.findByStatus(ImportJobStatus.RUNNING)) {
+            log.info("Resuming onboarding import {} after row {}", job.getId(), job.getProcessedRows());
+            try {
+                launch(job.getId());
+            } catch (IllegalStateException e) {
+                log.warn("Could not resume onboarding import {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // 先落盘再导入：文件不进内存，重启后也能从检查点继续
+    private void storeFile(OnboardingImportJob job, InputStream content) throws IOException {
+        Path file = sourceFile(job);
+        try {
+            Files.createDirectories(directory);
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteFile(file);
+            finish(job.getId(), ImportJobStatus.FAILED, "Upload failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private void launch(Long jobId) {
+        try {
+            importJobExecutor.execute(() -> runJob(jobId));
+        } catch (TaskRejectedException e) {
+            // 任务没排上队，不能一直停在 RUNNING 挡住后续导入
+            OnboardingImportJob job = getJob(jobId);
+            finish(jobId, ImportJobStatus.FAILED, "Import queue is full");
+            deleteFile(sourceFile(job));
+            throw new IllegalStateException("The import queue is full; try again later", e);
+        }
+    }
+
+    void runJob(Long jobId) {
+        jobRepository.markResumed(jobId, LocalDateTime.now());
+        OnboardingImportJob job = getJob(jobId);
+        Path file = sourceFile(job);
+        // 本次运行内的重复邮箱；之前运行已提交的行由数据库查询发现
+        Set<String> seenEmails = new HashSet<>();
+
+        try (OnboardingFileReader reader = new OnboardingFileReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), job.getFormat())) {
+            reader.skip(job.getProcessedRows());
+            PreparedBatch current = prepareBatch(reader, job.getBatchSize(), seenEmails);
+            while (current != null) {
+                if (getJob(jobId).getStatus() != ImportJobStatus.RUNNING) {
+                    log.info("Onboarding import {} stopped with status {}", jobId, getJob(jobId).getStatus());
+                    return;
+                }
+                // 先读取下一批并开始哈希，再写入当前批：写库和哈希同时进行
+                PreparedBatch next = prepareBatch(reader, job.getBatchSize(), seenEmails);
+                writeBatch(jobId, current);
+                current = next;
+            }
+            finish(jobId, ImportJobStatus.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Onboarding import {} failed", jobId, e);
+            finish(jobId, ImportJobStatus.FAILED, e.getMessage());
+        } finally {
+            // 文件里有明文密码：无论完成、失败还是取消都不再保留
+            deleteFile(file);
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static IllegalStateException alreadyRunning() {
+        return new IllegalStateException("An onboarding import is already running");
+    }
+
+    private PreparedBatch prepareBatch(OnboardingFileReader reader, int batchSize, Set<String> seenEmails)
+            throws IOException {
+        List<OnboardingRow> rows = new ArrayList<>();
+        List<String> rejections = new ArrayList<>();
+        int records = 0;
+        for (OnboardingFileReader.Record record; records < batchSize && (record = reader.next()) != null; ) {
+            records++;
+            String error = record.error();
+            OnboardingRow row = null;
+            if (error == null) {
+                try {
+                    row = ROW_MAPPER.convertValue(record.fields(), OnboardingRow.class);
+                    error = validate(row, seenEmails);
+                } catch (IllegalArgumentException e) {
+                    error = "Invalid value: " + e.getMessage();
+                }
+            }
+            if (error != null) {
+                rejections.add("Row " + record.number() + ": " + error);
+            } else {
+                rows.add(row);
+            }
+        }
+        if (records == 0) {
+            return null;
+        }
+
+        // 一次查询找出本批中已注册的邮箱
+        if (!rows.isEmpty()) {
+            Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                    rows.stream().map(OnboardingRow::getEmail).toList()));
+            rows.removeIf(row -> {
+                if (existing.contains(row.getEmail())) {
+                    rejections.add("Email " + row.getEmail() + " is already registered");
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        List<PendingRow> pending = new ArrayList<>(rows.size());
+        for (OnboardingRow row : rows) {
+            String password = row.getPassword();
+            row.setPassword(null);
+            pending.add(new PendingRow(row,
+                    CompletableFuture.supplyAsync(() -> passwordEncoder.encode(password), importHashExecutor)));
+        }
+        return new PreparedBatch(records, pending, rejections);
+    }
+
+    private String validate(OnboardingRow row, Set<String> seenEmails) {
+        Set<ConstraintViolation<OnboardingRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (row.getRole() == UserRole.ADMIN) {
+            return "Administrators cannot be imported";
+        }
+        row.setEmail(row.getEmail().trim().toLowerCase(Locale.ROOT));
+        if (!seenEmails.add(row.getEmail())) {
+            return "Duplicate email " + row.getEmail() + " in file";
+        }
+        return null;
+    }
+
+    private void writeBatch(Long jobId, PreparedBatch batch) {
+        List<String> rejections = new ArrayList<>(batch.rejections());
+        List<PendingRow> ready = new ArrayList<>(batch.rows().size());
+        List<String> hashes = new ArrayList<>(batch.rows().size());
+
+        long hashStart = System.nanoTime();
+        for (PendingRow pending : batch.rows()) {
+            try {
+                hashes.add(pending.passwordHash().join());
+                ready.add(pending);
+            } catch (CompletionException e) {
+                rejections.add("Email " + pending.row().getEmail() + ": " + e.getCause().getMessage());
+            }
+        }
+        long hashWaitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - hashStart);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long writeStart = System.nanoTime();
+            // 只对本次会话开启 JDBC 批量插入；主键来自序列，不需要逐行回读
+            entityManager.unwrap(Session.class).setJdbcBatchSize(Math.max(1, ready.size()));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<User> users = new ArrayList<>(ready.size());
+            List<UserProfile> profiles = new ArrayList<>();
+            List<Advisor> advisors = new ArrayList<>();
+            for (int i = 0; i < ready.size(); i++) {
+                OnboardingRow row = ready.get(i).row();
+                User user = newUser(row, hashes.get(i), now);
+                users.add(user);
+                if (user.getRole() == UserRole.ADVISOR) {
+                    advisors.add(newAdvisor(row, user));
+                } else if (hasProfile(row)) {
+                    profiles.add(newProfile(row, user));
+                }
+            }
+            // 按类型分组保存，同类 INSERT 连续出现才能合并成批
+            userRepository.saveAll(users);
+            userProfileRepository.saveAll(profiles);
+            advisorRepository.saveAll(advisors);
+            entityManager.flush();
+            entityManager.clear();
+
+            long writeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStart);
+            String lastError = rejections.isEmpty() ? null : rejections.get(rejections.size() - 1);
+            // 数据与检查点在同一事务提交，重启后不会重复或遗漏整批
+            jobRepository.recordProgress(jobId, batch.records(), users.size(), advisors.size(), rejections.size(),
+                    hashWaitMillis, writeMillis, lastError, now);
+        });
+
+        for (String rejection : rejections) {
+            log.warn("Onboarding import {}: rejected {}", jobId, rejection);
+        }
+        OnboardingImportStatusDto progress = getImportStatus(jobId);
+        log.info("Onboarding import {}: {} rows, {} users, {} advisors, {} rejected, {} rows/s",
+                jobId, progress.getProcessedRows(), progress.getImportedUsers(), progress.getImportedAdvisors(),
+                progress.getRejectedRows(), String.format("%.1f", progress.getRowsPerSecond()));
+    }
+
+    private static User newUser(OnboardingRow row, String passwordHash, LocalDateTime now) {
+        User user = new User();
+        user.setEmail(row.getEmail());
+        user.setPasswordHash(passwordHash);
+        user.setFirstName(row.getFirstName().trim());
+        user.setLastName(row.getLastName().trim());
+        user.setRole(row.getRole() != null ? row.getRole() : UserRole.USER);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setRegistrationDate(now);
+        return user;
+    }
+
+    private static Advisor newAdvisor(OnboardingRow row, User user) {
+        Advisor advisor = new Advisor();
+        advisor.setUser(user);
+        advisor.setProfessionalTitle(row.getProfessionalTitle());
+        advisor.setExperienceYears(row.getExperienceYears());
+        advisor.setBio(row.getBio());
+        advisor.setSpecialties(row.getSpecialties() != null ? new HashSet<>(row.getSpecialties()) : new HashSet<>());
+        advisor.setLanguages(row.getLanguages() != null ? new HashSet<>(row.getLanguages()) : new HashSet<>());
+        advisor.setRatingCount(0);
+        return advisor;
+    }
+
+    private static boolean hasProfile(OnboardingRow row) {
+        return row.getAge() != null || row.getOccupation() != null || row.getEducationLevel() != null
+                || row.getMonthlyIncome() != null || row.getMonthlyExpenses() != null
+                || row.getTotalSavings() != null || row.getTotalDebt() != null || row.getRiskTolerance() != null
+                || row.getInvestmentHorizon() != null || row.getRetirementAge() != null
+                || row.getMonthlySavings() != null;
+    }
+
+    private static UserProfile newProfile(OnboardingRow row, User user) {
+        UserProfile profile = new UserProfile();
+        profile.setUser(user);
+        profile.setAge(row.getAge());
+        profile.setOccupation(row.getOccupation());
+        profile.setEducationLevel(row.getEducationLevel());
+        profile.setMonthlyIncome(row.getMonthlyIncome());
+        profile.setMonthlyExpenses(row.getMonthlyExpenses());
+        profile.setTotalSavings(row.getTotalSavings());
+        profile.setTotalDebt(row.getTotalDebt());
+        profile.setRiskTolerance(row.getRiskTolerance());
+        profile.setInvestmentHorizon(row.getInvestmentHorizon());
+        profile.setRetirementAge(row.getRetirementAge());
+        profile.setMonthlySavings(row.getMonthlySavings());
+        return profile;
+    }
+
+    private boolean finish(Long jobId, ImportJobStatus status, String error) {
+        if (jobRepository.transitionStatus(jobId, ImportJobStatus.RUNNING, status, error,
+                LocalDateTime.now()) > 0) {
+            log.info("Onboarding import {} finished with status {}", jobId, status);
+            return true;
+        }
+        return false;
+    }
+
+    private OnboardingImportJob getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Onboarding import not found with id: " + jobId));
+    }
+
+    private Path sourceFile(OnboardingImportJob job) {
+        return directory.resolve(job.getId() + "." + job.getFormat().name().toLowerCase(Locale.ROOT));
+    }
+
+    static ImportFormat formatOf(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return ImportFormat.JSONL;
+        }
+        throw new IllegalArgumentException("Cannot tell the format of '" + fileName + "'; pass format=CSV or JSONL");
+    }
+
+    OnboardingImportStatusDto toStatusDto(OnboardingImportJob job) {
+        OnboardingImportStatusDto dto = new OnboardingImportStatusDto();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setFileName(job.getFileName());
+        dto.setFormat(job.getFormat());
+        dto.setBatchSize(job.getBatchSize());
+        dto.setProcessedRows(job.getProcessedRows());
+        dto.setImportedUsers(job.getImportedUsers());
+        dto.setImportedAdvisors(job.getImportedAdvisors());
+        dto.setRejectedRows(job.getRejectedRows());
+        dto.setHashWaitMillis(job.getHashWaitMillis());
+        dto.setWriteMillis(job.getWriteMillis());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        // 吞吐量按本次运行计算，重启前的进度不计入耗时
+        if (job.getResumedAt() != null && job.getProcessedAtResume() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMs = Duration.between(job.getResumedAt(), end).toMillis();
+            long processed = job.getProcessedRows() - job.getProcessedAtResume();
+            if (elapsedMs > 0 && processed > 0) {
+                dto.setRowsPerSecond(processed * 1000.0 / elapsedMs);
+            }
+        }
+        return dto;
+    }
+
+    private record PendingRow(OnboardingRow row, CompletableFuture<String> passwordHash) {
+    }
+
+    private record PreparedBatch(int records, List<PendingRow> rows, List<String> rejections) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Warms the {@link PdfRenderCache} for newly created plans so the first download is a hit.
+ *
+ * <p>Rendering runs on the single low-priority {@code pdfPrerenderExecutor}. When its queue is
+ * full the plan is skipped; the download path still renders on demand. Exposes
+ * {@code pdf.prerender.queue.depth}, {@code pdf.prerender.lag} (plan commit to PDF on disk) and
+ * counters for skipped and failed renders.
+ */
+@Component
+public class PdfPrerenderService {
+    private static final Logger log = LoggerFactory.getLogger(PdfPrerenderService.class);
+
+    private final FinancialPlanRepository financialPlanRepository;
+    private final PdfRenderCache pdfRenderCache;
+    private final ThreadPoolTaskExecutor pdfPrerenderExecutor;
+    private final Timer lagTimer;
+    private final Counter rendered;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public PdfPrerenderService(FinancialPlanRepository financialPlanRepository,
+                               PdfRenderCache pdfRenderCache,
+                               @Qualifier("pdfPrerenderExecutor") ThreadPoolTaskExecutor pdfPrerenderExecutor,
+                               MeterRegistry meterRegistry) {
+        this.financialPlanRepository = financialPlanRepository;
+        this.pdfRenderCache = pdfRenderCache;
+        this.pdfPrerenderExecutor = pdfPrerenderExecutor;
+
+        Gauge.builder("pdf.prerender.queue.depth", this, PdfPrerenderService::getQueueDepth)
+                .description("Plans waiting to be pre-rendered")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("pdf.prerender.lag")
+                .description("Time from plan commit until its PDF is in the render cache")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rendered = Counter.builder("pdf.prerender.renders").tag("outcome", "success").register(meterRegistry);
+        this.failed = Counter.builder("pdf.prerender.renders").tag("outcome", "error").register(meterRegistry);
+        this.dropped = Counter.builder("pdf.prerender.renders").tag("outcome", "dropped").register(meterRegistry);
+    }
+
+    @EventListener
+    public void onPlanCreated(PlanCreatedEvent event) {
+        if (event.getPlanId() == null) {
+            return;
+        }
+        try {
+            pdfPrerenderExecutor.execute(() -> prerender(event));
+        } catch (TaskRejectedException e) {
+            dropped.increment();
+            log.debug("Pre-render queue full, skipping plan {}", event.getPlanId());
+        }
+    }
+
+    public int getQueueDepth() {
+        return pdfPrerenderExecutor.getQueueSize();
+    }
+
+    void prerender(PlanCreatedEvent event) {
+        try {
+            Optional<FinancialPlan> plan = financialPlanRepository.findById(event.getPlanId());
+            if (plan.isEmpty()) {
+                return;
+            }
+            // 打开即写入缓存，这里不需要内容
+            pdfRenderCache.open(plan.get()).close();
+            rendered.increment();
+            lagTimer.record(Duration.between(event.getCreatedAt(), Instant.now()));
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Failed to pre-render PDF for plan {}: {}", event.getPlanId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.FinancialPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk cache of rendered plan PDFs.
+ *
+ * <p>Entries are keyed by plan id and a hash of everything the renderer reads, so a plan whose
+ * content changes (e.g. a provisional plan replaced by the model result) simply misses. The hash
+ * doubles as the ETag. The in-memory index holds one small entry per plan in access order and is
+ * rebuilt from the file names on startup; the least recently used files are deleted once the
+ * directory exceeds {@code pdf.cache.max-bytes}.
+ */
+@Component
+public class PdfRenderCache {
+    private static final Logger logger = LoggerFactory.getLogger(PdfRenderCache.class);
+
+    // 渲染输出格式变化时递增，使旧文件全部失效
+    static final int RENDER_VERSION = 2;
+
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d+)-([0-9a-f]{64})\\.pdf");
+
+    private final PlanPdfRenderer planPdfRenderer;
+    private final Path directory;
+    private final long maxBytes;
+
+    // planId -> entry, access order; guarded by this
+    private final LinkedHashMap<Long, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public PdfRenderCache(
+            PlanPdfRenderer planPdfRenderer,
+            @Value("${pdf.cache.directory:${java.io.tmpdir}/planner-pdf-cache}") String directory,
+            @Value("${pdf.cache.max-bytes:268435456}") long maxBytes) throws IOException {
+        this.planPdfRenderer = planPdfRenderer;
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        loadIndex();
+    }
+
+    /**
+     * Strong ETag for the PDF of this plan, computed without rendering.
+     */
+    public String etag(FinancialPlan plan) {
+        return etagOf(contentHash(plan));
+    }
+
+    /**
+     * Opens the cached PDF for this plan, rendering it to disk first on a miss. The caller must
+     * close the returned handle (normally via {@link CachedPdf#transferTo}).
+     */
+    public CachedPdf open(FinancialPlan plan) throws IOException {
+        String hash = contentHash(plan);
+        Entry entry = lookup(plan.getId(), hash);
+        if (entry != null) {
+            try {
+                return new CachedPdf(etagOf(hash), FileChannel.open(entry.path, StandardOpenOption.READ));
+            } catch (NoSuchFileException e) {
+                // 文件被外部删除，重新渲染
+                remove(plan.getId(), entry);
+            }
+        }
+
+        Path target = directory.resolve(plan.getId() + "-" + hash + ".pdf");
+        Path temp = Files.createTempFile(directory, plan.getId() + "-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                planPdfRenderer.render(plan, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        // 先打开再登记：即使随后被淘汰删除，已打开的通道仍可读
+        FileChannel channel = FileChannel.open(target, StandardOpenOption.READ);
+        put(plan.getId(), new Entry(hash, target, channel.size()));
+        return new CachedPdf(etagOf(hash), channel);
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private synchronized Entry lookup(Long planId, String hash) {
+        Entry entry = index.get(planId);
+        return entry != null && entry.hash.equals(hash) ? entry : null;
+    }
+
+    private void put(Long planId, Entry entry) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = index.put(planId, entry);
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (!previous.path.equals(entry.path)) {
+                    evicted.add(previous.path);
+                }
+            }
+            totalBytes += entry.size;
+
+            Iterator<Map.Entry<Long, Entry>> it = index.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<Long, Entry> eldest = it.next();
+                if (eldest.getValue() == entry) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue().size;
+                evicted.add(eldest.getValue().path);
+                it.remove();
+            }
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    private void remove(Long planId, Entry entry) {
+        synchronized (this) {
+            if (!index.remove(planId, entry)) {
+                return;
+            }
+            totalBytes -= entry.size;
+        }
+        deleteQuietly(entry.path);
+    }
+
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.sorted(Comparator.comparing(PdfRenderCache::lastModified)).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Matcher matcher = FILE_NAME.matcher(name);
+            if (!matcher.matches()) {
+                if (name.endsWith(".tmp")) {
+                    // 上次中断留下的临时文件
+                    deleteQuietly(file);
+                }
+                continue;
+            }
+            put(Long.valueOf(matcher.group(1)), new Entry(matcher.group(2), file, Files.size(file)));
+        }
+        logger.info("PDF cache at {}: {} files, {} bytes", directory, index.size(), totalBytes);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached PDF {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String etagOf(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    static String contentHash(FinancialPlan plan) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, String.valueOf(RENDER_VERSION));
+        update(digest, String.valueOf(plan.getId()));
+        update(digest, plan.getPlanName());
+        update(digest, Objects.toString(plan.getCreationDate(), null));
+        update(digest, Objects.toString(plan.getHealthScore(), null));
+        update(digest, plan.getHealthAssessment());
+        update(digest, plan.getAssetAllocationJson());
+        update(digest, plan.getGoalTimelineJson());
+        update(digest, plan.getInvestmentRecommendationsJson());
+        update(digest, plan.getActionPlanJson());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 长度前缀，避免字段拼接产生歧义；null 与空串区分开
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[]{
+                (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private record Entry(String hash, Path path, long size) {
+    }
+
+    /**
+     * An open cached PDF. {@link #transferTo} copies it to the response with
+     * {@link FileChannel#transferTo}, so the file is never loaded onto the heap.
+     */
+    public static final class CachedPdf implements Closeable {
+        private final String etag;
+        private final FileChannel channel;
+
+        CachedPdf(String etag, FileChannel channel) {
+            this.etag = etag;
+            this.channel = channel;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public long size() {
+            try {
+                return channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the whole file to {@code out} and closes this handle; {@code out} is left open.
+         */
+        public void transferTo(OutputStream out) throws IOException {
+            try (channel) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
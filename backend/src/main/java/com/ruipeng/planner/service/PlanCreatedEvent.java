@@ -0,0 +1,25 @@
+package com.ruipeng.planner.service;
+
+import java.time.Instant;
+
+/**
+ * Published after the transaction that saved a new plan version (or the final content of a
+ * provisional plan) has committed.
+ */
+public class PlanCreatedEvent {
+    private final Long planId;
+    private final Instant createdAt;
+
+    public PlanCreatedEvent(Long planId, Instant createdAt) {
+        this.planId = planId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getPlanId() {
+        return planId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
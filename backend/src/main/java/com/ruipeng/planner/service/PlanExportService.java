@@ -0,0 +1,192 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.SharedPlanExportItem;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.repository.AppointmentRepository;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk export of the plans clients shared with an advisor, as one ZIP of PDFs.
+ *
+ * <p>Plans are rendered on {@code planExportExecutor} through the {@link PdfRenderCache}, so a
+ * rendered plan is an open file rather than a byte array. At most {@code plans.export.window}
+ * plans are rendered ahead of the ZIP writer; the next one is only submitted when a finished
+ * one is taken, so a slow client throttles rendering instead of filling memory.
+ */
+@Service
+public class PlanExportService {
+    private static final Logger log = LoggerFactory.getLogger(PlanExportService.class);
+
+    static final String ERRORS_ENTRY = "export-errors.txt";
+
+    private final AppointmentRepository appointmentRepository;
+    private final FinancialPlanRepository financialPlanRepository;
+    private final PdfRenderCache pdfRenderCache;
+    private final TaskExecutor planExportExecutor;
+    private final int window;
+
+    public PlanExportService(AppointmentRepository appointmentRepository,
+                             FinancialPlanRepository financialPlanRepository,
+                             PdfRenderCache pdfRenderCache,
+                             @Qualifier("planExportExecutor") TaskExecutor planExportExecutor,
+                             @Value("${plans.export.window:8}") int window) {
+        this.appointmentRepository = appointmentRepository;
+        this.financialPlanRepository = financialPlanRepository;
+        this.pdfRenderCache = pdfRenderCache;
+        this.planExportExecutor = planExportExecutor;
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Plans shared with the advisor in appointments from {@code from} to {@code to}, inclusive.
+     */
+    public List<SharedPlanExportItem> findSharedPlans(Long advisorId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        return appointmentRepository.findSharedPlansForExport(
+                advisorId, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Writes one PDF entry per plan to {@code out} in completion order. Plans that fail to render
+     * are listed in {@value #ERRORS_ENTRY} instead of failing the whole export.
+     */
+    public void writeZip(List<SharedPlanExportItem> items, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // PDF 本身已压缩，用最快的压缩级别即可
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        CompletionService<RenderedPlan> completion = new ExecutorCompletionService<>(planExportExecutor);
+        AtomicBoolean aborted = new AtomicBoolean();
+        Iterator<SharedPlanExportItem> pending = items.iterator();
+        List<String> failures = new ArrayList<>();
+        int inFlight = 0;
+
+        try {
+            for (; inFlight < window && pending.hasNext(); inFlight++) {
+                submit(completion, pending.next(), aborted);
+            }
+            while (inFlight > 0) {
+                RenderedPlan rendered = take(completion);
+                inFlight--;
+                // 先提交下一个再写出，写 ZIP 时渲染线程不空闲
+                if (pending.hasNext()) {
+                    submit(completion, pending.next(), aborted);
+                    inFlight++;
+                }
+
+                if (rendered.pdf() == null) {
+                    failures.add(entryName(rendered.item()) + ": " + rendered.error());
+                    continue;
+                }
+                try (PdfRenderCache.CachedPdf pdf = rendered.pdf()) {
+                    zip.putNextEntry(new ZipEntry(entryName(rendered.item())));
+                    pdf.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+                zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+        } catch (IOException | RuntimeException e) {
+            // 客户端断开等：停止渲染，关闭已打开的文件
+            aborted.set(true);
+            drain(completion, inFlight);
+            throw e;
+        }
+    }
+
+    private void submit(CompletionService<RenderedPlan> completion, SharedPlanExportItem item, AtomicBoolean aborted) {
+        completion.submit(() -> {
+            if (aborted.get()) {
+                return new RenderedPlan(item, null, "export aborted");
+            }
+            try {
+                FinancialPlan plan = financialPlanRepository.findById(item.getPlanId())
+                        .orElseThrow(() -> new EntityNotFoundException("Financial plan not found with id: " + item.getPlanId()));
+                return new RenderedPlan(item, pdfRenderCache.open(plan), null);
+            } catch (Exception e) {
+                log.warn("Failed to render plan {} for export: {}", item.getPlanId(), e.getMessage());
+                return new RenderedPlan(item, null, e.getMessage());
+            }
+        });
+    }
+
+    private static RenderedPlan take(CompletionService<RenderedPlan> completion) throws IOException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Plan export interrupted");
+        } catch (ExecutionException e) {
+            // 任务内部已捕获异常，这里只会是意外错误
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void drain(CompletionService<RenderedPlan> completion, int inFlight) {
+        for (int i = 0; i < inFlight; i++) {
+            try {
+                RenderedPlan rendered = take(completion);
+                if (rendered.pdf() != null) {
+                    rendered.pdf().close();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to release export result: {}", e.getMessage());
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // 客户姓名/计划ID-计划名.pdf
+    static String entryName(SharedPlanExportItem item) {
+        String client = safeName(item.getClientLastName()) + "_" + safeName(item.getClientFirstName());
+        return client + "/" + item.getPlanId() + "-" + safeName(item.getPlanName()) + ".pdf";
+    }
+
+    private static String safeName(String value) {
+        if (value == null || value.isBlank()) {
+            return "unnamed";
+        }
+        // 点号也替换掉，避免 "." ".." 之类的路径
+        String safe = value.trim().replaceAll("[^\\p{L}\\p{N}_-]+", "-").replaceAll("-{2,}", "-")
+                .replaceAll("^-|-$", "");
+        if (safe.isEmpty()) {
+            return "unnamed";
+        }
+        return safe.length() > 60 ? safe.substring(0, 60) : safe;
+    }
+
+    private record RenderedPlan(SharedPlanExportItem item, PdfRenderCache.CachedPdf pdf, String error) {
+    }
+}
@@ -0,0 +1,408 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.ruipeng.planner.entity.FinancialPlan;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders a {@link FinancialPlan} as a client-facing PDF report: health score gauge, asset
+ * allocation table and bar chart, goal timeline, investment recommendations and action plan.
+ *
+ * <p>Font programs, styles and colours are built once and shared by every render; only the
+ * document-bound {@link PdfFont} wrappers are created per document. Each JSON column is parsed
+ * exactly once, and tables are written in large-table mode so long sections are flushed page by
+ * page instead of being held in memory.
+ */
+@Component
+public class PlanPdfRenderer {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // 大表每隔多少行写出一次
+    private static final int TABLE_FLUSH_ROWS = 50;
+
+    private static final Color PRIMARY = new DeviceRgb(31, 78, 121);
+    private static final Color MUTED = new DeviceRgb(110, 110, 110);
+    private static final Color HEADER_BACKGROUND = new DeviceRgb(225, 234, 244);
+    private static final Color ROW_BORDER = new DeviceRgb(210, 210, 210);
+    private static final Color TRACK = new DeviceRgb(235, 235, 235);
+    private static final Color GOOD = new DeviceRgb(46, 139, 87);
+    private static final Color FAIR = new DeviceRgb(230, 162, 60);
+    private static final Color POOR = new DeviceRgb(200, 60, 60);
+    private static final Color[] PALETTE = {
+            new DeviceRgb(31, 78, 121), new DeviceRgb(46, 139, 87), new DeviceRgb(230, 162, 60),
+            new DeviceRgb(142, 68, 173), new DeviceRgb(200, 60, 60), new DeviceRgb(52, 152, 219)
+    };
+
+    private static final Style TITLE = new Style().setFontSize(22).setFontColor(PRIMARY).setMarginBottom(2);
+    private static final Style SUBTITLE = new Style().setFontSize(10).setFontColor(MUTED).setMarginBottom(12);
+    private static final Style HEADING = new Style().setFontSize(15).setFontColor(PRIMARY)
+            .setMarginTop(16).setMarginBottom(6);
+    private static final Style BODY = new Style().setFontSize(10.5f);
+    private static final Style HEADER_CELL = new Style().setFontSize(9.5f).setFontColor(PRIMARY)
+            .setBackgroundColor(HEADER_BACKGROUND).setBorder(Border.NO_BORDER).setPadding(5);
+    private static final Style BODY_CELL = new Style().setFontSize(9.5f).setBorder(Border.NO_BORDER)
+            .setBorderBottom(new SolidBorder(ROW_BORDER, 0.5f)).setPadding(5);
+
+    private static final float CHART_WIDTH = 500;
+    private static final float BAR_HEIGHT = 14;
+    private static final float BAR_GAP = 6;
+    private static final float LABEL_WIDTH = 140;
+
+    private final ObjectMapper objectMapper;
+    private final FontProgram regularFont;
+    private final FontProgram boldFont;
+
+    public PlanPdfRenderer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            this.regularFont = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+            this.boldFont = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load report fonts", e);
+        }
+    }
+
+    /**
+     * Writes the report to {@code out}, which is left open for the caller.
+     */
+    public void render(FinancialPlan plan, OutputStream out) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdf = new PdfDocument(writer);
+        Fonts fonts = new Fonts(PdfFontFactory.createFont(regularFont), PdfFontFactory.createFont(boldFont));
+        Document document = new Document(pdf);
+        document.setFont(fonts.regular);
+
+        document.add(new Paragraph(nullToEmpty(plan.getPlanName())).addStyle(TITLE).setFont(fonts.bold));
+        document.add(new Paragraph("Created on " + (plan.getCreationDate() != null
+                ? plan.getCreationDate().format(DATE_FORMAT) : "-")).addStyle(SUBTITLE));
+
+        renderHealth(document, pdf, fonts, plan);
+        renderAssetAllocation(document, pdf, fonts, parse(plan.getAssetAllocationJson()));
+        renderGoalTimeline(document, fonts, parse(plan.getGoalTimelineJson()));
+        renderRecommendations(document, fonts, parse(plan.getInvestmentRecommendationsJson()));
+        renderActionPlan(document, fonts, parse(plan.getActionPlanJson()));
+
+        document.close();
+    }
+
+    private void renderHealth(Document document, PdfDocument pdf, Fonts fonts, FinancialPlan plan) {
+        heading(document, fonts, "Financial Health");
+        Integer score = plan.getHealthScore();
+        if (score != null) {
+            document.add(scoreGauge(pdf, fonts, Math.max(0, Math.min(100, score))));
+        }
+        if (plan.getHealthAssessment() != null) {
+            document.add(new Paragraph(plan.getHealthAssessment()).addStyle(BODY));
+        }
+    }
+
+    private void renderAssetAllocation(Document document, PdfDocument pdf, Fonts fonts, Section section) {
+        heading(document, fonts, "Asset Allocation");
+        // 缺失或无法解析的配置同样走兜底渲染
+        if (section.json() == null || !section.json().isObject()) {
+            renderFallback(document, fonts, section);
+            return;
+        }
+
+        List<String> labels = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        Table table = startTable(document, fonts, new float[]{3, 1}, "Asset class", "Allocation");
+        int row = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = section.json().fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            Double value = number(field.getValue());
+            labels.add(humanize(field.getKey()));
+            values.add(value != null ? value : 0);
+            addRow(table, ++row, humanize(field.getKey()),
+                    value != null ? formatNumber(value) + "%" : field.getValue().asText());
+        }
+        table.complete();
+
+        if (!labels.isEmpty()) {
+            document.add(barChart(pdf, fonts, labels, values));
+        }
+    }
+
+    private void renderGoalTimeline(Document document, Fonts fonts, Section section) {
+        heading(document, fonts, "Goal Timeline");
+        if (!isArrayOfObjects(section.json())) {
+            renderFallback(document, fonts, section);
+            return;
+        }
+
+        Table table = startTable(document, fonts, new float[]{3, 2, 2, 1.2f},
+                "Goal", "Target amount", "Timeframe", "Priority");
+        int row = 0;
+        for (JsonNode goal : section.json()) {
+            Double amount = number(first(goal, "targetAmount", "amount", "target"));
+            addRow(table, ++row,
+                    text(goal, "goal", "name", "title"),
+                    amount != null ? formatNumber(amount) : text(goal, "targetAmount", "amount", "target"),
+                    text(goal, "timeframe", "targetDate", "deadline"),
+                    text(goal, "priority"));
+        }
+        table.complete();
+    }
+
+    private void renderRecommendations(Document document, Fonts fonts, Section section) {
+        heading(document, fonts, "Investment Recommendations");
+        if (!isArrayOfObjects(section.json())) {
+            renderFallback(document, fonts, section);
+            return;
+        }
+
+        Table table = startTable(document, fonts, new float[]{2.5f, 1, 4.5f}, "Investment", "Allocation", "Reasoning");
+        int row = 0;
+        for (JsonNode recommendation : section.json()) {
+            Double allocation = number(first(recommendation, "allocation", "percentage"));
+            addRow(table, ++row,
+                    text(recommendation, "type", "name", "title"),
+                    allocation != null ? formatNumber(allocation) + "%" : text(recommendation, "allocation", "percentage"),
+                    text(recommendation, "reasoning", "description", "details"));
+        }
+        table.complete();
+    }
+
+    private void renderActionPlan(Document document, Fonts fonts, Section section) {
+        heading(document, fonts, "Action Plan");
+        if (!isArrayOfObjects(section.json())) {
+            renderFallback(document, fonts, section);
+            return;
+        }
+
+        Table table = startTable(document, fonts, new float[]{0.4f, 2.5f, 1.5f, 4}, "#", "Action", "Timeframe", "Details");
+        int row = 0;
+        for (JsonNode action : section.json()) {
+            row++;
+            addRow(table, row, String.valueOf(row),
+                    text(action, "action", "step", "title"),
+                    text(action, "timeframe", "deadline"),
+                    text(action, "details", "description"));
+        }
+        table.complete();
+    }
+
+    // 模型输出的结构不符合预期时，按通用的键值/列表形式输出，而不是原始 JSON
+    private void renderFallback(Document document, Fonts fonts, Section section) {
+        JsonNode json = section.json();
+        if (json == null) {
+            if (section.raw() != null && !section.raw().isBlank()) {
+                document.add(new Paragraph(section.raw()).addStyle(BODY));
+            }
+            return;
+        }
+        if (json.isObject()) {
+            Table table = startTable(document, fonts, new float[]{2, 5}, "Item", "Details");
+            int row = 0;
+            for (Iterator<Map.Entry<String, JsonNode>> it = json.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                addRow(table, ++row, humanize(field.getKey()), describe(field.getValue()));
+            }
+            table.complete();
+        } else if (json.isArray()) {
+            for (JsonNode item : json) {
+                document.add(new Paragraph("• " + describe(item)).addStyle(BODY));
+            }
+        } else {
+            document.add(new Paragraph(json.asText()).addStyle(BODY));
+        }
+    }
+
+    private static void heading(Document document, Fonts fonts, String title) {
+        document.add(new Paragraph(title).addStyle(HEADING).setFont(fonts.bold));
+    }
+
+    private static Table startTable(Document document, Fonts fonts, float[] widths, String... headers) {
+        Table table = new Table(UnitValue.createPercentArray(widths), true).useAllAvailableWidth();
+        for (String header : headers) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header)).addStyle(HEADER_CELL).setFont(fonts.bold));
+        }
+        // 大表模式：先加入文档，之后逐批写出
+        document.add(table);
+        return table;
+    }
+
+    private static void addRow(Table table, int row, String... values) {
+        for (String value : values) {
+            table.addCell(new Cell().add(new Paragraph(value)).addStyle(BODY_CELL));
+        }
+        if (row % TABLE_FLUSH_ROWS == 0) {
+            table.flush();
+        }
+    }
+
+    private static Image scoreGauge(PdfDocument pdf, Fonts fonts, int score) {
+        float width = CHART_WIDTH;
+        float height = 30;
+        float barWidth = width - 70;
+        PdfFormXObject chart = new PdfFormXObject(new Rectangle(width, height));
+        PdfCanvas canvas = new PdfCanvas(chart, pdf);
+
+        canvas.setFillColor(TRACK).rectangle(0, 8, barWidth, BAR_HEIGHT).fill();
+        canvas.setFillColor(score >= 80 ? GOOD : score >= 60 ? FAIR : POOR)
+                .rectangle(0, 8, barWidth * score / 100f, BAR_HEIGHT).fill();
+        canvas.beginText().setFontAndSize(fonts.bold, 14).setFillColor(PRIMARY)
+                .moveText(barWidth + 10, 10).showText(score + " / 100").endText();
+        canvas.release();
+        return new Image(chart).setMarginBottom(6);
+    }
+
+    private static Image barChart(PdfDocument pdf, Fonts fonts, List<String> labels, List<Double> values) {
+        double max = values.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        double scale = max > 0 ? Math.max(max, 100) : 100;
+        float barArea = CHART_WIDTH - LABEL_WIDTH - 50;
+        float height = labels.size() * (BAR_HEIGHT + BAR_GAP) + BAR_GAP;
+        PdfFormXObject chart = new PdfFormXObject(new Rectangle(CHART_WIDTH, height));
+        PdfCanvas canvas = new PdfCanvas(chart, pdf);
+
+        for (int i = 0; i < labels.size(); i++) {
+            float y = height - (i + 1) * (BAR_HEIGHT + BAR_GAP);
+            float barWidth = (float) (barArea * Math.max(0, values.get(i)) / scale);
+            canvas.setFillColor(TRACK).rectangle(LABEL_WIDTH, y, barArea, BAR_HEIGHT).fill();
+            canvas.setFillColor(PALETTE[i % PALETTE.length]).rectangle(LABEL_WIDTH, y, barWidth, BAR_HEIGHT).fill();
+            canvas.beginText().setFontAndSize(fonts.regular, 9).setFillColor(MUTED)
+                    .moveText(0, y + 4).showText(truncate(labels.get(i), 28))
+                    .endText();
+            canvas.beginText().setFontAndSize(fonts.regular, 9).setFillColor(MUTED)
+                    .moveText(LABEL_WIDTH + barArea + 6, y + 4).showText(formatNumber(values.get(i)) + "%")
+                    .endText();
+        }
+        canvas.release();
+        return new Image(chart).setMarginTop(10);
+    }
+
+    private Section parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return new Section(raw, null);
+        }
+        try {
+            return new Section(raw, objectMapper.readTree(raw));
+        } catch (Exception e) {
+            return new Section(raw, null);
+        }
+    }
+
+    private static boolean isArrayOfObjects(JsonNode json) {
+        if (json == null || !json.isArray()) {
+            return false;
+        }
+        for (JsonNode item : json) {
+            if (!item.isObject()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonNode first(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (value != null && !value.isNull()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode node, String... fields) {
+        JsonNode value = first(node, fields);
+        return value != null ? describe(value) : "";
+    }
+
+    private static String describe(JsonNode value) {
+        if (value.isValueNode()) {
+            return value.asText();
+        }
+        if (value.isArray()) {
+            List<String> parts = new ArrayList<>();
+            value.forEach(item -> parts.add(describe(item)));
+            return String.join(", ", parts);
+        }
+        List<String> parts = new ArrayList<>();
+        value.fields().forEachRemaining(field -> parts.add(humanize(field.getKey()) + ": " + describe(field.getValue())));
+        return String.join("; ", parts);
+    }
+
+    // 数字或 "60%" 之类的字符串
+    private static Double number(JsonNode value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.isNumber()) {
+            return value.doubleValue();
+        }
+        if (value.isObject()) {
+            return number(first(value, "percentage", "allocation", "value"));
+        }
+        if (value.isTextual()) {
+            String text = value.asText().replace("%", "").replace(",", "").trim();
+            try {
+                return Double.valueOf(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? String.format("%,.0f", value) : String.format("%,.1f", value);
+    }
+
+    // camelCase / snake_case -> "Title case"
+    static String humanize(String key) {
+        String spaced = key.replace('_', ' ').replaceAll("([a-z0-9])([A-Z])", "$1 $2").trim();
+        if (spaced.isEmpty()) {
+            return spaced;
+        }
+        return Character.toUpperCase(spaced.charAt(0)) + spaced.substring(1).toLowerCase();
+    }
+
+    private static String truncate(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max - 1) + "…";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private record Section(String raw, JsonNode json) {
+    }
+
+    private record Fonts(PdfFont regular, PdfFont bold) {
+    }
+}
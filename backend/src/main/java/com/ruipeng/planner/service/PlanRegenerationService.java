@@ -0,0 +1,320 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.dto.PlanRegenerationRequest;
+import com.ruipeng.planner.dto.PlanRegenerationStatusDto;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.PlanRegenerationJob;
+import com.ruipeng.planner.entity.PlanSource;
+import com.ruipeng.planner.entity.RegenerationJobStatus;
+import com.ruipeng.planner.entity.UserProfile;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import com.ruipeng.planner.repository.PlanRegenerationJobRepository;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import com.ruipeng.planner.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Regenerates financial plans for every user with a profile, e.g. after a prompt or model change.
+ *
+ * <p>Profiles are read in keyset pages ordered by user id. Each page is generated concurrently
+ * (never more calls than the model's admission limit allows), then the new plans and the job
+ * checkpoint are written in one transaction, so a restarted job resumes after the last committed
+ * page. Users whose generation fails are counted and skipped; their previous plans are untouched.
+ */
+@Service
+public class PlanRegenerationService {
+    private static final Logger log = LoggerFactory.getLogger(PlanRegenerationService.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final PlanRegenerationJobRepository jobRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final UserRepository userRepository;
+    private final FinancialPlanRepository financialPlanRepository;
+    private final FinancialPlanService financialPlanService;
+    private final GoogleAIService googleAiService;
+    private final ModelAdmissionService admissionService;
+    private final TaskExecutor aiTaskExecutor;
+    private final TaskExecutor planJobExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public PlanRegenerationService(PlanRegenerationJobRepository jobRepository,
+                                   UserProfileRepository userProfileRepository,
+                                   UserRepository userRepository,
+                                   FinancialPlanRepository financialPlanRepository,
+                                   FinancialPlanService financialPlanService,
+                                   GoogleAIService googleAiService,
+                                   ModelAdmissionService admissionService,
+                                   @Qualifier("aiTaskExecutor") TaskExecutor aiTaskExecutor,
+                                   @Qualifier("planJobExecutor") TaskExecutor planJobExecutor,
+                                   PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.userRepository = userRepository;
+        this.financialPlanRepository = financialPlanRepository;
+        this.financialPlanService = financialPlanService;
+        this.googleAiService = googleAiService;
+        this.admissionService = admissionService;
+        this.aiTaskExecutor = aiTaskExecutor;
+        this.planJobExecutor = planJobExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public PlanRegenerationStatusDto startJob(PlanRegenerationRequest request) {
+        if (!jobRepository.findByStatus(RegenerationJobStatus.RUNNING).isEmpty()) {
+            throw alreadyRunning();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        PlanRegenerationJob job = new PlanRegenerationJob();
+        job.setStatus(RegenerationJobStatus.RUNNING);
+        job.setRunningGuard(Boolean.TRUE);
+        job.setPlanName(request.getPlanName());
+        job.setAdditionalInstructions(request.getAdditionalInstructions());
+        job.setConcurrency(request.getConcurrency());
+        job.setPageSize(request.getPageSize() != null ? request.getPageSize() : DEFAULT_PAGE_SIZE);
+        job.setLastUserId(0L);
+        job.setTotalUsers(userProfileRepository.count());
+        job.setProcessedUsers(0L);
+        job.setSucceededUsers(0L);
+        job.setFailedUsers(0L);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        try {
+            // 检查与插入之间可能有并发启动，由唯一约束兜底
+            job = jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyRunning();
+        }
+
+        launch(job.getId());
+        return toStatusDto(job);
+    }
+
+    public PlanRegenerationStatusDto cancelJob(Long jobId) {
+        getJob(jobId);
+        // 运行中的任务在下一页开始前检查状态并停止
+        jobRepository.transitionStatus(jobId, RegenerationJobStatus.RUNNING, RegenerationJobStatus.CANCELLED,
+                null, LocalDateTime.now());
+        return toStatusDto(getJob(jobId));
+    }
+
+    public PlanRegenerationStatusDto getJobStatus(Long jobId) {
+        return toStatusDto(getJob(jobId));
+    }
+
+    public List<PlanRegenerationStatusDto> getAllJobs() {
+        return jobRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(this::toStatusDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Picks up jobs that were still running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (PlanRegenerationJob job : jobRepository.findByStatus(RegenerationJobStatus.RUNNING)) {
+            log.info("Resuming plan regeneration job {} after user {}", job.getId(), job.getLastUserId());
+            launch(job.getId());
+        }
+    }
+
+    private void launch(Long jobId) {
+        planJobExecutor.execute(() -> runJob(jobId));
+    }
+
+    void runJob(Long jobId) {
+        jobRepository.markResumed(jobId, LocalDateTime.now());
+        PlanRegenerationJob job = getJob(jobId);
+
+        FinancialPlanRequest request = new FinancialPlanRequest();
+        request.setPlanName(job.getPlanName());
+        request.setAdditionalInstructions(job.getAdditionalInstructions());
+
+        try {
+            while (true) {
+                job = getJob(jobId);
+                if (job.getStatus() != RegenerationJobStatus.RUNNING) {
+                    log.info("Plan regeneration job {} stopped with status {}", jobId, job.getStatus());
+                    return;
+                }
+
+                Long afterUserId = job.getLastUserId();
+                PageRequest pageRequest = PageRequest.of(0, job.getPageSize());
+                List<UserProfile> page = transactionTemplate.execute(status ->
+                        userProfileRepository.findPageAfterUserId(afterUserId, pageRequest));
+                if (page == null || page.isEmpty()) {
+                    finish(jobId, RegenerationJobStatus.COMPLETED, null);
+                    return;
+                }
+
+                List<PageResult> results = generatePage(page, request, effectiveConcurrency(job));
+                writeBatch(job, page.get(page.size() - 1).getUser().getId(), results);
+            }
+        } catch (RuntimeException e) {
+            log.error("Plan regeneration job {} failed", jobId, e);
+            finish(jobId, RegenerationJobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private int effectiveConcurrency(PlanRegenerationJob job) {
+        // 不超过模型准入上限，避免批任务把交互请求挤进队列
+        int limit = admissionService.getLimits().getMaxConcurrent();
+        return job.getConcurrency() != null ? Math.max(1, Math.min(job.getConcurrency(), limit)) : limit;
+    }
+
+    private List<PageResult> generatePage(List<UserProfile> page, FinancialPlanRequest request, int concurrency) {
+        Semaphore slots = new Semaphore(concurrency);
+        List<CompletableFuture<PageResult>> futures = new ArrayList<>(page.size());
+        for (UserProfile profile : page) {
+            slots.acquireUninterruptibly();
+            CompletableFuture<PageResult> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> generate(profile, request), aiTaskExecutor);
+            } catch (TaskRejectedException e) {
+                future = CompletableFuture.completedFuture(generate(profile, request));
+            }
+            futures.add(future.whenComplete((result, error) -> slots.release()));
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private PageResult generate(UserProfile profile, FinancialPlanRequest request) {
+        Long userId = profile.getUser().getId();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                String json = googleAiService.generateFinancialPlan(profile, request, "regeneration");
+                return new PageResult(userId, json, financialPlanService.profileSnapshotJson(profile), null);
+            } catch (ModelAdmissionException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    return new PageResult(userId, null, null, e.getMessage());
+                }
+                sleep(Math.min(MAX_BACKOFF_MS, Math.max(100, e.getRetryAfterMs())));
+            } catch (RuntimeException e) {
+                return new PageResult(userId, null, null, e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(PlanRegenerationJob job, Long pageLastUserId, List<PageResult> results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<FinancialPlan> plans = new ArrayList<>();
+            long failed = 0;
+            String lastError = null;
+            for (PageResult result : results) {
+                if (result.json() == null) {
+                    failed++;
+                    lastError = "User " + result.userId() + ": " + result.error();
+                    continue;
+                }
+                try {
+                    FinancialPlan plan = financialPlanService.newPlan(
+                            userRepository.getReferenceById(result.userId()), job.getPlanName());
+                    financialPlanService.applyGeneratedPlan(plan, result.json());
+                    plan.setProfileSnapshotJson(result.profileSnapshotJson());
+                    plan.setPlanSource(PlanSource.AI);
+                    plan.setProvisional(false);
+                    plans.add(plan);
+                } catch (RuntimeException e) {
+                    failed++;
+                    lastError = "User " + result.userId() + ": " + e.getMessage();
+                }
+            }
+            financialPlanRepository.saveAll(plans);
+            // 计划与检查点在同一事务提交，重启后不会重复或遗漏整页
+            jobRepository.recordProgress(job.getId(), pageLastUserId, results.size(), plans.size(), failed,
+                    lastError, LocalDateTime.now());
+        });
+
+        PlanRegenerationStatusDto progress = getJobStatus(job.getId());
+        log.info("Plan regeneration job {}: {}/{} users, {} failed, {} users/min, ETA {}s",
+                job.getId(), progress.getProcessedUsers(), progress.getTotalUsers(), progress.getFailedUsers(),
+                String.format("%.1f", progress.getUsersPerMinute()), progress.getEtaSeconds());
+    }
+
+    private void finish(Long jobId, RegenerationJobStatus status, String error) {
+        if (jobRepository.transitionStatus(jobId, RegenerationJobStatus.RUNNING, status, error,
+                LocalDateTime.now()) > 0) {
+            log.info("Plan regeneration job {} finished with status {}", jobId, status);
+        }
+    }
+
+    private PlanRegenerationJob getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Plan regeneration job not found with id: " + jobId));
+    }
+
+    PlanRegenerationStatusDto toStatusDto(PlanRegenerationJob job) {
+        PlanRegenerationStatusDto dto = new PlanRegenerationStatusDto();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setPlanName(job.getPlanName());
+        dto.setConcurrency(job.getConcurrency());
+        dto.setTotalUsers(job.getTotalUsers());
+        dto.setProcessedUsers(job.getProcessedUsers());
+        dto.setSucceededUsers(job.getSucceededUsers());
+        dto.setFailedUsers(job.getFailedUsers());
+        dto.setLastUserId(job.getLastUserId());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        // 吞吐量按本次运行计算，重启前的进度不计入耗时
+        if (job.getResumedAt() != null && job.getProcessedAtResume() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMs = Duration.between(job.getResumedAt(), end).toMillis();
+            long processed = job.getProcessedUsers() - job.getProcessedAtResume();
+            if (elapsedMs > 0 && processed > 0) {
+                double perMinute = processed * 60_000.0 / elapsedMs;
+                dto.setUsersPerMinute(perMinute);
+                if (job.getStatus() == RegenerationJobStatus.RUNNING) {
+                    long remaining = Math.max(0, job.getTotalUsers() - job.getProcessedUsers());
+                    dto.setEtaSeconds(Math.round(remaining * 60 / perMinute));
+                }
+            }
+        }
+        return dto;
+    }
+
+    private static IllegalStateException alreadyRunning() {
+        return new IllegalStateException("A plan regeneration job is already running");
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model capacity", e);
+        }
+    }
+
+    private record PageResult(Long userId, String json, String profileSnapshotJson, String error) {
+    }
+}
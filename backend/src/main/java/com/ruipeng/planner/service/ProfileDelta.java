@@ -0,0 +1,139 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Field-level difference between two profile snapshots (see
+ * {@link GoogleAIService#profileSnapshot}), and the plan sections each changed field affects.
+ */
+public final class ProfileDelta {
+
+    public static final String HEALTH = "health";
+    public static final String ASSET_ALLOCATION = "assetAllocation";
+    public static final String GOAL_TIMELINE = "goalTimeline";
+    public static final String INVESTMENT_RECOMMENDATIONS = "investmentRecommendations";
+    public static final String ACTION_PLAN = "actionPlan";
+
+    // 资料字段 -> 受影响的计划部分；未列出的字段保守地视为影响全部
+    private static final Map<String, Set<String>> SECTION_DEPENDENCIES = Map.ofEntries(
+            Map.entry("age", Set.of(HEALTH, ASSET_ALLOCATION, INVESTMENT_RECOMMENDATIONS, GOAL_TIMELINE)),
+            Map.entry("occupation", Set.of(HEALTH)),
+            Map.entry("educationLevel", Set.of(HEALTH)),
+            Map.entry("monthlyIncome", Set.of(HEALTH, GOAL_TIMELINE, ACTION_PLAN)),
+            Map.entry("monthlyExpenses", Set.of(HEALTH, GOAL_TIMELINE, ACTION_PLAN)),
+            Map.entry("totalSavings", Set.of(HEALTH, ASSET_ALLOCATION, GOAL_TIMELINE, ACTION_PLAN)),
+            Map.entry("totalDebt", Set.of(HEALTH, ACTION_PLAN)),
+            Map.entry("riskTolerance", Set.of(ASSET_ALLOCATION, INVESTMENT_RECOMMENDATIONS)),
+            Map.entry("investmentHorizon", Set.of(ASSET_ALLOCATION, INVESTMENT_RECOMMENDATIONS)),
+            Map.entry("currentInvestments", Set.of(ASSET_ALLOCATION, INVESTMENT_RECOMMENDATIONS)),
+            Map.entry("investmentInterests", Set.of(INVESTMENT_RECOMMENDATIONS)),
+            Map.entry("financialGoals", Set.of(GOAL_TIMELINE, ACTION_PLAN)),
+            Map.entry("retirementAge", Set.of(HEALTH, ASSET_ALLOCATION, GOAL_TIMELINE)),
+            Map.entry("monthlySavings", Set.of(HEALTH, GOAL_TIMELINE, ACTION_PLAN))
+    );
+
+    private static final List<String> ALL_SECTIONS =
+            List.of(HEALTH, ASSET_ALLOCATION, GOAL_TIMELINE, INVESTMENT_RECOMMENDATIONS, ACTION_PLAN);
+
+    private final Map<String, JsonNode[]> changes;
+
+    private ProfileDelta(Map<String, JsonNode[]> changes) {
+        this.changes = changes;
+    }
+
+    public static ProfileDelta between(JsonNode previous, JsonNode current) {
+        Set<String> fields = new TreeSet<>();
+        previous.fieldNames().forEachRemaining(fields::add);
+        current.fieldNames().forEachRemaining(fields::add);
+
+        Map<String, JsonNode[]> changes = new LinkedHashMap<>();
+        for (String field : fields) {
+            JsonNode before = previous.path(field).isMissingNode() ? NullNode.getInstance() : previous.get(field);
+            JsonNode after = current.path(field).isMissingNode() ? NullNode.getInstance() : current.get(field);
+            if (!sameValue(before, after)) {
+                changes.put(field, new JsonNode[]{before, after});
+            }
+        }
+        return new ProfileDelta(changes);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public Set<String> changedFields() {
+        return changes.keySet();
+    }
+
+    /**
+     * Plan sections to regenerate, in a stable order.
+     */
+    public Set<String> affectedSections() {
+        Set<String> sections = new LinkedHashSet<>();
+        for (String field : changes.keySet()) {
+            sections.addAll(SECTION_DEPENDENCIES.getOrDefault(field, Set.copyOf(ALL_SECTIONS)));
+        }
+        Set<String> ordered = new LinkedHashSet<>();
+        for (String section : ALL_SECTIONS) {
+            if (sections.contains(section)) {
+                ordered.add(section);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * {@code {"field": {"from": ..., "to": ...}}} for the model prompt.
+     */
+    public ObjectNode toJson(ObjectMapper objectMapper) {
+        ObjectNode node = objectMapper.createObjectNode();
+        changes.forEach((field, values) -> {
+            ObjectNode change = node.putObject(field);
+            change.set("from", values[0]);
+            change.set("to", values[1]);
+        });
+        return node;
+    }
+
+    // 数值按大小比较（8000 与 8000.00 视为相同），对象和数组逐项比较
+    static boolean sameValue(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue()) == 0;
+        }
+        if (a.isObject() && b.isObject()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (Iterator<String> it = a.fieldNames(); it.hasNext(); ) {
+                String field = it.next();
+                if (!b.has(field) || !sameValue(a.get(field), b.get(field))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a.isArray() && b.isArray()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (!sameValue(a.get(i), b.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+}
@@ -0,0 +1,248 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.TagSuggestionDto;
+
+import java.util.*;
+
+/**
+ * Prefix trie over tag values (specialties or languages), each with the number of advisors that
+ * have it. Every word of a value is a starting point, so "plan" also finds "Retirement Planning".
+ *
+ * <p>Children are kept in sorted parallel arrays, and every node caches its best
+ * {@value #MAX_SUGGESTIONS} completions. A lookup only walks down the prefix; a count change
+ * refreshes the cached lists on that value's paths. Not thread-safe; {@link AdvisorTagTypeahead}
+ * guards it.
+ */
+class TagTrie {
+    static final int MAX_SUGGESTIONS = 10;
+
+    private static final char[] NO_LABELS = {};
+    private static final Node[] NO_CHILDREN = {};
+    private static final Term[] NO_TERMS = {};
+
+    // 顾问多的在前，人数相同按字母顺序
+    private static final Comparator<Term> RANKING = Comparator.comparingInt((Term t) -> t.count).reversed()
+            .thenComparing(t -> t.value);
+
+    private static final class Term {
+        private final String value;
+        private int count;
+
+        private Term(String value) {
+            this.value = value;
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        // 以此节点结尾的值（从某个单词开头算起）
+        private Term[] terms = NO_TERMS;
+        private Term[] top = NO_TERMS;
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Term> terms = new HashMap<>();
+
+    /**
+     * Builds the trie in one pass and fills the cached suggestions bottom-up once, instead of
+     * refreshing them after every insert.
+     */
+    static TagTrie build(Map<String, Integer> counts) {
+        TagTrie trie = new TagTrie();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            String key = normalize(entry.getKey());
+            if (key.isEmpty() || entry.getValue() <= 0) {
+                continue;
+            }
+            Term term = trie.terms.get(key);
+            if (term == null) {
+                term = new Term(entry.getKey().trim());
+                trie.terms.put(key, term);
+                for (List<Node> path : trie.paths(key, true)) {
+                    Node end = path.get(path.size() - 1);
+                    end.terms = append(end.terms, term);
+                }
+            }
+            term.count += entry.getValue();
+        }
+        fillTop(trie.root);
+        return trie;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    /**
+     * Changes the advisor count of {@code value} by {@code delta}, adding the value when it is
+     * new and dropping it (and any branches left empty) when the count reaches zero.
+     */
+    void add(String value, int delta) {
+        String key = normalize(value);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        Term term = terms.get(key);
+        if (term == null) {
+            if (delta < 0) {
+                return;
+            }
+            term = new Term(value.trim());
+            terms.put(key, term);
+            term.count = delta;
+            for (List<Node> path : paths(key, true)) {
+                Node end = path.get(path.size() - 1);
+                end.terms = append(end.terms, term);
+                refresh(path);
+            }
+            return;
+        }
+
+        term.count += delta;
+        boolean removed = term.count <= 0;
+        if (removed) {
+            terms.remove(key);
+        }
+        for (List<Node> path : paths(key, false)) {
+            if (removed) {
+                Node end = path.get(path.size() - 1);
+                end.terms = without(end.terms, term);
+            }
+            refresh(path);
+        }
+    }
+
+    List<TagSuggestionDto> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = normalize(prefix);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = child(node, key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<TagSuggestionDto> suggestions = new ArrayList<>();
+        for (int i = 0; i < node.top.length && i < limit; i++) {
+            suggestions.add(new TagSuggestionDto(node.top[i].value, node.top[i].count));
+        }
+        return suggestions;
+    }
+
+    // 每个单词开头各对应一条从根出发的路径
+    private List<List<Node>> paths(String key, boolean create) {
+        List<List<Node>> paths = new ArrayList<>();
+        for (int start = 0; start < key.length(); start++) {
+            if (!Character.isLetterOrDigit(key.charAt(start))
+                    || (start > 0 && Character.isLetterOrDigit(key.charAt(start - 1)))) {
+                continue;
+            }
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            for (int i = start; i < key.length() && node != null; i++) {
+                Node next = child(node, key.charAt(i));
+                if (next == null && create) {
+                    next = addChild(node, key.charAt(i));
+                }
+                node = next;
+                if (node != null) {
+                    path.add(node);
+                }
+            }
+            if (node != null) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    // 自下而上刷新路径上的缓存，顺便剪掉空分支
+    private static void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (i > 0 && node.terms.length == 0 && node.children.length == 0) {
+                removeChild(path.get(i - 1), node);
+            } else {
+                node.top = best(node);
+            }
+        }
+    }
+
+    private static void fillTop(Node node) {
+        for (Node child : node.children) {
+            fillTop(child);
+        }
+        node.top = best(node);
+    }
+
+    // 子树的最佳候选一定在本节点的值或子节点缓存里
+    private static Term[] best(Node node) {
+        List<Term> candidates = new ArrayList<>(Arrays.asList(node.terms));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+        Set<Term> top = new LinkedHashSet<>();
+        for (Term term : candidates) {
+            if (top.size() == MAX_SUGGESTIONS) {
+                break;
+            }
+            top.add(term);
+        }
+        return top.toArray(NO_TERMS);
+    }
+
+    private static Node child(Node node, char label) {
+        int index = Arrays.binarySearch(node.labels, label);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    private static Node addChild(Node node, char label) {
+        int index = -Arrays.binarySearch(node.labels, label) - 1;
+        int length = node.labels.length;
+        char[] labels = new char[length + 1];
+        Node[] children = new Node[length + 1];
+        System.arraycopy(node.labels, 0, labels, 0, index);
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.labels, index, labels, index + 1, length - index);
+        System.arraycopy(node.children, index, children, index + 1, length - index);
+        Node child = new Node();
+        labels[index] = label;
+        children[index] = child;
+        node.labels = labels;
+        node.children = children;
+        return child;
+    }
+
+    private static void removeChild(Node node, Node child) {
+        int length = node.children.length;
+        for (int index = 0; index < length; index++) {
+            if (node.children[index] == child) {
+                char[] labels = new char[length - 1];
+                Node[] children = new Node[length - 1];
+                System.arraycopy(node.labels, 0, labels, 0, index);
+                System.arraycopy(node.children, 0, children, 0, index);
+                System.arraycopy(node.labels, index + 1, labels, index, length - index - 1);
+                System.arraycopy(node.children, index + 1, children, index, length - index - 1);
+                node.labels = labels;
+                node.children = children;
+                return;
+            }
+        }
+    }
+
+    private static Term[] append(Term[] terms, Term term) {
+        Term[] copy = Arrays.copyOf(terms, terms.length + 1);
+        copy[terms.length] = term;
+        return copy;
+    }
+
+    private static Term[] without(Term[] terms, Term term) {
+        return Arrays.stream(terms).filter(t -> t != term).toArray(Term[]::new);
+    }
+}
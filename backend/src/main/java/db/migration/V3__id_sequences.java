@@ -0,0 +1,34 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Sequences for the tables that switch from IDENTITY to pooled sequence ids (allocation 50).
+ *
+ * <p>Hibernate's pooled optimizer hands out {@code (value - 49) .. value} for each sequence
+ * value, so each sequence starts 50 above the current maximum id. Written in Java because
+ * reading that maximum into {@code START WITH} differs between H2 and Postgres.
+ */
+public class V3__id_sequences extends BaseJavaMigration {
+    private static final int ALLOCATION_SIZE = 50;
+    private static final String[] TABLES = {"users", "user_profiles", "advisors"};
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long maxId;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    rs.next();
+                    maxId = rs.getLong(1);
+                }
+                statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + (maxId + ALLOCATION_SIZE) +
+                        " INCREMENT BY " + ALLOCATION_SIZE);
+            }
+        }
+    }
+}
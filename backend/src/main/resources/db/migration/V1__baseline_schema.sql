@@ -0,0 +1,129 @@
+-- 基线：与此前 Hibernate 自动建表生成的结构一致，已有数据库从此版本开始记录（baseline）
+
+CREATE TABLE users (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email             VARCHAR(255) NOT NULL,
+    password_hash     VARCHAR(255) NOT NULL,
+    first_name        VARCHAR(255),
+    last_name         VARCHAR(255),
+    registration_date TIMESTAMP(6),
+    role              VARCHAR(255),
+    account_status    VARCHAR(255),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_profiles (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                   BIGINT,
+    age                       INTEGER,
+    occupation                VARCHAR(255),
+    education_level           VARCHAR(255),
+    monthly_income            NUMERIC(38, 2),
+    monthly_expenses          NUMERIC(38, 2),
+    total_savings             NUMERIC(38, 2),
+    total_debt                NUMERIC(38, 2),
+    risk_tolerance            INTEGER,
+    investment_horizon        VARCHAR(255),
+    current_investments_json  TEXT,
+    investment_interests_json TEXT,
+    financial_goals_json      TEXT,
+    retirement_age            INTEGER,
+    monthly_savings           NUMERIC(38, 2),
+    CONSTRAINT uk_user_profiles_user UNIQUE (user_id),
+    CONSTRAINT fk_user_profiles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE advisors (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            BIGINT,
+    professional_title VARCHAR(255),
+    experience_years   INTEGER,
+    bio                TEXT,
+    profile_image_url  VARCHAR(255),
+    average_rating     DOUBLE PRECISION,
+    rating_count       INTEGER,
+    CONSTRAINT uk_advisors_user UNIQUE (user_id),
+    CONSTRAINT fk_advisors_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE advisor_specialties (
+    advisor_id BIGINT       NOT NULL,
+    specialty  VARCHAR(255) NOT NULL,
+    PRIMARY KEY (advisor_id, specialty),
+    CONSTRAINT fk_advisor_specialties_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id)
+);
+
+CREATE TABLE advisor_languages (
+    advisor_id BIGINT       NOT NULL,
+    language   VARCHAR(255) NOT NULL,
+    PRIMARY KEY (advisor_id, language),
+    CONSTRAINT fk_advisor_languages_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id)
+);
+
+CREATE TABLE availability_slots (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    advisor_id    BIGINT,
+    day_of_week   INTEGER,
+    start_time    TIME,
+    end_time      TIME,
+    is_recurring  BOOLEAN NOT NULL,
+    specific_date DATE,
+    CONSTRAINT fk_availability_slots_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id)
+);
+
+CREATE TABLE financial_plans (
+    id                         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                    BIGINT,
+    creation_date              TIMESTAMP(6),
+    plan_name                  VARCHAR(255),
+    health_score               INTEGER,
+    health_assessment          VARCHAR(255),
+    share_code                 VARCHAR(255),
+    asset_allocation           TEXT,
+    goal_timeline              TEXT,
+    investment_recommendations TEXT,
+    action_plan                TEXT,
+    provisional                BOOLEAN,
+    plan_source                VARCHAR(255),
+    profile_snapshot           TEXT,
+    CONSTRAINT uk_financial_plans_share_code UNIQUE (share_code),
+    CONSTRAINT fk_financial_plans_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE appointments (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id          BIGINT,
+    advisor_id       BIGINT,
+    appointment_date TIMESTAMP(6),
+    duration_minutes INTEGER,
+    session_type     VARCHAR(255),
+    status           VARCHAR(255),
+    booking_date     TIMESTAMP(6),
+    meeting_link     VARCHAR(255),
+    shared_plan_id   BIGINT,
+    advisor_notes    TEXT,
+    user_notes       TEXT,
+    CONSTRAINT fk_appointments_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_appointments_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id),
+    CONSTRAINT fk_appointments_shared_plan FOREIGN KEY (shared_plan_id) REFERENCES financial_plans (id)
+);
+
+CREATE TABLE plan_regeneration_jobs (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status                  VARCHAR(255),
+    plan_name               VARCHAR(255),
+    additional_instructions TEXT,
+    concurrency             INTEGER,
+    page_size               INTEGER,
+    last_user_id            BIGINT,
+    total_users             BIGINT,
+    processed_users         BIGINT,
+    succeeded_users         BIGINT,
+    failed_users            BIGINT,
+    last_error              TEXT,
+    created_at              TIMESTAMP(6),
+    resumed_at              TIMESTAMP(6),
+    processed_at_resume     BIGINT,
+    updated_at              TIMESTAMP(6),
+    finished_at             TIMESTAMP(6)
+);
@@ -0,0 +1,19 @@
+-- 常用查询的复合索引，顺序为：等值条件列在前，范围/排序列在后
+
+-- findByAdvisorId / findByAdvisorIdAndAppointmentDateBetween / 顾问预约列表、导出
+CREATE INDEX IF NOT EXISTS idx_appointments_advisor_date ON appointments (advisor_id, appointment_date);
+-- findByUserId / findByUserIdAndStatus
+CREATE INDEX IF NOT EXISTS idx_appointments_user_status ON appointments (user_id, status);
+-- findByAppointmentDateBetween（按时间段跨顾问查询）
+CREATE INDEX IF NOT EXISTS idx_appointments_date ON appointments (appointment_date);
+
+-- findByAdvisorId / findByAdvisorIdAndDayOfWeek
+CREATE INDEX IF NOT EXISTS idx_availability_slots_advisor_day ON availability_slots (advisor_id, day_of_week);
+-- findByAdvisorIdAndSpecificDate / findAvailableSlotsByDateRange
+CREATE INDEX IF NOT EXISTS idx_availability_slots_advisor_date ON availability_slots (advisor_id, specific_date);
+
+-- findByUserId，按创建时间排列的计划列表
+CREATE INDEX IF NOT EXISTS idx_financial_plans_user_creation ON financial_plans (user_id, creation_date);
+
+-- 顾问目录的排序与游标 (average_rating DESC NULLS LAST, id)
+CREATE INDEX IF NOT EXISTS idx_advisors_rating_id ON advisors (average_rating DESC NULLS LAST, id);
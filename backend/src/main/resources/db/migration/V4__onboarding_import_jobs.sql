@@ -0,0 +1,20 @@
+-- 批量导入任务：processed_rows 为已提交的数据行数，重启后从此处继续读取文件
+CREATE TABLE onboarding_import_jobs (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status              VARCHAR(255),
+    file_name           VARCHAR(255),
+    format              VARCHAR(255),
+    batch_size          INTEGER,
+    processed_rows      BIGINT,
+    imported_users      BIGINT,
+    imported_advisors   BIGINT,
+    rejected_rows       BIGINT,
+    hash_wait_millis    BIGINT,
+    write_millis        BIGINT,
+    last_error          TEXT,
+    created_at          TIMESTAMP(6),
+    resumed_at          TIMESTAMP(6),
+    processed_at_resume BIGINT,
+    updated_at          TIMESTAMP(6),
+    finished_at         TIMESTAMP(6)
+);
@@ -0,0 +1,24 @@
+-- 已完成/已取消且早于归档期限的预约移到这里，appointments 只保留近期数据
+-- id 沿用原预约的 id，两张表合并读取时不会重复
+CREATE TABLE appointments_archive (
+    id               BIGINT PRIMARY KEY,
+    user_id          BIGINT,
+    advisor_id       BIGINT,
+    appointment_date TIMESTAMP(6),
+    duration_minutes INTEGER,
+    session_type     VARCHAR(255),
+    status           VARCHAR(255),
+    booking_date     TIMESTAMP(6),
+    meeting_link     VARCHAR(255),
+    shared_plan_id   BIGINT,
+    advisor_notes    TEXT,
+    user_notes       TEXT,
+    archived_at      TIMESTAMP(6),
+    CONSTRAINT fk_appointments_archive_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_appointments_archive_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id),
+    CONSTRAINT fk_appointments_archive_shared_plan FOREIGN KEY (shared_plan_id) REFERENCES financial_plans (id)
+);
+
+-- 历史列表按用户/顾问和时间倒序读取
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_user_date ON appointments_archive (user_id, appointment_date);
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_advisor_date ON appointments_archive (advisor_id, appointment_date);
@@ -0,0 +1,20 @@
+-- 客户对已完成预约的评价；appointment_id 不加外键，预约可能已被移到 appointments_archive
+CREATE TABLE advisor_reviews (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    appointment_id BIGINT NOT NULL,
+    user_id        BIGINT NOT NULL,
+    advisor_id     BIGINT NOT NULL,
+    rating         INTEGER NOT NULL,
+    comment        TEXT,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    CONSTRAINT uk_advisor_reviews_appointment UNIQUE (appointment_id),
+    CONSTRAINT ck_advisor_reviews_rating CHECK (rating BETWEEN 1 AND 5),
+    CONSTRAINT fk_advisor_reviews_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_advisor_reviews_advisor FOREIGN KEY (advisor_id) REFERENCES advisors (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_advisor_reviews_advisor_created ON advisor_reviews (advisor_id, created_at);
+
+-- 评分人数从零开始累计；没有评价时旧的平均分在第一条评价写入时被替换
+UPDATE advisors SET rating_count = 0 WHERE rating_count IS NULL;
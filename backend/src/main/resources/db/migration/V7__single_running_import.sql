@@ -0,0 +1,9 @@
+-- 同一时间只允许一个导入任务运行：running_guard 仅在 RUNNING 时为 TRUE，其余为 NULL（唯一约束不限制 NULL）
+ALTER TABLE onboarding_import_jobs ADD COLUMN running_guard BOOLEAN;
+
+-- 已有多个 RUNNING 任务时只保留最新的一个
+UPDATE onboarding_import_jobs SET status = 'FAILED', last_error = 'Superseded by a newer running import'
+WHERE status = 'RUNNING' AND id < (SELECT MAX(id) FROM onboarding_import_jobs WHERE status = 'RUNNING');
+UPDATE onboarding_import_jobs SET running_guard = TRUE WHERE status = 'RUNNING';
+
+ALTER TABLE onboarding_import_jobs ADD CONSTRAINT uk_onboarding_import_jobs_running UNIQUE (running_guard);
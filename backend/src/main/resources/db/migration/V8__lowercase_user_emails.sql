@@ -0,0 +1,2 @@
+-- 邮箱统一存小写，按邮箱的查询不再需要 LOWER()，可以直接使用 uk_users_email
+UPDATE users SET email = LOWER(TRIM(email)) WHERE email <> LOWER(TRIM(email));
@@ -0,0 +1,9 @@
+-- 同一时间只允许一个计划重新生成任务运行：running_guard 仅在 RUNNING 时为 TRUE，其余为 NULL（唯一约束不限制 NULL）
+ALTER TABLE plan_regeneration_jobs ADD COLUMN running_guard BOOLEAN;
+
+-- 已有多个 RUNNING 任务时只保留最新的一个
+UPDATE plan_regeneration_jobs SET status = 'FAILED', last_error = 'Superseded by a newer running job'
+WHERE status = 'RUNNING' AND id < (SELECT MAX(id) FROM plan_regeneration_jobs WHERE status = 'RUNNING');
+UPDATE plan_regeneration_jobs SET running_guard = TRUE WHERE status = 'RUNNING';
+
+ALTER TABLE plan_regeneration_jobs ADD CONSTRAINT uk_plan_regeneration_jobs_running UNIQUE (running_guard);
@@ -0,0 +1,93 @@
+package com.ruipeng.planner.benchmark;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.service.AdvisorMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of ranking every advisor against one client profile. Run with
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="AdvisorMatch"}; with a few
+ * thousand advisors a match should stay well below 1000 us.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdvisorMatchBenchmark {
+    private static final String[] SPECIALTIES = {"Retirement Planning", "Tax Planning", "Estate Planning",
+            "Investment Management", "Debt Management", "Insurance Planning", "Education Funding", "Budgeting"};
+    private static final String[] LANGUAGES = {"English", "Chinese", "Spanish", "French", "Hindi", "Arabic"};
+
+    @Param({"1000", "5000", "20000"})
+    public int advisors;
+
+    private AdvisorMatcher matcher;
+    private AdvisorMatcher.Need detailedProfile;
+    private AdvisorMatcher.Need emptyProfile;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<AdvisorMatcher.Candidate> candidates = new ArrayList<>();
+        for (int i = 1; i <= advisors; i++) {
+            AdvisorProfileDto advisor = new AdvisorProfileDto();
+            advisor.setId((long) i);
+            advisor.setAverageRating(random.nextInt(10) == 0 ? null : 1 + random.nextInt(401) / 100.0);
+            advisor.setExperienceYears(random.nextInt(30));
+            // 随机取值可能重复，用 HashSet 去重
+            advisor.setSpecialties(new HashSet<>(List.of(SPECIALTIES[random.nextInt(SPECIALTIES.length)],
+                    SPECIALTIES[random.nextInt(SPECIALTIES.length)])));
+            advisor.setLanguages(new HashSet<>(List.of("English", LANGUAGES[random.nextInt(LANGUAGES.length)])));
+            candidates.add(new AdvisorMatcher.Candidate(advisor, random.nextInt(15)));
+        }
+        matcher = new AdvisorMatcher();
+        matcher.rebuild(() -> candidates);
+
+        detailedProfile = new AdvisorMatcher.Need(List.of("Index funds", "Tax-efficient investing"),
+                List.of("Retire by 60", "Pay off student debt"), 7, "LONG_TERM", List.of("Chinese"));
+        emptyProfile = new AdvisorMatcher.Need(List.of(), List.of(), null, null, null);
+    }
+
+    @Benchmark
+    public List<AdvisorMatcher.Match> detailedProfile() {
+        return matcher.match(detailedProfile, 5);
+    }
+
+    // 最多取 MAX_MATCHES 个时堆最大
+    @Benchmark
+    public List<AdvisorMatcher.Match> detailedProfileMaxMatches() {
+        return matcher.match(detailedProfile, AdvisorMatcher.MAX_MATCHES);
+    }
+
+    @Benchmark
+    public List<AdvisorMatcher.Match> emptyProfile() {
+        return matcher.match(emptyProfile, 5);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AdvisorMatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
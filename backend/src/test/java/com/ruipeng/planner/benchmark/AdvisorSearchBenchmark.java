@@ -0,0 +1,103 @@
+package com.ruipeng.planner.benchmark;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.service.AdvisorSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory advisor search index. Run with
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="AdvisorSearch"}; every query
+ * should stay well below 1000 us at the larger directory size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdvisorSearchBenchmark {
+    private static final String[] SPECIALTIES = {"Retirement Planning", "Tax Planning", "Estate Planning",
+            "Investment Management", "Debt Management", "Insurance Planning", "Education Funding", "Budgeting"};
+    private static final String[] LANGUAGES = {"English", "Chinese", "Spanish", "French", "Hindi", "Arabic"};
+    private static final String[] WORDS = {"pensions", "tax", "expats", "families", "retirees", "property",
+            "shares", "super", "trusts", "students", "business", "budget", "savings", "debt", "insurance"};
+
+    @Param({"1000", "20000"})
+    public int advisors;
+
+    private AdvisorSearchIndex index;
+    private AdvisorSearchIndex.Query multiCriteria;
+    private AdvisorSearchIndex.Query textAndRating;
+    private AdvisorSearchIndex.Query broad;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<AdvisorProfileDto> profiles = new ArrayList<>();
+        for (int i = 1; i <= advisors; i++) {
+            AdvisorProfileDto advisor = new AdvisorProfileDto();
+            advisor.setId((long) i);
+            advisor.setAverageRating(random.nextInt(10) == 0 ? null : 1 + random.nextInt(401) / 100.0);
+            advisor.setExperienceYears(random.nextInt(30));
+            // 随机取值可能重复，用 HashSet 去重
+            advisor.setSpecialties(new HashSet<>(List.of(SPECIALTIES[random.nextInt(SPECIALTIES.length)],
+                    SPECIALTIES[random.nextInt(SPECIALTIES.length)])));
+            advisor.setLanguages(new HashSet<>(List.of("English", LANGUAGES[random.nextInt(LANGUAGES.length)])));
+            StringBuilder bio = new StringBuilder("Helping clients with");
+            for (int w = 0; w < 12; w++) {
+                bio.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            advisor.setBio(bio.toString());
+            advisor.setProfessionalTitle("Certified Financial Planner");
+            profiles.add(advisor);
+        }
+        index = new AdvisorSearchIndex();
+        index.rebuild(() -> profiles);
+
+        multiCriteria = new AdvisorSearchIndex.Query(List.of("Tax Planning", "Retirement Planning"),
+                List.of("Chinese"), 8, null, null);
+        textAndRating = new AdvisorSearchIndex.Query(null, null, null, 4.0, "expats tax");
+        broad = new AdvisorSearchIndex.Query(null, List.of("English"), null, null, null);
+    }
+
+    @Benchmark
+    public AdvisorSearchIndex.Result multiCriteria() {
+        return index.search(multiCriteria, 0, 20);
+    }
+
+    @Benchmark
+    public AdvisorSearchIndex.Result textAndRating() {
+        return index.search(textAndRating, 0, 20);
+    }
+
+    // 最坏情况：所有顾问都命中，排序取第三页
+    @Benchmark
+    public AdvisorSearchIndex.Result broad() {
+        return index.search(broad, 40, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AdvisorSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ruipeng.planner.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.service.PlanPdfRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render time and allocation per PDF report. Run with
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="PlanPdfRender -prof gc"} and read
+ * {@code gc.alloc.rate.norm} for bytes allocated per report.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanPdfRenderBenchmark {
+
+    // 典型计划的目标数，以及一个偏大的计划
+    @Param({"4", "200"})
+    public int goals;
+
+    private PlanPdfRenderer renderer;
+    private FinancialPlan plan;
+
+    @Setup
+    public void setUp() {
+        renderer = new PlanPdfRenderer(new ObjectMapper());
+
+        StringBuilder goalTimeline = new StringBuilder("[");
+        for (int i = 0; i < goals; i++) {
+            if (i > 0) {
+                goalTimeline.append(',');
+            }
+            goalTimeline.append("{\"goal\":\"Goal ").append(i).append("\",\"targetAmount\":")
+                    .append(10_000 + i * 500).append(",\"timeframe\":\"").append(1 + i % 30)
+                    .append(" years\",\"priority\":\"").append(i % 3 == 0 ? "High" : "Medium").append("\"}");
+        }
+
+        plan = new FinancialPlan();
+        plan.setId(1L);
+        plan.setPlanName("Retirement and house deposit");
+        plan.setCreationDate(LocalDateTime.of(2024, 3, 1, 10, 0));
+        plan.setHealthScore(72);
+        plan.setHealthAssessment("Your finances are in reasonable shape with room to improve. "
+                + "Your emergency fund is below six months of expenses. You are saving 18% of your income.");
+        plan.setAssetAllocationJson("{\"stocks\":60,\"bonds\":30,\"cash\":10}");
+        plan.setGoalTimelineJson(goalTimeline.append(']').toString());
+        plan.setInvestmentRecommendationsJson("["
+                + "{\"type\":\"Global equity index funds\",\"allocation\":60,\"reasoning\":\"Low-cost, diversified exposure for long-term growth\"},"
+                + "{\"type\":\"Investment-grade bond funds\",\"allocation\":30,\"reasoning\":\"Reduces portfolio volatility and provides steady income\"},"
+                + "{\"type\":\"High-yield savings account\",\"allocation\":10,\"reasoning\":\"Keeps emergency money liquid and safe\"}]");
+        plan.setActionPlanJson("["
+                + "{\"action\":\"Build an emergency fund\",\"timeframe\":\"Within 8 months\",\"details\":\"Set aside 12000 to cover six months of expenses.\"},"
+                + "{\"action\":\"Rebalance to the target allocation\",\"timeframe\":\"Within 1 month\",\"details\":\"Move existing investments towards the recommended mix.\"},"
+                + "{\"action\":\"Review the plan with an advisor\",\"timeframe\":\"Within 3 months\",\"details\":\"Book a session to validate the assumptions behind this plan.\"}]");
+    }
+
+    @Benchmark
+    public void render() {
+        renderer.render(plan, OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlanPdfRenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
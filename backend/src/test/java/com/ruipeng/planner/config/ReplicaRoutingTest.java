@@ -0,0 +1,137 @@
+package com.ruipeng.planner.config;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.repository.UserRepository;
+import com.ruipeng.planner.service.AdvisorMatcher;
+import com.ruipeng.planner.service.AdvisorSearchIndex;
+import com.ruipeng.planner.service.AdvisorService;
+import com.ruipeng.planner.service.AdvisorTagTypeahead;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 两个独立的内存库模拟主库和从库，数据不同即可看出读走了哪边
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.max-staleness=300ms"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ReplicaRoutingConfig.class, AdvisorService.class, AdvisorSearchIndex.class, AdvisorTagTypeahead.class, AdvisorMatcher.class})
+public class ReplicaRoutingTest {
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private AdvisorService advisorService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        insertAdvisor(primary, "Primary");
+        insertAdvisor(replica, "Replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        for (JdbcTemplate jdbc : new JdbcTemplate[]{primary, replica}) {
+            jdbc.update("DELETE FROM advisors");
+            jdbc.update("DELETE FROM users");
+        }
+    }
+
+    private static void insertAdvisor(JdbcTemplate jdbc, String firstName) {
+        jdbc.update("INSERT INTO users (id, email, password_hash, first_name, last_name, role, account_status) " +
+                "VALUES (1, 'advisor@example.com', 'x', ?, 'Advisor', 'ADVISOR', 'ACTIVE')", firstName);
+        jdbc.update("INSERT INTO advisors (id, user_id, average_rating) VALUES (1, 1, 4.5)");
+    }
+
+    private static String advisorName(AdvisorService advisorService) {
+        return advisorService.getAllAdvisors().stream()
+                .map(AdvisorProfileDto::getFirstName)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void writeAs(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("123456");
+        user.setFirstName("Client");
+        user.setLastName("Test");
+        user.setRole(UserRole.USER);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setRegistrationDate(LocalDateTime.now());
+        userRepository.save(user);
+    }
+
+    @Test
+    void should_route_read_only_transactions_to_replica_and_writes_to_primary() {
+        // arrange
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader@example.com", null, "ROLE_USER"));
+        String beforeWrite = advisorName(advisorService);
+
+        // act
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer@example.com", null, "ROLE_USER"));
+        writeAs("client@example.com");
+
+        // assert
+        assertThat(beforeWrite).isEqualTo("Replica");
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM users WHERE email = 'client@example.com'", Long.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM users WHERE email = 'client@example.com'", Long.class)).isZero();
+    }
+
+    @Test
+    void should_read_own_writes_from_primary_within_staleness_window() throws Exception {
+        // arrange
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer@example.com", null, "ROLE_USER"));
+        writeAs("client@example.com");
+
+        // act
+        String writerRead = advisorName(advisorService);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other@example.com", null, "ROLE_USER"));
+        String otherRead = advisorName(advisorService);
+        Thread.sleep(400);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer@example.com", null, "ROLE_USER"));
+        String writerReadLater = advisorName(advisorService);
+
+        // assert
+        assertThat(writerRead).isEqualTo("Primary");
+        assertThat(otherRead).isEqualTo("Replica");
+        assertThat(writerReadLater).isEqualTo("Replica");
+    }
+}
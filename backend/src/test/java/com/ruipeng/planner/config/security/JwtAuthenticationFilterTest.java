@@ -0,0 +1,109 @@
+package com.ruipeng.planner.config.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    private final JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockFilterChain chain = new MockFilterChain();
+        new JwtAuthenticationFilter(jwtUtils, userDetailsService).doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isSameAs(request);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private String issueToken(Long id, String email, String role) {
+        UserDetailsImpl user = new UserDetailsImpl(id, email, "hash", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @Test
+    void should_authenticate_from_claims_without_loading_user() throws Exception {
+        // arrange
+        String token = issueToken(42L, "client@example.com", "USER");
+
+        // act
+        Authentication authentication = filter(token);
+
+        // assert
+        UserDetailsImpl principal = (UserDetailsImpl) authentication.getPrincipal();
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("client@example.com");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void should_load_user_for_tokens_without_claims() throws Exception {
+        // arrange: a token issued before the id and role claims
+        String token = Jwts.builder()
+                .setSubject("advisor@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+        UserDetailsImpl stored = new UserDetailsImpl(7L, "advisor@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_ADVISOR")));
+        when(userDetailsService.loadUserByUsername("advisor@example.com")).thenReturn(stored);
+
+        // act
+        Authentication authentication = filter(token);
+
+        // assert
+        assertThat(authentication.getPrincipal()).isSameAs(stored);
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADVISOR");
+    }
+
+    @Test
+    void should_leave_request_unauthenticated_for_invalid_tokens() throws Exception {
+        // arrange
+        String foreign = new JwtUtils("another-secret-another-secret-another-secret-0", 60_000)
+                .generateJwtToken(new UsernamePasswordAuthenticationToken(
+                        new UserDetailsImpl(1L, "x@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))),
+                        null));
+        String expired = new JwtUtils(SECRET, -1_000).generateJwtToken(new UsernamePasswordAuthenticationToken(
+                new UserDetailsImpl(1L, "x@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))), null));
+
+        // act & assert
+        assertThat(filter(null)).isNull();
+        assertThat(filter("not-a-jwt")).isNull();
+        assertThat(filter(foreign)).isNull();
+        assertThat(filter(expired)).isNull();
+        verifyNoInteractions(userDetailsService);
+    }
+}
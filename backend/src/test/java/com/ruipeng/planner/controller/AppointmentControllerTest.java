@@ -0,0 +1,86 @@
+package com.ruipeng.planner.controller;
+
+import com.ruipeng.planner.config.security.UserDetailsImpl;
+import com.ruipeng.planner.dto.AppointmentPage;
+import com.ruipeng.planner.dto.MessageResponse;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.service.AdvisorService;
+import com.ruipeng.planner.service.AppointmentService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentControllerTest {
+
+    @Mock
+    private AppointmentService appointmentService;
+
+    @Mock
+    private AdvisorService advisorService;
+
+    @InjectMocks
+    private AppointmentController appointmentController;
+
+    @BeforeEach
+    void setUp() {
+        UserDetailsImpl advisorUser = new UserDetailsImpl(7L, "advisor@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADVISOR")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(advisorUser, null, advisorUser.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void should_list_appointments_of_the_current_advisor() {
+        // arrange
+        Advisor advisor = new Advisor();
+        advisor.setId(3L);
+        AppointmentPage page = new AppointmentPage(List.of(), 0, 20, false);
+        when(advisorService.getAdvisorByUserId(7L)).thenReturn(advisor);
+        when(appointmentService.getAdvisorAppointments(3L, AppointmentStatus.CONFIRMED, null, null, 0, 20))
+                .thenReturn(page);
+
+        // act
+        ResponseEntity<?> response = appointmentController.getAdvisorAppointments(
+                AppointmentStatus.CONFIRMED, null, null, 0, 20);
+
+        // assert
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(page);
+    }
+
+    @Test
+    void should_reject_advisor_list_for_user_without_advisor_profile() {
+        // arrange
+        when(advisorService.getAdvisorByUserId(7L))
+                .thenThrow(new EntityNotFoundException("No advisor found for user ID: 7"));
+
+        // act
+        ResponseEntity<?> response = appointmentController.getAdvisorAppointments(null, null, null, 0, 20);
+
+        // assert
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(((MessageResponse) response.getBody()).getMessage()).isEqualTo("No advisor found for user ID: 7");
+        verifyNoInteractions(appointmentService);
+    }
+}
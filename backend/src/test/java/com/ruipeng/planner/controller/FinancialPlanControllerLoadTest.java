@@ -0,0 +1,246 @@
+package com.ruipeng.planner.controller;
+
+import com.ruipeng.planner.config.security.UserDetailsImpl;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.EducationLevel;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserProfile;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import com.ruipeng.planner.repository.UserRepository;
+import com.ruipeng.planner.support.FakeGeminiServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Load test for POST /api/plans (controller → service → DB) against the embedded fake Gemini
+ * endpoint. Reports throughput and p50/p99 latency; excluded from the default build, run with
+ * {@code mvn test -P load-test}.
+ */
+@Tag("load")
+@SpringBootTest
+@AutoConfigureMockMvc
+class FinancialPlanControllerLoadTest {
+
+    private static final int USERS = 20;
+    private static final int REQUESTS_PER_USER = 5;
+    private static final int CLIENT_THREADS = 16;
+
+    private static final FakeGeminiServer fakeGemini;
+
+    static {
+        try {
+            fakeGemini = FakeGeminiServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.profiles.active", () -> "test");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("google.ai.api.key", () -> "fake-key");
+        registry.add("google.ai.base-url", fakeGemini::baseUrl);
+        registry.add("google.ai.hedge.budget-ms", () -> "10000");
+        registry.add("google.ai.admission.max-concurrent", () -> "16");
+        registry.add("google.ai.admission.max-queue-size", () -> "500");
+        registry.add("google.ai.admission.user-burst", () -> String.valueOf(REQUESTS_PER_USER * 4));
+        registry.add("jwt.secret", () -> "bG9hZC10ZXN0LXNlY3JldC1sb2FkLXRlc3Qtc2VjcmV0LWxvYWQtdGVzdC1zZWNyZXQ=");
+        registry.add("jwt.expirationMs", () -> "3600000");
+        registry.add("app.frontend.url", () -> "http://localhost:3000");
+        registry.add("google.oauth.client-id", () -> "fake-client");
+        registry.add("google.oauth.client-secret", () -> "fake-secret");
+    }
+
+    @AfterAll
+    static void stopFakeGemini() {
+        fakeGemini.close();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        fakeGemini.latency(FakeGeminiServer.LatencyDistribution.fixed(0))
+                .errorRate(0).rateLimitRate(0).malformedRate(0);
+        userIds.clear();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(createUserWithProfile("load-" + System.nanoTime() + "-" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    void should_sustain_throughput_with_realistic_model_latency() throws Exception {
+        // arrange
+        fakeGemini.latency(FakeGeminiServer.LatencyDistribution.logNormal(200, 0.5));
+
+        // act
+        LoadReport report = run("log-normal 200ms");
+
+        // assert
+        assertThat(report.failures).isZero();
+        assertThat(report.aiPlans).isEqualTo(report.requests);
+    }
+
+    @Test
+    void should_keep_serving_plans_when_model_fails() throws Exception {
+        // arrange
+        fakeGemini.latency(FakeGeminiServer.LatencyDistribution.uniform(50, 300))
+                .errorRate(0.2)
+                .malformedRate(0.1);
+
+        // act
+        LoadReport report = run("uniform 50-300ms, 20% errors, 10% malformed");
+
+        // assert: failed model calls fall back to the local engine instead of failing the request
+        assertThat(report.failures).isZero();
+        assertThat(report.aiPlans).isLessThan(report.requests);
+    }
+
+    private LoadReport run(String scenario) throws Exception {
+        fakeGemini.resetRequestCount();
+        int total = USERS * REQUESTS_PER_USER;
+        long[] latencies = new long[total];
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger aiPlans = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < total; i++) {
+                final int index = i;
+                final Long userId = userIds.get(i % USERS);
+                futures.add(clients.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        MvcResult result = mockMvc.perform(post("/api/plans")
+                                        .with(user(principal(userId)))
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"planName\":\"Load Plan " + index + "\"}"))
+                                .andReturn();
+                        String body = result.getResponse().getContentAsString();
+                        if (result.getResponse().getStatus() != 200) {
+                            failures.incrementAndGet();
+                        } else if (body.contains("\"planSource\":\"AI\"")) {
+                            aiPlans.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        LoadReport report = new LoadReport(total, failures.get(), aiPlans.get(), elapsed, latencies);
+        System.out.printf("[load] %s: %d requests, %d failures, %d AI plans, %d model calls, "
+                        + "%.1f req/s, p50=%dms p99=%dms max=%dms%n",
+                scenario, report.requests, report.failures, report.aiPlans, fakeGemini.requestCount(),
+                report.throughput(), report.percentileMs(50), report.percentileMs(99), report.percentileMs(100));
+        return report;
+    }
+
+    private Long createUserWithProfile(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("not-used");
+        user.setFirstName("Load");
+        user.setLastName("Test");
+        user.setRole(UserRole.USER);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setRegistrationDate(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        UserProfile profile = new UserProfile();
+        profile.setUser(user);
+        profile.setAge(35);
+        profile.setOccupation("Engineer");
+        profile.setEducationLevel(EducationLevel.BACHELOR);
+        profile.setMonthlyIncome(new BigDecimal("9000"));
+        profile.setMonthlyExpenses(new BigDecimal("5500"));
+        profile.setTotalSavings(new BigDecimal("30000"));
+        profile.setTotalDebt(new BigDecimal("10000"));
+        profile.setRiskTolerance(6);
+        profile.setRetirementAge(65);
+        profile.setMonthlySavings(new BigDecimal("2500"));
+        userProfileRepository.save(profile);
+        return user.getId();
+    }
+
+    private static UserDetailsImpl principal(Long userId) {
+        return new UserDetailsImpl(userId, "load-" + userId + "@example.com", "not-used",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private static final class LoadReport {
+        private final int requests;
+        private final int failures;
+        private final int aiPlans;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        private LoadReport(int requests, int failures, int aiPlans, long elapsedNanos, long[] latencies) {
+            this.requests = requests;
+            this.failures = failures;
+            this.aiPlans = aiPlans;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+        }
+
+        double throughput() {
+            return requests / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        long percentileMs(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AdvisorDirectoryPage;
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.service.AdvisorMatcher;
+import com.ruipeng.planner.service.AdvisorSearchIndex;
+import com.ruipeng.planner.service.AdvisorService;
+import com.ruipeng.planner.service.AdvisorTagTypeahead;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AdvisorService.class, AdvisorSearchIndex.class, AdvisorTagTypeahead.class, AdvisorMatcher.class})
+public class AdvisorListingQueryCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AdvisorService advisorService;
+
+    private Statistics statistics;
+    private int advisorCount;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void persistAdvisors(int count) {
+        for (int i = 0; i < count; i++) {
+            persistAdvisor(3.0 + ((advisorCount + 1) % 20) / 10.0);
+        }
+        entityManager.flush();
+        // 清空持久化上下文，否则懒加载会直接命中一级缓存
+        entityManager.clear();
+    }
+
+    private void persistAdvisor(Double rating) {
+        int n = ++advisorCount;
+        User user = new User();
+        user.setEmail("advisor" + n + "@example.com");
+        user.setPasswordHash("123456");
+        user.setRole(UserRole.ADVISOR);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setFirstName("First" + n);
+        user.setLastName("Last" + n);
+        user.setRegistrationDate(LocalDateTime.now());
+        entityManager.persist(user);
+
+        Advisor advisor = new Advisor();
+        advisor.setUser(user);
+        advisor.setAverageRating(rating);
+        advisor.setExperienceYears(n % 10);
+        advisor.setSpecialties(Set.of("Retirement Planning", "Tax " + n));
+        advisor.setLanguages(n % 2 == 0 ? Set.of("English", "Chinese") : Set.of("English"));
+        entityManager.persist(advisor);
+    }
+
+    private long countQueries(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void should_list_advisors_with_constant_number_of_queries() {
+        // arrange
+        persistAdvisors(3);
+        long fewAdvisors = countQueries(advisorService::getAllAdvisors);
+
+        persistAdvisors(40);
+
+        // act
+        AtomicReference<List<AdvisorProfileDto>> listing = new AtomicReference<>();
+        long manyAdvisors = countQueries(() -> listing.set(advisorService.getAllAdvisors()));
+        List<AdvisorProfileDto> result = listing.get();
+
+        // assert
+        assertThat(fewAdvisors).isEqualTo(3);
+        assertThat(manyAdvisors).isEqualTo(fewAdvisors);
+        assertThat(result).hasSize(43);
+        assertThat(result.get(0).getSpecialties()).hasSize(2).contains("Retirement Planning");
+        assertThat(result.get(0).getLanguages()).containsExactly("English");
+        assertThat(result.get(0).getAverageRating()).isGreaterThanOrEqualTo(result.get(42).getAverageRating());
+    }
+
+    @Test
+    void should_walk_directory_pages_with_constant_number_of_queries() {
+        // arrange: ties on rating plus unrated advisors at the end
+        persistAdvisors(43);
+        for (int i = 0; i < 4; i++) {
+            persistAdvisor(null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // act
+        List<AdvisorProfileDto> seen = new ArrayList<>();
+        List<Long> queriesPerPage = new ArrayList<>();
+        String cursor = null;
+        do {
+            String after = cursor;
+            AtomicReference<AdvisorDirectoryPage> page = new AtomicReference<>();
+            queriesPerPage.add(countQueries(() ->
+                    page.set(advisorService.getAdvisorDirectory(null, null, null, null, after, 5))));
+            seen.addAll(page.get().getAdvisors());
+            cursor = page.get().getNextCursor();
+        } while (cursor != null);
+
+        // assert
+        // 最后一页从未评分的顾问中继续
+        assertThat(queriesPerPage).hasSize(10).containsOnly(3L);
+        assertThat(seen).extracting(AdvisorProfileDto::getId).doesNotHaveDuplicates().hasSize(47);
+        assertThat(seen.subList(43, 47)).extracting(AdvisorProfileDto::getAverageRating).containsOnlyNulls();
+        for (int i = 1; i < 43; i++) {
+            assertThat(seen.get(i - 1).getAverageRating()).isGreaterThanOrEqualTo(seen.get(i).getAverageRating());
+        }
+    }
+
+    @Test
+    void should_combine_directory_filters() {
+        // arrange
+        persistAdvisors(40);
+
+        // act
+        AdvisorDirectoryPage page = advisorService.getAdvisorDirectory(
+                "Retirement Planning", "Chinese", 3.5, 5, null, 100);
+
+        // assert
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getAdvisors()).isNotEmpty().allSatisfy(advisor -> {
+            assertThat(advisor.getLanguages()).contains("Chinese");
+            assertThat(advisor.getAverageRating()).isGreaterThanOrEqualTo(3.5);
+            assertThat(advisor.getExperienceYears()).isGreaterThanOrEqualTo(5);
+        });
+    }
+}
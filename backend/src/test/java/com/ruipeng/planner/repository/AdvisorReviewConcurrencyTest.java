@@ -0,0 +1,252 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AdvisorReviewDto;
+import com.ruipeng.planner.dto.AdvisorReviewRequest;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.Appointment;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.entity.SessionType;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.service.AdvisorMatcher;
+import com.ruipeng.planner.service.AdvisorReviewService;
+import com.ruipeng.planner.service.AdvisorSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+// 并发请求各自提交事务，这里不使用测试事务
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AdvisorReviewService.class, AdvisorSearchIndex.class, AdvisorMatcher.class})
+public class AdvisorReviewConcurrencyTest {
+    private static final int REVIEWS = 48;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private AdvisorReviewService reviewService;
+
+    @Autowired
+    private AdvisorReviewRepository reviewRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private AdvisorRepository advisorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User client;
+    private Advisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        client = saveUser("client@example.com", UserRole.USER);
+        advisor = new Advisor();
+        advisor.setUser(saveUser("advisor@example.com", UserRole.ADVISOR));
+        advisor.setProfessionalTitle("CFP");
+        advisor = advisorRepository.save(advisor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        archivedAppointmentRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        advisorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private User saveUser(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("123456");
+        user.setRole(role);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setRegistrationDate(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private Long saveAppointment(AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setUser(client);
+        appointment.setAdvisor(advisor);
+        appointment.setAppointmentDate(LocalDateTime.now().minusDays(1));
+        appointment.setDurationMinutes(60);
+        appointment.setSessionType(SessionType.STANDARD_SESSION);
+        appointment.setStatus(status);
+        return appointmentRepository.save(appointment).getId();
+    }
+
+    private static AdvisorReviewRequest request(Long appointmentId, int rating) {
+        AdvisorReviewRequest request = new AdvisorReviewRequest();
+        request.setAppointmentId(appointmentId);
+        request.setRating(rating);
+        return request;
+    }
+
+    private Advisor reloadAdvisor() {
+        return advisorRepository.findById(advisor.getId()).orElseThrow();
+    }
+
+    // 所有任务在同一时刻放行，尽量让它们争抢同一顾问行
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_keep_aggregates_exact_under_parallel_ratings_edits_and_deletes() throws Exception {
+        // arrange
+        List<Callable<AdvisorReviewDto>> creates = new ArrayList<>();
+        int sum = 0;
+        for (int i = 0; i < REVIEWS; i++) {
+            Long appointmentId = saveAppointment(AppointmentStatus.COMPLETED);
+            int rating = 1 + i % 5;
+            sum += rating;
+            creates.add(() -> reviewService.createReview(client.getId(), request(appointmentId, rating)));
+        }
+
+        // act: parallel ratings
+        List<AdvisorReviewDto> reviews = runConcurrently(creates);
+
+        // assert
+        Advisor rated = reloadAdvisor();
+        assertThat(rated.getRatingCount()).isEqualTo(REVIEWS);
+        assertThat(rated.getAverageRating()).isCloseTo((double) sum / REVIEWS, within(1e-9));
+
+        // act: parallel edits to 5 stars
+        List<Callable<AdvisorReviewDto>> edits = new ArrayList<>();
+        for (AdvisorReviewDto review : reviews) {
+            edits.add(() -> reviewService.updateReview(client.getId(), review.getId(), request(null, 5)));
+        }
+        runConcurrently(edits);
+
+        // assert
+        Advisor edited = reloadAdvisor();
+        assertThat(edited.getRatingCount()).isEqualTo(REVIEWS);
+        assertThat(edited.getAverageRating()).isCloseTo(5.0, within(1e-9));
+
+        // act: parallel deletes of every review
+        List<Callable<Void>> deletes = new ArrayList<>();
+        for (AdvisorReviewDto review : reviews) {
+            deletes.add(() -> {
+                reviewService.deleteReview(client.getId(), review.getId());
+                return null;
+            });
+        }
+        runConcurrently(deletes);
+
+        // assert
+        Advisor cleared = reloadAdvisor();
+        assertThat(cleared.getRatingCount()).isZero();
+        assertThat(cleared.getAverageRating()).isNull();
+        assertThat(reviewRepository.count()).isZero();
+    }
+
+    @Test
+    void should_apply_edit_and_delete_deltas() {
+        // arrange
+        AdvisorReviewDto four = reviewService.createReview(client.getId(),
+                request(saveAppointment(AppointmentStatus.COMPLETED), 4));
+        AdvisorReviewDto two = reviewService.createReview(client.getId(),
+                request(saveAppointment(AppointmentStatus.COMPLETED), 2));
+
+        // act
+        reviewService.updateReview(client.getId(), two.getId(), request(null, 5));
+        double afterEdit = reloadAdvisor().getAverageRating();
+        reviewService.deleteReview(client.getId(), four.getId());
+
+        // assert
+        assertThat(afterEdit).isCloseTo(4.5, within(1e-9));
+        assertThat(reloadAdvisor().getRatingCount()).isEqualTo(1);
+        assertThat(reloadAdvisor().getAverageRating()).isCloseTo(5.0, within(1e-9));
+        assertThat(reviewService.getAdvisorReviews(advisor.getId(), 0, 10).getReviews())
+                .extracting(AdvisorReviewDto::getRating).containsExactly(5);
+    }
+
+    @Test
+    void should_review_archived_appointments() {
+        // arrange
+        Long appointmentId = saveAppointment(AppointmentStatus.COMPLETED);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            archivedAppointmentRepository.copyFromAppointments(List.of(appointmentId), LocalDateTime.now());
+            appointmentRepository.deleteByIdIn(List.of(appointmentId));
+        });
+
+        // act
+        AdvisorReviewDto review = reviewService.createReview(client.getId(), request(appointmentId, 3));
+
+        // assert
+        assertThat(review.getAdvisorId()).isEqualTo(advisor.getId());
+        assertThat(reloadAdvisor().getAverageRating()).isCloseTo(3.0, within(1e-9));
+    }
+
+    @Test
+    void should_reject_unfinished_duplicate_and_foreign_reviews() {
+        // arrange
+        Long confirmed = saveAppointment(AppointmentStatus.CONFIRMED);
+        Long completed = saveAppointment(AppointmentStatus.COMPLETED);
+        AdvisorReviewDto review = reviewService.createReview(client.getId(), request(completed, 4));
+        Long stranger = saveUser("stranger@example.com", UserRole.USER).getId();
+
+        // act & assert
+        assertThatThrownBy(() -> reviewService.createReview(client.getId(), request(confirmed, 5)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> reviewService.createReview(client.getId(), request(completed, 5)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> reviewService.updateReview(stranger, review.getId(), request(null, 1)))
+                .hasMessageContaining("Review not found");
+        assertThat(reloadAdvisor().getRatingCount()).isEqualTo(1);
+        assertThat(reloadAdvisor().getAverageRating()).isCloseTo(4.0, within(1e-9));
+    }
+}
@@ -0,0 +1,208 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.config.EntityCacheConfig;
+import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.dto.SharedPlanExportItem;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.Appointment;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.SessionType;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.service.AppointmentArchiveService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 归档按批提交，这里不使用测试事务
+@DataJpaTest(properties = "appointments.archive.batch-size=4")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AppointmentArchiveService.class, EntityCacheConfig.class, AppointmentArchiveTest.MetricsConfig.class})
+public class AppointmentArchiveTest {
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private AppointmentArchiveService archiveService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private FinancialPlanRepository financialPlanRepository;
+
+    @Autowired
+    private AdvisorRepository advisorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User client;
+    private Advisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        client = saveUser("client@example.com", UserRole.USER);
+        advisor = new Advisor();
+        advisor.setUser(saveUser("advisor@example.com", UserRole.ADVISOR));
+        advisor.setProfessionalTitle("CFP");
+        advisor = advisorRepository.save(advisor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archivedAppointmentRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        financialPlanRepository.deleteAll();
+        advisorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private User saveUser(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("123456");
+        user.setRole(role);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setRegistrationDate(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private Appointment saveAppointment(LocalDateTime date, AppointmentStatus status, FinancialPlan sharedPlan) {
+        Appointment appointment = new Appointment();
+        appointment.setUser(client);
+        appointment.setAdvisor(advisor);
+        appointment.setAppointmentDate(date);
+        appointment.setDurationMinutes(60);
+        appointment.setSessionType(SessionType.STANDARD_SESSION);
+        appointment.setStatus(status);
+        appointment.setBookingDate(date.minusDays(7));
+        appointment.setSharedPlan(sharedPlan);
+        return appointmentRepository.save(appointment);
+    }
+
+    @Test
+    void should_move_only_old_finished_appointments_in_batches() {
+        // arrange: ten old finished, one old confirmed, one recent completed
+        List<Long> oldFinished = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            AppointmentStatus status = i % 2 == 0 ? AppointmentStatus.COMPLETED : AppointmentStatus.CANCELLED;
+            oldFinished.add(saveAppointment(CUTOFF.minusDays(30 + i), status, null).getId());
+        }
+        Long oldConfirmed = saveAppointment(CUTOFF.minusDays(5), AppointmentStatus.CONFIRMED, null).getId();
+        Long recent = saveAppointment(CUTOFF.plusDays(5), AppointmentStatus.COMPLETED, null).getId();
+
+        // act
+        long moved = archiveService.archiveBefore(CUTOFF);
+        long secondRun = archiveService.archiveBefore(CUTOFF);
+
+        // assert
+        assertThat(moved).isEqualTo(10);
+        assertThat(secondRun).isZero();
+        assertThat(appointmentRepository.findAll()).extracting(Appointment::getId)
+                .containsExactlyInAnyOrder(oldConfirmed, recent);
+        assertThat(archivedAppointmentRepository.findAllById(oldFinished)).hasSize(10)
+                .allSatisfy(archived -> assertThat(archived.getArchivedAt()).isNotNull());
+        assertThat(meterRegistry.get("appointments.archived").counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void should_keep_unrelated_second_level_cache_regions_when_archiving() {
+        // arrange
+        saveAppointment(CUTOFF.minusDays(30), AppointmentStatus.COMPLETED, null);
+        advisorRepository.findById(advisor.getId());
+        userRepository.findById(client.getId());
+        assertThat(entityManagerFactory.getCache().contains(Advisor.class, advisor.getId())).isTrue();
+
+        // act
+        long moved = archiveService.archiveBefore(CUTOFF);
+
+        // assert: 原生 INSERT 只同步 appointments_archive，顾问和用户的缓存仍然有效
+        assertThat(moved).isEqualTo(1);
+        assertThat(entityManagerFactory.getCache().contains(Advisor.class, advisor.getId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(User.class, client.getId())).isTrue();
+    }
+
+    @Test
+    void should_page_history_across_hot_and_archived_appointments() {
+        // arrange: alternate days so pages interleave both tables
+        for (int i = 0; i < 8; i++) {
+            LocalDateTime date = CUTOFF.minusDays(10 + i);
+            saveAppointment(date, i % 2 == 0 ? AppointmentStatus.COMPLETED : AppointmentStatus.CONFIRMED, null);
+        }
+        archiveService.archiveBefore(CUTOFF);
+
+        // act
+        List<AppointmentDetailsDto> seen = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            seen.addAll(appointmentRepository.findAppointmentHistory(
+                    client.getId(), null, null, null, null, page * 3, 3));
+        }
+        List<AppointmentDetailsDto> confirmed = appointmentRepository.findAppointmentHistory(
+                client.getId(), null, AppointmentStatus.CONFIRMED, null, null, 0, 10);
+
+        // assert
+        assertThat(archivedAppointmentRepository.count()).isEqualTo(4);
+        assertThat(seen).hasSize(8).extracting(AppointmentDetailsDto::getId).doesNotHaveDuplicates();
+        for (int i = 1; i < seen.size(); i++) {
+            assertThat(seen.get(i - 1).getAppointmentDate()).isAfter(seen.get(i).getAppointmentDate());
+        }
+        assertThat(confirmed).hasSize(4).extracting(AppointmentDetailsDto::getStatus).containsOnly("CONFIRMED");
+    }
+
+    @Test
+    void should_export_plans_shared_in_archived_appointments() {
+        // arrange
+        FinancialPlan plan = new FinancialPlan();
+        plan.setUser(client);
+        plan.setPlanName("Retirement");
+        plan.setCreationDate(CUTOFF.minusDays(60));
+        plan = financialPlanRepository.save(plan);
+        saveAppointment(CUTOFF.minusDays(20), AppointmentStatus.COMPLETED, plan);
+        archiveService.archiveBefore(CUTOFF);
+
+        // act
+        List<SharedPlanExportItem> plans = appointmentRepository.findSharedPlansForExport(
+                advisor.getId(), CUTOFF.minusDays(30), CUTOFF);
+
+        // assert
+        assertThat(appointmentRepository.count()).isZero();
+        assertThat(plans).extracting(SharedPlanExportItem::getPlanId).containsExactly(plan.getId());
+    }
+}
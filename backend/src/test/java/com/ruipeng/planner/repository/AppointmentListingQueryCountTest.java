@@ -0,0 +1,125 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.Appointment;
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.SessionType;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class AppointmentListingQueryCountTest {
+    private static final LocalDateTime FIRST = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private Statistics statistics;
+    private User client;
+    private Advisor advisor;
+    private int userCount;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        client = persistUser(UserRole.USER);
+        advisor = new Advisor();
+        advisor.setUser(persistUser(UserRole.ADVISOR));
+        advisor.setProfessionalTitle("CFP");
+        advisor.setSpecialties(Set.of("Retirement Planning"));
+        entityManager.persist(advisor);
+    }
+
+    private User persistUser(UserRole role) {
+        int n = ++userCount;
+        User user = new User();
+        user.setEmail("user" + n + "@example.com");
+        user.setPasswordHash("123456");
+        user.setRole(role);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setFirstName("First" + n);
+        user.setLastName("Last" + n);
+        user.setRegistrationDate(LocalDateTime.now());
+        return entityManager.persist(user);
+    }
+
+    private void persistAppointments(int count) {
+        for (int i = 0; i < count; i++) {
+            FinancialPlan plan = new FinancialPlan();
+            plan.setUser(client);
+            plan.setPlanName("Plan " + i);
+            plan.setCreationDate(FIRST);
+            entityManager.persist(plan);
+
+            Appointment appointment = new Appointment();
+            appointment.setUser(client);
+            appointment.setAdvisor(advisor);
+            appointment.setAppointmentDate(FIRST.plusDays(i));
+            appointment.setDurationMinutes(60);
+            appointment.setSessionType(SessionType.STANDARD_SESSION);
+            appointment.setStatus(i % 3 == 0 ? AppointmentStatus.CANCELLED : AppointmentStatus.CONFIRMED);
+            appointment.setBookingDate(FIRST);
+            appointment.setSharedPlan(i % 2 == 0 ? plan : null);
+            entityManager.persist(appointment);
+        }
+        entityManager.flush();
+        // 清空持久化上下文，否则关联会直接命中一级缓存
+        entityManager.clear();
+    }
+
+    @Test
+    void should_list_appointments_in_one_query() {
+        // arrange
+        persistAppointments(30);
+
+        // act
+        statistics.clear();
+        List<AppointmentDetailsDto> rows = appointmentRepository.findAppointmentDetails(
+                client.getId(), null, null, null, null, 0, 50);
+
+        // assert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(rows).hasSize(30);
+        assertThat(rows.get(0).getAppointmentDate()).isEqualTo(FIRST.plusDays(29));
+        assertThat(rows.get(0).getAdvisorFirstName()).isEqualTo(advisor.getUser().getFirstName());
+        assertThat(rows.get(0).getClientLastName()).isEqualTo(client.getLastName());
+        assertThat(rows).filteredOn(row -> row.getSharedPlanId() != null).hasSize(15)
+                .allSatisfy(row -> assertThat(row.getSharedPlanName()).startsWith("Plan "));
+    }
+
+    @Test
+    void should_filter_advisor_appointments_by_status_and_date() {
+        // arrange
+        persistAppointments(30);
+
+        // act
+        List<AppointmentDetailsDto> rows = appointmentRepository.findAppointmentDetails(
+                null, advisor.getId(), AppointmentStatus.CONFIRMED, FIRST.plusDays(10), FIRST.plusDays(20), 0, 50);
+
+        // assert: days 10..19 without the cancelled 12, 15 and 18
+        assertThat(rows).hasSize(7).allSatisfy(row -> {
+            assertThat(row.getStatus()).isEqualTo("CONFIRMED");
+            assertThat(row.getAppointmentDate()).isBetween(FIRST.plusDays(10), FIRST.plusDays(19));
+        });
+    }
+}
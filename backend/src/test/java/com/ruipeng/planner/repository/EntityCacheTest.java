@@ -0,0 +1,144 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.config.EntityCacheConfig;
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.entity.AccountStatus;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.service.AdvisorMatcher;
+import com.ruipeng.planner.service.AdvisorSearchIndex;
+import com.ruipeng.planner.service.AdvisorService;
+import com.ruipeng.planner.service.AdvisorTagTypeahead;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 二级缓存在提交后才写入，这里不使用测试事务
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EntityCacheConfig.class, AdvisorService.class, AdvisorSearchIndex.class, AdvisorTagTypeahead.class, AdvisorMatcher.class})
+public class EntityCacheTest {
+    @Autowired
+    private AdvisorService advisorService;
+
+    @Autowired
+    private AdvisorRepository advisorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterBinder entityCacheMetrics;
+
+    private Statistics statistics;
+    private Long advisorId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setEmail("advisor@example.com");
+        user.setPasswordHash("123456");
+        user.setRole(UserRole.ADVISOR);
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setFirstName("Ada");
+        user.setLastName("Advisor");
+        user.setRegistrationDate(LocalDateTime.now());
+        userRepository.save(user);
+
+        Advisor advisor = new Advisor();
+        advisor.setUser(user);
+        advisor.setProfessionalTitle("Planner");
+        advisor.setSpecialties(Set.of("Retirement Planning"));
+        advisor.setLanguages(Set.of("English"));
+        advisorId = advisorRepository.save(advisor).getId();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        advisorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private long countQueries(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void should_serve_repeated_profile_views_from_cache() {
+        // arrange
+        long firstView = countQueries(() -> advisorService.getAdvisorProfileDtoById(advisorId));
+
+        // act
+        long secondView = countQueries(() -> advisorService.getAdvisorProfileDtoById(advisorId));
+
+        // assert
+        // 用户的 profile 是反向一对一，仍需一次查询
+        assertThat(secondView).isLessThan(firstView);
+        assertThat(statistics.getDomainDataRegionStatistics(EntityCacheConfig.ADVISOR_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(EntityCacheConfig.USER_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(EntityCacheConfig.ADVISOR_SPECIALTIES_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(EntityCacheConfig.ADVISOR_LANGUAGES_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_see_profile_updates_after_cache_was_filled() {
+        // arrange
+        advisorService.getAdvisorProfileDtoById(advisorId);
+        AdvisorProfileDto update = new AdvisorProfileDto();
+        update.setProfessionalTitle("Senior Planner");
+        update.setSpecialties(Set.of("Tax Planning"));
+
+        // act
+        advisorService.updateAdvisorProfile(advisorId, update);
+        AdvisorProfileDto result = advisorService.getAdvisorProfileDtoById(advisorId);
+
+        // assert
+        assertThat(result.getSpecialties()).containsExactly("Tax Planning");
+        assertThat(result.getLanguages()).containsExactly("English");
+        assertThat(advisorRepository.findById(advisorId)).get()
+                .extracting(Advisor::getProfessionalTitle).isEqualTo("Senior Planner");
+    }
+
+    @Test
+    void should_report_hit_ratio_per_region() {
+        // arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        entityCacheMetrics.bindTo(registry);
+        statistics.clear();
+
+        // act
+        for (int i = 0; i < 4; i++) {
+            advisorService.getAdvisorProfileDtoById(advisorId);
+        }
+
+        // assert: one miss loads the advisor, the next three views hit
+        assertThat(registry.get("hibernate.cache.hit.ratio").tag("region", EntityCacheConfig.ADVISOR_REGION)
+                .gauge().value()).isEqualTo(0.75);
+        assertThat(registry.get("hibernate.cache.requests").tags("region", EntityCacheConfig.ADVISOR_REGION, "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+}
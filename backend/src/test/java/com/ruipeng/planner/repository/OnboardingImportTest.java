@@ -0,0 +1,275 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.dto.OnboardingImportStatusDto;
+import com.ruipeng.planner.entity.Advisor;
+import com.ruipeng.planner.entity.ImportFormat;
+import com.ruipeng.planner.entity.ImportJobStatus;
+import com.ruipeng.planner.entity.OnboardingImportJob;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserRole;
+import com.ruipeng.planner.service.OnboardingImportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 导入按批提交自己的事务，这里不能包在测试事务里
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "onboarding.import.directory=target/onboarding-imports-test"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OnboardingImportService.class, OnboardingImportTest.ImportTestConfig.class})
+public class OnboardingImportTest {
+    private static final Path DIRECTORY = Path.of("target/onboarding-imports-test");
+    private static final String HEADER = "email,password,first_name,last_name,role,age,occupation,specialties,languages\n";
+
+    @TestConfiguration
+    static class ImportTestConfig {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            // 最低强度，测试不关心哈希成本
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        @Bean
+        TaskExecutor importJobExecutor() {
+            return new SyncTaskExecutor();
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor importHashExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(4);
+            executor.setMaxPoolSize(4);
+            executor.initialize();
+            return executor;
+        }
+    }
+
+    @Autowired
+    private OnboardingImportService importService;
+
+    @Autowired
+    private OnboardingImportJobRepository jobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private AdvisorRepository advisorRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        advisorRepository.deleteAll();
+        userProfileRepository.deleteAll();
+        userRepository.deleteAll();
+        jobRepository.deleteAll();
+    }
+
+    private static String row(int n, String role) {
+        return "user" + n + "@example.com,secret" + n + ",First" + n + ",Last" + n + "," + role
+                + ",3" + (n % 10) + ",Engineer,Tax;Retirement Planning,English\n";
+    }
+
+    private OnboardingImportStatusDto upload(String fileName, Integer batchSize, String content) throws Exception {
+        return importService.startImport(fileName, null, batchSize,
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void should_import_users_and_advisors_in_batched_statements() throws Exception {
+        // arrange
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int n = 1; n <= 60; n++) {
+            csv.append(row(n, n % 3 == 0 ? "ADVISOR" : "USER"));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // act
+        OnboardingImportStatusDto started = upload("clients.csv", 30, csv.toString());
+        OnboardingImportStatusDto status = importService.getImportStatus(started.getId());
+
+        // assert
+        assertThat(status.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(status.getProcessedRows()).isEqualTo(60);
+        assertThat(status.getImportedUsers()).isEqualTo(60);
+        assertThat(status.getImportedAdvisors()).isEqualTo(20);
+        assertThat(status.getRejectedRows()).isZero();
+        assertThat(userRepository.count()).isEqualTo(60);
+        assertThat(userProfileRepository.count()).isEqualTo(40);
+        List<Long> advisorIds = advisorRepository.findAll().stream().map(Advisor::getId).toList();
+        assertThat(advisorIds).hasSize(20);
+        assertThat(advisorRepository.findSpecialtiesByAdvisorIds(advisorIds)).hasSize(40);
+        // 每批每张表一条批量 INSERT，语句数远小于行数
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(60);
+
+        User user = userRepository.findByEmail("user1@example.com").orElseThrow();
+        assertThat(user.getPasswordHash()).startsWith("$2a$04$");
+        assertThat(new BCryptPasswordEncoder().matches("secret1", user.getPasswordHash())).isTrue();
+        // 完成后删除含明文密码的文件
+        assertThat(Files.exists(DIRECTORY.resolve(started.getId() + ".csv"))).isFalse();
+    }
+
+    @Test
+    void should_reject_invalid_duplicate_and_existing_rows() throws Exception {
+        // arrange
+        upload("first.csv", null, HEADER + row(1, "USER"));
+        String jsonl = "{\"email\":\"USER1@example.com\",\"password\":\"secret1\",\"firstName\":\"A\",\"lastName\":\"B\"}\n"
+                + "{\"email\":\"new@example.com\",\"password\":\"secret1\",\"firstName\":\"A\",\"lastName\":\"B\"}\n"
+                + "{\"email\":\"NEW@example.com\",\"password\":\"secret1\",\"firstName\":\"C\",\"lastName\":\"D\"}\n"
+                + "{\"email\":\"bad\",\"password\":\"1\",\"firstName\":\"A\",\"lastName\":\"B\"}\n"
+                + "{\"email\":\"root@example.com\",\"password\":\"secret1\",\"firstName\":\"A\",\"lastName\":\"B\",\"role\":\"admin\"}\n"
+                + "{\"email\":\"age@example.com\",\"password\":\"secret1\",\"firstName\":\"A\",\"lastName\":\"B\",\"age\":\"old\"}\n"
+                + "not json\n";
+
+        // act
+        OnboardingImportStatusDto started = upload("more.jsonl", null, jsonl);
+        OnboardingImportStatusDto status = importService.getImportStatus(started.getId());
+
+        // assert
+        assertThat(status.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(status.getProcessedRows()).isEqualTo(7);
+        assertThat(status.getImportedUsers()).isEqualTo(1);
+        assertThat(status.getRejectedRows()).isEqualTo(6);
+        assertThat(status.getLastError()).isNotBlank();
+        assertThat(userRepository.findAll()).extracting(User::getEmail)
+                .containsExactlyInAnyOrder("user1@example.com", "new@example.com");
+    }
+
+    @Test
+    void should_resume_from_last_committed_batch() throws Exception {
+        // arrange: the last record is cut off, so the job fails after the first batch is committed
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int n = 1; n <= 5; n++) {
+            csv.append(row(n, n == 2 ? "ADVISOR" : "USER"));
+        }
+        OnboardingImportStatusDto failed = upload("clients.csv", 2, csv + "\"user6@example.com");
+        assertThat(importService.getImportStatus(failed.getId()).getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(importService.getImportStatus(failed.getId()).getProcessedRows()).isEqualTo(2);
+        // 失败后同样删除含明文密码的文件
+        assertThat(Files.exists(DIRECTORY.resolve(failed.getId() + ".csv"))).isFalse();
+
+        // act
+        importService.resumeImport(failed.getId(),
+                new ByteArrayInputStream((csv + row(6, "USER")).getBytes(StandardCharsets.UTF_8)));
+        OnboardingImportStatusDto status = importService.getImportStatus(failed.getId());
+
+        // assert
+        assertThat(status.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(status.getProcessedRows()).isEqualTo(6);
+        assertThat(status.getImportedUsers()).isEqualTo(6);
+        assertThat(status.getImportedAdvisors()).isEqualTo(1);
+        assertThat(status.getRejectedRows()).isZero();
+        assertThat(userRepository.count()).isEqualTo(6);
+        assertThat(advisorRepository.count()).isEqualTo(1);
+        User advisor = userRepository.findByEmail("user2@example.com").orElseThrow();
+        assertThat(advisor.getRole()).isEqualTo(UserRole.ADVISOR);
+        assertThat(advisorRepository.findByUserId(advisor.getId())).isPresent();
+    }
+
+    @Test
+    void should_allow_only_one_running_import() throws Exception {
+        // arrange
+        OnboardingImportJob running = new OnboardingImportJob();
+        running.setStatus(ImportJobStatus.RUNNING);
+        running.setFileName("first.csv");
+        running.setFormat(ImportFormat.CSV);
+        running.setBatchSize(500);
+        running.setProcessedRows(0L);
+        running.setCreatedAt(LocalDateTime.now());
+        jobRepository.save(running);
+
+        // act & assert
+        assertThatThrownBy(() -> upload("second.csv", null, HEADER + row(1, "USER")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    void should_enforce_a_single_running_import_in_the_database() {
+        // arrange: two uploads that both passed the RUNNING check before either was inserted
+        OnboardingImportJob first = runningJob("first.csv");
+        jobRepository.save(first);
+
+        // act & assert
+        assertThatThrownBy(() -> jobRepository.save(runningJob("second.csv")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(jobRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_fail_job_and_delete_file_when_the_queue_rejects_it() {
+        // arrange
+        TaskExecutor rejecting = task -> {
+            throw new TaskRejectedException("queue full");
+        };
+        TaskExecutor original = (TaskExecutor) ReflectionTestUtils.getField(importService, "importJobExecutor");
+        ReflectionTestUtils.setField(importService, "importJobExecutor", rejecting);
+
+        try {
+            // act & assert
+            assertThatThrownBy(() -> upload("clients.csv", null, HEADER + row(1, "USER")))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            ReflectionTestUtils.setField(importService, "importJobExecutor", original);
+        }
+        OnboardingImportJob job = jobRepository.findAll().get(0);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.getRunningGuard()).isNull();
+        assertThat(Files.exists(DIRECTORY.resolve(job.getId() + ".csv"))).isFalse();
+        // 失败的任务不再挡住新的导入
+        assertThat(upload("again.csv", null, HEADER + row(1, "USER")).getId()).isNotNull();
+    }
+
+    private static OnboardingImportJob runningJob(String fileName) {
+        OnboardingImportJob job = new OnboardingImportJob();
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setRunningGuard(Boolean.TRUE);
+        job.setFileName(fileName);
+        job.setFormat(ImportFormat.CSV);
+        job.setBatchSize(500);
+        job.setProcessedRows(0L);
+        job.setCreatedAt(LocalDateTime.now());
+        return job;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ruipeng.planner.repository;
+
+import com.ruipeng.planner.entity.AppointmentStatus;
+import com.ruipeng.planner.support.CapturedSql;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each finder, takes the SQL Hibernate generated for it and checks the database's
+ * EXPLAIN output uses the indexes from {@code V2__performance_indexes.sql}.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ruipeng.planner.support.CapturedSql")
+public class RepositoryQueryPlanTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AvailabilitySlotRepository availabilitySlotRepository;
+
+    @Autowired
+    private FinancialPlanRepository financialPlanRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean postgres;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        try (var connection = dataSource.getConnection()) {
+            postgres = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL");
+        }
+        if (postgres) {
+            // 测试库数据量太小，Postgres 总会选择顺序扫描
+            jdbcTemplate.execute("SET enable_seqscan = off");
+        }
+    }
+
+    private String explain(Runnable finder, Object... params) {
+        CapturedSql.clear();
+        finder.run();
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + CapturedSql.lastSelect(), String.class, params));
+    }
+
+    private void assertUsesIndex(String plan, String index) {
+        assertThat(plan).containsIgnoringCase(index);
+    }
+
+    private void assertNoFullScan(String plan) {
+        // H2: "tableScan"；Postgres: "Seq Scan"
+        assertThat(plan).doesNotContainIgnoringCase("tableScan").doesNotContainIgnoringCase("Seq Scan");
+    }
+
+    @Test
+    void appointment_finders_use_indexes() {
+        assertNoFullScan(explain(() -> appointmentRepository.findByUserId(1L), 1L));
+        assertNoFullScan(explain(() -> appointmentRepository.findByAdvisorId(1L), 1L));
+        assertNoFullScan(explain(() -> appointmentRepository.findByAdvisorIdAndStatus(1L, AppointmentStatus.CONFIRMED),
+                1L, "CONFIRMED"));
+
+        assertUsesIndex(explain(() -> appointmentRepository.findByUserIdAndStatus(1L, AppointmentStatus.CONFIRMED),
+                1L, "CONFIRMED"), "idx_appointments_user_status");
+        assertUsesIndex(explain(() -> appointmentRepository.findByAppointmentDateBetween(START, END),
+                START, END), "idx_appointments_date");
+        assertUsesIndex(explain(() -> appointmentRepository.findByAdvisorIdAndAppointmentDateBetween(1L, START, END),
+                1L, START, END), "idx_appointments_advisor_date");
+    }
+
+    @Test
+    void availability_slot_finders_use_indexes() {
+        LocalDate day = LocalDate.of(2025, 1, 6);
+
+        assertNoFullScan(explain(() -> availabilitySlotRepository.findByAdvisorId(1L), 1L));
+        assertNoFullScan(explain(() -> availabilitySlotRepository.findAvailableSlotsByDateRange(1L, day, day.plusDays(7)),
+                1L, day, day.plusDays(7)));
+
+        assertUsesIndex(explain(() -> availabilitySlotRepository.findByAdvisorIdAndDayOfWeek(1L, 1),
+                1L, 1), "idx_availability_slots_advisor_day");
+        assertUsesIndex(explain(() -> availabilitySlotRepository.findByAdvisorIdAndSpecificDate(1L, day),
+                1L, day), "idx_availability_slots_advisor_date");
+    }
+
+    @Test
+    void plan_summaries_read_only_summary_columns_without_full_scan() {
+        // Slice 多取一行：参数为 userId 和 size + 1
+        assertNoFullScan(explain(() -> financialPlanRepository.findSummariesByUserId(1L, PageRequest.of(0, 20)),
+                1L, 21));
+        assertThat(CapturedSql.lastSelect())
+                .doesNotContainIgnoringCase("asset_allocation")
+                .doesNotContainIgnoringCase("goal_timeline")
+                .doesNotContainIgnoringCase("investment_recommendations")
+                .doesNotContainIgnoringCase("action_plan");
+    }
+}
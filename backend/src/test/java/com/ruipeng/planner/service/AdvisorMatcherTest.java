@@ -0,0 +1,127 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdvisorMatcherTest {
+
+    private final AdvisorMatcher matcher = new AdvisorMatcher();
+
+    private static AdvisorProfileDto advisor(long id, Double rating, int experienceYears, Set<String> specialties,
+                                             Set<String> languages) {
+        AdvisorProfileDto advisor = new AdvisorProfileDto();
+        advisor.setId(id);
+        advisor.setAverageRating(rating);
+        advisor.setExperienceYears(experienceYears);
+        advisor.setSpecialties(specialties);
+        advisor.setLanguages(languages);
+        return advisor;
+    }
+
+    private static AdvisorMatcher.Candidate candidate(AdvisorProfileDto advisor, int upcomingAppointments) {
+        return new AdvisorMatcher.Candidate(advisor, upcomingAppointments);
+    }
+
+    private List<Long> match(AdvisorMatcher.Need need, int k) {
+        return matcher.match(need, k).stream().map(AdvisorMatcher.Match::advisorId).toList();
+    }
+
+    private void indexSample() {
+        matcher.rebuild(() -> List.of(
+                candidate(advisor(1, 4.0, 8, Set.of("Retirement Planning"), Set.of("English")), 2),
+                candidate(advisor(2, 4.9, 15, Set.of("Tax Planning"), Set.of("English", "Chinese")), 2),
+                candidate(advisor(3, 3.5, 3, Set.of("Estate Planning", "Retirement Planning"), Set.of("Spanish")), 0),
+                candidate(advisor(4, null, 1, Set.of("Debt Management", "Budgeting"), Set.of("Chinese")), 0)));
+    }
+
+    @Test
+    void should_rank_advisors_by_profile_needs() {
+        // arrange
+        indexSample();
+
+        // act & assert
+        // 明确的兴趣和目标优先于评分
+        assertThat(match(new AdvisorMatcher.Need(List.of("Retirement income"), List.of("Retire at 55"), null, null, null), 2))
+                .containsExactly(1L, 3L);
+        assertThat(match(new AdvisorMatcher.Need(List.of("Taxes"), List.of(), null, null, null), 1))
+                .containsExactly(2L);
+        // 短期、低风险的推断需求指向预算和负债
+        assertThat(match(new AdvisorMatcher.Need(List.of(), List.of(), 2, "SHORT_TERM", null), 1))
+                .containsExactly(4L);
+        // 没有需求时按评分、经验和负载排序
+        assertThat(match(new AdvisorMatcher.Need(null, null, null, null, null), 4))
+                .containsExactly(2L, 1L, 3L, 4L);
+    }
+
+    @Test
+    void should_prefer_advisors_speaking_requested_language() {
+        // arrange
+        indexSample();
+        AdvisorMatcher.Need retirement = new AdvisorMatcher.Need(List.of("retirement"), List.of(), null, null,
+                List.of("spanish"));
+
+        // act
+        List<AdvisorMatcher.Match> matches = matcher.match(retirement, 4);
+
+        // assert
+        assertThat(matches).extracting(AdvisorMatcher.Match::advisorId).startsWith(3L, 1L);
+        assertThat(matches.get(0).score()).isGreaterThan(matches.get(1).score());
+    }
+
+    @Test
+    void should_apply_profile_and_rating_updates() {
+        // arrange
+        indexSample();
+        AdvisorMatcher.Need budgeting = new AdvisorMatcher.Need(List.of("budget"), List.of(), null, null, null);
+
+        // act
+        matcher.put(advisor(5, 5.0, 20, Set.of("Budgeting"), Set.of("English")));
+        List<Long> withNewAdvisor = match(budgeting, 2);
+        matcher.updateRating(5L, 1.0);
+        matcher.put(advisor(4, 4.5, 1, Set.of("Budgeting"), Set.of("Chinese")));
+        List<Long> afterUpdates = match(budgeting, 2);
+
+        // assert
+        assertThat(withNewAdvisor).containsExactly(5L, 4L);
+        assertThat(afterUpdates).containsExactly(4L, 5L);
+        assertThat(matcher.size()).isEqualTo(5);
+    }
+
+    @Test
+    void should_keep_same_top_k_as_full_ranking() {
+        // arrange: more than 64 specialties so masks need several words
+        Random random = new Random(7);
+        List<AdvisorMatcher.Candidate> candidates = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            Set<String> specialties = new HashSet<>();
+            for (int s = 0; s < 3; s++) {
+                specialties.add("Topic" + random.nextInt(100) + " Planning");
+            }
+            Double rating = random.nextInt(5) == 0 ? null : 1 + random.nextInt(5) * 1.0;
+            candidates.add(candidate(advisor(i, rating, random.nextInt(30), specialties,
+                    Set.of(random.nextBoolean() ? "English" : "Hindi")), random.nextInt(10)));
+        }
+        matcher.rebuild(() -> candidates);
+        AdvisorMatcher.Need need = new AdvisorMatcher.Need(List.of("topic7", "topic70", "topic99"), List.of(),
+                8, "LONG_TERM", List.of("Hindi"));
+
+        // act
+        List<AdvisorMatcher.Match> all = matcher.match(need, 500);
+        List<AdvisorMatcher.Match> top = matcher.match(need, 10);
+
+        // assert
+        assertThat(all).hasSize(500);
+        assertThat(top).isEqualTo(all.subList(0, 10));
+        for (int i = 1; i < all.size(); i++) {
+            assertThat(all.get(i - 1).score()).isGreaterThanOrEqualTo(all.get(i).score());
+        }
+    }
+}
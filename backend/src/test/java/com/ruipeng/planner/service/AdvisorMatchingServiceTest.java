@@ -0,0 +1,66 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.dto.AdvisorRecommendationDto;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdvisorMatchingServiceTest {
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private AdvisorService advisorService;
+
+    @Mock
+    private AdvisorMatcher matcher;
+
+    private AdvisorMatchingService matchingService;
+
+    @BeforeEach
+    void setUp() {
+        matchingService = new AdvisorMatchingService(userProfileRepository, advisorService, matcher, new ObjectMapper());
+    }
+
+    private static AdvisorProfileDto advisor(long id) {
+        AdvisorProfileDto advisor = new AdvisorProfileDto();
+        advisor.setId(id);
+        return advisor;
+    }
+
+    @Test
+    void should_fill_the_limit_when_matched_advisors_were_deleted() {
+        // arrange: 匹配器仍包含顾问 1 和 3，但它们已从数据库删除
+        when(userProfileRepository.findByUserId(9L)).thenReturn(Optional.empty());
+        when(matcher.match(any(), eq(8))).thenReturn(LongStream.rangeClosed(1, 8)
+                .mapToObj(id -> new AdvisorMatcher.Match(id, 1.0 / id))
+                .toList());
+        when(advisorService.getAdvisorProfiles(anyList())).thenReturn(List.of(
+                advisor(2), advisor(4), advisor(5), advisor(6), advisor(7), advisor(8)));
+
+        // act
+        List<AdvisorRecommendationDto> result = matchingService.recommendAdvisors(9L, null, 3);
+
+        // assert
+        assertThat(result).extracting(recommendation -> recommendation.getAdvisor().getId())
+                .containsExactly(2L, 4L, 5L);
+        assertThat(result.get(0).getScore()).isEqualTo(0.5);
+    }
+}
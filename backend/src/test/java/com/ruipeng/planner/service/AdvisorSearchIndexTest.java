@@ -0,0 +1,132 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdvisorSearchIndexTest {
+
+    private final AdvisorSearchIndex index = new AdvisorSearchIndex();
+
+    private static AdvisorProfileDto advisor(long id, Double rating, int experienceYears, Set<String> specialties,
+                                             Set<String> languages, String bio) {
+        AdvisorProfileDto advisor = new AdvisorProfileDto();
+        advisor.setId(id);
+        advisor.setAverageRating(rating);
+        advisor.setExperienceYears(experienceYears);
+        advisor.setSpecialties(specialties);
+        advisor.setLanguages(languages);
+        advisor.setBio(bio);
+        advisor.setProfessionalTitle("Financial Planner");
+        return advisor;
+    }
+
+    private List<Long> search(AdvisorSearchIndex.Query query) {
+        return index.search(query, 0, 10).advisorIds();
+    }
+
+    private void indexSample() {
+        index.rebuild(() -> List.of(
+                advisor(1, 4.2, 4, Set.of("Retirement Planning"), Set.of("English"), "Pensions and annuities"),
+                advisor(2, 4.8, 12, Set.of("Tax Planning", "Retirement Planning"), Set.of("English", "Chinese"),
+                        "Cross-border tax for expats"),
+                advisor(3, null, 25, Set.of("Tax Planning"), Set.of("Chinese"), "Small business tax"),
+                advisor(4, 4.8, 5, Set.of("Estate Planning"), Set.of("Spanish"), "Trusts, wills and tax")));
+    }
+
+    @Test
+    void should_combine_criteria_and_rank_by_rating() {
+        // arrange
+        indexSample();
+
+        // act & assert
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, null, null, null))).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(search(new AdvisorSearchIndex.Query(List.of("tax planning", "Estate Planning"), null, null, null, null)))
+                .containsExactly(2L, 4L, 3L);
+        assertThat(search(new AdvisorSearchIndex.Query(List.of("Tax Planning"), List.of("Chinese"), 20, null, null)))
+                .containsExactly(3L);
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, 5, 4.5, "TAX"))).containsExactly(2L, 4L);
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, null, null, "tax pensions"))).isEmpty();
+    }
+
+    @Test
+    void should_filter_exact_years_inside_experience_bucket() {
+        // arrange: 4 and 5 years share the 3-5 bucket
+        indexSample();
+
+        // act
+        List<Long> result = search(new AdvisorSearchIndex.Query(null, null, 5, null, null));
+
+        // assert
+        assertThat(result).containsExactly(2L, 4L, 3L);
+    }
+
+    @Test
+    void should_page_and_count_all_matches() {
+        // arrange
+        indexSample();
+
+        // act
+        AdvisorSearchIndex.Result second = index.search(new AdvisorSearchIndex.Query(null, null, null, null, null), 2, 2);
+
+        // assert
+        assertThat(second.advisorIds()).containsExactly(1L, 3L);
+        assertThat(second.total()).isEqualTo(4);
+    }
+
+    @Test
+    void should_not_overflow_on_large_offsets() {
+        // arrange
+        indexSample();
+        AdvisorSearchIndex.Query all = new AdvisorSearchIndex.Query(null, null, null, null, null);
+
+        // act
+        AdvisorSearchIndex.Result beyond = index.search(all, Integer.MAX_VALUE - 10, 100);
+
+        // assert
+        assertThat(beyond.advisorIds()).isEmpty();
+        assertThat(beyond.total()).isEqualTo(4);
+        assertThatThrownBy(() -> index.search(all, -1, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_apply_profile_and_rating_updates_incrementally() {
+        // arrange
+        indexSample();
+
+        // act
+        index.put(advisor(1, 4.2, 4, Set.of("Tax Planning"), Set.of("English"), "Now focused on tax"));
+        index.updateRating(3L, 5.0);
+        index.remove(4L);
+
+        // assert
+        assertThat(search(new AdvisorSearchIndex.Query(List.of("Retirement Planning"), null, null, null, null)))
+                .containsExactly(2L);
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, null, null, "tax"))).containsExactly(3L, 2L, 1L);
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, null, null, "pensions"))).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void should_replay_updates_made_while_rebuilding() {
+        // arrange
+        indexSample();
+
+        // act: the profile changes after the loader has read the database
+        index.rebuild(() -> {
+            List<AdvisorProfileDto> loaded = List.of(
+                    advisor(1, 4.2, 4, Set.of("Retirement Planning"), Set.of("English"), "Pensions"));
+            index.updateRating(1L, 2.0);
+            return loaded;
+        });
+
+        // assert
+        assertThat(search(new AdvisorSearchIndex.Query(null, null, null, 3.0, null))).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
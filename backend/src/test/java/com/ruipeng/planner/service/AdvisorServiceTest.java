@@ -1,5 +1,6 @@
 package com.ruipeng.planner.service;
 
+import com.ruipeng.planner.dto.AdvisorDirectoryPage;
 import com.ruipeng.planner.dto.AdvisorProfileDto;
 import com.ruipeng.planner.dto.AvailabilitySlotDto;
 import com.ruipeng.planner.entity.*;
@@ -39,6 +40,15 @@ public class AdvisorServiceTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private AdvisorSearchIndex searchIndex;
+
+    @Mock
+    private AdvisorTagTypeahead tagTypeahead;
+
+    @Mock
+    private AdvisorMatcher matcher;
+
     @InjectMocks
     private AdvisorService advisorService;
 
@@ -85,10 +95,20 @@ public class AdvisorServiceTest {
     @Test
     void should_return_all_advisors() {
         // prepare
-        List<Advisor> advisor_list = createDiverseMockAdvisorList();
+        AdvisorProfileDto john = new AdvisorProfileDto(1L, "John", "Smith", null, 8, 4.8,
+                "Senior Financial Advisor with expertise in wealth management", "http://example.com/john_smith.jpg");
+        AdvisorProfileDto emily = new AdvisorProfileDto(2L, "Emily", "Johnson", null, 5, 4.6,
+                "Investment specialist focused on portfolio optimization", "http://example.com/emily_johnson.jpg");
 
         // arrange
-        when(advisorRepository.findAllByOrderByRatingDesc()).thenReturn(advisor_list);
+        when(advisorRepository.findAllProfilesOrderByRatingDesc()).thenReturn(List.of(john, emily));
+        when(advisorRepository.findSpecialtiesByAdvisorIds(List.of(1L, 2L))).thenReturn(List.of(
+                new Object[]{1L, "Financial Planning"},
+                new Object[]{1L, "Investment Advisory"},
+                new Object[]{1L, "Retirement Planning"},
+                new Object[]{2L, "Stock Investment"}));
+        when(advisorRepository.findLanguagesByAdvisorIds(List.of(1L, 2L))).thenReturn(List.<Object[]>of(
+                new Object[]{2L, "English"}));
 
         // act
         List<AdvisorProfileDto> result = advisorService.getAllAdvisors();
@@ -105,6 +125,7 @@ public class AdvisorServiceTest {
         assertThat(firstAdvisor.getAverageRating()).isEqualTo(4.8);
         assertThat(firstAdvisor.getProfileImageUrl()).isEqualTo("http://example.com/john_smith.jpg");
         assertThat(firstAdvisor.getSpecialties()).contains("Financial Planning", "Investment Advisory", "Retirement Planning");
+        assertThat(firstAdvisor.getLanguages()).isEmpty();
 
         // 验证第二个顾问的信息
         AdvisorProfileDto secondAdvisor = result.get(1);
@@ -114,9 +135,11 @@ public class AdvisorServiceTest {
         assertThat(secondAdvisor.getBio()).isEqualTo("Investment specialist focused on portfolio optimization");
         assertThat(secondAdvisor.getExperienceYears()).isEqualTo(5);
         assertThat(secondAdvisor.getAverageRating()).isEqualTo(4.6);
+        assertThat(secondAdvisor.getSpecialties()).containsExactly("Stock Investment");
+        assertThat(secondAdvisor.getLanguages()).containsExactly("English");
 
-        // 验证Repository方法被调用
-        verify(advisorRepository).findAllByOrderByRatingDesc();
+        // 验证不再加载顾问实体
+        verify(advisorRepository, never()).findAllByOrderByRatingDesc();
     }
 
     @Test
@@ -204,6 +227,42 @@ public class AdvisorServiceTest {
         verify(advisorRepository).findByLanguage("English");
     }
 
+    @Test
+    void should_return_next_cursor_only_when_more_advisors_remain() {
+        // arrange: one extra row means another page exists
+        List<AdvisorProfileDto> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            rows.add(new AdvisorProfileDto(id, "First", "Last", null, 5, 4.5, null, null));
+        }
+        when(advisorRepository.findDirectoryPage("Tax", null, 4.0, null, null, null, 3)).thenReturn(rows);
+        when(advisorRepository.findDirectoryPage("Tax", null, 4.0, null, 4.5, 2L, 3)).thenReturn(rows.subList(2, 3));
+
+        // act
+        AdvisorDirectoryPage first = advisorService.getAdvisorDirectory(" Tax ", "", 4.0, null, null, 2);
+        AdvisorDirectoryPage second = advisorService.getAdvisorDirectory("Tax", null, 4.0, null, first.getNextCursor(), 2);
+
+        // assert
+        assertThat(first.getAdvisors()).extracting(AdvisorProfileDto::getId).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isEqualTo(AdvisorService.encodeCursor(4.5, 2L));
+        assertThat(second.getAdvisors()).extracting(AdvisorProfileDto::getId).containsExactly(3L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void should_reject_invalid_directory_requests() {
+        assertThatThrownBy(() -> advisorService.getAdvisorDirectory(null, null, null, null, "not-a-cursor", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid directory cursor");
+        assertThatThrownBy(() -> advisorService.getAdvisorDirectory(null, null, null, null, null, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        // page * size 超出 int 范围时也要拒绝，而不是溢出成负数
+        assertThatThrownBy(() -> advisorService.searchAdvisors(null, null, null, null, null, Integer.MAX_VALUE, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> advisorService.searchAdvisors(null, null, null, null, null, 50, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(advisorRepository);
+    }
+
     @Test
     void should_update_advisor_profile() {
         // arrange
@@ -234,6 +293,9 @@ public class AdvisorServiceTest {
 
         verify(advisorRepository).findById(1L);
         verify(advisorRepository).save(existingAdvisor);
+        verify(searchIndex).put(any(AdvisorProfileDto.class));
+        verify(tagTypeahead).put(any(AdvisorProfileDto.class));
+        verify(matcher).put(any(AdvisorProfileDto.class));
     }
 
     @Test
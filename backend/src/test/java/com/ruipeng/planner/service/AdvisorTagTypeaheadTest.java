@@ -0,0 +1,97 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdvisorProfileDto;
+import com.ruipeng.planner.dto.TagSuggestionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdvisorTagTypeaheadTest {
+
+    private final AdvisorTagTypeahead typeahead = new AdvisorTagTypeahead();
+
+    private static AdvisorProfileDto advisor(long id, Set<String> specialties, Set<String> languages) {
+        AdvisorProfileDto advisor = new AdvisorProfileDto();
+        advisor.setId(id);
+        advisor.setSpecialties(specialties);
+        advisor.setLanguages(languages);
+        return advisor;
+    }
+
+    private static List<String> values(List<TagSuggestionDto> suggestions) {
+        return suggestions.stream().map(TagSuggestionDto::getValue).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        typeahead.rebuild(() -> List.of(
+                advisor(1, Set.of("Retirement Planning", "Tax Planning"), Set.of("English")),
+                advisor(2, Set.of("Retirement Planning"), Set.of("English", "Spanish")),
+                advisor(3, Set.of("Tax Planning", "Real Estate"), Set.of("Swedish")),
+                advisor(4, Set.of("Retirement Planning", "Tax Planning"), Set.of("English"))));
+    }
+
+    @Test
+    void should_rank_completions_by_advisor_count() {
+        // act
+        List<TagSuggestionDto> suggestions = typeahead.suggestSpecialties("re", 10);
+
+        // assert
+        assertThat(values(suggestions)).containsExactly("Retirement Planning", "Real Estate");
+        assertThat(suggestions.get(0).getAdvisorCount()).isEqualTo(3);
+        assertThat(values(typeahead.suggestLanguages("S", 10))).containsExactly("Spanish", "Swedish");
+    }
+
+    @Test
+    void should_match_any_word_ignoring_case_and_spacing() {
+        // act & assert
+        assertThat(values(typeahead.suggestSpecialties("PLAN", 10))).containsExactly("Retirement Planning", "Tax Planning");
+        assertThat(values(typeahead.suggestSpecialties("  estate", 10))).containsExactly("Real Estate");
+        assertThat(values(typeahead.suggestSpecialties("retirement  pl", 10))).containsExactly("Retirement Planning");
+        assertThat(typeahead.suggestSpecialties("xyz", 10)).isEmpty();
+        assertThat(values(typeahead.suggestSpecialties("", 1))).containsExactly("Retirement Planning");
+    }
+
+    @Test
+    void should_apply_profile_changes_incrementally() {
+        // act: advisor 3 drops real estate and picks up retirement; advisor 2 changes language
+        typeahead.put(advisor(3, Set.of("Tax Planning", "Retirement Planning"), Set.of("Swedish")));
+        typeahead.put(advisor(2, Set.of("Retirement Planning"), Set.of("English", "Swahili")));
+        // 重复应用同一份资料不改变计数
+        typeahead.put(advisor(2, Set.of("Retirement Planning"), Set.of("English", "Swahili")));
+
+        // assert
+        assertThat(typeahead.suggestSpecialties("re", 10)).extracting(TagSuggestionDto::getAdvisorCount)
+                .containsExactly(4);
+        assertThat(typeahead.suggestSpecialties("estate", 10)).isEmpty();
+        assertThat(values(typeahead.suggestLanguages("s", 10))).containsExactly("Swahili", "Swedish");
+        assertThat(typeahead.suggestLanguages("english", 10)).extracting(TagSuggestionDto::getAdvisorCount)
+                .containsExactly(3);
+    }
+
+    @Test
+    void should_keep_only_the_best_completions_per_prefix() {
+        // arrange: more values under one prefix than a node caches
+        List<AdvisorProfileDto> advisors = new ArrayList<>();
+        for (int i = 0; i < AdvisorTagTypeahead.MAX_SUGGESTIONS + 5; i++) {
+            for (int n = 0; n <= i; n++) {
+                advisors.add(advisor(i * 100L + n, Set.of("Topic " + (char) ('a' + i)), Set.of()));
+            }
+        }
+        typeahead.rebuild(() -> advisors);
+
+        // act
+        List<TagSuggestionDto> suggestions = typeahead.suggestSpecialties("topic", 20);
+        typeahead.put(advisor(9999, Set.of("Topic a"), Set.of()));
+
+        // assert
+        assertThat(suggestions).hasSize(AdvisorTagTypeahead.MAX_SUGGESTIONS);
+        assertThat(suggestions.get(0).getValue()).isEqualTo("Topic o");
+        assertThat(values(typeahead.suggestSpecialties("topic a", 5))).containsExactly("Topic a");
+    }
+}
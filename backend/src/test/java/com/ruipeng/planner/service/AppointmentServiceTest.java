@@ -3,6 +3,7 @@ package com.ruipeng.planner.service;
 
 import com.ruipeng.planner.dto.AppointmentCreateDto;
 import com.ruipeng.planner.dto.AppointmentDetailsDto;
+import com.ruipeng.planner.dto.AppointmentPage;
 import com.ruipeng.planner.dto.OAuthSuccessEvent;
 import com.ruipeng.planner.entity.*;
 import com.ruipeng.planner.repository.AdvisorRepository;
@@ -17,10 +18,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -109,40 +112,66 @@ public class AppointmentServiceTest {
         mockFinancialPlan.setPlanName("Retirement Plan");
     }
 
+    private AppointmentDetailsDto detailsRow(Long id, Long advisorId) {
+        return new AppointmentDetailsDto(id, LocalDateTime.of(2025, 6, 25, 10, 0), 60,
+                SessionType.INITIAL_CONSULTATION, AppointmentStatus.CONFIRMED, null, "Initial consultation", null,
+                advisorId, "Jane", "Smith", "CFP", 1L, "John", "Doe", null, null, null, null);
+    }
+
     @Test
     void should_get_user_appointments() {
         // arrange
-        List<Appointment> appointments = List.of(mockAppointment);
-        when(appointmentRepository.findByUserId(1L)).thenReturn(appointments);
+        when(appointmentRepository.findAppointmentHistory(1L, null, AppointmentStatus.CONFIRMED,
+                LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0), 0, 21))
+                .thenReturn(List.of(detailsRow(1L, 1L)));
+        when(advisorRepository.findSpecialtiesByAdvisorIds(Set.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "Retirement Planning"}));
 
         // act
-        List<AppointmentDetailsDto> result = appointmentService.getUserAppointments(1L);
+        AppointmentPage result = appointmentService.getUserAppointments(1L, AppointmentStatus.CONFIRMED,
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30), 0, 20);
 
         // assert
-        assertThat(result).hasSize(1);
-        AppointmentDetailsDto dto = result.get(0);
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getAppointments()).hasSize(1);
+        AppointmentDetailsDto dto = result.getAppointments().get(0);
         assertThat(dto.getId()).isEqualTo(1L);
         assertThat(dto.getAdvisorFirstName()).isEqualTo("Jane");
         assertThat(dto.getAdvisorLastName()).isEqualTo("Smith");
+        assertThat(dto.getAdvisorSpecialties()).containsExactly("Retirement Planning");
         assertThat(dto.getSessionType()).isEqualTo(SessionType.INITIAL_CONSULTATION+"");
         assertThat(dto.getStatus()).isEqualTo(AppointmentStatus.CONFIRMED+"");
-
-        verify(appointmentRepository).findByUserId(1L);
     }
 
     @Test
     void should_get_advisor_appointments() {
-        // arrange
-        List<Appointment> appointments = List.of(mockAppointment);
-        when(appointmentRepository.findByAdvisorId(1L)).thenReturn(appointments);
+        // arrange: one extra row means another page exists
+        when(appointmentRepository.findAppointmentHistory(null, 1L, null, null, null, 2, 3))
+                .thenReturn(List.of(detailsRow(3L, 1L), detailsRow(4L, 1L), detailsRow(5L, 1L)));
 
         // act
-        List<Appointment> result = appointmentService.getAdvisorAppointments(1L);
+        AppointmentPage result = appointmentService.getAdvisorAppointments(1L, null, null, null, 1, 2);
 
         // assert
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getId()).isEqualTo(1L);
-        verify(appointmentRepository).findByAdvisorId(1L);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getAppointments()).extracting(AppointmentDetailsDto::getId).containsExactly(3L, 4L);
+        assertThat(result.getAppointments().get(0).getClientFirstName()).isEqualTo("John");
+        verify(advisorRepository).findSpecialtiesByAdvisorIds(Set.of(1L));
+    }
+
+    @Test
+    void should_reject_invalid_appointment_list_requests() {
+        assertThatThrownBy(() -> appointmentService.getUserAppointments(1L, null, null, null, 0, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> appointmentService.getUserAppointments(1L, null,
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), 0, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        // 超出可翻页深度，不再从两张表拉取大量行
+        assertThatThrownBy(() -> appointmentService.getUserAppointments(1L, null, null, null, 10000, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> appointmentService.getAdvisorAppointments(1L, null, null, null, Integer.MAX_VALUE, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(appointmentRepository);
     }
 
     @Test
@@ -1,9 +1,13 @@
 package com.ruipeng.planner.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AIResponseDto;
+import com.ruipeng.planner.dto.FinancialPlanPage;
 import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.dto.FinancialPlanSummaryDto;
 import com.ruipeng.planner.entity.EducationLevel;
 import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.PlanSource;
 import com.ruipeng.planner.entity.User;
 import com.ruipeng.planner.entity.UserProfile;
 import com.ruipeng.planner.repository.FinancialPlanRepository;
@@ -12,10 +16,18 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -40,6 +52,21 @@ class FinancialPlanServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private LocalPlanEngine localPlanEngine;
+
+    @Spy
+    private SyncTaskExecutor aiTaskExecutor = new SyncTaskExecutor();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AIUsageMetrics aiUsageMetrics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private FinancialPlanService financialPlanService;
 
@@ -96,20 +123,30 @@ class FinancialPlanServiceTest {
     }
 
     @Test
-    void getUserFinancialPlans_Success() {
+    void getUserPlanSummaries_Success() {
         // Arrange
         Long userId = 1L;
-        List<FinancialPlan> expectedPlans = Arrays.asList(testFinancialPlan);
-        when(financialPlanRepository.findByUserId(userId)).thenReturn(expectedPlans);
+        FinancialPlanSummaryDto summary = new FinancialPlanSummaryDto(1L, "Test Plan",
+                LocalDateTime.now(), 75, "Good financial health", "abc12345");
+        when(financialPlanRepository.findSummariesByUserId(userId, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(List.of(summary), PageRequest.of(0, 1), true));
 
         // Act
-        List<FinancialPlan> result = financialPlanService.getUserFinancialPlans(userId);
+        FinancialPlanPage result = financialPlanService.getUserPlanSummaries(userId, 0, 1);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertNull(result.get(0).getUser()); // User should be set to null
-        verify(financialPlanRepository).findByUserId(userId);
+        assertEquals(1, result.getPlans().size());
+        assertEquals("Test Plan", result.getPlans().get(0).getPlanName());
+        assertTrue(result.isHasNext());
+        verify(financialPlanRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void getUserPlanSummaries_InvalidPageSize() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> financialPlanService.getUserPlanSummaries(1L, 0, FinancialPlanService.PLAN_MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(financialPlanRepository);
     }
 
     @Test
@@ -204,6 +241,16 @@ class FinancialPlanServiceTest {
         verify(googleAiService).extractInvestmentRecommendations(aiResponse);
         verify(googleAiService).extractActionPlan(aiResponse);
         verify(financialPlanRepository).save(any(FinancialPlan.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof PlanCreatedEvent created && created.getPlanId().equals(1L)));
+        // 读取和保存各用一个短事务，等待模型时不占用连接
+        InOrder inOrder = inOrder(transactionManager, googleAiService, financialPlanRepository);
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(googleAiService).generateFinancialPlan(testUserProfile, testRequest);
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()));
+        inOrder.verify(financialPlanRepository).save(any(FinancialPlan.class));
+        inOrder.verify(transactionManager).commit(any());
     }
 
     @Test
@@ -245,76 +292,229 @@ class FinancialPlanServiceTest {
     }
 
     @Test
-    void generateFinancialPlan_AIServiceError() throws Exception {
+    void generateFinancialPlan_AIServiceError_FallsBackToLocalPlan() throws Exception {
         // Arrange
         Long userId = 1L;
+        String localPlan = "{\"healthScore\":80,\"healthAssessment\":\"Local\"}";
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
         when(googleAiService.generateFinancialPlan(testUserProfile, testRequest))
                 .thenThrow(new RuntimeException("AI service error"));
+        when(localPlanEngine.generatePlan(testUserProfile, testRequest)).thenReturn(localPlan);
+        when(googleAiService.extractHealthScore(localPlan)).thenReturn(80);
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Act & Assert
-        RuntimeException exception = assertThrows(
-                RuntimeException.class,
-                () -> financialPlanService.generateFinancialPlan(userId, testRequest)
-        );
+        // Act
+        FinancialPlan result = financialPlanService.generateFinancialPlan(userId, testRequest);
+
+        // Assert
+        assertEquals(PlanSource.LOCAL, result.getPlanSource());
+        assertFalse(result.getProvisional());
+        assertEquals(80, result.getHealthScore());
+        verify(localPlanEngine).generatePlan(testUserProfile, testRequest);
+        verify(financialPlanRepository).save(any(FinancialPlan.class));
+    }
 
-        // 打印实际的异常消息以便调试
-        System.out.println("Actual exception message: " + exception.getMessage());
-        System.out.println("Actual exception cause: " + exception.getCause());
+    @Test
+    void generateFinancialPlan_UnparseableAIResponse_FallsBackToLocalPlan() throws Exception {
+        // Arrange
+        Long userId = 1L;
+        String aiResponse = "{\"healthScore\": 90, \"assetAllocation\": ";
+        String localPlan = "{\"healthScore\":80,\"healthAssessment\":\"Local\"}";
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(googleAiService.generateFinancialPlan(testUserProfile, testRequest)).thenReturn(aiResponse);
+        when(googleAiService.extractHealthScore(aiResponse)).thenThrow(new RuntimeException("Unexpected end of input"));
+        when(localPlanEngine.generatePlan(testUserProfile, testRequest)).thenReturn(localPlan);
+        when(googleAiService.extractHealthScore(localPlan)).thenReturn(80);
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // 验证异常消息（根据实际的FinancialPlanService实现调整）
-        assertTrue(exception.getMessage().contains("Error parsing AI response") ||
-                exception.getMessage().contains("AI service error"));
-        verify(userRepository).findById(userId);
-        verify(googleAiService).generateFinancialPlan(testUserProfile, testRequest);
+        // Act
+        FinancialPlan result = financialPlanService.generateFinancialPlan(userId, testRequest);
+
+        // Assert
+        assertEquals(PlanSource.LOCAL, result.getPlanSource());
+        assertFalse(result.getProvisional());
+        assertEquals(80, result.getHealthScore());
+        verify(aiUsageMetrics).recordParseFailure("plans", "unparseable_plan");
+        verify(financialPlanRepository).save(any(FinancialPlan.class));
+    }
+
+    @Test
+    void generateFinancialPlan_AdmissionRejected_IsRethrown() throws Exception {
+        // Arrange
+        Long userId = 1L;
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(googleAiService.generateFinancialPlan(testUserProfile, testRequest))
+                .thenThrow(new ModelAdmissionException(ModelAdmissionException.Reason.RATE_LIMITED, "slow down", 1000));
+
+        // Act & Assert
+        assertThrows(ModelAdmissionException.class,
+                () -> financialPlanService.generateFinancialPlan(userId, testRequest));
+        verifyNoInteractions(localPlanEngine);
         verifyNoInteractions(financialPlanRepository);
     }
 
     @Test
-    void generatePdfReport_Success() throws Exception {
+    void generateFinancialPlan_SlowModel_ReturnsProvisionalPlanAndUpgradesIt() throws Exception {
         // Arrange
-        Long planId = 1L;
-        ObjectMapper realObjectMapper = new ObjectMapper(); // 使用真实的ObjectMapper进行PDF测试
-        FinancialPlanService serviceWithRealMapper = new FinancialPlanService(
-                financialPlanRepository, userRepository, googleAiService, realObjectMapper);
+        Long userId = 1L;
+        String localPlan = "{\"healthScore\":60}";
+        String aiResponse = "{\"healthScore\":90}";
+        List<Runnable> pendingAiCalls = new ArrayList<>();
+        FinancialPlanService hedgedService = new FinancialPlanService(financialPlanRepository, userRepository,
+                googleAiService, objectMapper, localPlanEngine, pendingAiCalls::add, eventPublisher, aiUsageMetrics,
+                transactionManager);
+        ReflectionTestUtils.setField(hedgedService, "hedgeBudgetMs", 10L);
 
-        when(financialPlanRepository.findById(planId)).thenReturn(Optional.of(testFinancialPlan));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(localPlanEngine.generatePlan(testUserProfile, testRequest)).thenReturn(localPlan);
+        when(googleAiService.generateFinancialPlan(testUserProfile, testRequest)).thenReturn(aiResponse);
+        when(googleAiService.extractHealthScore(localPlan)).thenReturn(60);
+        when(googleAiService.extractHealthScore(aiResponse)).thenReturn(90);
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> {
+            FinancialPlan saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
 
         // Act
-        ByteArrayResource result = serviceWithRealMapper.generatePdfReport(planId);
+        FinancialPlan provisional = hedgedService.generateFinancialPlan(userId, testRequest);
+
+        // Assert - local plan is returned first
+        assertEquals(PlanSource.LOCAL, provisional.getPlanSource());
+        assertTrue(provisional.getProvisional());
+        assertEquals(60, provisional.getHealthScore());
+
+        // Act - the model answers later
+        when(financialPlanRepository.findById(42L)).thenReturn(Optional.of(provisional));
+        pendingAiCalls.forEach(Runnable::run);
+
+        // Assert - the same plan is upgraded in place
+        assertEquals(PlanSource.AI, provisional.getPlanSource());
+        assertFalse(provisional.getProvisional());
+        assertEquals(90, provisional.getHealthScore());
+        verify(financialPlanRepository, times(2)).save(provisional);
+        // 临时计划和升级后的内容各预渲染一次
+        verify(eventPublisher, times(2)).publishEvent(any(PlanCreatedEvent.class));
+    }
+
+    private FinancialPlanService serviceWithRealMapper() {
+        return new FinancialPlanService(financialPlanRepository, userRepository, googleAiService,
+                new ObjectMapper(), localPlanEngine, aiTaskExecutor, eventPublisher, aiUsageMetrics, transactionManager);
+    }
+
+    private Map<String, Object> snapshot(int riskTolerance) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("age", 30);
+        snapshot.put("monthlyIncome", new BigDecimal("8000.00"));
+        snapshot.put("riskTolerance", riskTolerance);
+        return snapshot;
+    }
+
+    @Test
+    void refreshFinancialPlan_RegeneratesOnlyAffectedSections() throws Exception {
+        // Arrange
+        FinancialPlanService service = serviceWithRealMapper();
+        testFinancialPlan.setPlanSource(PlanSource.AI);
+        testFinancialPlan.setProfileSnapshotJson(new ObjectMapper().writeValueAsString(snapshot(5)));
+        when(financialPlanRepository.findById(1L)).thenReturn(Optional.of(testFinancialPlan));
+        when(googleAiService.profileSnapshot(testUserProfile)).thenReturn(snapshot(8));
+        when(googleAiService.refreshPlanSections(eq(testUserProfile), any(ProfileDelta.class), anyMap(), anySet()))
+                .thenReturn("{\"assetAllocation\":{\"stocks\":75,\"bonds\":20,\"cash\":5}," +
+                        "\"investmentRecommendations\":[{\"type\":\"Growth ETF\"}]}");
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        FinancialPlan refreshed = service.refreshFinancialPlan(1L);
+
+        // Assert - 读取和保存各用一个短事务，模型调用不在事务内
+        InOrder inOrder = inOrder(transactionManager, googleAiService, financialPlanRepository);
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(googleAiService).refreshPlanSections(any(), any(), anyMap(), anySet());
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()));
+        inOrder.verify(financialPlanRepository).save(any(FinancialPlan.class));
+        inOrder.verify(transactionManager).commit(any());
+
+        ArgumentCaptor<Set<String>> sections = ArgumentCaptor.forClass(Set.class);
+        verify(googleAiService).refreshPlanSections(eq(testUserProfile), any(ProfileDelta.class), anyMap(),
+                sections.capture());
+        assertEquals(Set.of(ProfileDelta.ASSET_ALLOCATION, ProfileDelta.INVESTMENT_RECOMMENDATIONS), sections.getValue());
+        assertNotSame(testFinancialPlan, refreshed);
+        assertEquals("{\"stocks\":75,\"bonds\":20,\"cash\":5}", refreshed.getAssetAllocationJson());
+        assertEquals(testFinancialPlan.getGoalTimelineJson(), refreshed.getGoalTimelineJson());
+        assertEquals(testFinancialPlan.getActionPlanJson(), refreshed.getActionPlanJson());
+        assertEquals(75, refreshed.getHealthScore());
+        assertEquals(PlanSource.AI, refreshed.getPlanSource());
+        assertTrue(refreshed.getProfileSnapshotJson().contains("\"riskTolerance\":8"));
+    }
+
+    @Test
+    void refreshFinancialPlan_UnchangedProfileReturnsPreviousPlan() throws Exception {
+        // Arrange
+        FinancialPlanService service = serviceWithRealMapper();
+        // 8000 与 8000.00 视为相同
+        testFinancialPlan.setProfileSnapshotJson("{\"age\":30,\"monthlyIncome\":8000,\"riskTolerance\":5}");
+        when(financialPlanRepository.findById(1L)).thenReturn(Optional.of(testFinancialPlan));
+        when(googleAiService.profileSnapshot(testUserProfile)).thenReturn(snapshot(5));
+
+        // Act
+        FinancialPlan refreshed = service.refreshFinancialPlan(1L);
 
         // Assert
-        assertNotNull(result);
-        assertTrue(result.contentLength() > 0);
-        verify(financialPlanRepository).findById(planId);
+        assertSame(testFinancialPlan, refreshed);
+        verify(googleAiService, never()).refreshPlanSections(any(), any(), anyMap(), anySet());
+        verify(financialPlanRepository, never()).save(any());
     }
 
     @Test
-    void generatePdfReport_PlanNotFound() {
+    void refreshFinancialPlan_FallsBackToLocalSectionsWhenModelFails() throws Exception {
         // Arrange
-        Long planId = 999L;
-        when(financialPlanRepository.findById(planId)).thenReturn(Optional.empty());
+        FinancialPlanService service = serviceWithRealMapper();
+        testFinancialPlan.setPlanSource(PlanSource.AI);
+        testFinancialPlan.setProfileSnapshotJson(new ObjectMapper().writeValueAsString(snapshot(5)));
+        when(financialPlanRepository.findById(1L)).thenReturn(Optional.of(testFinancialPlan));
+        when(googleAiService.profileSnapshot(testUserProfile)).thenReturn(snapshot(8));
+        when(googleAiService.refreshPlanSections(any(), any(), anyMap(), anySet()))
+                .thenThrow(new RuntimeException("Failed to refresh financial plan"));
+        AIResponseDto localPlan = new AIResponseDto();
+        localPlan.setAssetAllocation(Map.of("stocks", 70));
+        localPlan.setInvestmentRecommendations(List.of(Map.of("type", "Index funds")));
+        when(localPlanEngine.buildPlan(testUserProfile)).thenReturn(localPlan);
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Act & Assert
-        assertThrows(
-                EntityNotFoundException.class,
-                () -> financialPlanService.generatePdfReport(planId)
-        );
-        verify(financialPlanRepository).findById(planId);
+        // Act
+        FinancialPlan refreshed = service.refreshFinancialPlan(1L);
+
+        // Assert
+        assertEquals("{\"stocks\":70}", refreshed.getAssetAllocationJson());
+        assertEquals(testFinancialPlan.getGoalTimelineJson(), refreshed.getGoalTimelineJson());
+        assertEquals(PlanSource.LOCAL, refreshed.getPlanSource());
     }
 
     @Test
-    void generatePdfReport_JsonFormattingError() throws Exception {
+    void refreshFinancialPlan_SlowModel_UsesLocalSectionsAfterBudget() throws Exception {
         // Arrange
-        Long planId = 1L;
-        when(financialPlanRepository.findById(planId)).thenReturn(Optional.of(testFinancialPlan));
-        when(objectMapper.readValue(anyString(), eq(Object.class)))
-                .thenThrow(new RuntimeException("JSON parsing error"));
+        List<Runnable> pendingAiCalls = new ArrayList<>();
+        FinancialPlanService hedgedService = new FinancialPlanService(financialPlanRepository, userRepository,
+                googleAiService, new ObjectMapper(), localPlanEngine, pendingAiCalls::add, eventPublisher,
+                aiUsageMetrics, transactionManager);
+        ReflectionTestUtils.setField(hedgedService, "hedgeBudgetMs", 10L);
+        testFinancialPlan.setPlanSource(PlanSource.AI);
+        testFinancialPlan.setProfileSnapshotJson(new ObjectMapper().writeValueAsString(snapshot(5)));
+        when(financialPlanRepository.findById(1L)).thenReturn(Optional.of(testFinancialPlan));
+        when(googleAiService.profileSnapshot(testUserProfile)).thenReturn(snapshot(8));
+        AIResponseDto localPlan = new AIResponseDto();
+        localPlan.setAssetAllocation(Map.of("stocks", 70));
+        when(localPlanEngine.buildPlan(testUserProfile)).thenReturn(localPlan);
+        when(financialPlanRepository.save(any(FinancialPlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Act & Assert - Should not throw exception, should handle gracefully
-        ByteArrayResource result = financialPlanService.generatePdfReport(planId);
+        // Act
+        FinancialPlan refreshed = hedgedService.refreshFinancialPlan(1L);
 
-        assertNotNull(result);
-        verify(financialPlanRepository).findById(planId);
+        // Assert
+        assertEquals(1, pendingAiCalls.size());
+        assertEquals("{\"stocks\":70}", refreshed.getAssetAllocationJson());
+        assertEquals(PlanSource.LOCAL, refreshed.getPlanSource());
+        verify(financialPlanRepository).save(refreshed);
     }
 }
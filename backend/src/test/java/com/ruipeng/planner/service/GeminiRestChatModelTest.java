@@ -0,0 +1,100 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.support.FakeGeminiServer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeminiRestChatModelTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Duration> firstTokenTimes = new CopyOnWriteArrayList<>();
+    private FakeGeminiServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeGeminiServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private GeminiRestChatModel newModel(boolean streaming) {
+        return new GeminiRestChatModel(objectMapper, server.baseUrl(), "test-api-key", "gemini-1.5-flash",
+                0.7, 2048, Duration.ofSeconds(5), streaming, firstTokenTimes::add);
+    }
+
+    private static ChatRequest request() {
+        return ChatRequest.builder()
+                .messages(List.of(
+                        SystemMessage.from("You are a financial advisor"),
+                        UserMessage.from("{\"age\":30,\"planName\":\"Test Plan\"}")))
+                .build();
+    }
+
+    @Test
+    void should_return_templated_plan_with_token_usage() throws Exception {
+        // act
+        ChatResponse response = newModel(false).chat(request());
+
+        // assert
+        String text = response.aiMessage().text();
+        assertThat(objectMapper.readTree(text).get("healthAssessment").asText())
+                .startsWith("Test Plan: a 30-year-old");
+        assertThat(response.tokenUsage().outputTokenCount()).isPositive();
+        assertThat(server.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_reassemble_streamed_chunks() throws Exception {
+        // arrange
+        server.streamChunks(7).latency(FakeGeminiServer.LatencyDistribution.fixed(200));
+
+        // act
+        ChatResponse response = newModel(true).chat(request());
+
+        // assert
+        assertThat(objectMapper.readTree(response.aiMessage().text()).get("healthScore").asInt()).isEqualTo(72);
+        assertThat(response.tokenUsage()).isNotNull();
+        assertThat(firstTokenTimes).hasSize(1);
+        assertThat(firstTokenTimes.get(0)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void should_surface_injected_failures() {
+        // arrange
+        server.errorRate(1.0);
+
+        // act & assert
+        assertThatThrownBy(() -> newModel(false).chat(request()))
+                .hasMessageContaining("HTTP 500");
+        assertThatThrownBy(() -> newModel(true).chat(request()))
+                .hasMessageContaining("HTTP 500");
+    }
+
+    @Test
+    void should_return_malformed_text_verbatim() {
+        // arrange
+        server.malformedRate(1.0);
+
+        // act
+        ChatResponse response = newModel(false).chat(request());
+
+        // assert
+        assertThat(response.aiMessage().text()).doesNotStartWith("{");
+    }
+}
@@ -1,6 +1,7 @@
 package com.ruipeng.planner.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AIUsageDto;
 import com.ruipeng.planner.dto.FinancialPlanRequest;
 import com.ruipeng.planner.entity.UserProfile;
 import com.ruipeng.planner.entity.EducationLevel;
@@ -8,6 +9,8 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -37,19 +40,27 @@ class GoogleAIServiceTest {
 
     private ObjectMapper objectMapper;
     private GoogleAIService googleAIService;
+    private AIUsageMetrics aiUsageMetrics;
     private UserProfile mockUserProfile;
     private FinancialPlanRequest mockFinancialPlanRequest;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
+        aiUsageMetrics = new AIUsageMetrics(new SimpleMeterRegistry(), 0.075, 0.30, 10000);
 
         // 创建服务实例，使用测试配置
         googleAIService = new GoogleAIService(
                 objectMapper,
+                new ModelAdmissionService(new SimpleMeterRegistry(), 4, 50, 600, 100, 1000, 100),
+                aiUsageMetrics,
                 "test-api-key",
                 0.7,
-                2048
+                2048,
+                "gemini-1.5-flash",
+                "",
+                false,
+                60000
         );
 
         // 使用反射注入mock的geminiModel
@@ -196,6 +207,53 @@ class GoogleAIServiceTest {
         verify(mockGeminiModel).chat(any(ChatRequest.class));
     }
 
+    @Test
+    void should_record_tokens_cost_and_latency_per_endpoint() {
+        // arrange
+        String mockAIResponse = """
+            {"healthScore": 80, "healthAssessment": "Good", "assetAllocation": {"stocks": 60},
+             "goalTimeline": [], "investmentRecommendations": [], "actionPlan": []}""";
+        when(mockGeminiModel.chat(any(ChatRequest.class))).thenReturn(mockChatResponse);
+        when(mockChatResponse.aiMessage()).thenReturn(mockAiMessage);
+        when(mockChatResponse.tokenUsage()).thenReturn(new TokenUsage(1000, 500, 1500));
+        when(mockAiMessage.text()).thenReturn(mockAIResponse);
+
+        // act
+        googleAIService.generateFinancialPlan(mockUserProfile, mockFinancialPlanRequest, "regeneration");
+
+        // assert
+        AIUsageDto usage = aiUsageMetrics.getEndpointUsage().get("regeneration");
+        assertThat(usage.getCalls()).isEqualTo(1);
+        assertThat(usage.getInputTokens()).isEqualTo(1000);
+        assertThat(usage.getOutputTokens()).isEqualTo(500);
+        assertThat(usage.getCostUsd()).isCloseTo((1000 * 0.075 + 500 * 0.30) / 1_000_000, within(1e-12));
+        assertThat(aiUsageMetrics.summary(5).get("parseFailures")).isEqualTo(Map.of());
+        // 非流式调用没有首个 token 的时间
+        assertThat(aiUsageMetrics.summary(5)).doesNotContainKey("timeToFirstToken");
+    }
+
+    @Test
+    void should_count_parse_failures_and_failed_calls() {
+        // arrange
+        when(mockGeminiModel.chat(any(ChatRequest.class)))
+                .thenReturn(mockChatResponse)
+                .thenThrow(new RuntimeException("AI model connection failed"));
+        when(mockChatResponse.aiMessage()).thenReturn(mockAiMessage);
+        when(mockAiMessage.text()).thenReturn("not json");
+
+        // act
+        assertThatThrownBy(() -> googleAIService.generateFinancialPlan(mockUserProfile, mockFinancialPlanRequest))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> googleAIService.generateFinancialPlan(mockUserProfile, mockFinancialPlanRequest))
+                .isInstanceOf(RuntimeException.class);
+
+        // assert
+        assertThat(aiUsageMetrics.summary(5).get("parseFailures")).isEqualTo(Map.of("plans:invalid_json", 1L));
+        AIUsageDto usage = aiUsageMetrics.getEndpointUsage().get("plans");
+        assertThat(usage.getCalls()).isEqualTo(2);
+        assertThat(usage.getFailedCalls()).isEqualTo(1);
+    }
+
     @Test
     void should_handle_user_profile_with_null_json_fields() {
         // arrange
@@ -0,0 +1,101 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruipeng.planner.dto.AIResponseDto;
+import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.entity.EducationLevel;
+import com.ruipeng.planner.entity.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalPlanEngineTest {
+
+    private ObjectMapper objectMapper;
+    private LocalPlanEngine localPlanEngine;
+    private UserProfile profile;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        localPlanEngine = new LocalPlanEngine(objectMapper);
+
+        profile = new UserProfile();
+        profile.setAge(30);
+        profile.setEducationLevel(EducationLevel.BACHELOR);
+        profile.setMonthlyIncome(new BigDecimal("8000"));
+        profile.setMonthlyExpenses(new BigDecimal("5000"));
+        profile.setTotalSavings(new BigDecimal("10000"));
+        profile.setTotalDebt(new BigDecimal("50000"));
+        profile.setRiskTolerance(7);
+        profile.setRetirementAge(65);
+        profile.setMonthlySavings(new BigDecimal("2000"));
+        profile.setFinancialGoalsJson("[{\"goal\":\"House deposit\",\"amount\":24000},{\"goal\":\"Car\",\"amount\":12000}]");
+    }
+
+    @Test
+    void should_produce_json_with_the_same_sections_as_the_model() throws Exception {
+        // act
+        String json = localPlanEngine.generatePlan(profile, new FinancialPlanRequest());
+
+        // assert
+        JsonNode node = objectMapper.readTree(json);
+        assertThat(node.has("healthScore")).isTrue();
+        assertThat(node.has("healthAssessment")).isTrue();
+        assertThat(node.get("assetAllocation").isObject()).isTrue();
+        assertThat(node.get("goalTimeline").isArray()).isTrue();
+        assertThat(node.get("investmentRecommendations").isArray()).isTrue();
+        assertThat(node.get("actionPlan").isArray()).isTrue();
+    }
+
+    @Test
+    void should_be_deterministic() {
+        assertThat(localPlanEngine.generatePlan(profile, new FinancialPlanRequest()))
+                .isEqualTo(localPlanEngine.generatePlan(profile, new FinancialPlanRequest()));
+    }
+
+    @Test
+    void should_shift_allocation_with_age_and_risk_tolerance() {
+        // act
+        Map<String, Integer> young = localPlanEngine.assetAllocation(profile, true);
+        profile.setAge(60);
+        profile.setRiskTolerance(2);
+        Map<String, Integer> older = localPlanEngine.assetAllocation(profile, false);
+
+        // assert
+        assertThat(young.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(100);
+        assertThat(older.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(100);
+        assertThat(young.get("stocks")).isGreaterThan(older.get("stocks"));
+        assertThat(young.get("cash")).isEqualTo(10);
+    }
+
+    @Test
+    void should_schedule_goals_sequentially_from_monthly_savings() {
+        // act
+        AIResponseDto plan = localPlanEngine.buildPlan(profile);
+
+        // assert
+        assertThat(plan.getGoalTimeline()).hasSize(2);
+        assertThat(plan.getGoalTimeline().get(0).get("goal")).isEqualTo("House deposit");
+        assertThat(plan.getGoalTimeline().get(0).get("timeframe")).isEqualTo("1 year");
+        assertThat(plan.getGoalTimeline().get(0).get("priority")).isEqualTo("High");
+        assertThat(plan.getGoalTimeline().get(1).get("timeframe")).isEqualTo("1 year 6 months");
+    }
+
+    @Test
+    void should_recommend_emergency_fund_and_debt_actions_from_ratios() {
+        // act
+        AIResponseDto plan = localPlanEngine.buildPlan(profile);
+
+        // assert
+        assertThat(plan.getActionPlan())
+                .extracting(action -> action.get("action"))
+                .contains("Build an emergency fund", "Pay down high-interest debt")
+                .doesNotContain("Increase your savings rate");
+    }
+}
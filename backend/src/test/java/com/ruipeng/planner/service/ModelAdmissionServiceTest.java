@@ -0,0 +1,159 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdmissionLimitsDto;
+import com.ruipeng.planner.dto.ModelQueueStatusDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelAdmissionServiceTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ModelAdmissionService newService(int maxConcurrent, int maxQueueSize, int burst, long maxWaitMs) {
+        return new ModelAdmissionService(new SimpleMeterRegistry(),
+                maxConcurrent, maxQueueSize, 60, burst, maxWaitMs, 100);
+    }
+
+    @Test
+    void should_admit_immediately_when_under_concurrency_limit() {
+        // arrange
+        ModelAdmissionService service = newService(2, 10, 10, 1000);
+
+        // act
+        String result = service.call(1L, () -> "ok");
+
+        // assert
+        assertThat(result).isEqualTo("ok");
+        assertThat(service.getInFlight()).isZero();
+    }
+
+    @Test
+    void should_reject_when_user_bucket_is_empty() {
+        // arrange
+        ModelAdmissionService service = newService(2, 10, 1, 1000);
+        service.call(1L, () -> "first");
+
+        // act & assert
+        assertThatThrownBy(() -> service.call(1L, () -> "second"))
+                .isInstanceOf(ModelAdmissionException.class)
+                .satisfies(e -> {
+                    ModelAdmissionException ex = (ModelAdmissionException) e;
+                    assertThat(ex.getReason()).isEqualTo(ModelAdmissionException.Reason.RATE_LIMITED);
+                    assertThat(ex.getRetryAfterMs()).isPositive();
+                });
+
+        // other users keep their own bucket
+        assertThat(service.call(2L, () -> "other")).isEqualTo("other");
+    }
+
+    @Test
+    void should_reject_fast_when_queue_is_full() {
+        // arrange
+        ModelAdmissionService service = newService(1, 0, 10, 1000);
+        ModelAdmissionService.Permit held = service.acquire(1L);
+
+        // act & assert
+        assertThatThrownBy(() -> service.acquire(2L))
+                .isInstanceOf(ModelAdmissionException.class)
+                .extracting(e -> ((ModelAdmissionException) e).getReason())
+                .isEqualTo(ModelAdmissionException.Reason.QUEUE_FULL);
+
+        held.release();
+    }
+
+    @Test
+    void should_time_out_when_slot_is_not_released() {
+        // arrange
+        ModelAdmissionService service = newService(1, 5, 10, 50);
+        ModelAdmissionService.Permit held = service.acquire(1L);
+
+        // act & assert
+        assertThatThrownBy(() -> service.acquire(2L))
+                .isInstanceOf(ModelAdmissionException.class)
+                .extracting(e -> ((ModelAdmissionException) e).getReason())
+                .isEqualTo(ModelAdmissionException.Reason.TIMEOUT);
+        assertThat(service.getQueueDepth()).isZero();
+
+        held.release();
+    }
+
+    @Test
+    void should_report_queue_position_and_serve_users_round_robin() throws Exception {
+        // arrange
+        ModelAdmissionService service = newService(1, 10, 10, 5000);
+        ModelAdmissionService.Permit held = service.acquire(1L);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> service.call(2L, () -> {
+            await(release);
+            return System.nanoTime();
+        }), executor);
+        waitForQueueDepth(service, 1);
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(
+                () -> service.call(3L, () -> System.nanoTime()), executor);
+        waitForQueueDepth(service, 2);
+
+        // act
+        ModelQueueStatusDto status = service.getQueueStatus(3L);
+
+        // assert
+        assertThat(status.isQueued()).isTrue();
+        assertThat(status.getPosition()).isEqualTo(2);
+        assertThat(status.getEtaMs()).isPositive();
+        assertThat(service.getQueueStatus(99L).isQueued()).isFalse();
+
+        held.release();
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isLessThan(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_release_waiters_when_limit_is_raised() throws Exception {
+        // arrange
+        ModelAdmissionService service = newService(1, 10, 10, 5000);
+        ModelAdmissionService.Permit held = service.acquire(1L);
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> service.call(2L, () -> "done"), executor);
+        waitForQueueDepth(service, 1);
+
+        // act
+        AdmissionLimitsDto limits = new AdmissionLimitsDto();
+        limits.setMaxConcurrent(2);
+        service.updateLimits(limits);
+
+        // assert
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(service.getLimits().getMaxConcurrent()).isEqualTo(2);
+        held.release();
+    }
+
+    private static void waitForQueueDepth(ModelAdmissionService service, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getQueueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(service.getQueueDepth()).isEqualTo(depth);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.ImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OnboardingFileReaderTest {
+
+    private static OnboardingFileReader reader(String content, ImportFormat format) {
+        return new OnboardingFileReader(new BufferedReader(new StringReader(content)), format);
+    }
+
+    @Test
+    void should_read_quoted_csv_fields_and_split_lists() throws Exception {
+        // arrange
+        String csv = "\uFEFFEmail,first_name,Last Name,bio,specialties\r\n"
+                + "a@example.com,Ann,\"O\"\"Neil\",\"Line one,\nline two\",Tax; Retirement Planning\r\n"
+                + "\r\n"
+                + "b@example.com,Bob,Lee,,\n";
+
+        // act
+        OnboardingFileReader.Record first;
+        OnboardingFileReader.Record second;
+        try (OnboardingFileReader reader = reader(csv, ImportFormat.CSV)) {
+            first = reader.next();
+            second = reader.next();
+            assertThat(reader.next()).isNull();
+        }
+
+        // assert
+        assertThat(first.error()).isNull();
+        assertThat(first.fields())
+                .containsEntry("email", "a@example.com")
+                .containsEntry("firstname", "Ann")
+                .containsEntry("lastname", "O\"Neil")
+                .containsEntry("bio", "Line one,\nline two")
+                .containsEntry("specialties", List.of("Tax", "Retirement Planning"));
+        assertThat(second.number()).isEqualTo(2);
+        assertThat(second.fields()).containsOnlyKeys("email", "firstname", "lastname");
+    }
+
+    @Test
+    void should_report_bad_records_and_keep_reading() throws Exception {
+        // arrange
+        String csv = "email,firstName\na@example.com\nb@example.com,Bob\n";
+        String jsonl = "{\"email\":\"a@example.com\"}\nnot json\n[1]\n{\"first_name\":\"Bob\",\"age\":30}\n";
+
+        // act
+        List<OnboardingFileReader.Record> csvRecords = readAll(reader(csv, ImportFormat.CSV));
+        List<OnboardingFileReader.Record> jsonRecords = readAll(reader(jsonl, ImportFormat.JSONL));
+
+        // assert
+        assertThat(csvRecords).extracting(OnboardingFileReader.Record::error)
+                .containsExactly("Expected 2 columns but found 1", null);
+        assertThat(jsonRecords).hasSize(4);
+        assertThat(jsonRecords.get(1).error()).startsWith("Invalid JSON");
+        assertThat(jsonRecords.get(2).error()).isEqualTo("Expected a JSON object");
+        assertThat(jsonRecords.get(3).fields()).containsEntry("firstname", "Bob").containsEntry("age", 30);
+    }
+
+    @Test
+    void should_skip_committed_records() throws Exception {
+        // arrange
+        String csv = "email\n\"a@example.com\"\n\"multi\nline@example.com\"\nc@example.com\n";
+
+        // act
+        OnboardingFileReader.Record record;
+        try (OnboardingFileReader reader = reader(csv, ImportFormat.CSV)) {
+            reader.skip(2);
+            record = reader.next();
+        }
+
+        // assert
+        assertThat(record.number()).isEqualTo(3);
+        assertThat(record.fields()).containsEntry("email", "c@example.com");
+    }
+
+    @Test
+    void should_fail_on_unterminated_quote() {
+        // arrange
+        OnboardingFileReader reader = reader("email\n\"a@example.com\n", ImportFormat.CSV);
+
+        // act & assert
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unterminated");
+    }
+
+    private static List<OnboardingFileReader.Record> readAll(OnboardingFileReader reader) throws IOException {
+        List<OnboardingFileReader.Record> records = new ArrayList<>();
+        try (reader) {
+            for (OnboardingFileReader.Record record; (record = reader.next()) != null; ) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfPrerenderServiceTest {
+
+    @Mock
+    private FinancialPlanRepository financialPlanRepository;
+
+    @Mock
+    private PlanPdfRenderer planPdfRenderer;
+
+    @TempDir
+    Path cacheDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch renderStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseRender = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+    private PdfRenderCache pdfRenderCache;
+    private PdfPrerenderService prerenderService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(2);
+        executor.initialize();
+
+        lenient().when(financialPlanRepository.findById(anyLong())).thenAnswer(invocation -> {
+            FinancialPlan plan = new FinancialPlan();
+            plan.setId(invocation.getArgument(0));
+            plan.setPlanName("Plan " + plan.getId());
+            plan.setCreationDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+            return Optional.of(plan);
+        });
+
+        pdfRenderCache = new PdfRenderCache(planPdfRenderer, cacheDir.toString(), 1_000_000);
+        prerenderService = new PdfPrerenderService(financialPlanRepository, pdfRenderCache, executor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseRender.countDown();
+        executor.shutdown();
+    }
+
+    private void blockRenders() {
+        doAnswer(invocation -> {
+            renderStarted.countDown();
+            releaseRender.await(5, TimeUnit.SECONDS);
+            invocation.<OutputStream>getArgument(1).write(new byte[]{'%'});
+            return null;
+        }).when(planPdfRenderer).render(any(FinancialPlan.class), any(OutputStream.class));
+    }
+
+    @Test
+    void should_warm_cache_so_download_does_not_render_again() throws Exception {
+        // arrange
+        FinancialPlan plan = financialPlanRepository.findById(1L).orElseThrow();
+
+        // act
+        prerenderService.prerender(new PlanCreatedEvent(1L, Instant.now().minusMillis(50)));
+        pdfRenderCache.open(plan).close();
+
+        // assert
+        verify(planPdfRenderer, times(1)).render(any(FinancialPlan.class), any(OutputStream.class));
+        assertThat(meterRegistry.get("pdf.prerender.lag").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("pdf.prerender.lag").timer().totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        assertThat(meterRegistry.get("pdf.prerender.renders").tag("outcome", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_report_queue_depth_and_drop_when_full() throws Exception {
+        // arrange: the single worker is busy with plan 1
+        blockRenders();
+        prerenderService.onPlanCreated(new PlanCreatedEvent(1L, Instant.now()));
+        assertThat(renderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // act
+        for (long id = 2; id <= 5; id++) {
+            prerenderService.onPlanCreated(new PlanCreatedEvent(id, Instant.now()));
+        }
+
+        // assert
+        assertThat(meterRegistry.get("pdf.prerender.queue.depth").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("pdf.prerender.renders").tag("outcome", "dropped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void should_count_failures_without_propagating() {
+        // arrange
+        doThrow(new IllegalStateException("boom")).when(planPdfRenderer).render(any(FinancialPlan.class), any(OutputStream.class));
+
+        // act
+        prerenderService.prerender(new PlanCreatedEvent(1L, Instant.now()));
+
+        // assert
+        assertThat(meterRegistry.get("pdf.prerender.renders").tag("outcome", "error").counter().count()).isEqualTo(1);
+        assertThat(pdfRenderCache.size()).isZero();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.entity.FinancialPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfRenderCacheTest {
+
+    @Mock
+    private PlanPdfRenderer planPdfRenderer;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() {
+        // 每个计划渲染为 1000 字节，内容取决于健康评分
+        lenient().doAnswer(invocation -> {
+            FinancialPlan plan = invocation.getArgument(0);
+            OutputStream out = invocation.getArgument(1);
+            byte[] bytes = new byte[1000];
+            Arrays.fill(bytes, (byte) ('A' + plan.getHealthScore() % 26));
+            out.write(bytes);
+            return null;
+        }).when(planPdfRenderer).render(any(FinancialPlan.class), any(OutputStream.class));
+    }
+
+    private PdfRenderCache newCache(long maxBytes) throws Exception {
+        return new PdfRenderCache(planPdfRenderer, cacheDir.toString(), maxBytes);
+    }
+
+    private static FinancialPlan plan(long id, int healthScore) {
+        FinancialPlan plan = new FinancialPlan();
+        plan.setId(id);
+        plan.setPlanName("Plan " + id);
+        plan.setCreationDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        plan.setHealthScore(healthScore);
+        plan.setHealthAssessment("assessment");
+        return plan;
+    }
+
+    private static String read(PdfRenderCache.CachedPdf pdf) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdf.transferTo(out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void should_render_once_and_serve_hits_from_disk() throws Exception {
+        // arrange
+        PdfRenderCache cache = newCache(10_000);
+        FinancialPlan plan = plan(1L, 70);
+
+        // act
+        String first = read(cache.open(plan));
+        PdfRenderCache.CachedPdf hit = cache.open(plan);
+        String second = read(hit);
+
+        // assert
+        assertThat(second).isEqualTo(first).hasSize(1000);
+        assertThat(hit.etag()).isEqualTo(cache.etag(plan));
+        verify(planPdfRenderer, times(1)).render(any(FinancialPlan.class), any(OutputStream.class));
+    }
+
+    @Test
+    void should_rerender_when_plan_content_changes() throws Exception {
+        // arrange
+        PdfRenderCache cache = newCache(10_000);
+        FinancialPlan plan = plan(1L, 70);
+        String oldEtag = cache.etag(plan);
+        read(cache.open(plan));
+
+        // act
+        plan.setHealthScore(71);
+        PdfRenderCache.CachedPdf updated = cache.open(plan);
+
+        // assert
+        assertThat(updated.etag()).isNotEqualTo(oldEtag);
+        assertThat(read(updated)).startsWith("T");
+        assertThat(cache.size()).isEqualTo(1);
+        try (var files = Files.list(cacheDir)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void should_evict_least_recently_used_files_over_budget() throws Exception {
+        // arrange
+        PdfRenderCache cache = newCache(2_500);
+        read(cache.open(plan(1L, 70)));
+        read(cache.open(plan(2L, 70)));
+        read(cache.open(plan(1L, 70))); // 1 becomes most recently used
+
+        // act
+        read(cache.open(plan(3L, 70)));
+
+        // assert
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.totalBytes()).isEqualTo(2_000);
+        try (var files = Files.list(cacheDir)) {
+            assertThat(files.map(f -> f.getFileName().toString()))
+                    .hasSize(2)
+                    .noneMatch(name -> name.startsWith("2-"));
+        }
+    }
+
+    @Test
+    void should_rebuild_index_from_disk_on_restart() throws Exception {
+        // arrange
+        FinancialPlan plan = plan(1L, 70);
+        read(newCache(10_000).open(plan));
+        Files.writeString(cacheDir.resolve("1-123.tmp"), "partial");
+
+        // act
+        PdfRenderCache restarted = newCache(10_000);
+        read(restarted.open(plan));
+
+        // assert
+        assertThat(restarted.size()).isEqualTo(1);
+        assertThat(cacheDir.resolve("1-123.tmp")).doesNotExist();
+        verify(planPdfRenderer, times(1)).render(any(FinancialPlan.class), any(OutputStream.class));
+    }
+}
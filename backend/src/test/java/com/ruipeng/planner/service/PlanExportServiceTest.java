@@ -0,0 +1,195 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.SharedPlanExportItem;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.repository.AppointmentRepository;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanExportServiceTest {
+
+    private static final int WINDOW = 2;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private FinancialPlanRepository financialPlanRepository;
+
+    @Mock
+    private PlanPdfRenderer planPdfRenderer;
+
+    @TempDir
+    Path cacheDir;
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private ThreadPoolTaskExecutor executor;
+    private PlanExportService planExportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+
+        lenient().when(financialPlanRepository.findById(anyLong())).thenAnswer(invocation -> {
+            FinancialPlan plan = new FinancialPlan();
+            plan.setId(invocation.getArgument(0));
+            plan.setPlanName("Plan " + plan.getId());
+            return Optional.of(plan);
+        });
+        lenient().doAnswer(invocation -> {
+            FinancialPlan plan = invocation.getArgument(0);
+            renders.incrementAndGet();
+            invocation.<OutputStream>getArgument(1).write(("%PDF plan " + plan.getId()).getBytes(StandardCharsets.US_ASCII));
+            return null;
+        }).when(planPdfRenderer).render(any(FinancialPlan.class), any(OutputStream.class));
+
+        PdfRenderCache cache = new PdfRenderCache(planPdfRenderer, cacheDir.toString(), 1_000_000);
+        planExportService = new PlanExportService(appointmentRepository, financialPlanRepository, cache, executor, WINDOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private static List<SharedPlanExportItem> items(int count) {
+        List<SharedPlanExportItem> items = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            items.add(new SharedPlanExportItem(id, "Plan " + id, "Jane", "Doe"));
+        }
+        return items;
+    }
+
+    private static Map<String, String> unzip(byte[] zip) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void should_query_inclusive_date_range() {
+        // act
+        planExportService.findSharedPlans(7L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31));
+
+        // assert
+        verify(appointmentRepository).findSharedPlansForExport(7L,
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 4, 1, 0, 0));
+        assertThatThrownBy(() -> planExportService.findSharedPlans(7L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_write_one_pdf_entry_per_plan() throws Exception {
+        // arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // act
+        planExportService.writeZip(items(10), out);
+
+        // assert
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries).hasSize(10);
+        assertThat(entries).containsEntry("Doe_Jane/3-Plan-3.pdf", "%PDF plan 3");
+    }
+
+    @Test
+    void should_list_failed_plans_instead_of_aborting() throws Exception {
+        // arrange
+        when(financialPlanRepository.findById(2L)).thenReturn(Optional.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // act
+        planExportService.writeZip(items(3), out);
+
+        // assert
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries).hasSize(3).containsKey(PlanExportService.ERRORS_ENTRY);
+        assertThat(entries.get(PlanExportService.ERRORS_ENTRY)).contains("2-Plan-2.pdf", "not found");
+    }
+
+    @Test
+    void should_stop_rendering_ahead_of_a_slow_client() throws Exception {
+        // arrange: the client accepts nothing until released
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream blockedClient = new OutputStream() {
+            @Override
+            public void write(int b) throws java.io.IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Thread writer = new Thread(() -> {
+            try {
+                planExportService.writeZip(items(50), blockedClient);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // act
+        writer.start();
+        Thread.sleep(500);
+        int renderedWhileBlocked = renders.get();
+        release.countDown();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // assert: one plan being written plus at most WINDOW rendered ahead
+        assertThat(renderedWhileBlocked).isLessThanOrEqualTo(WINDOW + 1);
+        assertThat(renders.get()).isEqualTo(50);
+    }
+
+    @Test
+    void should_sanitize_entry_names() {
+        assertThat(PlanExportService.entryName(new SharedPlanExportItem(5L, "../../etc/passwd", "Li", "Wang")))
+                .isEqualTo("Wang_Li/5-etc-passwd.pdf");
+        assertThat(PlanExportService.entryName(new SharedPlanExportItem(6L, null, null, " ")))
+                .isEqualTo("unnamed_unnamed/6-unnamed.pdf");
+    }
+}
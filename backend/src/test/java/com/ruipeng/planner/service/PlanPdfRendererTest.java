@@ -0,0 +1,200 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.ruipeng.planner.entity.FinancialPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanPdfRendererTest {
+
+    private final PlanPdfRenderer renderer = new PlanPdfRenderer(new ObjectMapper());
+    private FinancialPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        plan = new FinancialPlan();
+        plan.setId(1L);
+        plan.setPlanName("Test Financial Plan");
+        plan.setCreationDate(LocalDateTime.of(2024, 3, 1, 10, 0));
+        plan.setHealthScore(75);
+        plan.setHealthAssessment("Good financial health");
+        plan.setAssetAllocationJson("{\"stocks\":60,\"bonds\":30,\"cash\":10}");
+        plan.setGoalTimelineJson("[{\"goal\":\"Emergency Fund\",\"targetAmount\":15000,\"timeframe\":\"6 months\",\"priority\":\"High\"}]");
+        plan.setInvestmentRecommendationsJson("[{\"type\":\"Index Fund\",\"allocation\":\"40%\",\"reasoning\":\"Low cost\"}]");
+        plan.setActionPlanJson("[{\"action\":\"Increase savings rate\",\"timeframe\":\"Next 3 months\",\"details\":\"Save 15%\"}]");
+    }
+
+    private String renderText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.render(plan, out);
+        StringBuilder text = new StringBuilder();
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            for (int page = 1; page <= pdf.getNumberOfPages(); page++) {
+                text.append(PdfTextExtractor.getTextFromPage(pdf.getPage(page))).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    @Test
+    void render_WritesPdfAndLeavesStreamOpen() {
+        // Arrange
+        CountingOutputStream out = new CountingOutputStream(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        // Act
+        renderer.render(plan, out);
+
+        // Assert
+        assertTrue(out.count > 0);
+        assertEquals("%PDF", new String(out.head, 0, 4, java.nio.charset.StandardCharsets.US_ASCII));
+        assertFalse(out.closed, "the response stream belongs to the caller");
+    }
+
+    @Test
+    void render_LaysOutSectionsAsTablesInsteadOfJson() throws Exception {
+        // Act
+        String text = renderText();
+
+        // Assert
+        assertTrue(text.contains("Asset Allocation"));
+        assertTrue(text.contains("Stocks"));
+        assertTrue(text.contains("60%"));
+        assertTrue(text.contains("15,000"));
+        assertTrue(text.contains("Increase savings rate"));
+        assertTrue(text.contains("75 / 100"));
+        assertFalse(text.contains("{"), "no raw JSON in the report");
+    }
+
+    @Test
+    void render_UnexpectedShapesAndInvalidJsonFallBackGracefully() throws Exception {
+        // Arrange
+        plan.setAssetAllocationJson("[\"stocks\",\"bonds\"]");
+        plan.setGoalTimelineJson("{\"shortTerm\":\"Emergency fund\",\"longTerm\":{\"goal\":\"Retirement\"}}");
+        plan.setInvestmentRecommendationsJson("not json at all");
+        plan.setActionPlanJson(null);
+
+        // Act
+        String text = renderText();
+
+        // Assert
+        assertTrue(text.contains("• stocks"));
+        assertTrue(text.contains("Short term"));
+        assertTrue(text.contains("Goal: Retirement"));
+        assertTrue(text.contains("not json at all"));
+
+        // Act & Assert: missing or unparseable allocation
+        plan.setAssetAllocationJson(null);
+        assertTrue(renderText().contains("Asset Allocation"));
+
+        plan.setAssetAllocationJson("stocks 60, bonds 40");
+        String invalidAllocation = renderText();
+        assertTrue(invalidAllocation.contains("Asset Allocation"));
+        assertTrue(invalidAllocation.contains("stocks 60, bonds 40"));
+    }
+
+    @Test
+    void humanize_SplitsCamelAndSnakeCase() {
+        assertEquals("Real estate", PlanPdfRenderer.humanize("realEstate"));
+        assertEquals("Emergency fund", PlanPdfRenderer.humanize("emergency_fund"));
+        assertEquals("Stocks", PlanPdfRenderer.humanize("stocks"));
+    }
+
+    @Test
+    void render_HeapStaysFlatWhileStreamingLargePlan() {
+        // Arrange: a plan large enough to produce a PDF of well over a megabyte
+        Random random = new Random(42);
+        StringBuilder goals = new StringBuilder("[");
+        for (int i = 0; i < 30_000; i++) {
+            if (i > 0) {
+                goals.append(',');
+            }
+            goals.append("{\"goal\":\"").append(randomText(random, 60))
+                    .append("\",\"targetAmount\":").append(random.nextInt(1_000_000)).append('}');
+        }
+        plan.setGoalTimelineJson(goals.append(']').toString());
+
+        CountingOutputStream sizing = new CountingOutputStream(Long.MAX_VALUE, Long.MAX_VALUE);
+        renderer.render(plan, sizing);
+        long total = sizing.count;
+
+        // Act: sample retained heap at 25% and 90% of the output
+        CountingOutputStream sampled = new CountingOutputStream(total / 4, total * 9 / 10);
+        renderer.render(plan, sampled);
+
+        // Assert: buffering the document or the goal table would retain at least the bytes written in between
+        long written = sampled.secondSampleAt - sampled.firstSampleAt;
+        long heapGrowth = sampled.secondSampleHeap - sampled.firstSampleHeap;
+        assertTrue(total > 1_000_000, "PDF too small for a meaningful measurement: " + total);
+        assertTrue(heapGrowth < written / 2,
+                "heap grew by " + heapGrowth + " bytes while " + written + " bytes were streamed");
+    }
+
+    private static String randomText(Random random, int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Discards output, remembering its size, first bytes and the retained heap at two offsets. */
+    private static final class CountingOutputStream extends java.io.OutputStream {
+        private final long firstSample;
+        private final long secondSample;
+        private final byte[] head = new byte[8];
+        private long count;
+        private boolean closed;
+        private long firstSampleAt = -1;
+        private long firstSampleHeap;
+        private long secondSampleAt = -1;
+        private long secondSampleHeap;
+
+        CountingOutputStream(long firstSample, long secondSample) {
+            this.firstSample = firstSample;
+            this.secondSample = secondSample;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = 0; i < len && count + i < head.length; i++) {
+                head[(int) count + i] = b[off + i];
+            }
+            count += len;
+            if (firstSampleAt < 0 && count >= firstSample) {
+                firstSampleAt = count;
+                firstSampleHeap = usedHeapAfterGc();
+            } else if (firstSampleAt >= 0 && secondSampleAt < 0 && count >= secondSample) {
+                secondSampleAt = count;
+                secondSampleHeap = usedHeapAfterGc();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
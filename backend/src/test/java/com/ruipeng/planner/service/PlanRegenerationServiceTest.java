@@ -0,0 +1,253 @@
+package com.ruipeng.planner.service;
+
+import com.ruipeng.planner.dto.AdmissionLimitsDto;
+import com.ruipeng.planner.dto.FinancialPlanRequest;
+import com.ruipeng.planner.dto.PlanRegenerationRequest;
+import com.ruipeng.planner.dto.PlanRegenerationStatusDto;
+import com.ruipeng.planner.entity.FinancialPlan;
+import com.ruipeng.planner.entity.PlanRegenerationJob;
+import com.ruipeng.planner.entity.RegenerationJobStatus;
+import com.ruipeng.planner.entity.User;
+import com.ruipeng.planner.entity.UserProfile;
+import com.ruipeng.planner.repository.FinancialPlanRepository;
+import com.ruipeng.planner.repository.PlanRegenerationJobRepository;
+import com.ruipeng.planner.repository.UserProfileRepository;
+import com.ruipeng.planner.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanRegenerationServiceTest {
+
+    @Mock
+    private PlanRegenerationJobRepository jobRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FinancialPlanRepository financialPlanRepository;
+
+    @Mock
+    private FinancialPlanService financialPlanService;
+
+    @Mock
+    private GoogleAIService googleAiService;
+
+    @Mock
+    private ModelAdmissionService admissionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PlanRegenerationService planRegenerationService;
+    private PlanRegenerationJob job;
+
+    @BeforeEach
+    void setUp() {
+        planRegenerationService = new PlanRegenerationService(jobRepository, userProfileRepository, userRepository,
+                financialPlanRepository, financialPlanService, googleAiService, admissionService,
+                new SyncTaskExecutor(), new SyncTaskExecutor(), transactionManager);
+
+        job = new PlanRegenerationJob();
+        job.setId(1L);
+        job.setStatus(RegenerationJobStatus.RUNNING);
+        job.setPlanName("2025 Refresh");
+        job.setPageSize(2);
+        job.setLastUserId(0L);
+        job.setTotalUsers(3L);
+        job.setProcessedUsers(0L);
+        job.setSucceededUsers(0L);
+        job.setFailedUsers(0L);
+    }
+
+    private static UserProfile profile(long userId) {
+        User user = new User();
+        user.setId(userId);
+        UserProfile profile = new UserProfile();
+        profile.setUser(user);
+        return profile;
+    }
+
+    private void stubCommon() {
+        AdmissionLimitsDto limits = new AdmissionLimitsDto();
+        limits.setMaxConcurrent(4);
+        lenient().when(admissionService.getLimits()).thenReturn(limits);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        lenient().when(financialPlanService.newPlan(any(), anyString())).thenAnswer(invocation -> new FinancialPlan());
+    }
+
+    @Test
+    void should_generate_pages_and_checkpoint_after_each_batch() {
+        // arrange
+        stubCommon();
+        UserProfile p1 = profile(1L), p2 = profile(2L), p3 = profile(3L);
+        when(userProfileRepository.findPageAfterUserId(eq(0L), any())).thenReturn(List.of(p1, p2));
+        when(userProfileRepository.findPageAfterUserId(eq(2L), any())).thenReturn(List.of(p3));
+        when(userProfileRepository.findPageAfterUserId(eq(3L), any())).thenReturn(List.of());
+        when(googleAiService.generateFinancialPlan(same(p1), any(FinancialPlanRequest.class), eq("regeneration"))).thenReturn("{}");
+        when(googleAiService.generateFinancialPlan(same(p2), any(FinancialPlanRequest.class), eq("regeneration")))
+                .thenThrow(new RuntimeException("Invalid JSON response from AI model"));
+        when(googleAiService.generateFinancialPlan(same(p3), any(FinancialPlanRequest.class), eq("regeneration"))).thenReturn("{}");
+        // 检查点由 recordProgress 推进
+        when(jobRepository.recordProgress(eq(1L), anyLong(), anyLong(), anyLong(), anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    job.setLastUserId(invocation.getArgument(1));
+                    return 1;
+                });
+
+        // act
+        planRegenerationService.runJob(1L);
+
+        // assert
+        verify(jobRepository).recordProgress(eq(1L), eq(2L), eq(2L), eq(1L), eq(1L),
+                contains("Invalid JSON"), any(LocalDateTime.class));
+        verify(jobRepository).recordProgress(eq(1L), eq(3L), eq(1L), eq(1L), eq(0L),
+                isNull(), any(LocalDateTime.class));
+        verify(financialPlanRepository, times(2)).saveAll(anyList());
+        verify(jobRepository).transitionStatus(eq(1L), eq(RegenerationJobStatus.RUNNING),
+                eq(RegenerationJobStatus.COMPLETED), isNull(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void should_resume_after_last_checkpoint() {
+        // arrange
+        stubCommon();
+        job.setLastUserId(42L);
+        when(userProfileRepository.findPageAfterUserId(eq(42L), any())).thenReturn(List.of());
+
+        // act
+        planRegenerationService.runJob(1L);
+
+        // assert
+        ArgumentCaptor<Long> afterUserId = ArgumentCaptor.forClass(Long.class);
+        verify(userProfileRepository).findPageAfterUserId(afterUserId.capture(), eq(PageRequest.of(0, 2)));
+        assertThat(afterUserId.getValue()).isEqualTo(42L);
+        verify(jobRepository).markResumed(eq(1L), any(LocalDateTime.class));
+        verifyNoInteractions(googleAiService);
+    }
+
+    @Test
+    void should_stop_when_job_is_cancelled() {
+        // arrange
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        job.setStatus(RegenerationJobStatus.CANCELLED);
+
+        // act
+        planRegenerationService.runJob(1L);
+
+        // assert
+        verifyNoInteractions(userProfileRepository, googleAiService, financialPlanRepository);
+    }
+
+    @Test
+    void should_retry_when_model_is_not_admitted() {
+        // arrange
+        stubCommon();
+        UserProfile p1 = profile(1L);
+        when(userProfileRepository.findPageAfterUserId(eq(0L), any())).thenReturn(List.of(p1));
+        when(googleAiService.generateFinancialPlan(same(p1), any(FinancialPlanRequest.class), eq("regeneration")))
+                .thenThrow(new ModelAdmissionException(ModelAdmissionException.Reason.QUEUE_FULL, "busy", 1))
+                .thenReturn("{}");
+        when(jobRepository.recordProgress(eq(1L), anyLong(), anyLong(), anyLong(), anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    job.setLastUserId(invocation.getArgument(1));
+                    return 1;
+                });
+        when(userProfileRepository.findPageAfterUserId(eq(1L), any())).thenReturn(List.of());
+
+        // act
+        planRegenerationService.runJob(1L);
+
+        // assert
+        verify(googleAiService, times(2)).generateFinancialPlan(same(p1), any(FinancialPlanRequest.class), eq("regeneration"));
+        verify(jobRepository).recordProgress(eq(1L), eq(1L), eq(1L), eq(1L), eq(0L), isNull(), any());
+    }
+
+    @Test
+    void should_reject_second_running_job() {
+        // arrange
+        when(jobRepository.findByStatus(RegenerationJobStatus.RUNNING)).thenReturn(List.of(job));
+        PlanRegenerationRequest request = new PlanRegenerationRequest();
+        request.setPlanName("Another");
+
+        // act & assert
+        assertThatThrownBy(() -> planRegenerationService.startJob(request))
+                .isInstanceOf(IllegalStateException.class);
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void should_reject_job_that_loses_the_race_to_the_running_constraint() {
+        // arrange: 两个请求都通过了 RUNNING 检查，后插入的违反唯一约束
+        when(jobRepository.findByStatus(RegenerationJobStatus.RUNNING)).thenReturn(List.of());
+        when(jobRepository.save(any(PlanRegenerationJob.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_plan_regeneration_jobs_running"));
+        PlanRegenerationRequest request = new PlanRegenerationRequest();
+        request.setPlanName("Another");
+
+        // act & assert
+        assertThatThrownBy(() -> planRegenerationService.startJob(request))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("A plan regeneration job is already running");
+        verify(jobRepository, never()).markResumed(anyLong(), any());
+    }
+
+    @Test
+    void should_mark_new_job_as_the_running_one() {
+        // arrange: 同步执行器会立即运行任务，这里让它看到已取消的状态后直接返回
+        when(jobRepository.findByStatus(RegenerationJobStatus.RUNNING)).thenReturn(List.of());
+        ArgumentCaptor<PlanRegenerationJob> saved = ArgumentCaptor.forClass(PlanRegenerationJob.class);
+        when(jobRepository.save(saved.capture())).thenAnswer(invocation -> {
+            PlanRegenerationJob created = invocation.getArgument(0);
+            created.setId(1L);
+            return created;
+        });
+        job.setStatus(RegenerationJobStatus.CANCELLED);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        PlanRegenerationRequest request = new PlanRegenerationRequest();
+        request.setPlanName("2025 Refresh");
+
+        // act
+        planRegenerationService.startJob(request);
+
+        // assert
+        assertThat(saved.getValue().getRunningGuard()).isTrue();
+    }
+
+    @Test
+    void should_report_throughput_and_eta_for_current_run() {
+        // arrange
+        job.setTotalUsers(1000L);
+        job.setProcessedUsers(400L);
+        job.setProcessedAtResume(100L);
+        job.setResumedAt(LocalDateTime.now().minusMinutes(10));
+
+        // act
+        PlanRegenerationStatusDto status = planRegenerationService.toStatusDto(job);
+
+        // assert: 300 users in 10 minutes, 600 remaining
+        assertThat(status.getUsersPerMinute()).isBetween(29.0, 31.0);
+        assertThat(status.getEtaSeconds()).isBetween(1150L, 1250L);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ruipeng.planner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileDeltaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode json(String value) throws Exception {
+        return objectMapper.readTree(value);
+    }
+
+    @Test
+    void should_ignore_numeric_scale_and_field_order() throws Exception {
+        // act
+        ProfileDelta delta = ProfileDelta.between(
+                json("{\"monthlyIncome\":8000,\"financialGoals\":[{\"goal\":\"Car\",\"amount\":12000}]}"),
+                json("{\"financialGoals\":[{\"amount\":12000.00,\"goal\":\"Car\"}],\"monthlyIncome\":8000.00}"));
+
+        // assert
+        assertThat(delta.isEmpty()).isTrue();
+        assertThat(delta.affectedSections()).isEmpty();
+    }
+
+    @Test
+    void should_map_changed_fields_to_affected_sections() throws Exception {
+        // act
+        ProfileDelta delta = ProfileDelta.between(
+                json("{\"totalDebt\":10000,\"occupation\":\"Engineer\"}"),
+                json("{\"totalDebt\":2000,\"occupation\":\"Engineer\"}"));
+
+        // assert
+        assertThat(delta.changedFields()).containsExactly("totalDebt");
+        assertThat(delta.affectedSections()).containsExactly(ProfileDelta.HEALTH, ProfileDelta.ACTION_PLAN);
+        assertThat(delta.toJson(objectMapper).toString())
+                .isEqualTo("{\"totalDebt\":{\"from\":10000,\"to\":2000}}");
+    }
+
+    @Test
+    void should_treat_unknown_fields_as_affecting_every_section() throws Exception {
+        // act
+        ProfileDelta delta = ProfileDelta.between(json("{}"), json("{\"maritalStatus\":\"MARRIED\"}"));
+
+        // assert
+        assertThat(delta.affectedSections()).hasSize(5);
+    }
+}
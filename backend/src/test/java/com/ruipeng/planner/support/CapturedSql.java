@@ -0,0 +1,33 @@
+package com.ruipeng.planner.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate {@link StatementInspector} that records the SQL it is about to prepare. Enable it with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ruipeng.planner.support.CapturedSql}.
+ */
+public class CapturedSql implements StatementInspector {
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        statements.clear();
+    }
+
+    public static String lastSelect() {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).trim().regionMatches(true, 0, "select", 0, 6)) {
+                return statements.get(i);
+            }
+        }
+        throw new IllegalStateException("No SELECT was captured");
+    }
+}
@@ -0,0 +1,267 @@
+package com.ruipeng.planner.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeddable fake of the Gemini {@code generateContent} / {@code streamGenerateContent} REST API.
+ * Point the application at it with {@code google.ai.base-url=<baseUrl()>} to exercise the plan
+ * pipeline against configurable latency, failure rates and canned (templated) plans.
+ *
+ * <p>Template placeholders such as {@code {{age}}} or {@code {{planName}}} are replaced with the
+ * matching top-level field of the JSON user prompt the service sends.
+ */
+public class FakeGeminiServer implements AutoCloseable {
+
+    public static final String DEFAULT_PLAN_TEMPLATE = """
+            {
+              "healthScore": 72,
+              "healthAssessment": "{{planName}}: a {{age}}-year-old with risk tolerance {{riskTolerance}} is on a reasonable track.",
+              "assetAllocation": {"stocks": 60, "bonds": 30, "cash": 10},
+              "goalTimeline": [{"goal": "Emergency fund", "targetAmount": 15000, "priority": "High", "timeframe": "1 year"}],
+              "investmentRecommendations": [{"type": "Index funds", "allocation": 60, "reasoning": "Low-cost diversification"}],
+              "actionPlan": [{"action": "Automate savings", "timeframe": "This month", "details": "Set up a recurring transfer"}]
+            }
+            """;
+
+    /** Samples a response latency in milliseconds. */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+        long sampleMs();
+
+        static LatencyDistribution fixed(long ms) {
+            return () -> ms;
+        }
+
+        static LatencyDistribution uniform(long minMs, long maxMs) {
+            return () -> ThreadLocalRandom.current().nextLong(minMs, maxMs + 1);
+        }
+
+        /** Long-tailed latency, closer to a real model: median {@code medianMs}, spread {@code sigma}. */
+        static LatencyDistribution logNormal(long medianMs, double sigma) {
+            return () -> Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private volatile LatencyDistribution latency = LatencyDistribution.fixed(0);
+    private volatile double errorRate;
+    private volatile double rateLimitRate;
+    private volatile double malformedRate;
+    private volatile int streamChunks = 4;
+    private volatile String template = DEFAULT_PLAN_TEMPLATE;
+
+    private FakeGeminiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/v1beta/models/", this::handle);
+        server.start();
+    }
+
+    public static FakeGeminiServer start() throws IOException {
+        return new FakeGeminiServer(0);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta";
+    }
+
+    public FakeGeminiServer latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /** Fraction of requests answered with HTTP 500. */
+    public FakeGeminiServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /** Fraction of requests answered with HTTP 429. */
+    public FakeGeminiServer rateLimitRate(double rateLimitRate) {
+        this.rateLimitRate = rateLimitRate;
+        return this;
+    }
+
+    /** Fraction of requests answered with text that is not valid JSON. */
+    public FakeGeminiServer malformedRate(double malformedRate) {
+        this.malformedRate = malformedRate;
+        return this;
+    }
+
+    public FakeGeminiServer streamChunks(int streamChunks) {
+        this.streamChunks = Math.max(1, streamChunks);
+        return this;
+    }
+
+    public FakeGeminiServer template(String template) {
+        this.template = template;
+        return this;
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public void resetRequestCount() {
+        requestCount.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            if (!"POST".equals(exchange.getRequestMethod())
+                    || !(path.endsWith(":generateContent") || path.endsWith(":streamGenerateContent"))) {
+                sendJson(exchange, 404, error(404, "NOT_FOUND", "Unknown method " + path));
+                return;
+            }
+
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+            long delayMs = Math.max(0, latency.sampleMs());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                sleep(delayMs);
+                sendJson(exchange, 500, error(500, "INTERNAL", "Injected failure"));
+                return;
+            }
+            if (roll < errorRate + rateLimitRate) {
+                sendJson(exchange, 429, error(429, "RESOURCE_EXHAUSTED", "Injected rate limit"));
+                return;
+            }
+            String text = roll < errorRate + rateLimitRate + malformedRate
+                    ? "I'm sorry, I can't produce a plan right now."
+                    : render(template, request);
+
+            if (path.endsWith(":streamGenerateContent")) {
+                stream(exchange, text, delayMs);
+            } else {
+                sleep(delayMs);
+                sendJson(exchange, 200, chunk(text, true, request));
+            }
+        }
+    }
+
+    private void stream(HttpExchange exchange, String text, long delayMs) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        // 首个分片在一半延迟后到达，其余分片均匀分布在剩余时间里
+        int chunks = Math.min(streamChunks, Math.max(1, text.length()));
+        int size = (text.length() + chunks - 1) / chunks;
+        sleep(delayMs / 2);
+        for (int i = 0; i < chunks; i++) {
+            if (i > 0) {
+                sleep(delayMs / 2 / chunks);
+            }
+            String part = text.substring(Math.min(i * size, text.length()), Math.min((i + 1) * size, text.length()));
+            String event = "data: " + objectMapper.writeValueAsString(chunk(part, i == chunks - 1, null)) + "\n\n";
+            out.write(event.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private ObjectNode chunk(String text, boolean last, JsonNode request) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        ObjectNode content = candidate.putObject("content");
+        content.put("role", "model");
+        content.putArray("parts").addObject().put("text", text);
+        if (last) {
+            candidate.put("finishReason", "STOP");
+            int promptTokens = request != null ? request.toString().length() / 4 : 0;
+            int outputTokens = text.length() / 4;
+            ObjectNode usage = response.putObject("usageMetadata");
+            usage.put("promptTokenCount", promptTokens);
+            usage.put("candidatesTokenCount", outputTokens);
+            usage.put("totalTokenCount", promptTokens + outputTokens);
+        }
+        return response;
+    }
+
+    private String render(String template, JsonNode request) {
+        String result = template;
+        JsonNode userPrompt = userPrompt(request);
+        if (userPrompt == null) {
+            return result;
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = userPrompt.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (field.getValue().isValueNode()) {
+                result = result.replace("{{" + field.getKey() + "}}", field.getValue().asText());
+            }
+        }
+        return result;
+    }
+
+    private JsonNode userPrompt(JsonNode request) {
+        for (JsonNode content : request.path("contents")) {
+            if ("user".equals(content.path("role").asText())) {
+                try {
+                    return objectMapper.readTree(content.path("parts").path(0).path("text").asText());
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ObjectNode error(int code, String status, String message) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode error = body.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+        error.put("status", status);
+        return body;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,4 +1,4 @@
-import { Advisor, AdvisorProfileDto, AvailabilitySlot, AvailabilitySlotDto, TimeSlot } from '../types';
+import { Advisor, AdvisorDirectoryFilters, AdvisorDirectoryPage, AdvisorProfileDto, AvailabilitySlot, AvailabilitySlotDto, TagSuggestion, TimeSlot } from '../types';
 import axiosInstance from './axios';
 
 class AdvisorService {
@@ -12,13 +12,26 @@ class AdvisorService {
     return response.data;
   }
 
-  async getAdvisorsBySpecialty(specialty: string): Promise<Advisor[]> {
-    const response = await axiosInstance.get(`/advisors/specialty/${specialty}`);
+  async getAdvisorDirectory(filters: AdvisorDirectoryFilters = {}): Promise<AdvisorDirectoryPage> {
+    const response = await axiosInstance.get('/advisors/directory', { params: filters });
     return response.data;
   }
 
-  async getAdvisorsByLanguage(language: string): Promise<Advisor[]> {
-    const response = await axiosInstance.get(`/advisors/language/${language}`);
+  async getAdvisorsBySpecialty(specialty: string): Promise<AdvisorDirectoryPage> {
+    return this.getAdvisorDirectory({ specialty });
+  }
+
+  async getAdvisorsByLanguage(language: string): Promise<AdvisorDirectoryPage> {
+    return this.getAdvisorDirectory({ language });
+  }
+
+  async suggestSpecialties(prefix: string, limit?: number): Promise<TagSuggestion[]> {
+    const response = await axiosInstance.get('/advisors/typeahead/specialties', { params: { prefix, limit } });
+    return response.data;
+  }
+
+  async suggestLanguages(prefix: string, limit?: number): Promise<TagSuggestion[]> {
+    const response = await axiosInstance.get('/advisors/typeahead/languages', { params: { prefix, limit } });
     return response.data;
   }
 
@@ -48,6 +61,14 @@ class AdvisorService {
     });
     return response.data;
   }
+
+  async exportSharedPlans(startDate: string, endDate: string): Promise<Blob> {
+    const response = await axiosInstance.get('/advisors/plans/export', {
+      params: { startDate, endDate },
+      responseType: 'blob',
+    });
+    return response.data;
+  }
 }
 
 export default new AdvisorService();
\ No newline at end of file
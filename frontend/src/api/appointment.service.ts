@@ -1,14 +1,20 @@
-import { Appointment, AppointmentCreateDto, AppointmentDetails } from '@/types';
+import { Appointment, AppointmentCreateDto, AppointmentDetails, AppointmentListFilters, AppointmentPage } from '@/types';
 import axiosInstance from './axios';
 
 class AppointmentService {
-  async getUserAppointments(): Promise<AppointmentDetails[]> {
-    const response = await axiosInstance.get('/appointments/user');
+  async listUserAppointments(filters: AppointmentListFilters = {}): Promise<AppointmentPage> {
+    const response = await axiosInstance.get('/appointments/user', { params: filters });
     return response.data;
   }
 
-  async getAdvisorAppointments(): Promise<Appointment[]> {
-    const response = await axiosInstance.get('/appointments/advisor');
+  // 仪表盘和时间线只需要最近的预约
+  async getUserAppointments(): Promise<AppointmentDetails[]> {
+    const page = await this.listUserAppointments({ size: 100 });
+    return page.appointments;
+  }
+
+  async getAdvisorAppointments(filters: AppointmentListFilters = {}): Promise<AppointmentPage> {
+    const response = await axiosInstance.get('/appointments/advisor', { params: filters });
     return response.data;
   }
 
@@ -1,14 +1,19 @@
 
-import { FinancialPlan, FinancialPlanRequest } from '@/types';
+import { FinancialPlan, FinancialPlanPage, FinancialPlanRequest, FinancialPlanSummary } from '@/types';
 import axiosInstance from './axios';
 
 class FinancialPlanService {
-  async getUserPlans(): Promise<FinancialPlan[]> {
-    const response = await axiosInstance.get('/plans');
-    console.log(response.data);
+  async listUserPlans(page = 0, size = 20): Promise<FinancialPlanPage> {
+    const response = await axiosInstance.get('/plans', { params: { page, size } });
     return response.data;
   }
 
+  // 仪表盘、时间线和预约页只显示最近的计划摘要
+  async getUserPlans(): Promise<FinancialPlanSummary[]> {
+    const page = await this.listUserPlans(0, 100);
+    return page.plans;
+  }
+
   async getPlanById(id: number): Promise<FinancialPlan> {
     const response = await axiosInstance.get(`/plans/${id}`);
     return response.data;
@@ -24,6 +29,11 @@ class FinancialPlanService {
     return response.data;
   }
 
+  async refreshPlan(id: number): Promise<FinancialPlan> {
+    const response = await axiosInstance.post(`/plans/${id}/refresh`);
+    return response.data;
+  }
+
   async downloadPlanPdf(id: number): Promise<Blob> {
     const response = await axiosInstance.get(`/plans/${id}/pdf`, {
       responseType: 'blob',
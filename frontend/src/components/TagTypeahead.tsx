@@ -0,0 +1,60 @@
+import { useEffect, useState } from 'react';
+import { Autocomplete, TextField } from '@mui/material';
+import { TagSuggestion } from '@/types';
+
+interface TagTypeaheadProps {
+  label: string;
+  value: string | null;
+  onChange: (value: string | null) => void;
+  fetchSuggestions: (prefix: string) => Promise<TagSuggestion[]>;
+}
+
+// 输入停顿后再请求，较早请求的结果到得晚时直接丢弃
+const DEBOUNCE_MS = 150;
+
+const TagTypeahead = ({ label, value, onChange, fetchSuggestions }: TagTypeaheadProps) => {
+  const [input, setInput] = useState('');
+  const [options, setOptions] = useState<TagSuggestion[]>([]);
+
+  useEffect(() => {
+    let active = true;
+    const timer = setTimeout(async () => {
+      try {
+        const suggestions = await fetchSuggestions(input);
+        if (active) {
+          setOptions(suggestions);
+        }
+      } catch (error) {
+        console.error('Typeahead error:', error);
+      }
+    }, DEBOUNCE_MS);
+
+    return () => {
+      active = false;
+      clearTimeout(timer);
+    };
+  }, [input, fetchSuggestions]);
+
+  return (
+    <Autocomplete
+      sx={{ minWidth: 240 }}
+      options={options.map(option => option.value)}
+      value={value}
+      onChange={(_, selected) => onChange(selected)}
+      inputValue={input}
+      onInputChange={(_, text) => setInput(text)}
+      filterOptions={options => options}
+      renderOption={(props, option) => {
+        const suggestion = options.find(s => s.value === option);
+        return (
+          <li {...props} key={option}>
+            {option} ({suggestion?.advisorCount ?? 0})
+          </li>
+        );
+      }}
+      renderInput={params => <TextField {...params} label={label} size="small" />}
+    />
+  );
+};
+
+export default TagTypeahead;
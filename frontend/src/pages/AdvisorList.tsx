@@ -2,6 +2,7 @@ import { useEffect, useState } from 'react';
 import { Link } from 'react-router-dom';
 import { toast } from 'react-toastify';
 import advisorService from '../api/advisor.service';
+import TagTypeahead from '../components/TagTypeahead';
 import { Advisor } from '@/types';
 
 import {
@@ -23,12 +24,16 @@ import {
 } from '@mui/material';
 import { Search as SearchIcon } from '@mui/icons-material';
 
+const suggestSpecialties = (prefix: string) => advisorService.suggestSpecialties(prefix);
+const suggestLanguages = (prefix: string) => advisorService.suggestLanguages(prefix);
+
 const AdvisorList = () => {
   const [advisors, setAdvisors] = useState<Advisor[]>([]);
   const [filteredAdvisors, setFilteredAdvisors] = useState<Advisor[]>([]);
   const [loading, setLoading] = useState(true);
   const [searchTerm, setSearchTerm] = useState('');
   const [selectedSpecialty, setSelectedSpecialty] = useState<string | null>(null);
+  const [selectedLanguage, setSelectedLanguage] = useState<string | null>(null);
 
   useEffect(() => {
     const fetchAdvisors = async () => {
@@ -70,8 +75,15 @@ const AdvisorList = () => {
       );
     }
 
+    // Filter by language
+    if (selectedLanguage) {
+      filtered = filtered.filter(
+        advisor => (advisor.languages || []).includes(selectedLanguage)
+      );
+    }
+
     setFilteredAdvisors(filtered);
-  }, [advisors, searchTerm, selectedSpecialty]);
+  }, [advisors, searchTerm, selectedSpecialty, selectedLanguage]);
 
   // Get unique specialties from all advisors
   const allSpecialties = advisors.reduce((specialties, advisor) => {
@@ -113,6 +125,21 @@ const AdvisorList = () => {
           sx={{ mb: 2 }}
         />
 
+        <Box display="flex" flexWrap="wrap" gap={2} mb={2}>
+          <TagTypeahead
+            label="Specialty"
+            value={selectedSpecialty}
+            onChange={setSelectedSpecialty}
+            fetchSuggestions={suggestSpecialties}
+          />
+          <TagTypeahead
+            label="Language"
+            value={selectedLanguage}
+            onChange={setSelectedLanguage}
+            fetchSuggestions={suggestLanguages}
+          />
+        </Box>
+
         <Box display="flex" flexWrap="wrap" gap={1}>
           {allSpecialties.map(specialty => (
             <Chip
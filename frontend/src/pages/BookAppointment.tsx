@@ -7,7 +7,7 @@ import advisorService from '../api/advisor.service';
 import financialPlanService from '../api/financial-plan.service';
 import appointmentService from '../api/appointment.service';
 import oauthService from '../api/oauth.service';
-import { Advisor, FinancialPlan, TimeSlot, AppointmentCreateDto } from '@/types';
+import { Advisor, FinancialPlanSummary, TimeSlot, AppointmentCreateDto } from '@/types';
 import {
   Container,
   Typography,
@@ -63,7 +63,7 @@ const BookAppointment = () => {
   const navigate = useNavigate();
 
   const [advisor, setAdvisor] = useState<Advisor | null>(null);
-  const [userPlans, setUserPlans] = useState<FinancialPlan[]>([]);
+  const [userPlans, setUserPlans] = useState<FinancialPlanSummary[]>([]);
   const [availableSlots, setAvailableSlots] = useState<TimeSlot[]>([]);
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
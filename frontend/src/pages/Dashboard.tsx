@@ -3,7 +3,7 @@ import { Link } from 'react-router-dom';
 import { toast } from 'react-toastify';
 import financialPlanService from '../api/financial-plan.service';
 import appointmentService from '../api/appointment.service';
-import { FinancialPlan, AppointmentDetails } from '@/types';
+import { FinancialPlanSummary, AppointmentDetails } from '@/types';
 import {
   Container,
   Typography,
@@ -37,7 +37,7 @@ import {
 import { format } from 'date-fns';
 
 const Dashboard = () => {
-  const [plans, setPlans] = useState<FinancialPlan[]>([]);
+  const [plans, setPlans] = useState<FinancialPlanSummary[]>([]);
   const [appointments, setAppointments] = useState<AppointmentDetails[]>([]);
   const [loading, setLoading] = useState(true);
 
@@ -4,7 +4,7 @@ import { toast } from 'react-toastify';
 import { format } from 'date-fns';
 import financialPlanService from '../api/financial-plan.service';
 import appointmentService from '../api/appointment.service';
-import { FinancialPlan, Appointment, AppointmentDetails } from '@/types';
+import { FinancialPlanSummary, Appointment, AppointmentDetails } from '@/types';
 import {
   Container,
   Typography,
@@ -29,7 +29,7 @@ type TimelineEvent = {
   date: string;
   title: string;
   content: string;
-  data: FinancialPlan | AppointmentDetails;
+  data: FinancialPlanSummary | AppointmentDetails;
 };
 
 const Timeline = () => {
@@ -62,6 +62,25 @@ export interface FinancialPlan {
   goalTimelineJson: string;
   investmentRecommendationsJson: string;
   actionPlanJson: string;
+  provisional?: boolean;
+  planSource?: 'AI' | 'LOCAL';
+}
+
+// 列表视图只需要的字段；完整内容通过 getPlanById 获取
+export interface FinancialPlanSummary {
+  id: number;
+  planName: string;
+  creationDate: string;
+  healthScore: number;
+  healthAssessment: string;
+  shareCode: string;
+}
+
+export interface FinancialPlanPage {
+  plans: FinancialPlanSummary[];
+  page: number;
+  size: number;
+  hasNext: boolean;
 }
 
 export interface Appointment {
@@ -95,6 +114,11 @@ export interface AppointmentDetails {
   advisorProfessionalTitle: string;
   advisorSpecialties: string[];
 
+  // 客户信息
+  clientId: number;
+  clientFirstName: string;
+  clientLastName: string;
+
   // 平铺的共享计划信息（可选）
   sharedPlanId?: number;
   sharedPlanName?: string;
@@ -102,6 +126,21 @@ export interface AppointmentDetails {
   sharedPlanHealthAssessment?: string;
 }
 
+export interface AppointmentListFilters {
+  status?: 'CONFIRMED' | 'CANCELLED' | 'COMPLETED';
+  startDate?: string;
+  endDate?: string;
+  page?: number;
+  size?: number;
+}
+
+export interface AppointmentPage {
+  appointments: AppointmentDetails[];
+  page: number;
+  size: number;
+  hasNext: boolean;
+}
+
 // Request/Response Types
 export interface LoginRequest {
   email: string;
@@ -149,15 +188,39 @@ export interface FinancialPlanRequest {
   additionalInstructions?: string;
 }
 
+// Mirrors the backend AdvisorProfileDto: directory rows fill every field, profile updates send only the editable ones
 export interface AdvisorProfileDto {
+  id?: number;
+  firstName?: string;
+  lastName?: string;
   professionalTitle?: string;
   experienceYears?: number;
+  averageRating?: number | null;
   bio?: string;
   profileImageUrl?: string;
   specialties?: string[];
   languages?: string[];
 }
 
+export interface AdvisorDirectoryFilters {
+  specialty?: string;
+  language?: string;
+  minRating?: number;
+  minExperienceYears?: number;
+  cursor?: string;
+  size?: number;
+}
+
+export interface AdvisorDirectoryPage {
+  advisors: AdvisorProfileDto[];
+  nextCursor: string | null;
+}
+
+export interface TagSuggestion {
+  value: string;
+  advisorCount: number;
+}
+
 export interface AvailabilitySlotDto {
   dayOfWeek?: number;
   startTime: string;